@@ -1,5 +1,6 @@
 plugins {
     id("com.android.application")
+    id("androidx.baselineprofile")
 }
 
 android {
@@ -36,6 +37,19 @@ android {
         viewBinding = true
     }
 
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                // Benchmarks are opt-in: ./gradlew :app:testDebugUnitTest -Pbenchmark
+                it.systemProperty("notionary.benchmark", project.hasProperty("benchmark"))
+                project.properties.filterKeys { key -> key.startsWith("notionary.benchmark.") }
+                    .forEach { (key, value) -> it.systemProperty(key, value.toString()) }
+                it.maxHeapSize = "3g"
+            }
+        }
+    }
+
     packagingOptions {
         resources {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
@@ -46,6 +60,9 @@ android {
 dependencies {
     coreLibraryDesugaring("com.android.tools:desugar_jdk_libs:2.0.4")
 
+    // Pure-JVM models and sync logic
+    implementation(project(":core"))
+
     // AndroidX Core dependencies
     implementation("androidx.core:core:1.12.0")
     implementation("androidx.appcompat:appcompat:1.6.1")
@@ -70,6 +87,10 @@ dependencies {
     // Paging 3
     implementation("androidx.paging:paging-runtime:3.2.1")
 
+    // Baseline profile installation for builds not delivered through Play
+    implementation("androidx.profileinstaller:profileinstaller:1.3.1")
+    baselineProfile(project(":benchmark"))
+
     // Splash Screen
     implementation("androidx.core:core-splashscreen:1.0.1")
 
@@ -95,10 +116,18 @@ dependencies {
 
     // Test dependencies
     testImplementation("junit:junit:4.13.2")
+    testImplementation("org.robolectric:robolectric:4.11.1")
+    testImplementation("androidx.test:core:1.5.0")
+    testImplementation("androidx.arch.core:core-testing:2.2.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 }
 
+baselineProfile {
+    // Profiles are generated on demand with :app:generateBaselineProfile and checked in
+    automaticGenerationDuringBuild = false
+}
+
 // Apply google-services plugin at the end
 apply(plugin = "com.google.gms.google-services")
 
@@ -1,25 +1,71 @@
 package com.collab.productivity;
 
+import android.app.Activity;
 import android.app.Application;
+import android.os.Bundle;
+import com.collab.productivity.utils.FirestoreMeter;
 import com.collab.productivity.utils.Logger;
+import com.collab.productivity.utils.StartupTimeline;
 import com.collab.productivity.data.database.DatabaseProvider;
 import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.model.FileTreeIndex;
 
 public class NotionaryApp extends Application {
     private AppDatabase database;
+    // Seeded by the first FileRepository, off the main thread
+    private final FileTreeIndex fileTree = new FileTreeIndex();
 
     @Override
     public void onCreate() {
         super.onCreate();
+        StartupTimeline.mark(StartupTimeline.APP_CREATE);
         Logger.init(getFilesDir());
         Logger.i("App", "Application started");
+        StartupTimeline.mark(StartupTimeline.LOGGER_READY);
 
         // Initialize database
         database = DatabaseProvider.getDatabase(this);
         Logger.i("App", "Database initialized");
+        StartupTimeline.mark(StartupTimeline.DATABASE_READY);
+
+        // Attribute Firestore reads and writes to the screen in the foreground
+        FirestoreMeter.getInstance().init(this);
+        registerActivityLifecycleCallbacks(new ScreenTracker());
     }
 
     public AppDatabase getDatabase() {
         return database;
     }
+
+    /**
+     * In-memory folder tree shared by every FileRepository
+     */
+    public FileTreeIndex getFileTree() {
+        return fileTree;
+    }
+
+    private static class ScreenTracker implements ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityResumed(Activity activity) {
+            FirestoreMeter.getInstance().setCurrentScreen(activity.getClass().getSimpleName());
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) { }
+
+        @Override
+        public void onActivityStarted(Activity activity) { }
+
+        @Override
+        public void onActivityPaused(Activity activity) { }
+
+        @Override
+        public void onActivityStopped(Activity activity) { }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) { }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) { }
+    }
 }
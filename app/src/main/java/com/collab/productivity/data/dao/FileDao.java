@@ -4,10 +4,18 @@ import androidx.lifecycle.LiveData;
 import androidx.paging.PagingSource;
 import androidx.room.*;
 import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FolderStats;
+import com.collab.productivity.data.model.FolderSummary;
+import com.collab.productivity.data.sync.SyncReconciler;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @Dao
 public interface FileDao {
+    /** Ids per DELETE, below SQLite's limit of 999 bound variables */
+    int DELETE_CHUNK = 500;
+
     @Query("SELECT * FROM files WHERE parent_folder_id IS NULL")
     LiveData<List<FileItem>> getRootItems();
 
@@ -27,9 +35,18 @@ public interface FileDao {
            "name COLLATE NOCASE ASC")
     LiveData<List<FileItem>> getAllFiles();
 
+    /**
+     * Every row, unordered, for seeding the in-memory folder tree
+     */
+    @Query("SELECT * FROM files")
+    List<FileItem> getAllFilesSync();
+
     @Insert
     long insert(FileItem fileItem);
 
+    @Insert
+    List<Long> insertAll(List<FileItem> fileItems);
+
     @Update
     void update(FileItem fileItem);
 
@@ -41,6 +58,83 @@ public interface FileDao {
            "name COLLATE NOCASE ASC")
     LiveData<List<FileItem>> getItemsInFolderSorted(Long folderId);
 
+    @Query("SELECT COUNT(*) AS itemCount, COALESCE(SUM(size), 0) AS totalSize " +
+           "FROM files WHERE parent_folder_id = :folderId")
+    LiveData<FolderSummary> getFolderSummary(long folderId);
+
+    @Query("SELECT COUNT(*) AS itemCount, COALESCE(SUM(size), 0) AS totalSize " +
+           "FROM files WHERE parent_folder_id IS NULL")
+    LiveData<FolderSummary> getRootSummary();
+
+    /**
+     * Maintained recursive totals of one folder, an O(1) read
+     */
+    @Query("SELECT * FROM folder_stats WHERE folder_id = :folderId")
+    LiveData<FolderStats> getFolderStats(long folderId);
+
+    /**
+     * Recursive totals of everything in the root, summed over the root's children
+     */
+    @Query("SELECT 0 AS folder_id, " +
+           "COUNT(*) + IFNULL(SUM(s.descendant_count), 0) AS descendant_count, " +
+           "IFNULL(SUM(f.size + IFNULL(s.total_bytes, 0)), 0) AS total_bytes " +
+           "FROM files f LEFT JOIN folder_stats s ON s.folder_id = f.id " +
+           "WHERE f.parent_folder_id IS NULL")
+    LiveData<FolderStats> getRootStats();
+
+    @Query("SELECT s.* FROM folder_stats s JOIN files f ON f.id = s.folder_id " +
+           "WHERE f.parent_folder_id = :folderId")
+    LiveData<List<FolderStats>> getChildFolderStats(long folderId);
+
+    @Query("SELECT s.* FROM folder_stats s JOIN files f ON f.id = s.folder_id " +
+           "WHERE f.parent_folder_id IS NULL")
+    LiveData<List<FolderStats>> getRootFolderStats();
+
+    /**
+     * Every item below a folder, at any depth, read from the closure table
+     */
+    @Query("SELECT f.* FROM files f JOIN file_closure c ON c.descendant_id = f.id " +
+           "WHERE c.ancestor_id = :folderId AND c.depth > 0")
+    List<FileItem> getSubtree(long folderId);
+
+    /**
+     * Items below a folder down to maxDepth levels, 1 being its direct children
+     */
+    @Query("SELECT f.* FROM files f JOIN file_closure c ON c.descendant_id = f.id " +
+           "WHERE c.ancestor_id = :folderId AND c.depth BETWEEN 1 AND :maxDepth")
+    List<FileItem> getSubtreeToDepth(long folderId, int maxDepth);
+
+    /**
+     * The folders containing an item, from the top level down to its parent
+     */
+    @Query("SELECT f.* FROM files f JOIN file_closure c ON c.ancestor_id = f.id " +
+           "WHERE c.descendant_id = :id AND c.depth > 0 ORDER BY c.depth DESC")
+    List<FileItem> getAncestors(long id);
+
+    /**
+     * Number of folders above an item, 0 for a top-level item
+     */
+    @Query("SELECT IFNULL(MAX(depth), 0) FROM file_closure WHERE descendant_id = :id")
+    int getDepth(long id);
+
+    /**
+     * True if an item is inside a folder at any depth
+     */
+    @Query("SELECT EXISTS (SELECT 1 FROM file_closure " +
+           "WHERE ancestor_id = :folderId AND descendant_id = :id AND depth > 0)")
+    boolean isInside(long id, long folderId);
+
+    /**
+     * Recursive totals of a folder computed by walking its subtree, for checking folder_stats
+     */
+    @Query("WITH RECURSIVE subtree(id, size) AS (" +
+           "SELECT id, size FROM files WHERE parent_folder_id = :folderId " +
+           "UNION ALL " +
+           "SELECT f.id, f.size FROM files f JOIN subtree s ON f.parent_folder_id = s.id) " +
+           "SELECT :folderId AS folder_id, COUNT(*) AS descendant_count, " +
+           "IFNULL(SUM(size), 0) AS total_bytes FROM subtree")
+    FolderStats computeSubtreeStats(long folderId);
+
     @Query("SELECT * FROM files WHERE name LIKE '%' || :query || '%'")
     LiveData<List<FileItem>> searchItems(String query);
 
@@ -67,4 +161,123 @@ public interface FileDao {
            "CASE WHEN is_folder = 1 THEN 0 ELSE 1 END, " +
            "name COLLATE NOCASE ASC")
     PagingSource<Integer, FileItem> getGroupFilesPaging(String groupId);
+
+    /**
+     * Rows a sync can match remote files against, plus every folder, synced or not, as
+     * a parent candidate for remote children
+     */
+    @Query("SELECT id, firestore_id AS firestoreId, parent_folder_id AS parentFolderId, path, " +
+           "parent_path AS parentPath, is_folder AS isFolder, modified_at AS modifiedAt, group_id AS groupId " +
+           "FROM files WHERE firestore_id IS NOT NULL OR is_folder = 1")
+    List<SyncReconciler.LocalRow> getSyncRows();
+
+    @Query("SELECT * FROM files WHERE id = :id")
+    FileItem getItemByIdSync(long id);
+
+    @Query("UPDATE files SET parent_folder_id = :newParentId, path = :newPath, " +
+           "parent_path = :newParentPath, modified_at = :modifiedAt WHERE id = :id")
+    void relocate(long id, Long newParentId, String newPath, String newParentPath, Date modifiedAt);
+
+    /**
+     * Replace the oldPath prefix of every path and parent_path below an item with newPath,
+     * in one statement. Rows whose stored path does not start with oldPath are left as is.
+     */
+    @Query("UPDATE files SET " +
+           "path = CASE WHEN substr(path, 1, length(:oldPath) + 1) = :oldPath || '/' " +
+           "THEN :newPath || substr(path, length(:oldPath) + 1) ELSE path END, " +
+           "parent_path = CASE WHEN parent_path = :oldPath THEN :newPath " +
+           "WHEN substr(parent_path, 1, length(:oldPath) + 1) = :oldPath || '/' " +
+           "THEN :newPath || substr(parent_path, length(:oldPath) + 1) ELSE parent_path END " +
+           "WHERE id IN (SELECT descendant_id FROM file_closure WHERE ancestor_id = :id AND depth > 0)")
+    int rewriteSubtreePaths(long id, String oldPath, String newPath);
+
+    /**
+     * Id of an item other than excludeId with this name directly inside a folder, or in
+     * the group's root when parentId is null, if there is one
+     */
+    @Query("SELECT id FROM files WHERE parent_folder_id IS :parentId AND group_id IS :groupId " +
+           "AND name = :name AND id != :excludeId LIMIT 1")
+    Long findSibling(Long parentId, String groupId, String name, long excludeId);
+
+    /**
+     * Move an item under another folder, or to the root when newParentId is null, and
+     * rewrite the paths of everything below it, in one transaction. Returns the changed
+     * rows with the item first.
+     *
+     * A folder's path is its logical path, so it is recomputed. A file's path is where it
+     * is stored on disk, so it only changes to newLocation when the file was moved there.
+     * When a folder's directory was renamed from oldLocation to newLocation, the stored
+     * paths of the files below it are rewritten to match.
+     *
+     * @param oldLocation absolute path of the file or folder directory before the move,
+     *                    or null if nothing was moved on disk
+     * @param newLocation absolute path after the move, or null if nothing was moved on disk
+     */
+    @Transaction
+    default List<FileItem> moveSubtree(FileItem item, Long newParentId, String newParentPath,
+                                       String oldLocation, String newLocation) {
+        boolean movedOnDisk = oldLocation != null && newLocation != null;
+        if (!item.isFolder()) {
+            relocate(item.getId(), newParentId, movedOnDisk ? newLocation : item.getPath(), newParentPath,
+                new Date());
+            List<FileItem> moved = new ArrayList<>(1);
+            moved.add(getItemByIdSync(item.getId()));
+            return moved;
+        }
+        String oldPath = item.getPath();
+        String newPath = newParentPath.equals("/") ? "/" + item.getName() : newParentPath + "/" + item.getName();
+        relocate(item.getId(), newParentId, newPath, newParentPath, new Date());
+        if (oldPath != null && !oldPath.equals(newPath)) {
+            rewriteSubtreePaths(item.getId(), oldPath, newPath);
+        }
+        if (movedOnDisk && !oldLocation.equals(newLocation)) {
+            // File rows below hold absolute paths into the renamed directory
+            rewriteSubtreePaths(item.getId(), oldLocation, newLocation);
+        }
+        List<FileItem> moved = new ArrayList<>();
+        moved.add(getItemByIdSync(item.getId()));
+        moved.addAll(getSubtree(item.getId()));
+        return moved;
+    }
+
+    @Query("DELETE FROM files WHERE id IN (:ids)")
+    int deleteByIds(List<Long> ids);
+
+    /**
+     * Delete a folder and everything below it in one transaction, returning the deleted
+     * rows with the folder first
+     */
+    @Transaction
+    default List<FileItem> deleteSubtree(FileItem folder) {
+        List<FileItem> deleted = new ArrayList<>();
+        deleted.add(folder);
+        deleted.addAll(getSubtree(folder.getId()));
+        // Deleting the folder first takes the whole subtree out of the folders above it
+        // once, so the rows below only adjust folder_stats inside the deleted subtree
+        delete(folder);
+        List<Long> ids = new ArrayList<>(DELETE_CHUNK);
+        for (int i = 1; i < deleted.size(); i++) {
+            ids.add(deleted.get(i).getId());
+            if (ids.size() == DELETE_CHUNK || i == deleted.size() - 1) {
+                deleteByIds(ids);
+                ids.clear();
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Apply a sync plan in one transaction, inserting parents before children
+     */
+    @Transaction
+    default void applySync(SyncReconciler.SyncPlan plan) {
+        for (FileItem item : plan.getInserts()) {
+            plan.prepareInsert(item);
+            plan.onInserted(item, insert(item));
+        }
+        for (FileItem item : plan.getUpdates()) {
+            plan.prepareUpdate(item);
+            update(item);
+        }
+    }
 }
@@ -4,20 +4,180 @@ import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import com.collab.productivity.data.model.ChunkedText;
 import com.collab.productivity.data.model.Note;
+import com.collab.productivity.data.model.NoteChunk;
+import com.collab.productivity.data.model.NoteRevision;
+import com.collab.productivity.data.model.NoteTombstone;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 @Dao
 public interface NoteDao {
+    /** Ids per IN (...) list, below SQLite's bound-variable limit */
+    int TOMBSTONE_CHUNK = 500;
+    int CHUNK_ID_BATCH = 500;
+    /** Longest text stored whole in the content column; longer text goes in note_chunks */
+    int INLINE_LIMIT = 64 * 1024;
+    /** Start of a chunked note's text kept in the content column for the notes list */
+    int HEAD_LENGTH = 1024;
+    /** UTF-8 size of a note's whole text, from its chunks if it has them */
+    String TEXT_BYTES = "(CASE WHEN chunked = 1 THEN (SELECT IFNULL(SUM(LENGTH(CAST(text AS BLOB))), 0) " +
+        "FROM note_chunks WHERE note_id = notes.id) ELSE IFNULL(LENGTH(CAST(content AS BLOB)), 0) END)";
 
     @Insert
     long insert(Note note);
 
+    @Insert
+    List<Long> insertAll(List<Note> notes);
+
     @Update
     void update(Note note);
 
+    /**
+     * Update only the text of a note and mark it for sync, leaving the rest of the row as stored
+     */
+    @Query("UPDATE notes SET title = :title, content = :content, modified_at = :modifiedAt, synced = 0 " +
+           "WHERE id = :noteId")
+    int updateText(long noteId, String title, String content, Date modifiedAt);
+
+    // Chunked text
+
+    @Query("SELECT * FROM note_chunks WHERE note_id = :noteId ORDER BY position")
+    List<NoteChunk> getChunks(long noteId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertChunks(List<NoteChunk> chunks);
+
+    @Query("DELETE FROM note_chunks WHERE note_id = :noteId AND chunk_id IN (:chunkIds)")
+    void deleteChunks(long noteId, List<Integer> chunkIds);
+
+    @Query("DELETE FROM note_chunks WHERE note_id = :noteId")
+    void deleteAllChunks(long noteId);
+
+    @Query("UPDATE notes SET title = :title, content = :head, chunked = 1, modified_at = :modifiedAt, " +
+           "synced = 0 WHERE id = :noteId")
+    int updateChunkedText(long noteId, String title, String head, Date modifiedAt);
+
+    /**
+     * Save the chunks of a large note that changed, with its title and the start of its
+     * text in the notes row for the list and sync to read
+     */
+    @Transaction
+    default void saveChunks(long noteId, String title, String head, List<NoteChunk> written,
+                            List<Integer> removedIds, Date modifiedAt) {
+        for (int i = 0; i < removedIds.size(); i += CHUNK_ID_BATCH) {
+            deleteChunks(noteId, removedIds.subList(i, Math.min(removedIds.size(), i + CHUNK_ID_BATCH)));
+        }
+        for (NoteChunk chunk : written) {
+            chunk.noteId = noteId;
+        }
+        upsertChunks(written);
+        updateChunkedText(noteId, title, head, modifiedAt);
+    }
+
+    /**
+     * Split a pulled note's text into chunks if it is longer than {@link #INLINE_LIMIT},
+     * as the editor would, leaving only its head in the note. Returns the chunks to store
+     * once the note has its id, or null for text kept whole.
+     */
+    default List<NoteChunk> chunkLongText(Note note) {
+        String text = note.getContent();
+        if (text == null || text.length() <= INLINE_LIMIT) {
+            return null;
+        }
+        ChunkedText chunked = ChunkedText.of(text);
+        Date modifiedAt = note.getModifiedAt();
+        note.setContent(chunked.head(HEAD_LENGTH));
+        note.setModifiedAt(modifiedAt);
+        note.setChunked(true);
+        return chunked.takeChanges().written;
+    }
+
+    /**
+     * Store the chunks of a pulled note's text, whose notes row already holds its head
+     */
+    default void saveRemoteChunks(long noteId, List<NoteChunk> chunks) {
+        for (NoteChunk chunk : chunks) {
+            chunk.noteId = noteId;
+        }
+        upsertChunks(chunks);
+    }
+
+    /**
+     * The whole text of a note, put together from its chunks if it has them
+     */
+    default String getText(Note note) {
+        if (!note.isChunked()) {
+            return note.getContent();
+        }
+        List<NoteChunk> chunks = getChunks(note.getId());
+        int length = 0;
+        for (NoteChunk chunk : chunks) {
+            length += chunk.text.length();
+        }
+        StringBuilder text = new StringBuilder(length);
+        for (NoteChunk chunk : chunks) {
+            text.append(chunk.text);
+        }
+        return text.toString();
+    }
+
+    // Revisions
+
+    @Insert
+    long insertRevision(NoteRevision revision);
+
+    @Query("SELECT IFNULL(MAX(revision), 0) FROM note_revisions WHERE note_id = :noteId")
+    int getLatestRevision(long noteId);
+
+    /**
+     * Insert a note's next revision unless another one was recorded after latest. The
+     * check shares the insert's transaction, so two recorders can never both add the same
+     * revision number. Returns false if nothing was inserted.
+     */
+    @Transaction
+    default boolean insertRevisionAfter(NoteRevision revision, int latest) {
+        if (getLatestRevision(revision.noteId) != latest) {
+            return false;
+        }
+        insertRevision(revision);
+        return true;
+    }
+
+    /**
+     * A note's revisions, newest first, without their stored text
+     */
+    @Query("SELECT revision, created_at, snapshot, length, LENGTH(data) AS size FROM note_revisions " +
+           "WHERE note_id = :noteId ORDER BY revision DESC")
+    List<NoteRevision.Info> getRevisionList(long noteId);
+
+    /**
+     * The rows needed to rebuild a revision: the latest snapshot at or before it and the
+     * deltas after that, in order. One range of the (note_id, revision) index.
+     */
+    @Query("SELECT * FROM note_revisions WHERE note_id = :noteId AND revision <= :revision " +
+           "AND revision >= (SELECT MAX(revision) FROM note_revisions " +
+           "WHERE note_id = :noteId AND revision <= :revision AND snapshot = 1) " +
+           "ORDER BY revision")
+    List<NoteRevision> getRevisionChain(long noteId, int revision);
+
+    /**
+     * The text of a revision, or null if the note has no such revision
+     */
+    default String getRevisionText(long noteId, int revision) {
+        List<NoteRevision> chain = getRevisionChain(noteId, revision);
+        if (chain.isEmpty() || chain.get(chain.size() - 1).revision != revision) {
+            return null;
+        }
+        return NoteRevision.rebuild(chain);
+    }
+
     @Delete
     void delete(Note note);
 
@@ -30,7 +190,115 @@ public interface NoteDao {
     @Query("SELECT * FROM notes ORDER BY modified_at DESC")
     List<Note> getAllNotesSync();
 
+    @Query("SELECT * FROM notes WHERE id = :noteId")
+    Note getNoteByIdSync(long noteId);
+
     @Query("DELETE FROM notes WHERE id = :noteId")
     void deleteById(long noteId);
-}
 
+    // Sync
+
+    /**
+     * Notes with local changes not yet pushed, oldest change first, served by the
+     * (synced, modified_at) index
+     */
+    @Query("SELECT * FROM notes WHERE synced = 0 ORDER BY modified_at LIMIT :limit")
+    List<Note> getDirtyNotes(int limit);
+
+    /**
+     * Dirty notes, as {@link #getDirtyNotes}, whose whole text is at most maxTextBytes
+     */
+    @Query("SELECT * FROM notes WHERE synced = 0 AND " + TEXT_BYTES + " <= :maxTextBytes " +
+           "ORDER BY modified_at LIMIT :limit")
+    List<Note> getDirtyNotesUpTo(int maxTextBytes, int limit);
+
+    /**
+     * Ids of dirty notes whose whole text is over maxTextBytes
+     */
+    @Query("SELECT id FROM notes WHERE synced = 0 AND " + TEXT_BYTES + " > :maxTextBytes")
+    List<Long> getDirtyNoteIdsOver(int maxTextBytes);
+
+    @Query("SELECT * FROM notes WHERE firestore_id = :firestoreId LIMIT 1")
+    Note getNoteByFirestoreIdSync(String firestoreId);
+
+    /**
+     * Give a note its document id, unless another sync got there first
+     */
+    @Query("UPDATE notes SET firestore_id = :firestoreId, user_id = :userId " +
+           "WHERE id = :noteId AND firestore_id IS NULL")
+    int assignFirestoreId(long noteId, String firestoreId, String userId);
+
+    /**
+     * Mark a pushed note clean, unless it was edited again while the push was in flight
+     */
+    @Query("UPDATE notes SET synced = 1 WHERE id = :noteId AND modified_at = :modifiedAt")
+    int markSynced(long noteId, Date modifiedAt);
+
+    @Query("SELECT * FROM note_tombstones ORDER BY deleted_at LIMIT :limit")
+    List<NoteTombstone> getTombstones(int limit);
+
+    @Query("DELETE FROM note_tombstones WHERE firestore_id IN (:firestoreIds)")
+    void deleteTombstones(List<String> firestoreIds);
+
+    /**
+     * Apply pulled notes and deletions, last modification winning. Local notes with
+     * unpushed changes newer than the remote copy are kept, and are not deleted, so the
+     * next push wins them back. Notes in heldIds are open in an editor that keeps saving
+     * the text it loaded, so they are left as they are and their document ids added to
+     * deferredIds. Returns the number of local notes changed.
+     */
+    @Transaction
+    default int applyRemoteNotes(List<Note> notes, List<String> deletedIds, Set<Long> heldIds,
+                                 List<String> deferredIds) {
+        int changed = 0;
+        for (Note remote : notes) {
+            Note local = getNoteByFirestoreIdSync(remote.getFirestoreId());
+            remote.setSynced(true);
+            if (local == null) {
+                List<NoteChunk> chunks = chunkLongText(remote);
+                long id = insert(remote);
+                if (chunks != null) {
+                    saveRemoteChunks(id, chunks);
+                }
+                changed++;
+                continue;
+            }
+            long localTime = local.getModifiedAt().getTime();
+            long remoteTime = remote.getModifiedAt().getTime();
+            // An unchanged note is usually our own push coming back
+            if (local.isSynced() ? remoteTime == localTime : remoteTime <= localTime) {
+                continue;
+            }
+            if (heldIds.contains(local.getId())) {
+                deferredIds.add(remote.getFirestoreId());
+                continue;
+            }
+            if (local.isChunked()) {
+                deleteAllChunks(local.getId());
+            }
+            List<NoteChunk> chunks = chunkLongText(remote);
+            remote.setId(local.getId());
+            update(remote);
+            if (chunks != null) {
+                saveRemoteChunks(local.getId(), chunks);
+            }
+            changed++;
+        }
+        for (String firestoreId : deletedIds) {
+            Note local = getNoteByFirestoreIdSync(firestoreId);
+            if (local != null && local.isSynced()) {
+                if (heldIds.contains(local.getId())) {
+                    deferredIds.add(firestoreId);
+                    continue;
+                }
+                deleteById(local.getId());
+                changed++;
+            }
+        }
+        // Deleting left tombstones, but the deletion is already remote
+        for (int i = 0; i < deletedIds.size(); i += TOMBSTONE_CHUNK) {
+            deleteTombstones(deletedIds.subList(i, Math.min(deletedIds.size(), i + TOMBSTONE_CHUNK)));
+        }
+        return changed;
+    }
+}
@@ -5,13 +5,21 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import com.collab.productivity.data.dao.FileDao;
 import com.collab.productivity.data.dao.NoteDao;
+import com.collab.productivity.data.model.FileClosure;
 import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FolderStats;
 import com.collab.productivity.data.model.Note;
+import com.collab.productivity.data.model.NoteChunk;
+import com.collab.productivity.data.model.NoteRevision;
+import com.collab.productivity.data.model.NoteTombstone;
 import com.collab.productivity.utils.Converters;
 
-@Database(entities = {FileItem.class, Note.class}, version = 4, exportSchema = false)
+@Database(entities = {FileItem.class, Note.class, FolderStats.class, FileClosure.class,
+        NoteTombstone.class, NoteChunk.class, NoteRevision.class}, version = 10, exportSchema = false)
 @TypeConverters({Converters.class})
 public abstract class AppDatabase extends RoomDatabase {
 
@@ -20,6 +28,49 @@ public abstract class AppDatabase extends RoomDatabase {
 
     private static volatile AppDatabase INSTANCE;
 
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_files_parent_folder_id ON files (parent_folder_id)");
+        }
+    };
+
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            FolderStatsSchema.install(database);
+        }
+    };
+
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            FileClosureSchema.install(database);
+        }
+    };
+
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            NoteSyncSchema.install(database);
+        }
+    };
+
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE notes ADD COLUMN chunked INTEGER NOT NULL DEFAULT 0");
+            NoteChunkSchema.install(database);
+        }
+    };
+
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            NoteRevisionSchema.install(database);
+        }
+    };
+
     public static AppDatabase getInstance(Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
@@ -28,6 +79,13 @@ public abstract class AppDatabase extends RoomDatabase {
                             context.getApplicationContext(),
                             AppDatabase.class,
                             "notionary_db")
+                            .addMigrations(MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8,
+                                MIGRATION_8_9, MIGRATION_9_10)
+                            .addCallback(FolderStatsSchema.CALLBACK)
+                            .addCallback(FileClosureSchema.CALLBACK)
+                            .addCallback(NoteSyncSchema.CALLBACK)
+                            .addCallback(NoteChunkSchema.CALLBACK)
+                            .addCallback(NoteRevisionSchema.CALLBACK)
                             .fallbackToDestructiveMigration()
                             .build();
                 }
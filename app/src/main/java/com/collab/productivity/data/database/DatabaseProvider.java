@@ -1,22 +1,14 @@
 package com.collab.productivity.data.database;
 
 import android.content.Context;
-import androidx.room.Room;
 
 public class DatabaseProvider {
-    private static volatile AppDatabase INSTANCE;
 
+    /**
+     * The app's single database instance. Delegates to {@link AppDatabase#getInstance}
+     * so every caller shares one connection pool and one invalidation tracker.
+     */
     public static AppDatabase getDatabase(Context context) {
-        if (INSTANCE == null) {
-            synchronized (DatabaseProvider.class) {
-                if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                            AppDatabase.class, "notionary_db")
-                            .fallbackToDestructiveMigration()
-                            .build();
-                }
-            }
-        }
-        return INSTANCE;
+        return AppDatabase.getInstance(context);
     }
 }
@@ -0,0 +1,107 @@
+package com.collab.productivity.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * FileClosureSchema - Triggers that keep file_closure, the closure table of the folder
+ * hierarchy, in step with the files table.
+ *
+ * Every insert, delete and move of a file runs its triggers in the same statement, so
+ * the closure never disagrees with parent_folder_id, even inside Room transactions. A
+ * move rewrites the pairs between the moved subtree and its old and new ancestors, which
+ * is proportional to subtree size times depth rather than to the whole table. Moving a
+ * folder into its own subtree is rejected before anything is written.
+ */
+public final class FileClosureSchema {
+
+    static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS file_closure (ancestor_id INTEGER NOT NULL, " +
+        "descendant_id INTEGER NOT NULL, depth INTEGER NOT NULL, PRIMARY KEY(ancestor_id, descendant_id))";
+
+    static final String[] CREATE_INDEXES = {
+        "CREATE INDEX IF NOT EXISTS index_file_closure_descendant_id ON file_closure (descendant_id)",
+        "CREATE INDEX IF NOT EXISTS index_file_closure_ancestor_id_depth ON file_closure (ancestor_id, depth)"
+    };
+
+    // Pairs linking everything at or below X to everything at or above X
+    private static final String PAIRS_THROUGH =
+        "descendant_id IN (SELECT descendant_id FROM file_closure WHERE ancestor_id = %1$s) " +
+        "AND ancestor_id IN (SELECT ancestor_id FROM file_closure WHERE descendant_id = %1$s%2$s)";
+
+    static final String[] TRIGGERS = {
+        "CREATE TRIGGER IF NOT EXISTS file_closure_on_insert AFTER INSERT ON files BEGIN " +
+            "INSERT OR REPLACE INTO file_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT ancestor_id, NEW.id, depth + 1 FROM file_closure " +
+            "WHERE descendant_id = NEW.parent_folder_id " +
+            "UNION ALL SELECT NEW.id, NEW.id, 0; " +
+            "END",
+
+        // The rest of a deleted folder's subtree stays linked to itself, like its rows
+        "CREATE TRIGGER IF NOT EXISTS file_closure_on_delete AFTER DELETE ON files BEGIN " +
+            "DELETE FROM file_closure WHERE " + String.format(PAIRS_THROUGH, "OLD.id", "") + "; " +
+            "END",
+
+        "CREATE TRIGGER IF NOT EXISTS file_closure_no_cycle BEFORE UPDATE OF parent_folder_id ON files " +
+            "WHEN NEW.parent_folder_id IS NOT NULL AND EXISTS (SELECT 1 FROM file_closure " +
+            "WHERE ancestor_id = NEW.id AND descendant_id = NEW.parent_folder_id) BEGIN " +
+            "SELECT RAISE(ABORT, 'Cannot move a folder into itself'); " +
+            "END",
+
+        // Room's @Update writes every column, so compare values rather than rely on UPDATE OF
+        "CREATE TRIGGER IF NOT EXISTS file_closure_on_move AFTER UPDATE OF parent_folder_id ON files " +
+            "WHEN OLD.parent_folder_id IS NOT NEW.parent_folder_id BEGIN " +
+            "DELETE FROM file_closure WHERE " +
+            String.format(PAIRS_THROUGH, "NEW.id", " AND ancestor_id != NEW.id") + "; " +
+            "INSERT OR REPLACE INTO file_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT above.ancestor_id, below.descendant_id, above.depth + below.depth + 1 " +
+            "FROM file_closure above, file_closure below " +
+            "WHERE above.descendant_id = NEW.parent_folder_id AND below.ancestor_id = NEW.id; " +
+            "END"
+    };
+
+    /**
+     * Recompute the whole closure from parent_folder_id. Chains are cut off at an
+     * absurd depth so that loops left by older versions cannot recurse forever.
+     */
+    static final String REBUILD =
+        "INSERT OR IGNORE INTO file_closure (ancestor_id, descendant_id, depth) " +
+        "WITH RECURSIVE chain(ancestor_id, descendant_id, depth) AS (" +
+        "SELECT id, id, 0 FROM files " +
+        "UNION ALL " +
+        "SELECT parent.id, chain.descendant_id, chain.depth + 1 FROM chain " +
+        "JOIN files child ON child.id = chain.ancestor_id " +
+        "JOIN files parent ON parent.id = child.parent_folder_id " +
+        "WHERE chain.depth < 1000) " +
+        "SELECT ancestor_id, descendant_id, depth FROM chain";
+
+    /**
+     * Creates the triggers if missing each time the database opens
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            for (String trigger : TRIGGERS) {
+                db.execSQL(trigger);
+            }
+        }
+    };
+
+    private FileClosureSchema() {
+    }
+
+    /**
+     * Create the table, indexes and triggers on an existing database and fill the table
+     */
+    static void install(SupportSQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE);
+        for (String index : CREATE_INDEXES) {
+            db.execSQL(index);
+        }
+        for (String trigger : TRIGGERS) {
+            db.execSQL(trigger);
+        }
+        db.execSQL(REBUILD);
+    }
+}
@@ -0,0 +1,120 @@
+package com.collab.productivity.data.database;
+
+import android.database.Cursor;
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.collab.productivity.utils.Logger;
+
+/**
+ * FolderStatsSchema - Triggers that keep folder_stats current as files are inserted,
+ * deleted, moved or resized.
+ *
+ * Each trigger adjusts the parent folder's row by the changed subtree. A trigger on
+ * folder_stats then carries every change on to the grandparent and so on up to the
+ * root. SQLite does not allow WITH clauses inside triggers, so this walk depends on
+ * recursive triggers. {@link #CALLBACK} turns them on for the write connection each
+ * time the database opens.
+ */
+public final class FolderStatsSchema {
+    private static final String TAG = "FolderStatsSchema";
+
+    // Size and count a row takes out of, or adds to, its parent: itself plus its subtree
+    private static final String OLD_COUNT =
+        "1 + IFNULL((SELECT descendant_count FROM folder_stats WHERE folder_id = OLD.id), 0)";
+    private static final String OLD_BYTES =
+        "OLD.size + IFNULL((SELECT total_bytes FROM folder_stats WHERE folder_id = OLD.id), 0)";
+    private static final String NEW_COUNT =
+        "1 + IFNULL((SELECT descendant_count FROM folder_stats WHERE folder_id = NEW.id), 0)";
+    private static final String NEW_BYTES =
+        "NEW.size + IFNULL((SELECT total_bytes FROM folder_stats WHERE folder_id = NEW.id), 0)";
+
+    static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS folder_stats (folder_id INTEGER NOT NULL, " +
+        "descendant_count INTEGER NOT NULL, total_bytes INTEGER NOT NULL, PRIMARY KEY(folder_id))";
+
+    static final String[] TRIGGERS = {
+        "CREATE TRIGGER IF NOT EXISTS folder_stats_on_insert AFTER INSERT ON files BEGIN " +
+            "INSERT OR IGNORE INTO folder_stats (folder_id, descendant_count, total_bytes) " +
+            "SELECT NEW.id, 0, 0 WHERE NEW.is_folder = 1; " +
+            "UPDATE folder_stats SET descendant_count = descendant_count + 1, " +
+            "total_bytes = total_bytes + NEW.size WHERE folder_id = NEW.parent_folder_id; " +
+            "END",
+
+        "CREATE TRIGGER IF NOT EXISTS folder_stats_on_delete AFTER DELETE ON files BEGIN " +
+            "UPDATE folder_stats SET descendant_count = descendant_count - (" + OLD_COUNT + "), " +
+            "total_bytes = total_bytes - (" + OLD_BYTES + ") WHERE folder_id = OLD.parent_folder_id; " +
+            "DELETE FROM folder_stats WHERE folder_id = OLD.id; " +
+            "END",
+
+        // Room's @Update writes every column, so compare values rather than rely on UPDATE OF
+        "CREATE TRIGGER IF NOT EXISTS folder_stats_on_move AFTER UPDATE OF parent_folder_id, size ON files " +
+            "WHEN OLD.parent_folder_id IS NOT NEW.parent_folder_id OR OLD.size != NEW.size BEGIN " +
+            "UPDATE folder_stats SET descendant_count = descendant_count - (" + OLD_COUNT + "), " +
+            "total_bytes = total_bytes - (" + OLD_BYTES + ") WHERE folder_id = OLD.parent_folder_id; " +
+            "UPDATE folder_stats SET descendant_count = descendant_count + (" + NEW_COUNT + "), " +
+            "total_bytes = total_bytes + (" + NEW_BYTES + ") WHERE folder_id = NEW.parent_folder_id; " +
+            "END",
+
+        "CREATE TRIGGER IF NOT EXISTS folder_stats_propagate AFTER UPDATE OF descendant_count, total_bytes " +
+            "ON folder_stats WHEN NEW.descendant_count != OLD.descendant_count " +
+            "OR NEW.total_bytes != OLD.total_bytes BEGIN " +
+            "UPDATE folder_stats SET " +
+            "descendant_count = descendant_count + NEW.descendant_count - OLD.descendant_count, " +
+            "total_bytes = total_bytes + NEW.total_bytes - OLD.total_bytes " +
+            "WHERE folder_id = (SELECT parent_folder_id FROM files WHERE id = NEW.folder_id); " +
+            "END"
+    };
+
+    /**
+     * Recompute every folder's row from the files table
+     */
+    static final String REBUILD =
+        "WITH RECURSIVE subtree(root_id, id, size) AS (" +
+        "SELECT c.parent_folder_id, c.id, c.size FROM files c WHERE c.parent_folder_id IS NOT NULL " +
+        "UNION ALL " +
+        "SELECT s.root_id, c.id, c.size FROM subtree s JOIN files c ON c.parent_folder_id = s.id) " +
+        "INSERT OR REPLACE INTO folder_stats (folder_id, descendant_count, total_bytes) " +
+        "SELECT f.id, COUNT(s.id), IFNULL(SUM(s.size), 0) " +
+        "FROM files f LEFT JOIN subtree s ON s.root_id = f.id WHERE f.is_folder = 1 GROUP BY f.id";
+
+    /**
+     * Creates the triggers if missing and enables recursive triggers on every open
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            // Inside a transaction the statements run on the primary connection, which
+            // performs every write and so fires every trigger
+            db.beginTransaction();
+            try {
+                db.execSQL("PRAGMA recursive_triggers = ON");
+                for (String trigger : TRIGGERS) {
+                    db.execSQL(trigger);
+                }
+                try (Cursor cursor = db.query("PRAGMA recursive_triggers")) {
+                    if (!cursor.moveToFirst() || cursor.getInt(0) != 1) {
+                        Logger.w(TAG, "Recursive triggers unavailable; folder stats will only reach parents");
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+    };
+
+    private FolderStatsSchema() {
+    }
+
+    /**
+     * Create the table and triggers on an existing database and fill in current totals
+     */
+    static void install(SupportSQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE);
+        for (String trigger : TRIGGERS) {
+            db.execSQL(trigger);
+        }
+        db.execSQL(REBUILD);
+    }
+}
@@ -0,0 +1,51 @@
+package com.collab.productivity.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * NoteChunkSchema - The note_chunks table holding the text of large notes, and the
+ * trigger that deletes a note's chunks with the note, whichever DAO method deletes it
+ */
+public final class NoteChunkSchema {
+
+    static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS note_chunks (note_id INTEGER NOT NULL, chunk_id INTEGER NOT NULL, " +
+        "position INTEGER NOT NULL, text TEXT, PRIMARY KEY(note_id, chunk_id))";
+
+    static final String CREATE_INDEX =
+        "CREATE INDEX IF NOT EXISTS index_note_chunks_note_id_position ON note_chunks (note_id, position)";
+
+    static final String[] TRIGGERS = {
+        "CREATE TRIGGER IF NOT EXISTS note_chunks_on_delete AFTER DELETE ON notes BEGIN " +
+            "DELETE FROM note_chunks WHERE note_id = OLD.id; " +
+            "END"
+    };
+
+    /**
+     * Creates the triggers if missing each time the database opens
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            for (String trigger : TRIGGERS) {
+                db.execSQL(trigger);
+            }
+        }
+    };
+
+    private NoteChunkSchema() {
+    }
+
+    /**
+     * Create the table, index and triggers on an existing database
+     */
+    static void install(SupportSQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE);
+        db.execSQL(CREATE_INDEX);
+        for (String trigger : TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.collab.productivity.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * NoteRevisionSchema - The note_revisions table holding the history of each note, and
+ * the trigger that deletes a note's history with the note
+ */
+public final class NoteRevisionSchema {
+
+    static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS note_revisions (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+        "note_id INTEGER NOT NULL, revision INTEGER NOT NULL, created_at INTEGER, " +
+        "snapshot INTEGER NOT NULL, length INTEGER NOT NULL, data BLOB)";
+
+    static final String CREATE_INDEX =
+        "CREATE UNIQUE INDEX IF NOT EXISTS index_note_revisions_note_id_revision ON note_revisions (note_id, revision)";
+
+    static final String[] TRIGGERS = {
+        "CREATE TRIGGER IF NOT EXISTS note_revisions_on_delete AFTER DELETE ON notes BEGIN " +
+            "DELETE FROM note_revisions WHERE note_id = OLD.id; " +
+            "END"
+    };
+
+    /**
+     * Creates the triggers if missing each time the database opens
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            for (String trigger : TRIGGERS) {
+                db.execSQL(trigger);
+            }
+        }
+    };
+
+    private NoteRevisionSchema() {
+    }
+
+    /**
+     * Create the table, index and triggers on an existing database
+     */
+    static void install(SupportSQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE);
+        db.execSQL(CREATE_INDEX);
+        for (String trigger : TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.collab.productivity.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * NoteSyncSchema - Indexes and the trigger behind note sync.
+ *
+ * Dirty notes (synced = 0) are found through an index on (synced, modified_at), so a
+ * sync reads them oldest first without scanning the table. Deleting a note that has a
+ * Firestore document leaves a tombstone in the same statement, whichever DAO method
+ * deleted it, so the deletion is pushed on the next sync.
+ */
+public final class NoteSyncSchema {
+
+    static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS note_tombstones (firestore_id TEXT NOT NULL, " +
+        "deleted_at INTEGER, PRIMARY KEY(firestore_id))";
+
+    static final String[] CREATE_INDEXES = {
+        "CREATE INDEX IF NOT EXISTS index_notes_synced_modified_at ON notes (synced, modified_at)",
+        "CREATE INDEX IF NOT EXISTS index_notes_firestore_id ON notes (firestore_id)"
+    };
+
+    static final String[] TRIGGERS = {
+        "CREATE TRIGGER IF NOT EXISTS note_tombstone_on_delete AFTER DELETE ON notes " +
+            "WHEN OLD.firestore_id IS NOT NULL BEGIN " +
+            "INSERT OR REPLACE INTO note_tombstones (firestore_id, deleted_at) " +
+            "VALUES (OLD.firestore_id, CAST(strftime('%s', 'now') AS INTEGER) * 1000); " +
+            "END"
+    };
+
+    /**
+     * Creates the triggers if missing each time the database opens
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            for (String trigger : TRIGGERS) {
+                db.execSQL(trigger);
+            }
+        }
+    };
+
+    private NoteSyncSchema() {
+    }
+
+    /**
+     * Create the table, indexes and triggers on an existing database
+     */
+    static void install(SupportSQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE);
+        for (String index : CREATE_INDEXES) {
+            db.execSQL(index);
+        }
+        for (String trigger : TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+}
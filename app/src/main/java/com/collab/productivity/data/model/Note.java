@@ -1,11 +1,13 @@
 package com.collab.productivity.data.model;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
 import java.util.Date;
 
-@Entity(tableName = "notes")
+@Entity(tableName = "notes",
+        indices = {@Index({"synced", "modified_at"}), @Index("firestore_id")})
 public class Note {
     @PrimaryKey(autoGenerate = true)
     private long id;
@@ -31,9 +33,15 @@ public class Note {
     @ColumnInfo(name = "firestore_id")
     private String firestoreId;
 
+    // False while the note has local changes not yet pushed to Firestore
     @ColumnInfo(name = "synced")
     private boolean synced;
 
+    // True once the text outgrew the content column; content then holds only its start
+    // and the whole text is in note_chunks
+    @ColumnInfo(name = "chunked", defaultValue = "0")
+    private boolean chunked;
+
     // Constructor
     public Note(String title, String content) {
         this.title = title;
@@ -76,4 +84,7 @@ public class Note {
 
     public boolean isSynced() { return synced; }
     public void setSynced(boolean synced) { this.synced = synced; }
+
+    public boolean isChunked() { return chunked; }
+    public void setChunked(boolean chunked) { this.chunked = chunked; }
 }
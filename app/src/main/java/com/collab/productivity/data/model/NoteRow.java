@@ -0,0 +1,76 @@
+package com.collab.productivity.data.model;
+
+import com.collab.productivity.utils.FileFormatters;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * NoteRow - What one card in the notes list shows, with the content preview and date
+ * already formatted so binding a row only sets text
+ */
+public class NoteRow {
+    static final int PREVIEW_LENGTH = 100;
+
+    private final long id;
+    private final String title;
+    private final String preview;
+    private final String date;
+    private final long modifiedAt;
+
+    private NoteRow(long id, String title, String preview, String date, long modifiedAt) {
+        this.id = id;
+        this.title = title;
+        this.preview = preview;
+        this.date = date;
+        this.modifiedAt = modifiedAt;
+    }
+
+    public static NoteRow from(Note note) {
+        Date modified = note.getModifiedAt();
+        return new NoteRow(note.getId(), note.getTitle(), preview(note.getContent()),
+            FileFormatters.formatDate(modified), modified != null ? modified.getTime() : 0);
+    }
+
+    /**
+     * First {@link #PREVIEW_LENGTH} characters of the content, ellipsized if longer
+     */
+    static String preview(String content) {
+        if (content != null && content.length() > PREVIEW_LENGTH) {
+            return content.substring(0, PREVIEW_LENGTH) + "...";
+        }
+        return content;
+    }
+
+    /**
+     * True if this row was built from the same version of the note, so it can be reused
+     */
+    public boolean isCurrentFor(Note note) {
+        Date modified = note.getModifiedAt();
+        return id == note.getId()
+            && modifiedAt == (modified != null ? modified.getTime() : 0)
+            && Objects.equals(title, note.getTitle());
+    }
+
+    public long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getPreview() { return preview; }
+    public String getDate() { return date; }
+    /** Modification time of the note this row was built from */
+    public long getVersion() { return modifiedAt; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NoteRow)) return false;
+        NoteRow other = (NoteRow) o;
+        return id == other.id && modifiedAt == other.modifiedAt
+            && Objects.equals(title, other.title)
+            && Objects.equals(preview, other.preview)
+            && Objects.equals(date, other.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, modifiedAt);
+    }
+}
@@ -0,0 +1,23 @@
+package com.collab.productivity.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+import java.util.Date;
+
+/**
+ * NoteTombstone - A deleted note whose Firestore document still has to be marked
+ * deleted. Written by a trigger on the notes table (see NoteSyncSchema) and removed
+ * once the deletion is pushed.
+ */
+@Entity(tableName = "note_tombstones")
+public class NoteTombstone {
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "firestore_id")
+    public String firestoreId = "";
+
+    @ColumnInfo(name = "deleted_at")
+    public Date deletedAt;
+}
@@ -7,7 +7,13 @@ import androidx.lifecycle.LiveData;
 import com.collab.productivity.NotionaryApp;
 import com.collab.productivity.data.dao.FileDao;
 import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FileTreeIndex;
+import com.collab.productivity.data.model.FolderStats;
+import com.collab.productivity.data.model.FolderSummary;
+import com.collab.productivity.data.sync.SyncReconciler;
+import com.collab.productivity.utils.LocalFolders;
 import com.collab.productivity.utils.Logger;
+import java.io.File;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -17,15 +23,72 @@ public class FileRepository {
     private final FileDao fileDao;
     private final ExecutorService executorService;
     private final Handler mainHandler;
+    private final FileTreeIndex fileTree;
+    private final File filesDir;
 
     public FileRepository(Context context) {
-        NotionaryApp app = (NotionaryApp) context.getApplicationContext();
-        fileDao = app.getDatabase().fileDao();
-        executorService = Executors.newSingleThreadExecutor();
-        mainHandler = new Handler(Looper.getMainLooper());
+        this(((NotionaryApp) context.getApplicationContext()).getDatabase().fileDao(),
+            new Handler(Looper.getMainLooper()),
+            ((NotionaryApp) context.getApplicationContext()).getFileTree(),
+            context.getFilesDir());
+        seedFileTree();
+    }
+
+    /**
+     * Create a repository over a given DAO, posting results to the given handler
+     */
+    public FileRepository(FileDao fileDao, Handler mainHandler) {
+        this(fileDao, mainHandler, new FileTreeIndex());
+    }
+
+    /**
+     * Create a repository that keeps the given folder tree in step with its writes.
+     * The tree only tracks writes once it is being seeded.
+     */
+    public FileRepository(FileDao fileDao, Handler mainHandler, FileTreeIndex fileTree) {
+        this(fileDao, mainHandler, fileTree, null);
+    }
+
+    /**
+     * Create a repository that also renames folders' directories under filesDir when
+     * they move. With a null filesDir only the database is changed.
+     */
+    public FileRepository(FileDao fileDao, Handler mainHandler, FileTreeIndex fileTree, File filesDir) {
+        this.fileDao = fileDao;
+        this.executorService = Executors.newSingleThreadExecutor();
+        this.mainHandler = mainHandler;
+        this.fileTree = fileTree;
+        this.filesDir = filesDir;
         Logger.d(TAG, "FileRepository initialized");
     }
 
+    /**
+     * Load the folder tree from the database unless another repository already has
+     */
+    public void seedFileTree() {
+        if (fileTree.isSeeded()) {
+            return;
+        }
+        executorService.execute(() -> {
+            if (!fileTree.beginSeed()) {
+                return;
+            }
+            try {
+                long start = System.nanoTime();
+                fileTree.seed(fileDao.getAllFilesSync());
+                Logger.d(TAG, "Folder tree seeded with " + fileTree.size() + " items in " +
+                    (System.nanoTime() - start) / 1_000_000 + "ms");
+            } catch (Exception e) {
+                fileTree.abortSeed();
+                Logger.e(TAG, "Error seeding folder tree", e);
+            }
+        });
+    }
+
+    public FileTreeIndex getFileTree() {
+        return fileTree;
+    }
+
     public LiveData<List<FileItem>> getRootItems() {
         Logger.d(TAG, "Getting root items");
         return fileDao.getRootItemsSorted();
@@ -46,12 +109,35 @@ public class FileRepository {
         return fileDao.getItemById(id);
     }
 
+    /**
+     * Child count and total size of a folder, or of the root when folderId is null
+     */
+    public LiveData<FolderSummary> getFolderSummary(Long folderId) {
+        Logger.d(TAG, "Getting summary of folder: " + folderId);
+        return folderId == null ? fileDao.getRootSummary() : fileDao.getFolderSummary(folderId);
+    }
+
+    /**
+     * Recursive count and size of a folder's subtree, or of the whole root when folderId is null
+     */
+    public LiveData<FolderStats> getFolderStats(Long folderId) {
+        return folderId == null ? fileDao.getRootStats() : fileDao.getFolderStats(folderId);
+    }
+
+    /**
+     * Recursive totals of each folder directly inside a folder, or inside the root when folderId is null
+     */
+    public LiveData<List<FolderStats>> getChildFolderStats(Long folderId) {
+        return folderId == null ? fileDao.getRootFolderStats() : fileDao.getChildFolderStats(folderId);
+    }
+
     public void insert(FileItem fileItem, OnOperationCompleteListener listener) {
         Logger.d(TAG, "Inserting item: " + fileItem.getName());
         executorService.execute(() -> {
             try {
                 long id = fileDao.insert(fileItem);
                 fileItem.setId(id);
+                fileTree.upsert(fileItem);
                 mainHandler.post(() -> {
                     if (listener != null) {
                         listener.onSuccess(id);
@@ -74,6 +160,7 @@ public class FileRepository {
         executorService.execute(() -> {
             try {
                 fileDao.update(fileItem);
+                fileTree.upsert(fileItem);
                 mainHandler.post(() -> {
                     if (listener != null) {
                         listener.onSuccess(fileItem.getId());
@@ -96,6 +183,7 @@ public class FileRepository {
         executorService.execute(() -> {
             try {
                 fileDao.delete(fileItem);
+                fileTree.remove(fileItem.getId());
                 mainHandler.post(() -> {
                     if (listener != null) {
                         listener.onSuccess(fileItem.getId());
@@ -113,11 +201,151 @@ public class FileRepository {
         });
     }
 
+    /**
+     * Delete a folder and everything below it in one transaction. The listener receives
+     * the deleted rows, folder first, for cleaning up their remote copies.
+     */
+    public void deleteSubtree(FileItem folder, OnItemsChangedListener listener) {
+        Logger.d(TAG, "Deleting folder and contents: " + folder.getName());
+        executorService.execute(() -> {
+            try {
+                List<FileItem> deleted = fileDao.deleteSubtree(folder);
+                fileTree.remove(folder.getId());
+                Logger.d(TAG, "Deleted " + deleted.size() + " items");
+                mainHandler.post(() -> {
+                    if (listener != null) {
+                        listener.onSuccess(deleted);
+                    }
+                });
+            } catch (Exception e) {
+                Logger.e(TAG, "Error deleting folder", e);
+                mainHandler.post(() -> {
+                    if (listener != null) {
+                        listener.onError(e);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Move an item into another folder, or to the root when newParent is null, rewriting
+     * the paths of everything below it in the same transaction. A folder's directory, or
+     * a file stored on disk, is moved first and moved back if the transaction fails, and
+     * the stored paths of the files involved follow it. The listener receives the
+     * changed rows with the moved item first, or a {@link NameTakenException} when the
+     * destination already holds an item with the same name, in which case nothing moves.
+     */
+    public void moveSubtree(FileItem item, FileItem newParent, OnItemsChangedListener listener) {
+        Logger.d(TAG, "Moving " + item.getName() + " to " + (newParent != null ? newParent.getName() : "root"));
+        executorService.execute(() -> {
+            Long newParentId = newParent != null ? newParent.getId() : null;
+            if (fileDao.findSibling(newParentId, item.getGroupId(), item.getName(), item.getId()) != null) {
+                Logger.w(TAG, "Not moving " + item.getName() + ": the destination already has an item with that name");
+                mainHandler.post(() -> {
+                    if (listener != null) {
+                        listener.onError(new NameTakenException(item.getName()));
+                    }
+                });
+                return;
+            }
+            String newParentPath = newParent != null ? newParent.getPath() : "/";
+            File from;
+            File to;
+            boolean renamed;
+            if (item.isFolder()) {
+                from = LocalFolders.directoryOf(filesDir, item);
+                to = from != null ? LocalFolders.directoryOf(filesDir, item.getGroupId(),
+                    newParentPath.equals("/") ? "/" + item.getName() : newParentPath + "/" + item.getName()) : null;
+                renamed = from != null && to != null && from.isDirectory() && renameDirectory(from, to);
+            } else {
+                from = LocalFolders.storedFile(filesDir, item.getPath());
+                File directory = from != null
+                    ? LocalFolders.contentsOf(filesDir, item.getGroupId(), newParentPath) : null;
+                to = directory != null ? new File(directory, from.getName()) : null;
+                if (to != null && !to.equals(from) && to.exists()) {
+                    Logger.w(TAG, "Not moving " + item.getName() + ": " + to + " already exists");
+                    mainHandler.post(() -> {
+                        if (listener != null) {
+                            listener.onError(new NameTakenException(item.getName()));
+                        }
+                    });
+                    return;
+                }
+                renamed = to != null && renameFile(from, to);
+            }
+            try {
+                long start = System.nanoTime();
+                List<FileItem> moved = fileDao.moveSubtree(item, newParentId, newParentPath,
+                    renamed ? from.getAbsolutePath() : null, renamed ? to.getAbsolutePath() : null);
+                fileTree.upsertAll(moved);
+                Logger.d(TAG, "Moved " + moved.size() + " items in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+                mainHandler.post(() -> {
+                    if (listener != null) {
+                        listener.onSuccess(moved);
+                    }
+                });
+            } catch (Exception e) {
+                Logger.e(TAG, "Error moving item", e);
+                if (renamed && !to.renameTo(from)) {
+                    Logger.w(TAG, "Could not restore " + from);
+                }
+                mainHandler.post(() -> {
+                    if (listener != null) {
+                        listener.onError(e);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Rename a directory in one step, replacing an empty directory at the destination.
+     * A folder whose directory cannot be renamed still moves; the directory stays behind.
+     */
+    private static boolean renameDirectory(File from, File to) {
+        File parent = to.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            Logger.w(TAG, "Could not create " + parent);
+            return false;
+        }
+        String[] existing = to.list();
+        if (existing != null && existing.length == 0 && !to.delete()) {
+            Logger.w(TAG, "Could not replace empty directory " + to);
+        }
+        if (!from.renameTo(to)) {
+            Logger.w(TAG, "Could not rename " + from + " to " + to);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Move a stored file into another directory. A file that cannot be moved keeps its
+     * place on disk and its stored path, and its row still moves.
+     */
+    private static boolean renameFile(File from, File to) {
+        if (to.equals(from)) {
+            return false;
+        }
+        File parent = to.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            Logger.w(TAG, "Could not create " + parent);
+            return false;
+        }
+        if (!from.renameTo(to)) {
+            Logger.w(TAG, "Could not move " + from + " to " + to);
+            return false;
+        }
+        return true;
+    }
+
     public void moveItem(long itemId, Long newParentId, OnOperationCompleteListener listener) {
         Logger.d(TAG, "Moving item " + itemId + " to parent " + newParentId);
         executorService.execute(() -> {
             try {
                 fileDao.moveItem(itemId, newParentId);
+                fileTree.move(itemId, newParentId);
                 mainHandler.post(() -> {
                     if (listener != null) {
                         listener.onSuccess(itemId);
@@ -175,11 +403,60 @@ public class FileRepository {
         });
     }
 
+    /**
+     * Reconcile remote files against the local rows and write the result in one transaction
+     */
+    public void applySync(List<FileItem> remote, OnSyncCompleteListener listener) {
+        Logger.d(TAG, "Applying sync of " + remote.size() + " remote items");
+        executorService.execute(() -> {
+            try {
+                SyncReconciler.SyncPlan plan = SyncReconciler.plan(remote, fileDao.getSyncRows());
+                if (!plan.isEmpty()) {
+                    fileDao.applySync(plan);
+                    fileTree.upsertAll(plan.getInserts());
+                    fileTree.upsertAll(plan.getUpdates());
+                }
+                Logger.d(TAG, "Sync applied: " + plan);
+                mainHandler.post(() -> {
+                    if (listener != null) {
+                        listener.onSuccess(plan);
+                    }
+                });
+            } catch (Exception e) {
+                Logger.e(TAG, "Error applying sync", e);
+                mainHandler.post(() -> {
+                    if (listener != null) {
+                        listener.onError(e);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * A move would put two items with the same name in one folder
+     */
+    public static class NameTakenException extends Exception {
+        public NameTakenException(String name) {
+            super("An item named " + name + " already exists in the destination folder");
+        }
+    }
+
     public interface OnOperationCompleteListener {
         void onSuccess(long id);
         void onError(Exception e);
     }
 
+    public interface OnItemsChangedListener {
+        void onSuccess(List<FileItem> items);
+        void onError(Exception e);
+    }
+
+    public interface OnSyncCompleteListener {
+        void onSuccess(SyncReconciler.SyncPlan plan);
+        void onError(Exception e);
+    }
+
     public interface OnItemRetrievedListener {
         void onSuccess(FileItem item);
         void onError(Exception e);
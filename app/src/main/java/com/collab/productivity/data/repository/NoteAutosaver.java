@@ -0,0 +1,259 @@
+package com.collab.productivity.data.repository;
+
+import com.collab.productivity.data.dao.NoteDao;
+import com.collab.productivity.data.model.ChunkedText;
+import com.collab.productivity.data.model.Note;
+import com.collab.productivity.utils.Logger;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * NoteAutosaver - Saves drafts of the note being edited on the repository's writer thread.
+ * Drafts handed over while a write is pending replace each other, so however fast they
+ * arrive only the latest is written, and only if it differs from what was last saved.
+ *
+ * Notes up to {@link NoteDao#INLINE_LIMIT} characters are saved whole in the content column,
+ * skipped when their content hash is unchanged. Longer notes are saved as the chunks of
+ * their {@link ChunkedText} that changed since the last draft, and stay chunked from
+ * then on.
+ *
+ * Every {@link #REVISION_INTERVAL_MS} of saving, and at {@link #checkpoint()}, the saved
+ * text is also recorded as a revision in the note's history.
+ *
+ * The note stays in the editing set, which pulls leave alone, until {@link #close()}.
+ */
+public class NoteAutosaver {
+    private static final String TAG = "NoteAutosaver";
+    private static final int DERIVED_TITLE_LENGTH = 50;
+    /** Least time between revisions recorded while saving */
+    static final long REVISION_INTERVAL_MS = 60_000;
+
+    private final NoteDao noteDao;
+    private final Executor writer;
+    private final NoteRevisionRecorder revisions;
+    // Only changed on the writer thread
+    private final Set<Long> editing;
+    private final AtomicReference<Draft> pending = new AtomicReference<>();
+    // Written on the writer thread, read from the main thread
+    private volatile long noteId;
+    // Written on the main thread, read on the writer thread
+    private volatile boolean discarded;
+    // Only touched on the main thread
+    private boolean chunked;
+    // Only touched on the writer thread
+    private long savedHash;
+    private long revisionRecordedAt;
+
+    NoteAutosaver(NoteDao noteDao, Executor writer, NoteRevisionRecorder revisions, Set<Long> editing, Note note) {
+        this.noteDao = noteDao;
+        this.writer = writer;
+        this.revisions = revisions;
+        this.editing = editing;
+        this.noteId = note != null ? note.getId() : -1;
+        this.chunked = note != null && note.isChunked();
+        this.savedHash = note != null ? hash(note.getTitle(), note.getContent()) : hash("", "");
+    }
+
+    /**
+     * Queue a draft, merging it with any draft not yet written. Call on the main thread:
+     * only a short note's text or a long note's changed chunks are copied here; hashing
+     * and writing happen on the writer thread.
+     */
+    public void save(String title, ChunkedText content) {
+        Draft draft;
+        if (!chunked && content.length() <= NoteDao.INLINE_LIMIT) {
+            draft = new Draft(title, content.toString(), null);
+        } else {
+            // Chunks never saved are all dirty, so the first chunked draft holds the whole text
+            chunked = true;
+            draft = new Draft(title, content.head(NoteDao.HEAD_LENGTH), content.takeChanges());
+        }
+
+        Draft previous;
+        Draft merged;
+        do {
+            previous = pending.get();
+            merged = draft.after(previous);
+        } while (!pending.compareAndSet(previous, merged));
+        if (previous == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    /**
+     * Drop any unwritten draft, ignore later ones and delete the note if it was saved.
+     * The delete runs on the writer thread, after a first save still in flight.
+     */
+    public void delete() {
+        discarded = true;
+        pending.set(null);
+        writer.execute(() -> {
+            if (noteId != -1) {
+                noteDao.deleteById(noteId);
+                revisions.forget(noteId);
+                editing.remove(noteId);
+            }
+        });
+    }
+
+    /**
+     * Stop editing: once the drafts already handed over are written, pulls may update
+     * the note again
+     */
+    public void close() {
+        writer.execute(() -> editing.remove(noteId));
+    }
+
+    /**
+     * Record the saved text as a revision once the drafts already handed over are
+     * written, e.g. when editing ends
+     */
+    public void checkpoint() {
+        writer.execute(() -> {
+            if (!discarded && noteId != -1) {
+                recordRevision(null);
+            }
+        });
+    }
+
+    /**
+     * Id of the note, or -1 while a new note has not been saved yet
+     */
+    public long getNoteId() {
+        return noteId;
+    }
+
+    private void writePending() {
+        Draft draft = pending.getAndSet(null);
+        if (draft == null || discarded) {
+            return;
+        }
+        if (draft.changes != null) {
+            writeChunks(draft);
+            return;
+        }
+        String content = draft.content.trim();
+        String title = titleOf(draft.title.trim(), content);
+        if (title.isEmpty() && content.isEmpty()) {
+            return;
+        }
+        long hash = hash(title, content);
+        if (hash == savedHash) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (noteId == -1) {
+            noteId = noteDao.insert(new Note(title, content));
+            editing.add(noteId);
+        } else {
+            noteDao.updateText(noteId, title, content, new Date());
+        }
+        savedHash = hash;
+        Logger.d(TAG, "Saved note " + noteId + " (" + content.length() + " chars) in " +
+            (System.nanoTime() - start) / 1_000_000 + "ms");
+        recordRevisionIfDue(content);
+    }
+
+    private void writeChunks(Draft draft) {
+        String head = draft.content;
+        String title = titleOf(draft.title.trim(), head.trim());
+        long hash = hash(title, head);
+        if (draft.changes.isEmpty() && hash == savedHash) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (noteId == -1) {
+            noteId = noteDao.insert(new Note(title, head));
+            editing.add(noteId);
+        }
+        noteDao.saveChunks(noteId, title, head, draft.changes.written, draft.changes.removedIds, new Date());
+        savedHash = hash;
+        Logger.d(TAG, "Saved note " + noteId + " (" + draft.changes.written.size() + " chunks written, " +
+            draft.changes.removedIds.size() + " removed) in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        recordRevisionIfDue(null);
+    }
+
+    private void recordRevisionIfDue(String text) {
+        if (System.currentTimeMillis() - revisionRecordedAt >= REVISION_INTERVAL_MS) {
+            recordRevision(text);
+        }
+    }
+
+    /**
+     * Record the saved text, read back from the database when not given
+     */
+    private void recordRevision(String text) {
+        if (text == null) {
+            Note note = noteDao.getNoteByIdSync(noteId);
+            if (note == null) {
+                return;
+            }
+            text = noteDao.getText(note);
+        }
+        revisions.record(noteId, text);
+        revisionRecordedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * The title to save: the one typed, or else the first line of the content
+     */
+    public static String titleOf(String title, String content) {
+        if (!title.isEmpty() || content.isEmpty()) {
+            return title;
+        }
+        int end = content.indexOf('\n');
+        String firstLine = end >= 0 ? content.substring(0, end) : content;
+        return firstLine.length() > DERIVED_TITLE_LENGTH
+            ? firstLine.substring(0, DERIVED_TITLE_LENGTH) + "..." : firstLine;
+    }
+
+    /**
+     * 64-bit FNV-1a over the title and content, with a separator so text moving between
+     * them changes the hash
+     */
+    static long hash(String title, String content) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, title);
+        hash = (hash ^ 0xFFFF) * 0x100000001b3L;
+        return mix(hash, content);
+    }
+
+    private static long mix(long hash, String text) {
+        if (text == null) {
+            return hash;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class Draft {
+        final String title;
+        /** The whole text, or for a chunked note its head */
+        final String content;
+        /** Chunks to write, or null for a note saved whole */
+        final ChunkedText.Changes changes;
+
+        Draft(String title, String content, ChunkedText.Changes changes) {
+            this.title = title;
+            this.content = content;
+            this.changes = changes;
+        }
+
+        /**
+         * This draft on top of an unwritten earlier one. A whole-text draft simply
+         * replaces it; chunk changes have to carry the earlier ones along.
+         */
+        Draft after(Draft previous) {
+            if (previous == null || previous.changes == null || changes == null) {
+                return this;
+            }
+            return new Draft(title, content, changes.after(previous.changes));
+        }
+    }
+}
@@ -1,24 +1,53 @@
 package com.collab.productivity.data.repository;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.lifecycle.LiveData;
 import com.collab.productivity.data.dao.NoteDao;
 import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.model.ChunkedText;
 import com.collab.productivity.data.model.Note;
+import com.collab.productivity.data.model.NoteRevision;
+import com.collab.productivity.data.sync.NoteSyncBackend;
+import com.collab.productivity.data.sync.NoteSyncer;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class NoteRepository {
+    private static final String SYNC_PREF_NAME = "note_sync_prefs";
+    // Notes open in an editor, from loadForEditing until the autosaver is closed; pulls
+    // leave them alone meanwhile. Shared, since each screen has its own repository.
+    private static final Set<Long> EDITING = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // One writer thread and revision recorder for every repository, so writes from
+    // different screens stay ordered and revisions are numbered in one place
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor();
+    private static NoteRevisionRecorder sharedRecorder;
+
+    private final Context context;
     private NoteDao noteDao;
     private LiveData<List<Note>> allNotes;
-    private ExecutorService executorService;
+    private final ExecutorService executorService = WRITER;
+    // Only used on executorService
+    private final NoteRevisionRecorder revisionRecorder;
 
     public NoteRepository(Context context) {
+        this.context = context.getApplicationContext();
         AppDatabase database = AppDatabase.getInstance(context);
         noteDao = database.noteDao();
         allNotes = noteDao.getAllNotes();
-        executorService = Executors.newSingleThreadExecutor();
+        revisionRecorder = sharedRecorder(noteDao);
+    }
+
+    private static synchronized NoteRevisionRecorder sharedRecorder(NoteDao noteDao) {
+        if (sharedRecorder == null) {
+            sharedRecorder = new NoteRevisionRecorder(noteDao);
+        }
+        return sharedRecorder;
     }
 
     public void insert(Note note) {
@@ -26,7 +55,11 @@ public class NoteRepository {
     }
 
     public void update(Note note) {
-        executorService.execute(() -> noteDao.update(note));
+        note.setSynced(false);
+        executorService.execute(() -> {
+            noteDao.update(note);
+            revisionRecorder.record(note.getId(), noteDao.getText(note));
+        });
     }
 
     public void delete(Note note) {
@@ -37,6 +70,70 @@ public class NoteRepository {
         executorService.execute(() -> noteDao.deleteById(noteId));
     }
 
+    /**
+     * An autosaver for a note being edited, or a new note when null, writing on this
+     * repository's executor so its saves stay ordered with the other note writes
+     */
+    public NoteAutosaver createAutosaver(Note note) {
+        return new NoteAutosaver(noteDao, executorService, revisionRecorder, EDITING, note);
+    }
+
+    /**
+     * A syncer whose database work runs on this repository's executor, after any writes
+     * already queued, so a sync requested after a save pushes it
+     */
+    public NoteSyncer createSyncer(NoteSyncBackend backend) {
+        return new NoteSyncer(backend, noteDao,
+            context.getSharedPreferences(SYNC_PREF_NAME, Context.MODE_PRIVATE), executorService, EDITING);
+    }
+
+    /**
+     * Read a note and its whole text for the editor, from its chunks if it has them,
+     * and hand both over on the main thread. Pulls leave the note alone from now until
+     * its autosaver is closed, or {@link #releaseNote} if editing never starts.
+     */
+    public void loadForEditing(long noteId, OnNoteLoadedListener listener) {
+        executorService.execute(() -> {
+            EDITING.add(noteId);
+            Note note = noteDao.getNoteByIdSync(noteId);
+            ChunkedText text = null;
+            if (note != null) {
+                text = note.isChunked()
+                    ? ChunkedText.fromChunks(noteDao.getChunks(noteId))
+                    : ChunkedText.of(note.getContent());
+            }
+            ChunkedText loaded = text;
+            new Handler(Looper.getMainLooper()).post(() -> listener.onLoaded(note, loaded));
+        });
+    }
+
+    /**
+     * Let pulls update a note loaded for editing that never got an autosaver
+     */
+    public void releaseNote(long noteId) {
+        executorService.execute(() -> EDITING.remove(noteId));
+    }
+
+    /**
+     * List a note's revisions, newest first, on the main thread
+     */
+    public void getRevisions(long noteId, OnRevisionsLoadedListener listener) {
+        executorService.execute(() -> {
+            List<NoteRevision.Info> revisions = noteDao.getRevisionList(noteId);
+            new Handler(Looper.getMainLooper()).post(() -> listener.onLoaded(revisions));
+        });
+    }
+
+    /**
+     * Rebuild the text of one revision of a note and hand it over on the main thread
+     */
+    public void loadRevision(long noteId, int revision, OnRevisionLoadedListener listener) {
+        executorService.execute(() -> {
+            String text = noteDao.getRevisionText(noteId, revision);
+            new Handler(Looper.getMainLooper()).post(() -> listener.onLoaded(text));
+        });
+    }
+
     public LiveData<List<Note>> getAllNotes() {
         return allNotes;
     }
@@ -44,5 +141,18 @@ public class NoteRepository {
     public LiveData<Note> getNoteById(long noteId) {
         return noteDao.getNoteById(noteId);
     }
-}
 
+    public interface OnNoteLoadedListener {
+        /** Both null if the note no longer exists */
+        void onLoaded(Note note, ChunkedText text);
+    }
+
+    public interface OnRevisionsLoadedListener {
+        void onLoaded(List<NoteRevision.Info> revisions);
+    }
+
+    public interface OnRevisionLoadedListener {
+        /** Null if the note has no such revision */
+        void onLoaded(String text);
+    }
+}
@@ -0,0 +1,120 @@
+package com.collab.productivity.data.repository;
+
+import com.collab.productivity.data.dao.NoteDao;
+import com.collab.productivity.data.model.NoteRevision;
+import com.collab.productivity.data.model.TextDelta;
+import com.collab.productivity.utils.Logger;
+import java.util.List;
+
+/**
+ * NoteRevisionRecorder - Adds a revision to a note's history each time its text is
+ * checkpointed. Each revision is stored as the compressed delta from the one before,
+ * so history grows with the edits made rather than with the size of the note.
+ *
+ * A full snapshot is written instead once the deltas since the last snapshot add up
+ * to more than that snapshot, which keeps snapshots to at most half the stored history
+ * while bounding what a rebuild reads to about two snapshots' worth. The chain is also
+ * cut at {@link #MAX_CHAIN} deltas, for notes getting many tiny edits.
+ *
+ * Not thread safe: use it only on the repository's writer thread. The revision number
+ * is checked against the stored history in the insert's transaction, so a recorder
+ * whose cache went stale reloads the history instead of reusing a number.
+ */
+class NoteRevisionRecorder {
+    private static final String TAG = "NoteRevisionRecorder";
+    static final int MAX_CHAIN = 1024;
+
+    private final NoteDao noteDao;
+    // The note last recorded, so consecutive checkpoints of it don't reload its history
+    private long noteId = -1;
+    private String lastText;
+    private int lastRevision;
+    private int chainLength;
+    private int snapshotBytes;
+    private int deltaBytes;
+
+    NoteRevisionRecorder(NoteDao noteDao) {
+        this.noteDao = noteDao;
+    }
+
+    /**
+     * Record text as the note's next revision, unless it is the same as the last one
+     */
+    void record(long noteId, String text) {
+        if (noteId != this.noteId) {
+            load(noteId);
+        }
+        long start = System.nanoTime();
+        NoteRevision revision = next(noteId, text);
+        if (revision != null && !noteDao.insertRevisionAfter(revision, lastRevision)) {
+            // Another recorder added to the history since it was loaded; build on that instead
+            Logger.w(TAG, "History of note " + noteId + " changed since revision " + lastRevision + ", reloading");
+            load(noteId);
+            revision = next(noteId, text);
+            if (revision != null && !noteDao.insertRevisionAfter(revision, lastRevision)) {
+                Logger.w(TAG, "Could not record a revision of note " + noteId + ", history still changing");
+                this.noteId = -1;
+                return;
+            }
+        }
+        if (revision == null) {
+            return;
+        }
+
+        if (revision.snapshot) {
+            snapshotBytes = revision.data.length;
+            deltaBytes = 0;
+            chainLength = 0;
+        } else {
+            deltaBytes += revision.data.length;
+            chainLength++;
+        }
+        lastText = text;
+        lastRevision = revision.revision;
+        Logger.d(TAG, "Recorded revision " + revision.revision + " of note " + noteId + " as " +
+            (revision.snapshot ? "snapshot" : "delta") + " of " + revision.data.length + " bytes in " +
+            (System.nanoTime() - start) / 1_000_000 + "ms");
+    }
+
+    /**
+     * The revision following the cached one, or null if text is the same as it
+     */
+    private NoteRevision next(long noteId, String text) {
+        if (text.equals(lastText)) {
+            return null;
+        }
+        byte[] delta = lastText != null ? TextDelta.diff(lastText, text).toBytes() : null;
+        if (delta == null || deltaBytes + delta.length > snapshotBytes || chainLength >= MAX_CHAIN) {
+            return new NoteRevision(noteId, lastRevision + 1, true, text.length(), TextDelta.compressText(text));
+        }
+        return new NoteRevision(noteId, lastRevision + 1, false, text.length(), delta);
+    }
+
+    /**
+     * Forget the cached note, e.g. after it was deleted
+     */
+    void forget(long noteId) {
+        if (noteId == this.noteId) {
+            this.noteId = -1;
+            lastText = null;
+        }
+    }
+
+    private void load(long noteId) {
+        this.noteId = noteId;
+        List<NoteRevision> chain = noteDao.getRevisionChain(noteId, Integer.MAX_VALUE);
+        if (chain.isEmpty()) {
+            lastText = null;
+            lastRevision = 0;
+            return;
+        }
+        lastText = NoteRevision.rebuild(chain);
+        lastRevision = chain.get(chain.size() - 1).revision;
+        snapshotBytes = chain.get(0).data.length;
+        deltaBytes = 0;
+        for (int i = 1; i < chain.size(); i++) {
+            deltaBytes += chain.get(i).data.length;
+        }
+        chainLength = chain.size() - 1;
+    }
+}
@@ -0,0 +1,250 @@
+package com.collab.productivity.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.utils.CloudinaryManager;
+import com.collab.productivity.utils.FirebaseManager;
+import com.collab.productivity.utils.LocalFolders;
+import com.collab.productivity.utils.Logger;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SubtreeDeleter - Deletes a folder with everything below it: the rows in one Room
+ * transaction, then the Firestore documents in write batches, the Cloudinary assets a
+ * few at a time and the folder's directory on disk, all three side by side.
+ *
+ * Progress across the three cleanups is reported as one figure on the main thread.
+ * A failed cloud deletion is counted and logged but does not stop the others, since
+ * the local rows are already gone.
+ */
+public class SubtreeDeleter {
+    private static final String TAG = "SubtreeDeleter";
+    /** Cloudinary deletions in flight at once */
+    private static final int CLOUDINARY_CONCURRENCY = 4;
+
+    // One thread for every sweep so two deletions never walk the same directories at once
+    private static final ExecutorService sweepExecutor = Executors.newSingleThreadExecutor();
+
+    private final FileRepository repository;
+    private final FirebaseManager firebaseManager;
+    private final CloudinaryManager cloudinaryManager;
+    private final File filesDir;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public SubtreeDeleter(FileRepository repository, FirebaseManager firebaseManager,
+                          CloudinaryManager cloudinaryManager, File filesDir) {
+        this.repository = repository;
+        this.firebaseManager = firebaseManager;
+        this.cloudinaryManager = cloudinaryManager;
+        this.filesDir = filesDir;
+    }
+
+    /**
+     * Delete a folder and its contents. Nothing remote is touched if the local delete fails.
+     */
+    public void delete(FileItem folder, Listener listener) {
+        repository.deleteSubtree(folder, new FileRepository.OnItemsChangedListener() {
+            @Override
+            public void onSuccess(List<FileItem> deleted) {
+                new Run(deleted, listener).start();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                listener.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Counts of one deletion. Documents and assets that failed to delete count as settled.
+     */
+    public static class Progress {
+        public final int items;
+        public final int documents;
+        public final int assets;
+        public int documentsDeleted;
+        public int documentsFailed;
+        public int assetsDeleted;
+        public int assetsFailed;
+        public boolean swept;
+
+        Progress(int items, int documents, int assets) {
+            this.items = items;
+            this.documents = documents;
+            this.assets = assets;
+        }
+
+        /**
+         * Share of the cleanup settled so far, 0 to 100. The directory sweep counts as one step.
+         */
+        public int getPercent() {
+            int settled = documentsDeleted + documentsFailed + assetsDeleted + assetsFailed + (swept ? 1 : 0);
+            return settled * 100 / (documents + assets + 1);
+        }
+
+        public boolean isComplete() {
+            return swept && documentsDeleted + documentsFailed == documents
+                && assetsDeleted + assetsFailed == assets;
+        }
+
+        public int getFailures() {
+            return documentsFailed + assetsFailed;
+        }
+
+        @Override
+        public String toString() {
+            return items + " items, documents " + documentsDeleted + "/" + documents +
+                " (" + documentsFailed + " failed), assets " + assetsDeleted + "/" + assets +
+                " (" + assetsFailed + " failed), swept " + swept;
+        }
+    }
+
+    public interface Listener {
+        void onProgress(Progress progress);
+        void onComplete(Progress progress);
+        void onError(Exception e);
+    }
+
+    /**
+     * The remote and disk cleanup of one deleted subtree. Its state is only touched on
+     * the main thread.
+     */
+    private class Run {
+        private final List<FileItem> deleted;
+        private final Listener listener;
+        private final Progress progress;
+        private final Deque<String> pendingAssets = new ArrayDeque<>();
+        private int assetsInFlight;
+        private boolean finished;
+
+        Run(List<FileItem> deleted, Listener listener) {
+            this.deleted = deleted;
+            this.listener = listener;
+            int documents = 0;
+            for (FileItem item : deleted) {
+                if (item.getFirestoreId() != null) {
+                    documents++;
+                }
+                if (!item.isFolder() && item.getCloudinaryPublicId() != null) {
+                    pendingAssets.add(item.getCloudinaryPublicId());
+                }
+            }
+            progress = new Progress(deleted.size(), documents, pendingAssets.size());
+        }
+
+        void start() {
+            Logger.d(TAG, "Cleaning up after deleting " + progress.items + " items");
+            sweep(deleted.get(0));
+            firebaseManager.deleteFilesFromFirestore(deleted, new FirebaseManager.BatchCallback() {
+                @Override
+                public void onBatchCommitted(int documents) {
+                    progress.documentsDeleted += documents;
+                    report();
+                }
+
+                @Override
+                public void onComplete(int committed, int failed) {
+                    progress.documentsFailed = failed;
+                    report();
+                }
+            });
+            deleteNextAssets();
+        }
+
+        /**
+         * Start Cloudinary deletions until the concurrency limit is reached
+         */
+        private void deleteNextAssets() {
+            while (assetsInFlight < CLOUDINARY_CONCURRENCY && !pendingAssets.isEmpty()) {
+                String publicId = pendingAssets.poll();
+                assetsInFlight++;
+                cloudinaryManager.deleteFile(publicId, new CloudinaryManager.CloudinaryDeleteCallback() {
+                    @Override
+                    public void onSuccess() {
+                        mainHandler.post(() -> onAssetSettled(true));
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Logger.e(TAG, "Error deleting " + publicId + " from Cloudinary: " + error, null);
+                        mainHandler.post(() -> onAssetSettled(false));
+                    }
+                });
+            }
+        }
+
+        private void onAssetSettled(boolean deletedAsset) {
+            assetsInFlight--;
+            if (deletedAsset) {
+                progress.assetsDeleted++;
+            } else {
+                progress.assetsFailed++;
+            }
+            report();
+            deleteNextAssets();
+        }
+
+        private void sweep(FileItem folder) {
+            File dir = LocalFolders.directoryOf(filesDir, folder);
+            sweepExecutor.execute(() -> {
+                if (dir != null) {
+                    int removed = deleteRecursively(dir);
+                    Logger.d(TAG, "Removed " + removed + " files and directories under " + dir);
+                }
+                mainHandler.post(() -> {
+                    progress.swept = true;
+                    report();
+                });
+            });
+        }
+
+        private void report() {
+            if (finished) {
+                return;
+            }
+            if (progress.isComplete()) {
+                finished = true;
+                Logger.d(TAG, "Deletion complete: " + progress);
+                listener.onComplete(progress);
+            } else {
+                listener.onProgress(progress);
+            }
+        }
+    }
+
+    /**
+     * Delete a directory tree without recursion, returning the entries removed
+     */
+    static int deleteRecursively(File top) {
+        // Parents are listed before their contents, so deleting in reverse empties each
+        // directory before it is deleted
+        List<File> entries = new ArrayList<>();
+        Deque<File> pending = new ArrayDeque<>();
+        pending.push(top);
+        while (!pending.isEmpty()) {
+            File next = pending.pop();
+            entries.add(next);
+            File[] children = next.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    pending.push(child);
+                }
+            }
+        }
+        int removed = 0;
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).delete()) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
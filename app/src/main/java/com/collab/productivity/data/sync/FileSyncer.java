@@ -0,0 +1,115 @@
+package com.collab.productivity.data.sync;
+
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.repository.FileRepository;
+import com.collab.productivity.utils.Logger;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FileSyncer - Pulls file documents from a {@link FileSyncBackend}, creates local
+ * directories for synced folders and writes the reconciled rows through FileRepository
+ */
+public class FileSyncer {
+    private static final String TAG = "FileSyncer";
+
+    // Firestore returns Timestamp for server dates; older documents may hold plain Dates
+    static final FileItemMapper.DateAdapter FIRESTORE_DATES = value -> {
+        if (value instanceof com.google.firebase.Timestamp) {
+            return ((com.google.firebase.Timestamp) value).toDate();
+        } else if (value instanceof java.util.Date) {
+            return (java.util.Date) value;
+        }
+        Logger.w(TAG, "Unknown date type: " + value.getClass().getName());
+        return null;
+    };
+
+    private final FileSyncBackend backend;
+    private final FileRepository repository;
+    private final File filesDir;
+
+    public FileSyncer(FileSyncBackend backend, FileRepository repository, File filesDir) {
+        this.backend = backend;
+        this.repository = repository;
+        this.filesDir = filesDir;
+    }
+
+    /**
+     * Sync the user's files into the local database
+     */
+    public void syncUserFiles(String userId, Callback callback) {
+        backend.fetchUserFiles(userId, new FileSyncBackend.Callback() {
+            @Override
+            public void onSuccess(List<Map<String, Object>> files) {
+                Logger.d(TAG, "Received " + files.size() + " files from Firestore");
+                apply(files, null, filesDir, callback);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    /**
+     * Sync a group's files into the local database
+     */
+    public void syncGroupFiles(String groupId, Callback callback) {
+        backend.fetchGroupFiles(groupId, new FileSyncBackend.Callback() {
+            @Override
+            public void onSuccess(List<Map<String, Object>> files) {
+                Logger.d(TAG, "Received " + files.size() + " group files from Firestore");
+                apply(files, groupId, new File(filesDir, "groups/" + groupId), callback);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    private void apply(List<Map<String, Object>> files, String groupId, File rootDir, Callback callback) {
+        List<FileItem> remoteItems = new ArrayList<>(files.size());
+        for (Map<String, Object> fileData : files) {
+            try {
+                FileItem fileItem = FileItemMapper.fromMap(fileData, FIRESTORE_DATES);
+                if (groupId != null) {
+                    fileItem.setGroupId(groupId);
+                }
+
+                // If it's a folder, create the physical directory
+                if (fileItem.isFolder() && fileItem.getPath() != null) {
+                    File physicalDir = new File(rootDir, fileItem.getPath());
+                    if (!physicalDir.exists()) {
+                        boolean created = physicalDir.mkdirs();
+                        Logger.d(TAG, "Creating synced folder directory: " + physicalDir.getAbsolutePath() + ", success: " + created);
+                    }
+                }
+                remoteItems.add(fileItem);
+            } catch (Exception e) {
+                Logger.e(TAG, "Error processing file from Firestore", e);
+            }
+        }
+
+        repository.applySync(remoteItems, new FileRepository.OnSyncCompleteListener() {
+            @Override
+            public void onSuccess(SyncReconciler.SyncPlan plan) {
+                callback.onSuccess(files.size(), plan);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e.getMessage());
+            }
+        });
+    }
+
+    public interface Callback {
+        void onSuccess(int remoteCount, SyncReconciler.SyncPlan plan);
+        void onError(String error);
+    }
+}
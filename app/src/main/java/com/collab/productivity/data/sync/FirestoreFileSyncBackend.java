@@ -0,0 +1,61 @@
+package com.collab.productivity.data.sync;
+
+import com.collab.productivity.utils.FirestoreMeter;
+import com.collab.productivity.utils.Logger;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FirestoreFileSyncBackend - Reads file documents from users/{uid}/files and
+ * groups/{groupId}/files
+ */
+public class FirestoreFileSyncBackend implements FileSyncBackend {
+    private static final String TAG = "FirestoreFileSyncBackend";
+    private static final String COLLECTION_USERS = "users";
+    private static final String COLLECTION_GROUPS = "groups";
+    private static final String COLLECTION_FILES = "files";
+
+    private final FirebaseFirestore db;
+    private final FirestoreMeter meter;
+
+    public FirestoreFileSyncBackend(FirebaseFirestore db, FirestoreMeter meter) {
+        this.db = db;
+        this.meter = meter;
+    }
+
+    @Override
+    public void fetchUserFiles(String userId, Callback callback) {
+        fetch(db.collection(COLLECTION_USERS).document(userId).collection(COLLECTION_FILES),
+            meter.start("getUserFiles"), callback);
+    }
+
+    @Override
+    public void fetchGroupFiles(String groupId, Callback callback) {
+        Logger.d(TAG, "Loading files for group: " + groupId);
+        fetch(db.collection(COLLECTION_GROUPS).document(groupId).collection(COLLECTION_FILES),
+            meter.start("getGroupFiles"), callback);
+    }
+
+    private void fetch(CollectionReference collection, FirestoreMeter.Call call, Callback callback) {
+        collection.get()
+            .addOnSuccessListener(querySnapshot -> {
+                call.read(querySnapshot.size());
+                List<Map<String, Object>> files = new ArrayList<>(querySnapshot.size());
+                for (QueryDocumentSnapshot document : querySnapshot) {
+                    Map<String, Object> fileData = document.getData();
+                    fileData.put("firestoreId", document.getId());
+                    files.add(fileData);
+                }
+                Logger.d(TAG, "Loaded " + files.size() + " files from " + collection.getPath());
+                callback.onSuccess(files);
+            })
+            .addOnFailureListener(e -> {
+                Logger.e(TAG, "Error getting files from " + collection.getPath(), e);
+                callback.onError(e.getMessage());
+            });
+    }
+}
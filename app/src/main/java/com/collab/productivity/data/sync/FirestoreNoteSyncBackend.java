@@ -0,0 +1,108 @@
+package com.collab.productivity.data.sync;
+
+import com.collab.productivity.data.model.Note;
+import com.collab.productivity.utils.FirestoreMeter;
+import com.collab.productivity.utils.Logger;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FirestoreNoteSyncBackend - Pushes and pulls note documents in users/{uid}/notes.
+ * Deleted notes stay as documents with "deleted" set, so other devices pull the deletion.
+ */
+public class FirestoreNoteSyncBackend implements NoteSyncBackend {
+    private static final String TAG = "FirestoreNoteSyncBackend";
+    private static final String COLLECTION_USERS = "users";
+    private static final String COLLECTION_NOTES = "notes";
+    static final String FIELD_SYNCED_AT = "syncedAt";
+
+    private final FirebaseFirestore db;
+    private final FirestoreMeter meter;
+
+    public FirestoreNoteSyncBackend(FirebaseFirestore db, FirestoreMeter meter) {
+        this.db = db;
+        this.meter = meter;
+    }
+
+    @Override
+    public String newDocumentId(String userId) {
+        return notes(userId).document().getId();
+    }
+
+    @Override
+    public void pushNotes(String userId, List<Note> notes, List<String> deletedIds, PushCallback callback) {
+        WriteBatch batch = db.batch();
+        for (Note note : notes) {
+            batch.set(notes(userId).document(note.getFirestoreId()), toMap(note), SetOptions.merge());
+        }
+        for (String firestoreId : deletedIds) {
+            Map<String, Object> deletion = new HashMap<>();
+            deletion.put("deleted", true);
+            deletion.put(FIELD_SYNCED_AT, FieldValue.serverTimestamp());
+            batch.set(notes(userId).document(firestoreId), deletion, SetOptions.merge());
+        }
+
+        FirestoreMeter.Call call = meter.start("pushNotes");
+        int writes = notes.size() + deletedIds.size();
+        batch.commit()
+            .addOnSuccessListener(aVoid -> {
+                for (int i = 0; i < writes; i++) {
+                    call.write();
+                }
+                callback.onSuccess();
+            })
+            .addOnFailureListener(e -> {
+                Logger.e(TAG, "Error pushing " + writes + " notes", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    @Override
+    public void fetchNotesChangedSince(String userId, Date since, FetchCallback callback) {
+        FirestoreMeter.Call call = meter.start("fetchNotesChangedSince");
+        notes(userId)
+            .whereGreaterThan(FIELD_SYNCED_AT, new Timestamp(since))
+            .get()
+            .addOnSuccessListener(querySnapshot -> {
+                call.read(querySnapshot.size());
+                List<Map<String, Object>> notes = new ArrayList<>(querySnapshot.size());
+                for (QueryDocumentSnapshot document : querySnapshot) {
+                    Map<String, Object> noteData = document.getData();
+                    noteData.put("firestoreId", document.getId());
+                    notes.add(noteData);
+                }
+                callback.onSuccess(notes);
+            })
+            .addOnFailureListener(e -> {
+                Logger.e(TAG, "Error fetching notes changed since " + since, e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    private CollectionReference notes(String userId) {
+        return db.collection(COLLECTION_USERS).document(userId).collection(COLLECTION_NOTES);
+    }
+
+    private static Map<String, Object> toMap(Note note) {
+        Map<String, Object> noteData = new HashMap<>();
+        noteData.put("title", note.getTitle());
+        noteData.put("content", note.getContent());
+        noteData.put("color", note.getColor());
+        noteData.put("userId", note.getUserId());
+        noteData.put("createdAt", note.getCreatedAt());
+        noteData.put("modifiedAt", note.getModifiedAt());
+        noteData.put("deleted", false);
+        noteData.put(FIELD_SYNCED_AT, FieldValue.serverTimestamp());
+        return noteData;
+    }
+}
@@ -0,0 +1,47 @@
+package com.collab.productivity.data.sync;
+
+import com.collab.productivity.data.model.Note;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NoteSyncBackend - Remote store of a user's notes. Pulled documents are the Firestore
+ * field map plus the document id under "firestoreId".
+ */
+public interface NoteSyncBackend {
+    /** Most writes one {@link #pushNotes} call may be given */
+    int MAX_PUSH = 500;
+    /**
+     * Largest note text, in UTF-8 bytes, that is pushed. Firestore rejects documents over
+     * 1 MiB, and one such note would fail its whole batch; this leaves room for the title
+     * and the other fields.
+     */
+    int MAX_TEXT_BYTES = 1000 * 1000;
+
+    /**
+     * A new document id, so a note can be pushed under an id it already knows
+     */
+    String newDocumentId(String userId);
+
+    /**
+     * Write the notes and mark the deleted ids deleted, all or nothing. Each write
+     * stamps the document with the server time, which pulls use as their watermark.
+     */
+    void pushNotes(String userId, List<Note> notes, List<String> deletedIds, PushCallback callback);
+
+    /**
+     * Documents written after the given server time, deletions included
+     */
+    void fetchNotesChangedSince(String userId, Date since, FetchCallback callback);
+
+    interface PushCallback {
+        void onSuccess();
+        void onError(String error);
+    }
+
+    interface FetchCallback {
+        void onSuccess(List<Map<String, Object>> notes);
+        void onError(String error);
+    }
+}
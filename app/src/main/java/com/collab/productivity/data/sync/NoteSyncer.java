@@ -0,0 +1,235 @@
+package com.collab.productivity.data.sync;
+
+import android.content.SharedPreferences;
+import com.collab.productivity.data.dao.NoteDao;
+import com.collab.productivity.data.model.Note;
+import com.collab.productivity.data.model.NoteTombstone;
+import com.collab.productivity.utils.Logger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NoteSyncer - Two-way sync of notes with a {@link NoteSyncBackend}.
+ *
+ * A sync first pushes local deletions and dirty notes, one backend batch at a time,
+ * marking each note clean only if it was not edited meanwhile. It then pulls the
+ * documents written since the last pull, by the server time the backend stamps on
+ * every write, so edits pushed late by another device are not missed however old their
+ * modifiedAt. Requests made while a sync runs are coalesced into one more sync.
+ *
+ * Notes whose text is over {@link NoteSyncBackend#MAX_TEXT_BYTES} stay local and are
+ * reported in the log on every sync until they are shortened.
+ *
+ * Pulled changes to a note open in an editor are not applied, since the editor would
+ * go on saving over them. The watermark stays before them, so they are pulled again
+ * by the first sync after the editor closes.
+ */
+public class NoteSyncer {
+    private static final String TAG = "NoteSyncer";
+    private static final String KEY_PULLED_UNTIL = "notes_pulled_until_";
+
+    private final NoteSyncBackend backend;
+    private final NoteDao noteDao;
+    private final SharedPreferences preferences;
+    private final Executor executor;
+    // Ids of the notes open in an editor; only changed on the executor
+    private final Set<Long> editingNoteIds;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    public NoteSyncer(NoteSyncBackend backend, NoteDao noteDao, SharedPreferences preferences, Executor executor,
+                      Set<Long> editingNoteIds) {
+        this.backend = backend;
+        this.noteDao = noteDao;
+        this.preferences = preferences;
+        this.executor = executor;
+        this.editingNoteIds = editingNoteIds;
+    }
+
+    /**
+     * Sync now, or once more after the sync in progress
+     */
+    public void requestSync(String userId) {
+        requested.set(true);
+        if (running.compareAndSet(false, true)) {
+            executor.execute(() -> start(userId));
+        }
+    }
+
+    private void start(String userId) {
+        requested.set(false);
+        List<Long> tooLarge = noteDao.getDirtyNoteIdsOver(NoteSyncBackend.MAX_TEXT_BYTES);
+        if (!tooLarge.isEmpty()) {
+            Logger.w(TAG, "Not syncing " + tooLarge.size() + " notes over " + NoteSyncBackend.MAX_TEXT_BYTES +
+                " bytes, the most one document holds: " + tooLarge);
+        }
+        pushNext(userId, 0);
+    }
+
+    private void pushNext(String userId, int pushedSoFar) {
+        List<NoteTombstone> tombstones = noteDao.getTombstones(NoteSyncBackend.MAX_PUSH);
+        List<Note> dirty = noteDao.getDirtyNotesUpTo(NoteSyncBackend.MAX_TEXT_BYTES,
+            NoteSyncBackend.MAX_PUSH - tombstones.size());
+        if (tombstones.isEmpty() && dirty.isEmpty()) {
+            if (pushedSoFar > 0) {
+                Logger.d(TAG, "Pushed " + pushedSoFar + " note changes");
+            }
+            pull(userId);
+            return;
+        }
+
+        for (Iterator<Note> it = dirty.iterator(); it.hasNext(); ) {
+            Note note = it.next();
+            if (note.isChunked()) {
+                Date modifiedAt = note.getModifiedAt();
+                note.setContent(noteDao.getText(note));
+                note.setModifiedAt(modifiedAt);
+            }
+            if (note.getFirestoreId() != null) {
+                continue;
+            }
+            String firestoreId = backend.newDocumentId(userId);
+            if (noteDao.assignFirestoreId(note.getId(), firestoreId, userId) == 0) {
+                // Another syncer named it and pushes it; pushing here too would fork it
+                it.remove();
+                continue;
+            }
+            note.setFirestoreId(firestoreId);
+            note.setUserId(userId);
+        }
+        List<String> deletedIds = new ArrayList<>(tombstones.size());
+        for (NoteTombstone tombstone : tombstones) {
+            deletedIds.add(tombstone.firestoreId);
+        }
+
+        backend.pushNotes(userId, dirty, deletedIds, new NoteSyncBackend.PushCallback() {
+            @Override
+            public void onSuccess() {
+                executor.execute(() -> {
+                    int edited = 0;
+                    for (Note note : dirty) {
+                        if (noteDao.markSynced(note.getId(), note.getModifiedAt()) == 0) {
+                            edited++;
+                        }
+                    }
+                    if (!deletedIds.isEmpty()) {
+                        noteDao.deleteTombstones(deletedIds);
+                    }
+                    if (edited == dirty.size() && deletedIds.isEmpty()) {
+                        // Every note changed again mid-push; leave them for the next sync
+                        // rather than chase a note that is being typed into
+                        pull(userId);
+                        return;
+                    }
+                    pushNext(userId, pushedSoFar + dirty.size() + deletedIds.size());
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                Logger.e(TAG, "Error pushing notes: " + error, null);
+                finish(userId);
+            }
+        });
+    }
+
+    private void pull(String userId) {
+        String key = KEY_PULLED_UNTIL + userId;
+        Date since = new Date(preferences.getLong(key, 0));
+        backend.fetchNotesChangedSince(userId, since, new NoteSyncBackend.FetchCallback() {
+            @Override
+            public void onSuccess(List<Map<String, Object>> documents) {
+                executor.execute(() -> {
+                    List<Note> notes = new ArrayList<>(documents.size());
+                    List<String> deletedIds = new ArrayList<>();
+                    long pulledUntil = since.getTime();
+                    for (Map<String, Object> document : documents) {
+                        Date syncedAt = date(document.get(FirestoreNoteSyncBackend.FIELD_SYNCED_AT));
+                        if (syncedAt != null) {
+                            pulledUntil = Math.max(pulledUntil, syncedAt.getTime());
+                        }
+                        if (Boolean.TRUE.equals(document.get("deleted"))) {
+                            deletedIds.add((String) document.get("firestoreId"));
+                            continue;
+                        }
+                        Note note = fromMap(document);
+                        if (note != null) {
+                            notes.add(note);
+                        }
+                    }
+                    List<String> deferredIds = new ArrayList<>();
+                    int changed = noteDao.applyRemoteNotes(notes, deletedIds, editingNoteIds, deferredIds);
+                    if (!deferredIds.isEmpty()) {
+                        pulledUntil = Math.min(pulledUntil, earliestSyncedAt(documents, deferredIds) - 1);
+                        Logger.d(TAG, "Deferred " + deferredIds.size() + " pulled notes open in the editor");
+                    }
+                    preferences.edit().putLong(key, pulledUntil).apply();
+                    Logger.d(TAG, "Pulled " + documents.size() + " notes, " + changed + " changed locally");
+                    finish(userId);
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                Logger.e(TAG, "Error pulling notes: " + error, null);
+                finish(userId);
+            }
+        });
+    }
+
+    private void finish(String userId) {
+        running.set(false);
+        if (requested.get() && running.compareAndSet(false, true)) {
+            executor.execute(() -> start(userId));
+        }
+    }
+
+    private static long earliestSyncedAt(List<Map<String, Object>> documents, List<String> firestoreIds) {
+        Set<String> ids = new HashSet<>(firestoreIds);
+        long earliest = Long.MAX_VALUE;
+        for (Map<String, Object> document : documents) {
+            Date syncedAt = date(document.get(FirestoreNoteSyncBackend.FIELD_SYNCED_AT));
+            if (syncedAt != null && ids.contains(document.get("firestoreId"))) {
+                earliest = Math.min(earliest, syncedAt.getTime());
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * A note from a pulled document, or null if it lacks the fields a note needs
+     */
+    static Note fromMap(Map<String, Object> document) {
+        Date modifiedAt = date(document.get("modifiedAt"));
+        if (modifiedAt == null) {
+            Logger.w(TAG, "Skipping note without modifiedAt: " + document.get("firestoreId"));
+            return null;
+        }
+        Note note = new Note(string(document.get("title")), string(document.get("content")));
+        note.setFirestoreId((String) document.get("firestoreId"));
+        note.setUserId((String) document.get("userId"));
+        Date createdAt = date(document.get("createdAt"));
+        note.setCreatedAt(createdAt != null ? createdAt : modifiedAt);
+        note.setModifiedAt(modifiedAt);
+        Object color = document.get("color");
+        if (color instanceof Number) {
+            note.setColor(((Number) color).intValue());
+        }
+        return note;
+    }
+
+    private static Date date(Object value) {
+        return value != null ? FileSyncer.FIRESTORE_DATES.toDate(value) : null;
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : "";
+    }
+}
@@ -10,13 +10,18 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.collab.productivity.R;
 import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FolderStats;
+import com.collab.productivity.data.model.FolderSummary;
 import com.collab.productivity.ui.adapter.FileDetailsAdapter;
+import com.collab.productivity.ui.adapter.FileRowViewPool;
+import com.collab.productivity.utils.FileFormatters;
 import com.collab.productivity.utils.Logger;
 import com.collab.productivity.viewmodel.FileViewModel;
 import com.google.android.material.appbar.MaterialToolbar;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * FolderDetailsActivity - Displays detailed metadata about a folder and its contents
@@ -38,6 +43,8 @@ public class FolderDetailsActivity extends AppCompatActivity {
     private RecyclerView recyclerView;
     private FileDetailsAdapter adapter;
     private SimpleDateFormat dateFormat;
+    private FolderSummary directSummary;
+    private FolderStats subtreeStats;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -66,8 +73,9 @@ public class FolderDetailsActivity extends AppCompatActivity {
 
         // Setup RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new FileDetailsAdapter(this);
+        adapter = new FileDetailsAdapter();
         recyclerView.setAdapter(adapter);
+        FileRowViewPool.getInstance().attach(recyclerView);
 
         // Initialize ViewModel
         fileViewModel = new ViewModelProvider(this).get(FileViewModel.class);
@@ -94,75 +102,66 @@ public class FolderDetailsActivity extends AppCompatActivity {
         folderCreatedView.setText("N/A");
         folderModifiedView.setText("N/A");
 
-        // Observe root items
-        fileViewModel.getAllFiles().observe(this, files -> {
-            if (files != null) {
-                // Filter root items (items with no parent folder)
-                ArrayList<FileItem> rootItems = new ArrayList<>();
-                for (FileItem file : files) {
-                    if (file.getParentFolderId() == null) {
-                        rootItems.add(file);
-                    }
-                }
-
-                folderItemCountView.setText(rootItems.size() + (rootItems.size() == 1 ? " item" : " items"));
-                adapter.setFiles(rootItems);
-
-                if (rootItems.isEmpty()) {
-                    emptyView.setVisibility(View.VISIBLE);
-                    recyclerView.setVisibility(View.GONE);
-                } else {
-                    emptyView.setVisibility(View.GONE);
-                    recyclerView.setVisibility(View.VISIBLE);
-                }
-            }
-        });
+        observeContents(null);
     }
 
     private void loadFolderDetails(long folderId, String folderName, String folderPath) {
         Logger.d(TAG, "Loading folder details for ID: " + folderId);
 
-        // First, get the folder itself to show its metadata
-        fileViewModel.getAllFiles().observe(this, allFiles -> {
-            if (allFiles != null) {
-                FileItem folder = null;
-                ArrayList<FileItem> folderContents = new ArrayList<>();
-
-                // Find the folder and its contents
-                for (FileItem file : allFiles) {
-                    if (file.getId() == folderId) {
-                        folder = file;
-                    }
-                    if (file.getParentFolderId() != null && file.getParentFolderId() == folderId) {
-                        folderContents.add(file);
-                    }
-                }
+        // Show the intent's values until the folder row arrives
+        showFolder(null, folderName, folderPath);
+        fileViewModel.getItemById(folderId).observe(this, folder -> showFolder(folder, folderName, folderPath));
 
-                // Update folder metadata
-                if (folder != null) {
-                    folderNameView.setText(folder.getName());
-                    folderPathView.setText(folder.getPath());
-                    folderDescriptionView.setText(
-                        folder.getDescription() != null && !folder.getDescription().isEmpty()
-                            ? folder.getDescription()
-                            : "No description"
-                    );
-                    folderCreatedView.setText(dateFormat.format(folder.getCreatedAt()));
-                    folderModifiedView.setText(dateFormat.format(folder.getModifiedAt()));
-                } else {
-                    folderNameView.setText(folderName);
-                    folderPathView.setText(folderPath);
-                    folderDescriptionView.setText("No description");
-                    folderCreatedView.setText("N/A");
-                    folderModifiedView.setText("N/A");
+        observeContents(folderId);
+    }
+
+    private void showFolder(FileItem folder, String folderName, String folderPath) {
+        if (folder != null) {
+            folderNameView.setText(folder.getName());
+            folderPathView.setText(folder.getPath());
+            folderDescriptionView.setText(
+                folder.getDescription() != null && !folder.getDescription().isEmpty()
+                    ? folder.getDescription()
+                    : "No description"
+            );
+            folderCreatedView.setText(dateFormat.format(folder.getCreatedAt()));
+            folderModifiedView.setText(dateFormat.format(folder.getModifiedAt()));
+        } else {
+            folderNameView.setText(folderName);
+            folderPathView.setText(folderPath);
+            folderDescriptionView.setText("No description");
+            folderCreatedView.setText("N/A");
+            folderModifiedView.setText("N/A");
+        }
+    }
+
+    /**
+     * Observe only the folder's direct children and their aggregates, or the root's when folderId is null
+     */
+    private void observeContents(Long folderId) {
+        fileViewModel.getFolderSummary(folderId).observe(this, summary -> {
+            directSummary = summary;
+            showCounts();
+        });
+        fileViewModel.getFolderStats(folderId).observe(this, stats -> {
+            subtreeStats = stats;
+            showCounts();
+        });
+        fileViewModel.getChildFolderStats(folderId).observe(this, childStats -> {
+            Map<Long, FolderStats> byFolder = new HashMap<>();
+            if (childStats != null) {
+                for (FolderStats stats : childStats) {
+                    byFolder.put(stats.folderId, stats);
                 }
+            }
+            adapter.setFolderStats(byFolder);
+        });
 
-                // Update files list
-                folderItemCountView.setText(folderContents.size() +
-                    (folderContents.size() == 1 ? " item" : " items"));
-                adapter.setFiles(folderContents);
+        fileViewModel.getFolderChildren(folderId).observe(this, contents -> {
+            if (contents != null) {
+                adapter.setFiles(contents);
 
-                if (folderContents.isEmpty()) {
+                if (contents.isEmpty()) {
                     emptyView.setVisibility(View.VISIBLE);
                     recyclerView.setVisibility(View.GONE);
                 } else {
@@ -172,5 +171,24 @@ public class FolderDetailsActivity extends AppCompatActivity {
             }
         });
     }
-}
 
+    /**
+     * Direct item count, plus the recursive count and size once folder_stats has them
+     */
+    private void showCounts() {
+        if (directSummary == null) {
+            return;
+        }
+        StringBuilder text = new StringBuilder()
+            .append(directSummary.itemCount).append(directSummary.itemCount == 1 ? " item" : " items");
+        if (subtreeStats != null) {
+            if (subtreeStats.descendantCount != directSummary.itemCount) {
+                text.append(", ").append(subtreeStats.descendantCount).append(" in all");
+            }
+            text.append(" • ").append(FileFormatters.formatFileSize(subtreeStats.totalBytes));
+        } else if (directSummary.totalSize > 0) {
+            text.append(" • ").append(FileFormatters.formatFileSize(directSummary.totalSize));
+        }
+        folderItemCountView.setText(text);
+    }
+}
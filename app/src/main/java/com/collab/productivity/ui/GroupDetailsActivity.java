@@ -22,6 +22,9 @@ import com.collab.productivity.R;
 import com.collab.productivity.data.model.FileItem;
 import com.collab.productivity.data.model.Group;
 import com.collab.productivity.ui.adapter.FileAdapter;
+import com.collab.productivity.ui.adapter.FileRowViewPool;
+import com.collab.productivity.utils.FileCopier;
+import com.collab.productivity.utils.FrameMetricsTracker;
 import com.collab.productivity.utils.Logger;
 import com.collab.productivity.viewmodel.FileViewModel;
 import com.collab.productivity.viewmodel.GroupViewModel;
@@ -29,9 +32,6 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.util.ArrayList;
 
 /**
  * GroupDetailsActivity - Shows group details and allows file/folder management within the group
@@ -59,6 +59,7 @@ public class GroupDetailsActivity extends AppCompatActivity implements FileAdapt
     private TextView memberCountView;
     private FloatingActionButton fab;
     private SwipeRefreshLayout swipeRefresh;
+    private FrameMetricsTracker.Tracking frameTracking;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -85,6 +86,14 @@ public class GroupDetailsActivity extends AppCompatActivity implements FileAdapt
         observeViewModel();
     }
 
+    @Override
+    protected void onDestroy() {
+        if (frameTracking != null) {
+            frameTracking.stop();
+        }
+        super.onDestroy();
+    }
+
     private void initViews() {
         toolbar = findViewById(R.id.toolbar);
         recyclerView = findViewById(R.id.recycler_view_files);
@@ -107,8 +116,13 @@ public class GroupDetailsActivity extends AppCompatActivity implements FileAdapt
 
     private void setupRecyclerView() {
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        fileAdapter = new FileAdapter(this, this);
+        fileAdapter = new FileAdapter(this);
+        fileAdapter.setMetricsName(TAG + "/recycler_view_files");
         recyclerView.setAdapter(fileAdapter);
+        FileRowViewPool.getInstance().attach(recyclerView);
+        // The list scrolls inside group_scroll, so track the frames of that
+        frameTracking = FrameMetricsTracker.getInstance().track(this, findViewById(R.id.group_scroll), TAG,
+            "group_scroll", recyclerView);
     }
 
     private void setupSwipeRefresh() {
@@ -196,10 +210,10 @@ public class GroupDetailsActivity extends AppCompatActivity implements FileAdapt
 
     private void observeViewModel() {
         // Observe group files
-        fileViewModel.getGroupFiles(groupId).observe(this, files -> {
+        fileViewModel.getGroupFileRows(groupId).observe(this, files -> {
             if (files != null) {
                 Logger.d(TAG, "Received group files update, count: " + files.size());
-                fileAdapter.submitList(new ArrayList<>(files));
+                fileAdapter.submitList(files);
                 updateEmptyView(files.isEmpty());
                 updateFileCount(files.size());
             }
@@ -284,21 +298,12 @@ public class GroupDetailsActivity extends AppCompatActivity implements FileAdapt
             Logger.d(TAG, "Destination file path: " + destinationFile.getAbsolutePath());
 
             // Copy file
-            try (InputStream inputStream = getContentResolver().openInputStream(uri);
-                 FileOutputStream outputStream = new FileOutputStream(destinationFile)) {
+            FileCopier.copy(getContentResolver().openInputStream(uri), destinationFile);
+            Logger.d(TAG, "File copied successfully: " + destinationFile.getAbsolutePath());
 
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
-
-                Logger.d(TAG, "File copied successfully: " + destinationFile.getAbsolutePath());
-
-                String mimeType = getContentResolver().getType(uri);
-                showFileDescriptionDialog(fileName, destinationFile.getAbsolutePath(),
-                    destinationFile.length(), mimeType);
-            }
+            String mimeType = getContentResolver().getType(uri);
+            showFileDescriptionDialog(fileName, destinationFile.getAbsolutePath(),
+                destinationFile.length(), mimeType);
 
         } catch (Exception e) {
             Logger.e(TAG, "Error handling file selection", e);
@@ -14,8 +14,10 @@ import com.collab.productivity.ui.fragments.HomeFragment;
 import com.collab.productivity.ui.fragments.GroupCreationFragment;
 import com.collab.productivity.ui.fragments.CollaborationFragment;
 import com.collab.productivity.ui.fragments.SettingsFragment;
+import com.collab.productivity.utils.FirestoreMeter;
 import com.collab.productivity.utils.ThemeManager;
 import com.collab.productivity.utils.Logger;
+import com.collab.productivity.utils.StartupTimeline;
 import com.collab.productivity.viewmodel.GroupViewModel;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
@@ -28,6 +30,7 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTimeline.mark(StartupTimeline.MAIN_CREATE);
         // Initialize theme manager and apply theme before super.onCreate
         themeManager = new ThemeManager(this);
         themeManager.applyTheme();
@@ -37,6 +40,7 @@ public class MainActivity extends AppCompatActivity {
 
         try {
             setContentView(R.layout.activity_main);
+            StartupTimeline.mark(StartupTimeline.MAIN_CONTENT_SET);
 
             // Initialize FragmentManager
             fragmentManager = getSupportFragmentManager();
@@ -122,6 +126,9 @@ public class MainActivity extends AppCompatActivity {
         super.onResume();
         // Check and apply any theme changes that might have occurred
         themeManager.applyTheme();
+        if (currentFragment != null) {
+            FirestoreMeter.getInstance().setCurrentScreen(currentFragment.getClass().getSimpleName());
+        }
     }
 
     private void setupBottomNavigation() {
@@ -190,6 +197,7 @@ public class MainActivity extends AppCompatActivity {
 
                 fragmentManager.executePendingTransactions();
                 currentFragment = fragment;
+                FirestoreMeter.getInstance().setCurrentScreen(fragment.getClass().getSimpleName());
                 Log.d(TAG, "Fragment transaction completed successfully");
                 return true;
 
@@ -4,9 +4,15 @@ import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.EditText;
@@ -18,7 +24,7 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.lifecycle.ViewModelProvider;
 import com.collab.productivity.R;
-import com.collab.productivity.data.model.Note;
+import com.collab.productivity.data.model.ChunkedText;
 import com.collab.productivity.utils.Logger;
 import com.collab.productivity.viewmodel.NoteViewModel;
 import com.google.android.material.appbar.MaterialToolbar;
@@ -31,12 +37,20 @@ public class NoteEditorActivity extends AppCompatActivity {
     public static final String EXTRA_NOTE_ID = "note_id";
     public static final String EXTRA_NOTE_TITLE = "note_title";
     public static final String EXTRA_NOTE_CONTENT = "note_content";
+    // Save once typing pauses this long, and at least this often while it doesn't
+    private static final long AUTOSAVE_DELAY_MS = 1000;
+    private static final long AUTOSAVE_MAX_DELAY_MS = 5000;
 
     private EditText titleEditText;
     private EditText contentEditText;
     private NoteViewModel noteViewModel;
     private long noteId = -1;
-    private Note currentNote;
+
+    // Autosave
+    private final Handler autosaveHandler = new Handler(Looper.getMainLooper());
+    private final Runnable autosaveRunnable = this::autosave;
+    private boolean editorReady = false;
+    private long firstUnsavedEditAt = 0;
 
     // Speech recognition
     private SpeechRecognizer speechRecognizer;
@@ -66,25 +80,113 @@ public class NoteEditorActivity extends AppCompatActivity {
         // Initialize speech recognizer
         initializeSpeechRecognizer();
 
+        titleEditText.addTextChangedListener(new AutosaveWatcher(false));
+        contentEditText.addTextChangedListener(new AutosaveWatcher(true));
+
         // Check if editing existing note
         if (getIntent().hasExtra(EXTRA_NOTE_ID)) {
             noteId = getIntent().getLongExtra(EXTRA_NOTE_ID, -1);
-            if (noteId != -1) {
-                loadNote(noteId);
-            }
+        }
+        if (noteViewModel.isEditing()) {
+            // Recreated: the fields restore their own text in onRestoreInstanceState
+        } else if (noteId != -1) {
+            loadNote(noteId);
+        } else {
+            noteViewModel.startEditing(null, ChunkedText.of(""));
+            editorReady = true;
         }
     }
 
+    /**
+     * Fill the editor once. The note is not observed, so our own autosaves never reset
+     * the text or cursor under the user.
+     */
     private void loadNote(long noteId) {
-        noteViewModel.getNoteById(noteId).observe(this, note -> {
-            if (note != null) {
-                currentNote = note;
-                titleEditText.setText(note.getTitle());
-                contentEditText.setText(note.getContent());
+        noteViewModel.loadNote(noteId, (note, text) -> {
+            if (note == null || isDestroyed()) {
+                return;
             }
+            titleEditText.setText(note.getTitle());
+            contentEditText.setText(text.toString());
+            noteViewModel.startEditing(note, text);
+            editorReady = true;
         });
     }
 
+    @Override
+    protected void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
+        super.onRestoreInstanceState(savedInstanceState);
+        // The restored text already matches the view model's, so start mirroring edits only now
+        if (noteViewModel.isEditing()) {
+            editorReady = true;
+        }
+    }
+
+    /**
+     * Schedules an autosave on every edit, and for the content also applies the edit to
+     * the note's chunked text, so a save only has to copy the chunks it touched
+     */
+    private class AutosaveWatcher implements TextWatcher {
+        private final boolean content;
+
+        AutosaveWatcher(boolean content) {
+            this.content = content;
+        }
+
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+        }
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {
+            if (content && editorReady) {
+                noteViewModel.getEditingText().replace(start, start + before, s.subSequence(start, start + count));
+            }
+        }
+
+        @Override
+        public void afterTextChanged(Editable s) {
+            scheduleAutosave();
+        }
+    }
+
+    /**
+     * Called for every edit, so only moves the pending save; the text is read when it fires
+     */
+    private void scheduleAutosave() {
+        if (!editorReady) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if (firstUnsavedEditAt == 0) {
+            firstUnsavedEditAt = now;
+        }
+        long delay = Math.min(AUTOSAVE_DELAY_MS, firstUnsavedEditAt + AUTOSAVE_MAX_DELAY_MS - now);
+        autosaveHandler.removeCallbacks(autosaveRunnable);
+        autosaveHandler.postDelayed(autosaveRunnable, Math.max(0, delay));
+    }
+
+    private void autosave() {
+        firstUnsavedEditAt = 0;
+        noteViewModel.autosave(titleEditText.getText().toString());
+    }
+
+    /**
+     * Save now if an autosave is pending
+     */
+    private void flushAutosave() {
+        if (firstUnsavedEditAt != 0) {
+            autosaveHandler.removeCallbacks(autosaveRunnable);
+            autosave();
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        flushAutosave();
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_note_editor, menu);
@@ -105,7 +207,7 @@ public class NoteEditorActivity extends AppCompatActivity {
         } else if (itemId == R.id.action_save) {
             saveNote();
             return true;
-        } else if (itemId == R.id.action_delete && noteId != -1) {
+        } else if (itemId == R.id.action_delete && noteViewModel.getEditingNoteId() != -1) {
             deleteNote();
             return true;
         }
@@ -113,56 +215,42 @@ public class NoteEditorActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
-    private void saveNote() {
-        String title = titleEditText.getText().toString().trim();
-        String content = contentEditText.getText().toString().trim();
+    private boolean isEmpty() {
+        return TextUtils.getTrimmedLength(titleEditText.getText()) == 0
+            && TextUtils.getTrimmedLength(contentEditText.getText()) == 0;
+    }
 
-        if (title.isEmpty() && content.isEmpty()) {
+    private void saveNote() {
+        if (isEmpty()) {
             Toast.makeText(this, "Note is empty", Toast.LENGTH_SHORT).show();
             return;
         }
-
-        // Use first line of content as title if title is empty
-        if (title.isEmpty() && !content.isEmpty()) {
-            String[] lines = content.split("\n");
-            title = lines[0].length() > 50 ? lines[0].substring(0, 50) + "..." : lines[0];
-        }
-
-        try {
-            if (noteId != -1 && currentNote != null) {
-                // Update existing note
-                currentNote.setTitle(title);
-                currentNote.setContent(content);
-                noteViewModel.update(currentNote);
-                Toast.makeText(this, "Note updated", Toast.LENGTH_SHORT).show();
-            } else {
-                // Create new note
-                Note note = new Note(title, content);
-                noteViewModel.insert(note);
-                Toast.makeText(this, "Note saved", Toast.LENGTH_SHORT).show();
-            }
+        if (!editorReady) {
+            // Still loading, nothing typed yet
             finish();
-        } catch (Exception e) {
-            Logger.e(TAG, "Error saving note", e);
-            Toast.makeText(this, "Error saving note", Toast.LENGTH_SHORT).show();
+            return;
         }
+
+        // Saved on the writer thread, skipped if nothing changed since the last autosave
+        boolean isNew = noteViewModel.getEditingNoteId() == -1;
+        autosaveHandler.removeCallbacks(autosaveRunnable);
+        autosave();
+        Toast.makeText(this, isNew ? "Note saved" : "Note updated", Toast.LENGTH_SHORT).show();
+        finish();
     }
 
     private void deleteNote() {
-        if (noteId != -1) {
-            noteViewModel.deleteById(noteId);
-            Toast.makeText(this, "Note deleted", Toast.LENGTH_SHORT).show();
-            finish();
-        }
+        autosaveHandler.removeCallbacks(autosaveRunnable);
+        firstUnsavedEditAt = 0;
+        noteViewModel.deleteEditingNote();
+        Toast.makeText(this, "Note deleted", Toast.LENGTH_SHORT).show();
+        finish();
     }
 
     @Override
     public void onBackPressed() {
         // Auto-save on back press
-        String title = titleEditText.getText().toString().trim();
-        String content = contentEditText.getText().toString().trim();
-
-        if (!title.isEmpty() || !content.isEmpty()) {
+        if (!isEmpty()) {
             saveNote();
         } else {
             super.onBackPressed();
@@ -284,12 +372,14 @@ public class NoteEditorActivity extends AppCompatActivity {
     }
 
     private void appendTextToContent(String text) {
-        String currentContent = contentEditText.getText().toString();
-        if (!currentContent.isEmpty() && !currentContent.endsWith(" ") && !currentContent.endsWith("\n")) {
-            currentContent += " ";
+        // Append in place rather than setText, which would copy and re-lay out the whole note
+        Editable content = contentEditText.getText();
+        int length = content.length();
+        if (length > 0 && content.charAt(length - 1) != ' ' && content.charAt(length - 1) != '\n') {
+            text = " " + text;
         }
-        contentEditText.setText(currentContent + text);
-        contentEditText.setSelection(contentEditText.getText().length());
+        content.append(text);
+        contentEditText.setSelection(content.length());
     }
 
     private void updateVoiceIcon() {
@@ -344,6 +434,7 @@ public class NoteEditorActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        autosaveHandler.removeCallbacks(autosaveRunnable);
         if (speechRecognizer != null) {
             speechRecognizer.destroy();
         }
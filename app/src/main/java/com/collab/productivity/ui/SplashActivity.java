@@ -10,6 +10,7 @@ import androidx.core.splashscreen.SplashScreen;
 import com.collab.productivity.utils.Logger;
 import com.collab.productivity.utils.FirebaseManager;
 import com.collab.productivity.utils.CloudinaryManager;
+import com.collab.productivity.utils.StartupTimeline;
 
 public class SplashActivity extends AppCompatActivity {
     private static final String TAG = "SplashActivity";
@@ -21,6 +22,7 @@ public class SplashActivity extends AppCompatActivity {
 
         super.onCreate(savedInstanceState);
         Logger.d(TAG, "onCreate - Start");
+        StartupTimeline.mark(StartupTimeline.SPLASH_CREATE);
 
         // Initialize Firebase and Cloudinary
         initializeServices();
@@ -30,6 +32,7 @@ public class SplashActivity extends AppCompatActivity {
 
         // Add fade out animation when splash screen is dismissed
         splashScreen.setOnExitAnimationListener(splashScreenView -> {
+            StartupTimeline.mark(StartupTimeline.SPLASH_EXIT_START);
             ObjectAnimator fadeOut = ObjectAnimator.ofFloat(
                 splashScreenView.getView(),
                 View.ALPHA,
@@ -43,6 +46,7 @@ public class SplashActivity extends AppCompatActivity {
                 @Override
                 public void onAnimationEnd(android.animation.Animator animation) {
                     splashScreenView.remove();
+                    StartupTimeline.mark(StartupTimeline.SPLASH_EXIT_END);
                     // Check authentication and navigate
                     navigateToNextScreen();
                 }
@@ -56,6 +60,7 @@ public class SplashActivity extends AppCompatActivity {
         // Initialize Cloudinary
         CloudinaryManager.getInstance().init(this);
         Logger.d(TAG, "Services initialized");
+        StartupTimeline.mark(StartupTimeline.CLOUDINARY_READY);
     }
 
     private void navigateToNextScreen() {
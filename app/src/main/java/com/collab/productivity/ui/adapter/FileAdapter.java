@@ -1,7 +1,5 @@
 package com.collab.productivity.ui.adapter;
 
-import android.content.Context;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
@@ -12,60 +10,73 @@ import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.collab.productivity.R;
 import com.collab.productivity.data.model.FileItem;
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import com.collab.productivity.data.model.FileRow;
+import com.collab.productivity.utils.FrameMetricsTracker;
+import com.collab.productivity.utils.TextPrecomputer;
 
-public class FileAdapter extends ListAdapter<FileItem, FileAdapter.FileViewHolder> {
+public class FileAdapter extends ListAdapter<FileRow, FileAdapter.FileViewHolder> {
 
-    private final Context context;
     private final FileClickListener listener;
-    private final SimpleDateFormat dateFormat;
+    private String metricsName = "files";
 
     public interface FileClickListener {
         void onItemClick(FileItem item);
         void onItemLongClick(FileItem item, View view);
     }
 
-    public FileAdapter(Context context, FileClickListener listener) {
-        super(new DiffUtil.ItemCallback<FileItem>() {
+    public FileAdapter(FileClickListener listener) {
+        super(new DiffUtil.ItemCallback<FileRow>() {
             @Override
-            public boolean areItemsTheSame(@NonNull FileItem oldItem, @NonNull FileItem newItem) {
-                // Special handling for ".." parent navigation item
-                if (oldItem.getName().equals("..") && newItem.getName().equals("..")) {
-                    return true;
-                }
+            public boolean areItemsTheSame(@NonNull FileRow oldItem, @NonNull FileRow newItem) {
+                // The ".." parent navigation row always has id -1
                 return oldItem.getId() == newItem.getId();
             }
 
             @Override
-            public boolean areContentsTheSame(@NonNull FileItem oldItem, @NonNull FileItem newItem) {
-                // Special handling for ".." parent navigation item
-                if (oldItem.getName().equals("..") && newItem.getName().equals("..")) {
-                    return true;
-                }
-                return oldItem.getName().equals(newItem.getName()) &&
-                       oldItem.getModifiedAt().equals(newItem.getModifiedAt());
+            public boolean areContentsTheSame(@NonNull FileRow oldItem, @NonNull FileRow newItem) {
+                // Unchanged items share their formatted strings, so this is mostly reference checks
+                return oldItem.equals(newItem);
             }
         });
-        this.context = context;
         this.listener = listener;
-        this.dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
+        setHasStableIds(true);
+    }
+
+    /**
+     * Name under which bind times are reported to FrameMetricsTracker
+     */
+    public void setMetricsName(String metricsName) {
+        this.metricsName = metricsName;
     }
 
     @NonNull
     @Override
     public FileViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.item_file, parent, false);
-        return new FileViewHolder(view);
+        return new FileViewHolder(FileRowViewPool.getInstance().inflate(parent, FileRowViewPool.TYPE_FILE));
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return FileRowViewPool.TYPE_FILE;
     }
 
     @Override
     public void onBindViewHolder(@NonNull FileViewHolder holder, int position) {
-        FileItem item = getItem(position);
-        holder.bind(item);
+        long start = System.nanoTime();
+        holder.bind(getItem(position));
+        FrameMetricsTracker.getInstance().recordBind(metricsName, System.nanoTime() - start);
     }
 
-    class FileViewHolder extends RecyclerView.ViewHolder {
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+
+    /**
+     * Pooled across screens, so it finds its current adapter on each click
+     * rather than keeping the one that created it
+     */
+    static class FileViewHolder extends RecyclerView.ViewHolder {
         private final ImageView iconView;
         private final TextView nameView;
         private final TextView detailsView;
@@ -77,21 +88,24 @@ public class FileAdapter extends ListAdapter<FileItem, FileAdapter.FileViewHolde
             nameView = itemView.findViewById(R.id.file_name);
             detailsView = itemView.findViewById(R.id.file_details);
             descriptionView = itemView.findViewById(R.id.file_description);
+            TextPrecomputer.getInstance().register(TextPrecomputer.FILE_DESCRIPTION, descriptionView);
 
             itemView.setOnClickListener(v -> {
-                int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION) {
-                    listener.onItemClick(getItem(position));
+                FileAdapter adapter = (FileAdapter) getBindingAdapter();
+                int position = getBindingAdapterPosition();
+                if (adapter != null && position != RecyclerView.NO_POSITION) {
+                    adapter.listener.onItemClick(adapter.getItem(position).getItem());
                 }
             });
 
             itemView.setOnLongClickListener(v -> {
-                int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION) {
-                    FileItem item = getItem(position);
+                FileAdapter adapter = (FileAdapter) getBindingAdapter();
+                int position = getBindingAdapterPosition();
+                if (adapter != null && position != RecyclerView.NO_POSITION) {
+                    FileRow row = adapter.getItem(position);
                     // Don't allow long-click on ".." parent navigation item
-                    if (!item.getName().equals("..")) {
-                        listener.onItemLongClick(item, v);
+                    if (!row.isParentEntry()) {
+                        adapter.listener.onItemLongClick(row.getItem(), v);
                         return true;
                     }
                 }
@@ -99,39 +113,18 @@ public class FileAdapter extends ListAdapter<FileItem, FileAdapter.FileViewHolde
             });
         }
 
-        void bind(FileItem item) {
-            nameView.setText(item.getName());
-
-            // Special handling for ".." parent navigation
-            if (item.getName().equals("..")) {
-                iconView.setImageResource(R.drawable.ic_folder);
-                detailsView.setText("Parent folder");
-                descriptionView.setVisibility(View.GONE);
-                return;
-            }
-
-            iconView.setImageResource(item.isFolder() ?
-                R.drawable.ic_folder : R.drawable.ic_file);
-
-            String details = item.isFolder() ?
-                context.getString(R.string.folder) :
-                formatFileSize(item.getSize());
-            details += " • " + dateFormat.format(item.getModifiedAt());
-            detailsView.setText(details);
+        void bind(FileRow row) {
+            nameView.setText(row.getName());
+            iconView.setImageResource(row.isFolder() ? R.drawable.ic_folder : R.drawable.ic_file);
+            detailsView.setText(row.getDetails());
 
-            if (item.getDescription() != null && !item.getDescription().isEmpty()) {
+            if (row.getDescription() != null) {
                 descriptionView.setVisibility(View.VISIBLE);
-                descriptionView.setText(item.getDescription());
+                TextPrecomputer.getInstance().bind(descriptionView, TextPrecomputer.FILE_DESCRIPTION,
+                    row.getId(), row.getVersion(), row.getDescription());
             } else {
                 descriptionView.setVisibility(View.GONE);
             }
         }
-
-        private String formatFileSize(long size) {
-            if (size <= 0) return "0 B";
-            final String[] units = new String[] { "B", "KB", "MB", "GB", "TB" };
-            int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
-            return String.format("%.1f %s", size / Math.pow(1024, digitGroups), units[digitGroups]);
-        }
     }
 }
@@ -1,7 +1,5 @@
 package com.collab.productivity.ui.adapter;
 
-import android.content.Context;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
@@ -10,24 +8,23 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.collab.productivity.R;
 import com.collab.productivity.data.model.FileItem;
-import java.text.SimpleDateFormat;
+import com.collab.productivity.data.model.FolderStats;
+import com.collab.productivity.utils.FileFormatters;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 
 /**
  * FileDetailsAdapter - Displays file metadata in a detailed list view
  */
 public class FileDetailsAdapter extends RecyclerView.Adapter<FileDetailsAdapter.ViewHolder> {
 
-    private final Context context;
     private List<FileItem> files;
-    private final SimpleDateFormat dateFormat;
+    private Map<Long, FolderStats> folderStats = Collections.emptyMap();
 
-    public FileDetailsAdapter(Context context) {
-        this.context = context;
+    public FileDetailsAdapter() {
         this.files = new ArrayList<>();
-        this.dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
     }
 
     public void setFiles(List<FileItem> files) {
@@ -35,17 +32,29 @@ public class FileDetailsAdapter extends RecyclerView.Adapter<FileDetailsAdapter.
         notifyDataSetChanged();
     }
 
+    /**
+     * Recursive totals to show as the size of each folder, keyed by folder id
+     */
+    public void setFolderStats(Map<Long, FolderStats> folderStats) {
+        this.folderStats = folderStats != null ? folderStats : Collections.emptyMap();
+        notifyDataSetChanged();
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.item_file_details, parent, false);
-        return new ViewHolder(view);
+        return new ViewHolder(FileRowViewPool.getInstance().inflate(parent, FileRowViewPool.TYPE_DETAILS));
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         FileItem file = files.get(position);
-        holder.bind(file);
+        holder.bind(file, file.isFolder() ? folderStats.get(file.getId()) : null);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return FileRowViewPool.TYPE_DETAILS;
     }
 
     @Override
@@ -53,7 +62,10 @@ public class FileDetailsAdapter extends RecyclerView.Adapter<FileDetailsAdapter.
         return files.size();
     }
 
-    class ViewHolder extends RecyclerView.ViewHolder {
+    /**
+     * Pooled across screens, so everything it shows is passed in on bind
+     */
+    static class ViewHolder extends RecyclerView.ViewHolder {
         private final ImageView iconView;
         private final TextView nameView;
         private final TextView typeView;
@@ -75,7 +87,7 @@ public class FileDetailsAdapter extends RecyclerView.Adapter<FileDetailsAdapter.
             descriptionView = itemView.findViewById(R.id.file_description);
         }
 
-        void bind(FileItem file) {
+        void bind(FileItem file, FolderStats stats) {
             nameView.setText(file.getName());
 
             // Special handling for ".." parent navigation
@@ -99,9 +111,12 @@ public class FileDetailsAdapter extends RecyclerView.Adapter<FileDetailsAdapter.
 
             // Set size
             if (file.isFolder()) {
-                sizeView.setText("Folder");
+                sizeView.setText(stats != null
+                    ? stats.descendantCount + (stats.descendantCount == 1 ? " item, " : " items, ")
+                        + FileFormatters.formatFileSize(stats.totalBytes)
+                    : "Folder");
             } else {
-                sizeView.setText(formatFileSize(file.getSize()));
+                sizeView.setText(FileFormatters.formatFileSize(file.getSize()));
             }
 
             // Set path
@@ -110,8 +125,8 @@ public class FileDetailsAdapter extends RecyclerView.Adapter<FileDetailsAdapter.
             // Set dates
             createdView.setVisibility(View.VISIBLE);
             modifiedView.setVisibility(View.VISIBLE);
-            createdView.setText("Created: " + dateFormat.format(file.getCreatedAt()));
-            modifiedView.setText("Modified: " + dateFormat.format(file.getModifiedAt()));
+            createdView.setText("Created: " + FileFormatters.formatDate(file.getCreatedAt()));
+            modifiedView.setText("Modified: " + FileFormatters.formatDate(file.getModifiedAt()));
 
             // Set description
             if (file.getDescription() != null && !file.getDescription().isEmpty()) {
@@ -121,14 +136,6 @@ public class FileDetailsAdapter extends RecyclerView.Adapter<FileDetailsAdapter.
                 descriptionView.setVisibility(View.GONE);
             }
         }
-
-        private String formatFileSize(long size) {
-            if (size <= 0) return "0 B";
-            final String[] units = new String[] { "B", "KB", "MB", "GB", "TB" };
-            int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
-            return String.format(Locale.getDefault(), "%.1f %s",
-                size / Math.pow(1024, digitGroups), units[digitGroups]);
-        }
     }
 }
 
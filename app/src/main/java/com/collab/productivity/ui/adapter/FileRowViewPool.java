@@ -0,0 +1,139 @@
+package com.collab.productivity.ui.adapter;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import androidx.annotation.LayoutRes;
+import androidx.appcompat.view.ContextThemeWrapper;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import com.collab.productivity.R;
+import com.collab.productivity.utils.Logger;
+
+/**
+ * FileRowViewPool - One RecycledViewPool for the file rows of the home screen, group
+ * details and folder details, so moving between them reuses row views instead of
+ * inflating them again.
+ *
+ * Rows are inflated against a themed application context rather than the screen that
+ * asked for them, since pooled views outlive the Activity that created them. Row view
+ * holders must not reference their adapter either; they reach it through
+ * {@link RecyclerView.ViewHolder#getBindingAdapter()}.
+ */
+public final class FileRowViewPool {
+    private static final String TAG = "FileRowViewPool";
+
+    /** View types double as layout ids so file and detail rows never share a slot */
+    public static final int TYPE_FILE = R.layout.item_file;
+    public static final int TYPE_DETAILS = R.layout.item_file_details;
+
+    // Approximate row heights, used to work out how many rows fill a screen
+    private static final int FILE_ROW_DP = 72;
+    private static final int DETAILS_ROW_DP = 160;
+
+    private static FileRowViewPool instance;
+
+    private final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+    private Context inflationContext;
+    private int uiMode;
+    private int fileRowsPerScreen;
+    private int detailRowsPerScreen;
+    private boolean prewarmScheduled;
+
+    private FileRowViewPool() {
+    }
+
+    public static synchronized FileRowViewPool getInstance() {
+        if (instance == null) {
+            instance = new FileRowViewPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Share the pool with a list of file rows. Rows still on screen are returned to the
+     * pool when the list is detached.
+     */
+    public void attach(RecyclerView list) {
+        prepare(list.getContext());
+        list.setRecycledViewPool(pool);
+        RecyclerView.LayoutManager layoutManager = list.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).setRecycleChildrenOnDetach(true);
+        }
+    }
+
+    /**
+     * Inflate a row for the pool; use in place of the adapter's own inflater
+     */
+    public View inflate(ViewGroup parent, @LayoutRes int viewType) {
+        prepare(parent.getContext());
+        return LayoutInflater.from(inflationContext).inflate(viewType, parent, false);
+    }
+
+    /**
+     * Fill the pool with a screen of each row type, one row per main thread idle
+     * callback so inflation never delays a frame. Only the first call has any effect.
+     */
+    public void prewarmWhenIdle(Context context) {
+        prepare(context);
+        if (prewarmScheduled) {
+            return;
+        }
+        prewarmScheduled = true;
+
+        // Throwaway adapters only create the holders; the holders keep no reference to them.
+        // A RecyclerView parent without a LayoutManager cannot make layout params, so rows
+        // are inflated against a plain FrameLayout and the list converts them when attached.
+        ViewGroup parent = new FrameLayout(inflationContext);
+        RecyclerView.Adapter<?> files = new FileAdapter(null);
+        RecyclerView.Adapter<?> details = new FileDetailsAdapter();
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            private int created;
+
+            @Override
+            public boolean queueIdle() {
+                if (pool.getRecycledViewCount(TYPE_FILE) < fileRowsPerScreen) {
+                    pool.putRecycledView(files.createViewHolder(parent, TYPE_FILE));
+                } else if (pool.getRecycledViewCount(TYPE_DETAILS) < detailRowsPerScreen) {
+                    pool.putRecycledView(details.createViewHolder(parent, TYPE_DETAILS));
+                } else {
+                    Logger.d(TAG, "Prewarmed " + created + " rows");
+                    return false;
+                }
+                created++;
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Size the pool for the current screen and drop rows inflated for another
+     * configuration, e.g. after switching between light and dark themes
+     */
+    private void prepare(Context context) {
+        Configuration configuration = context.getResources().getConfiguration();
+        int currentUiMode = configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK;
+        if (inflationContext != null && currentUiMode == uiMode) {
+            return;
+        }
+        if (inflationContext != null) {
+            Logger.d(TAG, "Configuration changed, clearing pooled rows");
+            pool.clear();
+        }
+        uiMode = currentUiMode;
+        inflationContext = new ContextThemeWrapper(
+            context.getApplicationContext().createConfigurationContext(configuration),
+            R.style.Theme_CollabProductivity);
+
+        fileRowsPerScreen = configuration.screenHeightDp / FILE_ROW_DP + 2;
+        detailRowsPerScreen = configuration.screenHeightDp / DETAILS_ROW_DP + 2;
+        pool.setMaxRecycledViews(TYPE_FILE, fileRowsPerScreen * 2);
+        pool.setMaxRecycledViews(TYPE_DETAILS, detailRowsPerScreen * 2);
+    }
+}
@@ -7,23 +7,34 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.collab.productivity.R;
-import com.collab.productivity.data.model.Note;
+import com.collab.productivity.data.model.NoteRow;
 import com.collab.productivity.ui.NoteEditorActivity;
+import com.collab.productivity.utils.FrameMetricsTracker;
+import com.collab.productivity.utils.TextPrecomputer;
 import com.google.android.material.card.MaterialCardView;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Locale;
 
-public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder> {
-    private List<Note> notes = new ArrayList<>();
-    private Context context;
-    private SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
+public class NoteAdapter extends ListAdapter<NoteRow, NoteAdapter.NoteViewHolder> {
+    private final Context context;
 
     public NoteAdapter(Context context) {
+        super(new DiffUtil.ItemCallback<NoteRow>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull NoteRow oldItem, @NonNull NoteRow newItem) {
+                return oldItem.getId() == newItem.getId();
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull NoteRow oldItem, @NonNull NoteRow newItem) {
+                // Rows of unchanged notes are reused, so this is usually a reference check
+                return oldItem.equals(newItem);
+            }
+        });
         this.context = context;
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -36,54 +47,46 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull NoteViewHolder holder, int position) {
-        Note note = notes.get(position);
-        holder.bind(note);
+        long start = System.nanoTime();
+        holder.bind(getItem(position));
+        FrameMetricsTracker.getInstance().recordBind("notes", System.nanoTime() - start);
     }
 
     @Override
-    public int getItemCount() {
-        return notes.size();
-    }
-
-    public void setNotes(List<Note> notes) {
-        this.notes = notes;
-        notifyDataSetChanged();
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     class NoteViewHolder extends RecyclerView.ViewHolder {
-        private MaterialCardView cardView;
-        private TextView titleView;
-        private TextView contentPreviewView;
-        private TextView dateView;
+        private final MaterialCardView cardView;
+        private final TextView titleView;
+        private final TextView contentPreviewView;
+        private final TextView dateView;
 
-        public NoteViewHolder(@NonNull View itemView) {
+        NoteViewHolder(@NonNull View itemView) {
             super(itemView);
             cardView = itemView.findViewById(R.id.note_card);
             titleView = itemView.findViewById(R.id.note_title);
             contentPreviewView = itemView.findViewById(R.id.note_content_preview);
             dateView = itemView.findViewById(R.id.note_date);
-        }
-
-        public void bind(Note note) {
-            titleView.setText(note.getTitle());
-
-            // Show preview of content (first 100 characters)
-            String content = note.getContent();
-            if (content != null && content.length() > 100) {
-                contentPreviewView.setText(content.substring(0, 100) + "...");
-            } else {
-                contentPreviewView.setText(content);
-            }
-
-            dateView.setText(dateFormat.format(note.getModifiedAt()));
+            TextPrecomputer.getInstance().register(TextPrecomputer.NOTE_PREVIEW, contentPreviewView);
 
             // Click listener to open editor
             cardView.setOnClickListener(v -> {
-                Intent intent = new Intent(context, NoteEditorActivity.class);
-                intent.putExtra(NoteEditorActivity.EXTRA_NOTE_ID, note.getId());
-                context.startActivity(intent);
+                int position = getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    Intent intent = new Intent(context, NoteEditorActivity.class);
+                    intent.putExtra(NoteEditorActivity.EXTRA_NOTE_ID, getItem(position).getId());
+                    context.startActivity(intent);
+                }
             });
         }
+
+        void bind(NoteRow row) {
+            titleView.setText(row.getTitle());
+            TextPrecomputer.getInstance().bind(contentPreviewView, TextPrecomputer.NOTE_PREVIEW,
+                row.getId(), row.getVersion(), row.getPreview());
+            dateView.setText(row.getDate());
+        }
     }
 }
-
@@ -3,6 +3,7 @@ package com.collab.productivity.ui.fragments;
 import android.app.Activity;
 import android.content.Intent;
 import android.net.Uri;
+import android.graphics.Rect;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -11,6 +12,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.widget.NestedScrollView;
 import androidx.appcompat.widget.PopupMenu;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
@@ -18,22 +20,26 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.collab.productivity.R;
 import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FileRow;
 import com.collab.productivity.ui.adapter.FileAdapter;
+import com.collab.productivity.ui.adapter.FileRowViewPool;
 import com.collab.productivity.ui.adapter.NoteAdapter;
 import com.collab.productivity.ui.NoteEditorActivity;
 import com.collab.productivity.ui.FolderDetailsActivity;
+import com.collab.productivity.utils.FileCopier;
+import com.collab.productivity.utils.FrameMetricsTracker;
 import com.collab.productivity.utils.Logger;
+import com.collab.productivity.utils.StartupTimeline;
 import com.collab.productivity.viewmodel.FileViewModel;
 import com.collab.productivity.viewmodel.NoteViewModel;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
-import java.io.InputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import android.webkit.MimeTypeMap;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 /**
@@ -43,7 +49,12 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 public class HomeFragment extends Fragment implements FileAdapter.FileClickListener {
     private static final String TAG = "HomeFragment";
     private static final int PICK_FILE_REQUEST = 1;
+    // Rows assumed visible before a new list has been laid out
+    private static final int FIRST_SCREEN_ROWS = 12;
+    // Quiet time after the last scroll change before the scroll counts as settled
+    private static final long SCROLL_SETTLE_MS = 150;
 
+    private NestedScrollView homeScroll;
     private RecyclerView recyclerView;
     private RecyclerView notesRecyclerView;
     private FileAdapter fileAdapter;
@@ -56,6 +67,11 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
     private TextView emptyNotesView;
     private FloatingActionButton fab;
     private SwipeRefreshLayout swipeRefresh;
+    // Folder whose rows the list shows; -1 until the first rows arrive, null for the root
+    private Long shownFolderId = -1L;
+    private FrameMetricsTracker.Tracking frameTracking;
+    private final Runnable prefetchWhenSettled = this::prefetchVisibleFolders;
+    private final Rect rowBounds = new Rect();
 
     @Nullable
     @Override
@@ -66,6 +82,7 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
 
         try {
             // Initialize views
+            homeScroll = view.findViewById(R.id.home_scroll);
             recyclerView = view.findViewById(R.id.recycler_view_files);
             notesRecyclerView = view.findViewById(R.id.recycler_view_notes);
             pathView = view.findViewById(R.id.current_path);
@@ -74,7 +91,7 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
             emptyNotesView = view.findViewById(R.id.empty_notes_view);
             fab = view.findViewById(R.id.fab_add);
             swipeRefresh = view.findViewById(R.id.swipe_refresh);
-            if (recyclerView == null || notesRecyclerView == null || pathView == null ||
+            if (homeScroll == null || recyclerView == null || notesRecyclerView == null || pathView == null ||
                 emptyView == null || emptyNotesView == null || fab == null || swipeRefresh == null) {
                 throw new IllegalStateException("Required views not found in layout");
             }
@@ -85,6 +102,9 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
             // Set up RecyclerViews
             setupRecyclerView();
             setupNotesRecyclerView();
+            // Both lists scroll inside home_scroll, so its frames are tracked once for both
+            frameTracking = FrameMetricsTracker.getInstance().track(requireActivity(), homeScroll, TAG,
+                "home_scroll", recyclerView, notesRecyclerView);
 
             // Initialize ViewModels
             fileViewModel = new ViewModelProvider(this).get(FileViewModel.class);
@@ -124,19 +144,23 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
             // Trigger initial sync from Firestore in background
             new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
                 if (isAdded()) {
+                    StartupTimeline.mark(StartupTimeline.SYNC_START);
                     fileViewModel.syncFilesFromFirestore(new FileViewModel.SyncCallback() {
                         @Override
                         public void onSuccess() {
                             Logger.d(TAG, "Initial Firestore sync completed");
+                            StartupTimeline.mark(StartupTimeline.SYNC_END);
                         }
 
                         @Override
                         public void onError(String error) {
                             Logger.e(TAG, "Initial Firestore sync failed: " + error, null);
+                            StartupTimeline.mark(StartupTimeline.SYNC_END);
                         }
                     });
                 }
             }, 1000);
+            StartupTimeline.mark(StartupTimeline.HOME_VIEW_CREATED);
 
         } catch (Exception e) {
             Logger.e(TAG, "Error in onCreateView", e);
@@ -174,6 +198,18 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
         });
     }
 
+    @Override
+    public void onDestroyView() {
+        if (homeScroll != null) {
+            homeScroll.removeCallbacks(prefetchWhenSettled);
+        }
+        if (frameTracking != null) {
+            frameTracking.stop();
+            frameTracking = null;
+        }
+        super.onDestroyView();
+    }
+
     /**
      * Sets up RecyclerView with layout manager and adapter
      */
@@ -181,13 +217,88 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
         Logger.d(TAG, "Setting up RecyclerView");
         try {
             recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-            fileAdapter = new FileAdapter(requireContext(), this);
+            fileAdapter = new FileAdapter(this);
+            fileAdapter.setMetricsName(TAG + "/recycler_view_files");
             recyclerView.setAdapter(fileAdapter);
+            FileRowViewPool.getInstance().attach(recyclerView);
+            // The list is wrap_content inside home_scroll, which does the scrolling, so the
+            // list itself never reports a scroll state
+            homeScroll.setOnScrollChangeListener(
+                (NestedScrollView.OnScrollChangeListener) (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+                    homeScroll.removeCallbacks(prefetchWhenSettled);
+                    homeScroll.postDelayed(prefetchWhenSettled, SCROLL_SETTLE_MS);
+                });
+            // Folder and group screens open from here; have their rows ready by then
+            FileRowViewPool.getInstance().prewarmWhenIdle(requireContext());
         } catch (Exception e) {
             Logger.e(TAG, "Error setting up RecyclerView", e);
         }
     }
 
+    /**
+     * The file list lays out every row inside home_scroll, which does the scrolling, so
+     * the position kept per folder is home_scroll's scrollY
+     */
+    private void saveScrollPosition(Long folderId) {
+        boolean nothingShown = folderId != null && folderId < 0;
+        if (!nothingShown) {
+            fileViewModel.saveScrollPosition(folderId, homeScroll.getScrollY());
+        }
+    }
+
+    /**
+     * Scroll back to where a folder was left once its new rows have been laid out, then
+     * prefetch the folders that brings on screen
+     */
+    private void restoreScrollPosition(Long folderId) {
+        int scrollY = fileViewModel.getScrollPosition(folderId);
+        homeScroll.post(() -> {
+            homeScroll.scrollTo(0, scrollY);
+            prefetchVisibleFolders();
+        });
+    }
+
+    /**
+     * Asks the ViewModel to prefetch the subfolders on screen, top to bottom. The list
+     * lays out every row, so a row counts as on screen when it overlaps home_scroll's
+     * viewport. Before the first layout of a new list, the first screen's worth of rows
+     * stands in for them.
+     */
+    private void prefetchVisibleFolders() {
+        if (fileAdapter == null || fileViewModel == null) {
+            return;
+        }
+        List<FileRow> rows = fileAdapter.getCurrentList();
+        List<Long> folderIds = new ArrayList<>();
+        if (recyclerView.getChildCount() == 0) {
+            for (int i = 0; i < FIRST_SCREEN_ROWS && i < rows.size(); i++) {
+                addPrefetchFolder(rows.get(i), folderIds);
+            }
+        } else {
+            int viewportTop = homeScroll.getScrollY();
+            int viewportBottom = viewportTop + homeScroll.getHeight();
+            for (int i = 0; i < recyclerView.getChildCount(); i++) {
+                View child = recyclerView.getChildAt(i);
+                child.getDrawingRect(rowBounds);
+                // In home_scroll's content coordinates, which its scrollY is measured in
+                homeScroll.offsetDescendantRectToMyCoords(child, rowBounds);
+                int position = recyclerView.getChildAdapterPosition(child);
+                if (rowBounds.bottom <= viewportTop || rowBounds.top >= viewportBottom
+                        || position == RecyclerView.NO_POSITION || position >= rows.size()) {
+                    continue;
+                }
+                addPrefetchFolder(rows.get(position), folderIds);
+            }
+        }
+        fileViewModel.prefetchFolders(folderIds);
+    }
+
+    private static void addPrefetchFolder(FileRow row, List<Long> folderIds) {
+        if (row.isFolder() && !row.isParentEntry()) {
+            folderIds.add(row.getId());
+        }
+    }
+
     /**
      * Sets up Notes RecyclerView with layout manager and adapter
      */
@@ -322,22 +433,13 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
             Logger.d(TAG, "Destination file path: " + destinationFile.getAbsolutePath());
 
             // Copy file to current directory
-            try (InputStream inputStream = requireContext().getContentResolver().openInputStream(uri);
-                 FileOutputStream outputStream = new FileOutputStream(destinationFile)) {
-
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
+            FileCopier.copy(requireContext().getContentResolver().openInputStream(uri), destinationFile);
+            Logger.d(TAG, "File copied successfully: " + destinationFile.getAbsolutePath());
 
-                Logger.d(TAG, "File copied successfully: " + destinationFile.getAbsolutePath());
-
-                // Immediately update the UI after successful file copy
-                String mimeType = requireContext().getContentResolver().getType(uri);
-                showFileDescriptionDialog(fileName, destinationFile.getAbsolutePath(),
-                                     destinationFile.length(), mimeType);
-            }
+            // Immediately update the UI after successful file copy
+            String mimeType = requireContext().getContentResolver().getType(uri);
+            showFileDescriptionDialog(fileName, destinationFile.getAbsolutePath(),
+                                 destinationFile.length(), mimeType);
 
         } catch (Exception e) {
             Logger.e(TAG, "Error handling file selection", e);
@@ -406,21 +508,36 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
         Logger.d(TAG, "Setting up ViewModel observation");
 
         // Observe files from ViewModel - this is the MAIN observer for file list updates
-        fileViewModel.getCurrentFolderContents().observe(getViewLifecycleOwner(), files -> {
+        fileViewModel.getCurrentFolderRows().observe(getViewLifecycleOwner(), files -> {
             if (files != null) {
                 Logger.d(TAG, "Received files update from ViewModel, count: " + files.size());
-                fileAdapter.submitList(new ArrayList<>(files));
+                Long folderId = fileViewModel.getCurrentFolderId().getValue();
+                if (!Objects.equals(folderId, shownFolderId)) {
+                    // Rows of another folder: clearing first skips the background diff
+                    // against the old folder, so they are laid out in this frame, where
+                    // the list was left last time
+                    saveScrollPosition(shownFolderId);
+                    fileAdapter.submitList(null);
+                    shownFolderId = folderId;
+                    fileAdapter.submitList(files, () -> restoreScrollPosition(folderId));
+                } else {
+                    fileAdapter.submitList(files, this::prefetchVisibleFolders);
+                }
                 updateEmptyView(files.isEmpty());
                 updateFileCount(files.size());
+                if (!StartupTimeline.has(StartupTimeline.FIRST_DATA)) {
+                    StartupTimeline.mark(StartupTimeline.FIRST_DATA);
+                    markFirstListFrame();
+                }
             }
         });
 
 
         // Observe notes
-        noteViewModel.getAllNotes().observe(getViewLifecycleOwner(), notes -> {
+        noteViewModel.getNoteRows().observe(getViewLifecycleOwner(), notes -> {
             if (notes != null) {
                 Logger.d(TAG, "Received notes update, count: " + notes.size());
-                noteAdapter.setNotes(notes);
+                noteAdapter.submitList(notes);
                 updateEmptyNotesView(notes.isEmpty());
             }
         });
@@ -436,6 +553,15 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
             }
         });
 
+        // Observe folder deletion progress
+        fileViewModel.getDeleteProgress().observe(getViewLifecycleOwner(), progress -> {
+            if (progress != null && progress > 0 && progress < 100) {
+                if (isAdded()) {
+                    Toast.makeText(requireContext(), "Deleting: " + progress + "%", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+
         // Observe status messages
         fileViewModel.getStatusMessage().observe(getViewLifecycleOwner(), message -> {
             if (message != null && !message.isEmpty()) {
@@ -447,6 +573,28 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
         });
     }
 
+    /**
+     * Records the first frame drawn after the file list received data and reports
+     * the activity as fully drawn
+     */
+    private void markFirstListFrame() {
+        View root = getView();
+        if (root == null) {
+            return;
+        }
+        root.getViewTreeObserver().addOnPreDrawListener(new android.view.ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                root.getViewTreeObserver().removeOnPreDrawListener(this);
+                StartupTimeline.mark(StartupTimeline.FIRST_LIST_FRAME);
+                if (getActivity() != null) {
+                    getActivity().reportFullyDrawn();
+                }
+                return true;
+            }
+        });
+    }
+
     private void updateEmptyView(boolean isEmpty) {
         if (emptyView != null && recyclerView != null) {
             emptyView.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
@@ -532,7 +680,7 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
                     showRenameDialog(item);
                     return true;
                 case 1:
-                    // TODO: Implement move functionality
+                    showMoveDialog(item);
                     return true;
                 case 2:
                     showDeleteConfirmation(item);
@@ -573,6 +721,35 @@ public class HomeFragment extends Fragment implements FileAdapter.FileClickListe
             .show();
     }
 
+    /**
+     * Shows the folders a file or folder can be moved into, with the root first
+     * @param item - FileItem representing the file or folder
+     */
+    private void showMoveDialog(FileItem item) {
+        List<FileItem> targets = fileViewModel.getMoveTargets(item);
+        boolean canMoveToRoot = item.getParentFolderId() != null;
+        int offset = canMoveToRoot ? 1 : 0;
+        String[] labels = new String[targets.size() + offset];
+        if (canMoveToRoot) {
+            labels[0] = "/";
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            labels[i + offset] = fileViewModel.getDisplayPath(targets.get(i));
+        }
+        if (labels.length == 0) {
+            Toast.makeText(requireContext(), "No other folder to move " + item.getName() + " to",
+                Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        new MaterialAlertDialogBuilder(requireContext())
+            .setTitle(getString(R.string.move) + " " + item.getName())
+            .setItems(labels, (dialog, which) ->
+                fileViewModel.moveItem(item, which < offset ? null : targets.get(which - offset)))
+            .setNegativeButton(R.string.cancel, null)
+            .show();
+    }
+
     /**
      * Shows confirmation dialog for deleting a file or folder
      * @param item - FileItem representing the file or folder
@@ -14,12 +14,14 @@ import androidx.appcompat.app.AppCompatDelegate;
 import androidx.fragment.app.Fragment;
 import com.collab.productivity.R;
 import com.collab.productivity.ui.LoginActivity;
+import com.collab.productivity.utils.DiagnosticsReport;
 import com.collab.productivity.utils.FirebaseManager;
 import com.collab.productivity.utils.ThemeManager;
 import com.collab.productivity.utils.Logger;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.firebase.auth.FirebaseUser;
+import java.io.File;
 
 public class SettingsFragment extends Fragment {
     private static final String TAG = "SettingsFragment";
@@ -30,6 +32,7 @@ public class SettingsFragment extends Fragment {
     private TextView userNameText;
     private Button logoutButton;
     private Button syncButton;
+    private Button exportDiagnosticsButton;
 
     public SettingsFragment() {
         // Required empty public constructor
@@ -52,11 +55,13 @@ public class SettingsFragment extends Fragment {
         userNameText = view.findViewById(R.id.user_name);
         logoutButton = view.findViewById(R.id.logout_button);
         syncButton = view.findViewById(R.id.sync_button);
+        exportDiagnosticsButton = view.findViewById(R.id.export_diagnostics_button);
 
         setupThemeSwitch();
         setupUserInfo();
         setupLogoutButton();
         setupSyncButton();
+        setupExportDiagnosticsButton();
 
         return view;
     }
@@ -102,6 +107,39 @@ public class SettingsFragment extends Fragment {
         }
     }
 
+    private void setupExportDiagnosticsButton() {
+        if (exportDiagnosticsButton != null) {
+            exportDiagnosticsButton.setOnClickListener(v -> exportDiagnostics());
+        }
+    }
+
+    /**
+     * Writes the diagnostics report and offers it to a share target
+     */
+    private void exportDiagnostics() {
+        File report = DiagnosticsReport.export(requireContext());
+        if (report == null) {
+            Toast.makeText(requireContext(), "Error exporting diagnostics", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        try {
+            android.net.Uri uri = androidx.core.content.FileProvider.getUriForFile(
+                requireContext(),
+                requireContext().getPackageName() + ".provider",
+                report
+            );
+            Intent intent = new Intent(Intent.ACTION_SEND);
+            intent.setType("text/plain");
+            intent.putExtra(Intent.EXTRA_STREAM, uri);
+            intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            startActivity(Intent.createChooser(intent, getString(R.string.export_diagnostics)));
+        } catch (Exception e) {
+            Logger.e(TAG, "Error sharing diagnostics", e);
+            Toast.makeText(requireContext(), "Diagnostics saved to " + report.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        }
+    }
+
     private void showLogoutConfirmation() {
         new MaterialAlertDialogBuilder(requireContext())
             .setTitle("Logout")
@@ -4,8 +4,6 @@ import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
 import com.cloudinary.android.MediaManager;
-import com.cloudinary.android.callback.ErrorInfo;
-import com.cloudinary.android.callback.UploadCallback;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,6 +18,7 @@ public class CloudinaryManager {
 
     private static CloudinaryManager instance;
     private boolean isInitialized = false;
+    private FileUploader uploader;
 
     private CloudinaryManager() {
     }
@@ -45,6 +44,9 @@ public class CloudinaryManager {
 
                 MediaManager.init(context, config);
                 isInitialized = true;
+                if (uploader == null) {
+                    uploader = new MediaManagerUploader();
+                }
                 Log.d(TAG, "Cloudinary initialized successfully");
             } catch (Exception e) {
                 Log.e(TAG, "Error initializing Cloudinary", e);
@@ -52,6 +54,13 @@ public class CloudinaryManager {
         }
     }
 
+    /**
+     * Replace the upload transport, e.g. with an uploader pointed at a local stand-in in tests
+     */
+    public void setUploader(FileUploader uploader) {
+        this.uploader = uploader;
+    }
+
     /**
      * Upload file to Cloudinary
      * @param uri - URI of the file to upload
@@ -60,7 +69,7 @@ public class CloudinaryManager {
      * @param callback - Upload callback
      */
     public void uploadFile(Uri uri, String userId, String folderPath, CloudinaryUploadCallback callback) {
-        if (!isInitialized) {
+        if (uploader == null) {
             callback.onError("Cloudinary not initialized");
             return;
         }
@@ -72,48 +81,7 @@ public class CloudinaryManager {
                 cloudinaryFolder += folderPath.replace("/", "_");
             }
 
-            Map<String, Object> options = new HashMap<>();
-            options.put("folder", cloudinaryFolder);
-            options.put("resource_type", "auto");
-
-            MediaManager.get()
-                .upload(uri)
-                .option("folder", cloudinaryFolder)
-                .option("resource_type", "auto")
-                .callback(new UploadCallback() {
-                    @Override
-                    public void onStart(String requestId) {
-                        Log.d(TAG, "Upload started: " + requestId);
-                        callback.onProgress(0);
-                    }
-
-                    @Override
-                    public void onProgress(String requestId, long bytes, long totalBytes) {
-                        int progress = (int) ((bytes * 100) / totalBytes);
-                        Log.d(TAG, "Upload progress: " + progress + "%");
-                        callback.onProgress(progress);
-                    }
-
-                    @Override
-                    public void onSuccess(String requestId, Map resultData) {
-                        Log.d(TAG, "Upload successful: " + requestId);
-                        String secureUrl = (String) resultData.get("secure_url");
-                        String publicId = (String) resultData.get("public_id");
-                        callback.onSuccess(secureUrl, publicId);
-                    }
-
-                    @Override
-                    public void onError(String requestId, ErrorInfo error) {
-                        Log.e(TAG, "Upload failed: " + error.getDescription());
-                        callback.onError(error.getDescription());
-                    }
-
-                    @Override
-                    public void onReschedule(String requestId, ErrorInfo error) {
-                        Log.d(TAG, "Upload rescheduled: " + requestId);
-                    }
-                })
-                .dispatch();
+            uploader.upload(uri, cloudinaryFolder, callback);
 
         } catch (Exception e) {
             Log.e(TAG, "Error uploading file", e);
@@ -0,0 +1,61 @@
+package com.collab.productivity.utils;
+
+import android.content.Context;
+import android.os.Build;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * DiagnosticsReport - Collects the app's performance counters into a single text
+ * file that can be shared from the Settings screen
+ */
+public class DiagnosticsReport {
+    private static final String TAG = "DiagnosticsReport";
+    private static final String FILE_NAME = "diagnostics_report.txt";
+
+    private DiagnosticsReport() {
+    }
+
+    /**
+     * Build the report text from all collectors
+     */
+    public static String build() {
+        StringBuilder report = new StringBuilder();
+        report.append("Notionary diagnostics ")
+            .append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date()))
+            .append('\n');
+        report.append("Device: ").append(Build.MANUFACTURER).append(' ').append(Build.MODEL)
+            .append(", API ").append(Build.VERSION.SDK_INT).append("\n\n");
+
+        report.append("== Cold start ==\n");
+        report.append(StartupTimeline.getReport()).append('\n');
+
+        report.append("== Firestore usage ==\n");
+        report.append(FirestoreMeter.getInstance().getReport()).append('\n');
+
+        report.append("== Frame metrics ==\n");
+        report.append(FrameMetricsTracker.getInstance().getReport()).append('\n');
+
+        return report.toString();
+    }
+
+    /**
+     * Write the report to the app's files directory
+     * @return the written file, or null if writing failed
+     */
+    public static File export(Context context) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        try (FileWriter writer = new FileWriter(file, false)) {
+            writer.write(build());
+            Logger.i(TAG, "Diagnostics exported to " + file.getAbsolutePath());
+            return file;
+        } catch (IOException e) {
+            Logger.e(TAG, "Failed to export diagnostics", e);
+            return null;
+        }
+    }
+}
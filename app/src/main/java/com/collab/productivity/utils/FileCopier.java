@@ -0,0 +1,42 @@
+package com.collab.productivity.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * FileCopier - Copies picked files into the app's storage before upload
+ */
+public final class FileCopier {
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private FileCopier() {
+    }
+
+    /**
+     * Copy a stream into a file, closing the stream
+     * @return number of bytes copied
+     */
+    public static long copy(InputStream inputStream, File destination) throws IOException {
+        return copy(inputStream, destination, DEFAULT_BUFFER_SIZE);
+    }
+
+    public static long copy(InputStream inputStream, File destination, int bufferSize) throws IOException {
+        if (inputStream == null) {
+            throw new IOException("Cannot open source for " + destination.getName());
+        }
+        try (InputStream in = inputStream;
+             OutputStream out = new FileOutputStream(destination)) {
+            byte[] buffer = new byte[bufferSize];
+            long total = 0;
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+                total += bytesRead;
+            }
+            return total;
+        }
+    }
+}
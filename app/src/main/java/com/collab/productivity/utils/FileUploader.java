@@ -0,0 +1,11 @@
+package com.collab.productivity.utils;
+
+import android.net.Uri;
+
+/**
+ * FileUploader - Transport used by CloudinaryManager to upload a file into a folder.
+ * Callbacks are delivered on the main thread.
+ */
+public interface FileUploader {
+    void upload(Uri uri, String folder, CloudinaryManager.CloudinaryUploadCallback callback);
+}
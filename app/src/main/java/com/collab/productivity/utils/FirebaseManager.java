@@ -4,11 +4,16 @@ import android.util.Log;
 import com.collab.productivity.data.model.FileItem;
 import com.collab.productivity.data.model.Note;
 import com.collab.productivity.data.model.User;
+import com.collab.productivity.data.sync.FileSyncBackend;
+import com.collab.productivity.data.sync.FirestoreFileSyncBackend;
+import com.collab.productivity.data.sync.FirestoreNoteSyncBackend;
+import com.collab.productivity.data.sync.NoteSyncBackend;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -23,14 +28,22 @@ public class FirebaseManager {
     private static final String COLLECTION_FILES = "files";
     private static final String COLLECTION_NOTES = "notes";
     private static final String COLLECTION_GROUPS = "groups";
+    /** Firestore's limit on writes in one batch */
+    private static final int MAX_BATCH_WRITES = 500;
 
     private static FirebaseManager instance;
     private final FirebaseAuth auth;
     private final FirebaseFirestore db;
+    private final FirestoreMeter meter;
+    private FileSyncBackend fileSyncBackend;
+    private NoteSyncBackend noteSyncBackend;
 
     private FirebaseManager() {
         auth = FirebaseAuth.getInstance();
         db = FirebaseFirestore.getInstance();
+        meter = FirestoreMeter.getInstance();
+        fileSyncBackend = new FirestoreFileSyncBackend(db, meter);
+        noteSyncBackend = new FirestoreNoteSyncBackend(db, meter);
     }
 
     public static synchronized FirebaseManager getInstance() {
@@ -40,6 +53,34 @@ public class FirebaseManager {
         return instance;
     }
 
+    /**
+     * Get the backend that file sync reads remote documents from
+     */
+    public FileSyncBackend getFileSyncBackend() {
+        return fileSyncBackend;
+    }
+
+    /**
+     * Replace the file sync backend, e.g. with a fake for benchmarks
+     */
+    public void setFileSyncBackend(FileSyncBackend fileSyncBackend) {
+        this.fileSyncBackend = fileSyncBackend;
+    }
+
+    /**
+     * Get the backend that note sync pushes to and pulls from
+     */
+    public NoteSyncBackend getNoteSyncBackend() {
+        return noteSyncBackend;
+    }
+
+    /**
+     * Replace the note sync backend, e.g. with a fake for tests
+     */
+    public void setNoteSyncBackend(NoteSyncBackend noteSyncBackend) {
+        this.noteSyncBackend = noteSyncBackend;
+    }
+
     /**
      * Get current Firebase user
      */
@@ -153,10 +194,12 @@ public class FirebaseManager {
         userData.put("lastLogin", user.getLastLogin());
         userData.put("storageUsed", user.getStorageUsed());
 
+        FirestoreMeter.Call call = meter.start("createUserDocument");
         db.collection(COLLECTION_USERS)
             .document(user.getUid())
             .set(userData)
             .addOnSuccessListener(aVoid -> {
+                call.write();
                 Log.d(TAG, "User document created");
                 callback.onSuccess(auth.getCurrentUser());
             })
@@ -170,10 +213,14 @@ public class FirebaseManager {
      * Update user last login time
      */
     private void updateUserLastLogin(String userId) {
+        FirestoreMeter.Call call = meter.start("updateUserLastLogin");
         db.collection(COLLECTION_USERS)
             .document(userId)
             .update("lastLogin", new java.util.Date())
-            .addOnSuccessListener(aVoid -> Log.d(TAG, "Last login updated"))
+            .addOnSuccessListener(aVoid -> {
+                call.write();
+                Log.d(TAG, "Last login updated");
+            })
             .addOnFailureListener(e -> Log.e(TAG, "Error updating last login", e));
     }
 
@@ -181,10 +228,12 @@ public class FirebaseManager {
      * Get user data from Firestore
      */
     public void getUserData(String userId, UserCallback callback) {
+        FirestoreMeter.Call call = meter.start("getUserData");
         db.collection(COLLECTION_USERS)
             .document(userId)
             .get()
             .addOnSuccessListener(documentSnapshot -> {
+                call.read(1);
                 if (documentSnapshot.exists()) {
                     User user = documentSnapshot.toObject(User.class);
                     callback.onSuccess(user);
@@ -234,7 +283,8 @@ public class FirebaseManager {
         Log.d(TAG, "saveFileToFirestore: CloudinaryPublicId: " + fileItem.getCloudinaryPublicId());
 
         // First, ensure the user document exists (required for subcollections)
-        ensureUserDocumentExists(userId, new FirestoreCallback() {
+        FirestoreMeter.Call call = meter.start("saveFileToFirestore");
+        ensureUserDocumentExists(userId, call, new FirestoreCallback() {
             @Override
             public void onSuccess(String documentId) {
                 // User document exists, now save the file
@@ -245,6 +295,7 @@ public class FirebaseManager {
                     .collection(COLLECTION_FILES)
                     .add(fileData)
                     .addOnSuccessListener(documentReference -> {
+                        call.write();
                         Log.d(TAG, "saveFileToFirestore: SUCCESS - File saved to Firestore with ID: " + documentReference.getId());
                         Log.d(TAG, "saveFileToFirestore: Document path: users/" + userId + "/files/" + documentReference.getId());
                         fileItem.setFirestoreId(documentReference.getId());
@@ -269,12 +320,14 @@ public class FirebaseManager {
     /**
      * Ensure user document exists in Firestore
      * This is required before creating subcollections
+     * Reads and writes are billed to the caller's metered call
      */
-    private void ensureUserDocumentExists(String userId, FirestoreCallback callback) {
+    private void ensureUserDocumentExists(String userId, FirestoreMeter.Call call, FirestoreCallback callback) {
         db.collection(COLLECTION_USERS)
             .document(userId)
             .get()
             .addOnSuccessListener(documentSnapshot -> {
+                call.read(1);
                 if (documentSnapshot.exists()) {
                     Log.d(TAG, "ensureUserDocumentExists: User document exists");
                     callback.onSuccess(userId);
@@ -290,6 +343,7 @@ public class FirebaseManager {
                         .document(userId)
                         .set(userData)
                         .addOnSuccessListener(aVoid -> {
+                            call.write();
                             Log.d(TAG, "ensureUserDocumentExists: User document created successfully");
                             callback.onSuccess(userId);
                         })
@@ -321,12 +375,14 @@ public class FirebaseManager {
         updates.put("modifiedAt", fileItem.getModifiedAt());
         updates.put("parentPath", fileItem.getParentPath());
 
+        FirestoreMeter.Call call = meter.start("updateFileInFirestore");
         db.collection(COLLECTION_USERS)
             .document(userId)
             .collection(COLLECTION_FILES)
             .document(fileItem.getFirestoreId())
             .update(updates)
             .addOnSuccessListener(aVoid -> {
+                call.write();
                 Log.d(TAG, "File updated in Firestore");
                 callback.onSuccess(fileItem.getFirestoreId());
             })
@@ -346,12 +402,14 @@ public class FirebaseManager {
             return;
         }
 
+        FirestoreMeter.Call call = meter.start("deleteFileFromFirestore");
         db.collection(COLLECTION_USERS)
             .document(userId)
             .collection(COLLECTION_FILES)
             .document(firestoreId)
             .delete()
             .addOnSuccessListener(aVoid -> {
+                call.delete();
                 Log.d(TAG, "File deleted from Firestore");
                 callback.onSuccess(firestoreId);
             })
@@ -361,6 +419,116 @@ public class FirebaseManager {
             });
     }
 
+    /**
+     * Delete many file documents with one WriteBatch per {@link #MAX_BATCH_WRITES} documents.
+     * Items in a group are deleted from the group's collection.
+     */
+    public void deleteFilesFromFirestore(List<FileItem> items, BatchCallback callback) {
+        writeInBatches("deleteFilesFromFirestore", true, items,
+            (batch, document, item) -> batch.delete(document), callback);
+    }
+
+    /**
+     * Write the new location of moved items: the parent of the first item, which is the
+     * one that moved, and the paths of it and everything below it
+     */
+    public void updateMovedFilesInFirestore(List<FileItem> items, BatchCallback callback) {
+        FileItem moved = items.isEmpty() ? null : items.get(0);
+        writeInBatches("updateMovedFilesInFirestore", false, items, (batch, document, item) -> {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("path", item.getPath());
+            updates.put("parentPath", item.getParentPath());
+            if (item == moved) {
+                updates.put("parentFolderId", item.getParentFolderId());
+                updates.put("modifiedAt", item.getModifiedAt());
+            }
+            batch.update(document, updates);
+        }, callback);
+    }
+
+    /**
+     * Apply one write per item that has a Firestore document, committing a WriteBatch per
+     * {@link #MAX_BATCH_WRITES} writes. Batches are committed together and the callback
+     * hears about each one as it lands.
+     */
+    private void writeInBatches(String operation, boolean deletes, List<FileItem> items, BatchWrite write,
+                                BatchCallback callback) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            int documents = 0;
+            for (FileItem item : items) {
+                if (item.getFirestoreId() != null) {
+                    documents++;
+                }
+            }
+            callback.onComplete(0, documents);
+            return;
+        }
+
+        List<WriteBatch> batches = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        WriteBatch batch = null;
+        int size = 0;
+        for (FileItem item : items) {
+            if (item.getFirestoreId() == null) {
+                continue;
+            }
+            if (batch == null || size == MAX_BATCH_WRITES) {
+                if (batch != null) {
+                    batches.add(batch);
+                    sizes.add(size);
+                }
+                batch = db.batch();
+                size = 0;
+            }
+            DocumentReference document = item.getGroupId() != null
+                ? db.collection(COLLECTION_GROUPS).document(item.getGroupId())
+                    .collection(COLLECTION_FILES).document(item.getFirestoreId())
+                : db.collection(COLLECTION_USERS).document(userId)
+                    .collection(COLLECTION_FILES).document(item.getFirestoreId());
+            write.apply(batch, document, item);
+            size++;
+        }
+        if (batch != null) {
+            batches.add(batch);
+            sizes.add(size);
+        }
+        if (batches.isEmpty()) {
+            callback.onComplete(0, 0);
+            return;
+        }
+
+        FirestoreMeter.Call call = meter.start(operation);
+        // Listeners run on the main thread, so the counters need no locking
+        int[] settled = new int[3]; // batches, committed, failed
+        for (int i = 0; i < batches.size(); i++) {
+            int documents = sizes.get(i);
+            batches.get(i).commit()
+                .addOnSuccessListener(aVoid -> {
+                    for (int d = 0; d < documents; d++) {
+                        if (deletes) {
+                            call.delete();
+                        } else {
+                            call.write();
+                        }
+                    }
+                    settled[1] += documents;
+                    callback.onBatchCommitted(documents);
+                    if (++settled[0] == batches.size()) {
+                        callback.onComplete(settled[1], settled[2]);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, operation + ": batch of " + documents + " files failed", e);
+                    settled[2] += documents;
+                    if (++settled[0] == batches.size()) {
+                        callback.onComplete(settled[1], settled[2]);
+                    }
+                });
+        }
+        Log.d(TAG, operation + ": committing " + batches.size() + " batches");
+    }
+
     /**
      * Get all files for current user from Firestore
      */
@@ -370,24 +538,7 @@ public class FirebaseManager {
             callback.onError("User not logged in");
             return;
         }
-
-        db.collection(COLLECTION_USERS)
-            .document(userId)
-            .collection(COLLECTION_FILES)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
-                List<Map<String, Object>> files = new ArrayList<>();
-                for (QueryDocumentSnapshot document : querySnapshot) {
-                    Map<String, Object> fileData = document.getData();
-                    fileData.put("firestoreId", document.getId());
-                    files.add(fileData);
-                }
-                callback.onSuccess(files);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error getting user files", e);
-                callback.onError(e.getMessage());
-            });
+        fileSyncBackend.fetchUserFiles(userId, callback);
     }
 
     /**
@@ -424,11 +575,13 @@ public class FirebaseManager {
 
         Log.d(TAG, "saveGroupFileToFirestore: Saving to groups/" + groupId + "/files");
 
+        FirestoreMeter.Call call = meter.start("saveGroupFileToFirestore");
         db.collection(COLLECTION_GROUPS)
             .document(groupId)
             .collection(COLLECTION_FILES)
             .add(fileData)
             .addOnSuccessListener(documentReference -> {
+                call.write();
                 Log.d(TAG, "saveGroupFileToFirestore: SUCCESS - File saved with ID: " + documentReference.getId());
                 fileItem.setFirestoreId(documentReference.getId());
                 callback.onSuccess(documentReference.getId());
@@ -448,27 +601,7 @@ public class FirebaseManager {
             callback.onError("User not logged in");
             return;
         }
-
-        Log.d(TAG, "getGroupFiles: Loading files for group: " + groupId);
-
-        db.collection(COLLECTION_GROUPS)
-            .document(groupId)
-            .collection(COLLECTION_FILES)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
-                List<Map<String, Object>> files = new ArrayList<>();
-                for (QueryDocumentSnapshot document : querySnapshot) {
-                    Map<String, Object> fileData = document.getData();
-                    fileData.put("firestoreId", document.getId());
-                    files.add(fileData);
-                }
-                Log.d(TAG, "getGroupFiles: Loaded " + files.size() + " files");
-                callback.onSuccess(files);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error getting group files", e);
-                callback.onError(e.getMessage());
-            });
+        fileSyncBackend.fetchGroupFiles(groupId, callback);
     }
 
     /**
@@ -491,11 +624,13 @@ public class FirebaseManager {
         noteData.put("createdAt", note.getCreatedAt());
         noteData.put("modifiedAt", note.getModifiedAt());
 
+        FirestoreMeter.Call call = meter.start("saveNoteToFirestore");
         db.collection(COLLECTION_USERS)
             .document(userId)
             .collection(COLLECTION_NOTES)
             .add(noteData)
             .addOnSuccessListener(documentReference -> {
+                call.write();
                 Log.d(TAG, "Note saved to Firestore: " + documentReference.getId());
                 note.setFirestoreId(documentReference.getId());
                 callback.onSuccess(documentReference.getId());
@@ -522,12 +657,14 @@ public class FirebaseManager {
         updates.put("color", note.getColor());
         updates.put("modifiedAt", note.getModifiedAt());
 
+        FirestoreMeter.Call call = meter.start("updateNoteInFirestore");
         db.collection(COLLECTION_USERS)
             .document(userId)
             .collection(COLLECTION_NOTES)
             .document(note.getFirestoreId())
             .update(updates)
             .addOnSuccessListener(aVoid -> {
+                call.write();
                 Log.d(TAG, "Note updated in Firestore");
                 callback.onSuccess(note.getFirestoreId());
             })
@@ -569,10 +706,12 @@ public class FirebaseManager {
         groupData.put("inviteCode", inviteCode);
         groupData.put("createdAt", new java.util.Date());
 
+        FirestoreMeter.Call call = meter.start("createGroup");
         db.collection("groups")
             .document(group.getId())
             .set(groupData)
             .addOnSuccessListener(aVoid -> {
+                call.write();
                 Log.d(TAG, "Group created successfully: " + group.getId());
                 callback.onSuccess(group);
             })
@@ -592,10 +731,12 @@ public class FirebaseManager {
             return;
         }
 
+        FirestoreMeter.Call call = meter.start("joinGroup");
         db.collection("groups")
             .whereEqualTo("inviteCode", inviteCode)
             .get()
             .addOnSuccessListener(queryDocumentSnapshots -> {
+                call.read(queryDocumentSnapshots.size());
                 if (queryDocumentSnapshots.isEmpty()) {
                     callback.onError("Invalid invite code");
                     return;
@@ -623,6 +764,7 @@ public class FirebaseManager {
                         .document(group.getId())
                         .update("memberIds", finalMemberIds)
                         .addOnSuccessListener(aVoid -> {
+                            call.write();
                             Log.d(TAG, "User joined group successfully");
                             group.setMemberIds(finalMemberIds);
                             callback.onSuccess(group);
@@ -649,10 +791,12 @@ public class FirebaseManager {
             return;
         }
 
+        FirestoreMeter.Call call = meter.start("getUserGroups");
         db.collection("groups")
             .whereArrayContains("memberIds", userId)
             .get()
             .addOnSuccessListener(queryDocumentSnapshots -> {
+                call.read(queryDocumentSnapshots.size());
                 List<com.collab.productivity.data.model.Group> groups = new ArrayList<>();
                 for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
                     com.collab.productivity.data.model.Group group = document.toObject(com.collab.productivity.data.model.Group.class);
@@ -671,10 +815,12 @@ public class FirebaseManager {
      * Get group by ID
      */
     public void getGroupById(String groupId, GroupCallback callback) {
+        FirestoreMeter.Call call = meter.start("getGroupById");
         db.collection("groups")
             .document(groupId)
             .get()
             .addOnSuccessListener(documentSnapshot -> {
+                call.read(1);
                 if (documentSnapshot.exists()) {
                     com.collab.productivity.data.model.Group group = documentSnapshot.toObject(com.collab.productivity.data.model.Group.class);
                     callback.onSuccess(group);
@@ -717,9 +863,16 @@ public class FirebaseManager {
         void onError(String error);
     }
 
-    public interface FilesCallback {
-        void onSuccess(List<Map<String, Object>> files);
-        void onError(String error);
+    public interface FilesCallback extends FileSyncBackend.Callback {
+    }
+
+    public interface BatchCallback {
+        void onBatchCommitted(int documents);
+        void onComplete(int committed, int failed);
+    }
+
+    private interface BatchWrite {
+        void apply(WriteBatch batch, DocumentReference document, FileItem item);
     }
 
     public interface GroupCallback {
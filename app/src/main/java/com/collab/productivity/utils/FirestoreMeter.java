@@ -0,0 +1,287 @@
+package com.collab.productivity.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * FirestoreMeter - Counts billable Firestore document reads, writes and deletes
+ * per logical operation and per screen, and keeps daily totals in SharedPreferences.
+ *
+ * Each FirebaseManager method opens a {@link Call} and records every document it
+ * touches on it, so per-call budgets can be checked by tests.
+ */
+public class FirestoreMeter {
+    private static final String PREF_NAME = "firestore_meter_prefs";
+    private static final String UNKNOWN_SCREEN = "unknown";
+
+    private static FirestoreMeter instance;
+
+    private final Map<String, Counts> operationTotals = new TreeMap<>();
+    private final Map<String, Counts> screenTotals = new TreeMap<>();
+    private final Map<String, Budget> budgets = new HashMap<>();
+    private final List<String> violations = new ArrayList<>();
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+    private SharedPreferences preferences;
+    private volatile String currentScreen = UNKNOWN_SCREEN;
+
+    FirestoreMeter() {
+    }
+
+    public static synchronized FirestoreMeter getInstance() {
+        if (instance == null) {
+            instance = new FirestoreMeter();
+        }
+        return instance;
+    }
+
+    /**
+     * Enables persistence of daily totals. Without it the meter only counts in memory.
+     */
+    public synchronized void init(Context context) {
+        preferences = context.getApplicationContext()
+            .getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Set the screen that subsequent operations are attributed to
+     */
+    public void setCurrentScreen(String screen) {
+        currentScreen = screen != null ? screen : UNKNOWN_SCREEN;
+    }
+
+    public String getCurrentScreen() {
+        return currentScreen;
+    }
+
+    /**
+     * Start metering one invocation of a logical operation
+     */
+    public Call start(String operation) {
+        synchronized (this) {
+            totalsFor(operationTotals, operation).calls++;
+        }
+        return new Call(operation, currentScreen);
+    }
+
+    /**
+     * Set the maximum reads, writes and deletes a single call of an operation may cost
+     */
+    public synchronized void setBudget(String operation, int maxReads, int maxWrites, int maxDeletes) {
+        budgets.put(operation, new Budget(maxReads, maxWrites, maxDeletes));
+    }
+
+    public synchronized void clearBudgets() {
+        budgets.clear();
+        violations.clear();
+    }
+
+    /**
+     * Throws if any metered call exceeded its budget since the budgets were last cleared
+     */
+    public synchronized void assertWithinBudgets() {
+        if (!violations.isEmpty()) {
+            throw new IllegalStateException("Firestore budget exceeded: " + violations);
+        }
+    }
+
+    public synchronized List<String> getViolations() {
+        return new ArrayList<>(violations);
+    }
+
+    public synchronized Counts getOperationTotals(String operation) {
+        Counts counts = operationTotals.get(operation);
+        return counts != null ? counts.copy() : new Counts();
+    }
+
+    public synchronized Counts getScreenTotals(String screen) {
+        Counts counts = screenTotals.get(screen);
+        return counts != null ? counts.copy() : new Counts();
+    }
+
+    /**
+     * Get the persisted totals for a day formatted as yyyy-MM-dd
+     */
+    public synchronized Counts getDailyTotals(String day) {
+        Counts counts = new Counts();
+        if (preferences != null) {
+            counts.reads = preferences.getLong(day + ".reads", 0);
+            counts.writes = preferences.getLong(day + ".writes", 0);
+            counts.deletes = preferences.getLong(day + ".deletes", 0);
+        }
+        return counts;
+    }
+
+    public synchronized Counts getTodayTotals() {
+        return getDailyTotals(dayFormat.format(new Date()));
+    }
+
+    /**
+     * Reset in-memory counters, keeping persisted daily totals
+     */
+    public synchronized void reset() {
+        operationTotals.clear();
+        screenTotals.clear();
+        violations.clear();
+    }
+
+    /**
+     * Human readable summary of the in-memory and persisted counters
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Today: ").append(getTodayTotals()).append('\n');
+        report.append("By operation:\n");
+        for (Map.Entry<String, Counts> entry : operationTotals.entrySet()) {
+            report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        report.append("By screen:\n");
+        for (Map.Entry<String, Counts> entry : screenTotals.entrySet()) {
+            report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        if (!violations.isEmpty()) {
+            report.append("Budget violations:\n");
+            for (String violation : violations) {
+                report.append("  ").append(violation).append('\n');
+            }
+        }
+        return report.toString();
+    }
+
+    private synchronized void record(Call call, long reads, long writes, long deletes) {
+        Counts op = totalsFor(operationTotals, call.operation);
+        op.reads += reads;
+        op.writes += writes;
+        op.deletes += deletes;
+
+        Counts screen = totalsFor(screenTotals, call.screen);
+        screen.reads += reads;
+        screen.writes += writes;
+        screen.deletes += deletes;
+
+        Budget budget = budgets.get(call.operation);
+        if (budget != null && !call.overBudget && budget.isExceededBy(call.counts)) {
+            call.overBudget = true;
+            violations.add(call.operation + " on " + call.screen + " cost " + call.counts
+                + ", budget " + budget);
+        }
+
+        if (preferences != null) {
+            String day = dayFormat.format(new Date());
+            preferences.edit()
+                .putLong(day + ".reads", preferences.getLong(day + ".reads", 0) + reads)
+                .putLong(day + ".writes", preferences.getLong(day + ".writes", 0) + writes)
+                .putLong(day + ".deletes", preferences.getLong(day + ".deletes", 0) + deletes)
+                .apply();
+        }
+    }
+
+    private static Counts totalsFor(Map<String, Counts> map, String key) {
+        Counts counts = map.get(key);
+        if (counts == null) {
+            counts = new Counts();
+            map.put(key, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * A single invocation of a logical operation
+     */
+    public class Call {
+        private final String operation;
+        private final String screen;
+        private final Counts counts = new Counts();
+        private boolean overBudget;
+
+        Call(String operation, String screen) {
+            this.operation = operation;
+            this.screen = screen;
+            counts.calls = 1;
+        }
+
+        /**
+         * Record document reads. Firestore bills a query that returns nothing as one read.
+         */
+        public void read(int documents) {
+            long billed = Math.max(1, documents);
+            synchronized (FirestoreMeter.this) {
+                counts.reads += billed;
+            }
+            record(this, billed, 0, 0);
+        }
+
+        public void write() {
+            synchronized (FirestoreMeter.this) {
+                counts.writes++;
+            }
+            record(this, 0, 1, 0);
+        }
+
+        public void delete() {
+            synchronized (FirestoreMeter.this) {
+                counts.deletes++;
+            }
+            record(this, 0, 0, 1);
+        }
+
+        public Counts getCounts() {
+            synchronized (FirestoreMeter.this) {
+                return counts.copy();
+            }
+        }
+    }
+
+    /**
+     * Read, write and delete counters
+     */
+    public static class Counts {
+        public long calls;
+        public long reads;
+        public long writes;
+        public long deletes;
+
+        Counts copy() {
+            Counts copy = new Counts();
+            copy.calls = calls;
+            copy.reads = reads;
+            copy.writes = writes;
+            copy.deletes = deletes;
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return (calls > 0 ? calls + " calls, " : "") + reads + " reads, "
+                + writes + " writes, " + deletes + " deletes";
+        }
+    }
+
+    private static class Budget {
+        final int maxReads;
+        final int maxWrites;
+        final int maxDeletes;
+
+        Budget(int maxReads, int maxWrites, int maxDeletes) {
+            this.maxReads = maxReads;
+            this.maxWrites = maxWrites;
+            this.maxDeletes = maxDeletes;
+        }
+
+        boolean isExceededBy(Counts counts) {
+            return counts.reads > maxReads || counts.writes > maxWrites || counts.deletes > maxDeletes;
+        }
+
+        @Override
+        public String toString() {
+            return maxReads + " reads, " + maxWrites + " writes, " + maxDeletes + " deletes";
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.collab.productivity.utils;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * FrameMetricsTracker - Collects per-frame durations from the window while a tracked
+ * scroll container is scrolling, counts janky frames tagged with the screen and list size,
+ * and aggregates adapter bind times. Results are included in the diagnostics report.
+ */
+public class FrameMetricsTracker {
+    private static final String TAG = "FrameMetricsTracker";
+    private static final long NANOS_PER_MS = 1_000_000L;
+    private static final int[] SIZE_BUCKETS = { 50, 200, 1000 };
+
+    private static FrameMetricsTracker instance;
+
+    private final Map<String, ListStats> stats = new TreeMap<>();
+    // One tracked scroll container per window, so a frame is never counted twice
+    private final Map<Window, Tracking> trackings = new HashMap<>();
+    private HandlerThread metricsThread;
+    private Handler metricsHandler;
+
+    private FrameMetricsTracker() {
+    }
+
+    public static synchronized FrameMetricsTracker getInstance() {
+        if (instance == null) {
+            instance = new FrameMetricsTracker();
+        }
+        return instance;
+    }
+
+    /**
+     * Start collecting frame metrics for the view that scrolls a screen's lists, which
+     * may be one of the lists itself. Frames are attributed to it only while it scrolls,
+     * and janky frames are tagged with the total size of the lists. Tracking another
+     * container in the same window replaces this one. Call {@link Tracking#stop()} when
+     * the view is destroyed.
+     */
+    public synchronized Tracking track(Activity activity, View scrollContainer, String screen, String name,
+                                       RecyclerView... lists) {
+        Window window = activity.getWindow();
+        Tracking previous = trackings.get(window);
+        if (previous != null) {
+            previous.stop();
+        }
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        long frameBudgetNanos = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60f));
+        String key = screen + "/" + name;
+
+        List<RecyclerView> sized = new ArrayList<>(Arrays.asList(lists));
+        if (scrollContainer instanceof RecyclerView && !sized.contains(scrollContainer)) {
+            sized.add((RecyclerView) scrollContainer);
+        }
+        Tracking tracking = new Tracking(window, scrollContainer, new ScrollingListener(sized, key, frameBudgetNanos));
+        trackings.put(window, tracking);
+        tracking.start();
+        Logger.d(TAG, "Tracking frames for " + key + ", frame budget " +
+            (frameBudgetNanos / (double) NANOS_PER_MS) + "ms");
+        return tracking;
+    }
+
+    /**
+     * Record the time spent in one onBindViewHolder call
+     */
+    public synchronized void recordBind(String listName, long nanos) {
+        ListStats listStats = statsFor("bind/" + listName);
+        listStats.bindCount++;
+        listStats.bindNanos += nanos;
+        listStats.maxBindNanos = Math.max(listStats.maxBindNanos, nanos);
+    }
+
+    public synchronized void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Human readable summary of frame and bind statistics
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, ListStats> entry : stats.entrySet()) {
+            report.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        return report.length() > 0 ? report.toString() : "No frames recorded\n";
+    }
+
+    private synchronized void recordFrame(String key, int listSize, long durationNanos, long budgetNanos) {
+        ListStats listStats = statsFor(key);
+        listStats.frames++;
+        listStats.totalFrameNanos += durationNanos;
+        listStats.maxFrameNanos = Math.max(listStats.maxFrameNanos, durationNanos);
+        if (durationNanos > budgetNanos) {
+            listStats.jankyFrames++;
+            listStats.jankBySize[bucketFor(listSize)]++;
+        }
+    }
+
+    private ListStats statsFor(String key) {
+        ListStats listStats = stats.get(key);
+        if (listStats == null) {
+            listStats = new ListStats();
+            stats.put(key, listStats);
+        }
+        return listStats;
+    }
+
+    private synchronized Handler getMetricsHandler() {
+        if (metricsHandler == null) {
+            metricsThread = new HandlerThread("FrameMetrics");
+            metricsThread.start();
+            metricsHandler = new Handler(metricsThread.getLooper());
+        }
+        return metricsHandler;
+    }
+
+    private synchronized void stopped(Tracking tracking) {
+        if (trackings.get(tracking.window) == tracking) {
+            trackings.remove(tracking.window);
+        }
+        if (trackings.isEmpty() && metricsThread != null) {
+            metricsThread.quitSafely();
+            metricsThread = null;
+            metricsHandler = null;
+        }
+    }
+
+    /**
+     * Frame collection for one scroll container, attached while it is in the window
+     */
+    public final class Tracking implements View.OnAttachStateChangeListener {
+        private final Window window;
+        private final View container;
+        private final ScrollingListener listener;
+        private boolean listening;
+        private boolean stopped;
+
+        private Tracking(Window window, View container, ScrollingListener listener) {
+            this.window = window;
+            this.container = container;
+            this.listener = listener;
+        }
+
+        private void start() {
+            for (RecyclerView list : listener.lists) {
+                list.addOnScrollListener(listener.scrollListener);
+            }
+            container.addOnAttachStateChangeListener(this);
+            if (container.isAttachedToWindow()) {
+                onViewAttachedToWindow(container);
+            }
+        }
+
+        /**
+         * Stop collecting and release the listeners; safe to call more than once
+         */
+        public void stop() {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            container.removeOnAttachStateChangeListener(this);
+            for (RecyclerView list : listener.lists) {
+                list.removeOnScrollListener(listener.scrollListener);
+            }
+            onViewDetachedFromWindow(container);
+            stopped(this);
+        }
+
+        @Override
+        public void onViewAttachedToWindow(@NonNull View v) {
+            if (listening || stopped) {
+                return;
+            }
+            v.getViewTreeObserver().addOnScrollChangedListener(listener.scrollChangedListener);
+            window.addOnFrameMetricsAvailableListener(listener, getMetricsHandler());
+            listening = true;
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(@NonNull View v) {
+            if (!listening) {
+                return;
+            }
+            v.getViewTreeObserver().removeOnScrollChangedListener(listener.scrollChangedListener);
+            window.removeOnFrameMetricsAvailableListener(listener);
+            listening = false;
+        }
+    }
+
+    private static int bucketFor(int listSize) {
+        for (int i = 0; i < SIZE_BUCKETS.length; i++) {
+            if (listSize < SIZE_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return SIZE_BUCKETS.length;
+    }
+
+    private class ScrollingListener implements Window.OnFrameMetricsAvailableListener {
+        private static final long SCROLL_IDLE_MS = 100;
+        final List<RecyclerView> lists;
+        private final String key;
+        private final long frameBudgetNanos;
+        private volatile boolean listScrolling;
+        private volatile long lastScrollChangeMs;
+        private volatile int listSize;
+        final RecyclerView.OnScrollListener scrollListener;
+        final ViewTreeObserver.OnScrollChangedListener scrollChangedListener;
+
+        ScrollingListener(List<RecyclerView> lists, String key, long frameBudgetNanos) {
+            this.lists = lists;
+            this.key = key;
+            this.frameBudgetNanos = frameBudgetNanos;
+            this.scrollListener = new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                    listScrolling = newState != RecyclerView.SCROLL_STATE_IDLE;
+                    updateListSize();
+                }
+            };
+            // Lists nested in a NestedScrollView never scroll themselves, so also treat
+            // any scroll of the enclosing view tree as scrolling the container
+            this.scrollChangedListener = () -> {
+                lastScrollChangeMs = SystemClock.uptimeMillis();
+                updateListSize();
+            };
+        }
+
+        private void updateListSize() {
+            int size = 0;
+            for (RecyclerView list : lists) {
+                RecyclerView.Adapter<?> adapter = list.getAdapter();
+                size += adapter != null ? adapter.getItemCount() : 0;
+            }
+            listSize = size;
+        }
+
+        @Override
+        public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+            boolean treeScrolling = SystemClock.uptimeMillis() - lastScrollChangeMs < SCROLL_IDLE_MS;
+            if (!listScrolling && !treeScrolling) {
+                return;
+            }
+            long duration = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            recordFrame(key, listSize, duration, frameBudgetNanos);
+        }
+    }
+
+    private static class ListStats {
+        long frames;
+        long jankyFrames;
+        long totalFrameNanos;
+        long maxFrameNanos;
+        final long[] jankBySize = new long[SIZE_BUCKETS.length + 1];
+        long bindCount;
+        long bindNanos;
+        long maxBindNanos;
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            if (frames > 0) {
+                out.append(String.format(Locale.US, "%d frames, %d janky (%.1f%%), avg %.2fms, max %.2fms",
+                    frames, jankyFrames, jankyFrames * 100.0 / frames,
+                    totalFrameNanos / (double) frames / NANOS_PER_MS,
+                    maxFrameNanos / (double) NANOS_PER_MS));
+                out.append(", janky by list size [");
+                for (int i = 0; i < jankBySize.length; i++) {
+                    if (i > 0) out.append(", ");
+                    out.append(i < SIZE_BUCKETS.length ? "<" + SIZE_BUCKETS[i] : ">=" + SIZE_BUCKETS[SIZE_BUCKETS.length - 1])
+                        .append(": ").append(jankBySize[i]);
+                }
+                out.append(']');
+            }
+            if (bindCount > 0) {
+                out.append(String.format(Locale.US, "%d binds, avg %.3fms, max %.3fms",
+                    bindCount, bindNanos / (double) bindCount / NANOS_PER_MS,
+                    maxBindNanos / (double) NANOS_PER_MS));
+            }
+            return out.toString();
+        }
+    }
+}
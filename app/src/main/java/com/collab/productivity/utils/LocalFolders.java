@@ -0,0 +1,70 @@
+package com.collab.productivity.utils;
+
+import com.collab.productivity.data.model.FileItem;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * LocalFolders - Maps folders to their directories under the app's files directory:
+ * {path} for the user's own folders and groups/{groupId}/{path} for group folders
+ */
+public final class LocalFolders {
+    private static final String TAG = "LocalFolders";
+
+    private LocalFolders() {
+    }
+
+    /**
+     * The directory of a folder, or null if its path would resolve to the files directory
+     * itself or outside it
+     */
+    public static File directoryOf(File filesDir, FileItem folder) {
+        return directoryOf(filesDir, folder.getGroupId(), folder.getPath());
+    }
+
+    public static File directoryOf(File filesDir, String groupId, String path) {
+        if (filesDir == null || path == null || path.isEmpty() || path.equals("/")) {
+            return null;
+        }
+        File root = rootOf(filesDir, groupId);
+        File dir = new File(root, path);
+        return isInside(root, dir) ? dir : null;
+    }
+
+    /**
+     * The directory holding the items directly inside a folder: the folder's own
+     * directory, or the personal or group root for path "/"
+     */
+    public static File contentsOf(File filesDir, String groupId, String path) {
+        if (filesDir != null && "/".equals(path)) {
+            return rootOf(filesDir, groupId);
+        }
+        return directoryOf(filesDir, groupId, path);
+    }
+
+    /**
+     * The file a file row's absolute path points at, or null if there is no such file
+     * under the files directory, e.g. for a file that was never downloaded
+     */
+    public static File storedFile(File filesDir, String path) {
+        if (filesDir == null || path == null || !new File(path).isAbsolute()) {
+            return null;
+        }
+        File file = new File(path);
+        return file.isFile() && isInside(filesDir, file) ? file : null;
+    }
+
+    private static File rootOf(File filesDir, String groupId) {
+        return groupId != null ? new File(filesDir, "groups/" + groupId) : filesDir;
+    }
+
+    private static boolean isInside(File root, File file) {
+        try {
+            String rootPath = root.getCanonicalPath() + File.separator;
+            return file.getCanonicalPath().startsWith(rootPath);
+        } catch (IOException e) {
+            Logger.e(TAG, "Error resolving " + file, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.collab.productivity.utils;
+
+import android.net.Uri;
+import android.util.Log;
+import com.cloudinary.android.MediaManager;
+import com.cloudinary.android.callback.ErrorInfo;
+import com.cloudinary.android.callback.UploadCallback;
+import java.util.Map;
+
+/**
+ * MediaManagerUploader - Uploads through the Cloudinary Android SDK
+ */
+class MediaManagerUploader implements FileUploader {
+    private static final String TAG = "MediaManagerUploader";
+
+    @Override
+    public void upload(Uri uri, String folder, CloudinaryManager.CloudinaryUploadCallback callback) {
+        MediaManager.get()
+            .upload(uri)
+            .option("folder", folder)
+            .option("resource_type", "auto")
+            .callback(new UploadCallback() {
+                @Override
+                public void onStart(String requestId) {
+                    Log.d(TAG, "Upload started: " + requestId);
+                    callback.onProgress(0);
+                }
+
+                @Override
+                public void onProgress(String requestId, long bytes, long totalBytes) {
+                    int progress = (int) ((bytes * 100) / totalBytes);
+                    Log.d(TAG, "Upload progress: " + progress + "%");
+                    callback.onProgress(progress);
+                }
+
+                @Override
+                public void onSuccess(String requestId, Map resultData) {
+                    Log.d(TAG, "Upload successful: " + requestId);
+                    String secureUrl = (String) resultData.get("secure_url");
+                    String publicId = (String) resultData.get("public_id");
+                    callback.onSuccess(secureUrl, publicId);
+                }
+
+                @Override
+                public void onError(String requestId, ErrorInfo error) {
+                    Log.e(TAG, "Upload failed: " + error.getDescription());
+                    callback.onError(error.getDescription());
+                }
+
+                @Override
+                public void onReschedule(String requestId, ErrorInfo error) {
+                    Log.d(TAG, "Upload rescheduled: " + requestId);
+                }
+            })
+            .dispatch();
+    }
+}
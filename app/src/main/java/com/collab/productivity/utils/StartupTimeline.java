@@ -0,0 +1,106 @@
+package com.collab.productivity.utils;
+
+import android.os.Process;
+import android.os.SystemClock;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * StartupTimeline - Records the uptime of each cold-start milestone, from process
+ * start through Application, splash, MainActivity and HomeFragment to the first
+ * rendered list frame and the first Firestore sync.
+ *
+ * Only the first occurrence of each milestone is kept, so later navigation does
+ * not overwrite the cold-start timings.
+ */
+public class StartupTimeline {
+    private static final String TAG = "StartupTimeline";
+
+    public static final String APP_CREATE = "app_create";
+    public static final String LOGGER_READY = "logger_ready";
+    public static final String DATABASE_READY = "database_ready";
+    public static final String SPLASH_CREATE = "splash_create";
+    public static final String CLOUDINARY_READY = "cloudinary_ready";
+    public static final String SPLASH_EXIT_START = "splash_exit_start";
+    public static final String SPLASH_EXIT_END = "splash_exit_end";
+    public static final String MAIN_CREATE = "main_create";
+    public static final String MAIN_CONTENT_SET = "main_content_set";
+    public static final String HOME_VIEW_CREATED = "home_view_created";
+    public static final String FIRST_DATA = "first_data";
+    public static final String FIRST_LIST_FRAME = "first_list_frame";
+    public static final String SYNC_START = "sync_start";
+    public static final String SYNC_END = "sync_end";
+
+    private static final Map<String, Long> milestones = new LinkedHashMap<>();
+    private static boolean reported;
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Record a milestone at the current uptime if it has not been recorded yet
+     */
+    public static void mark(String milestone) {
+        long now = SystemClock.uptimeMillis();
+        boolean complete;
+        synchronized (milestones) {
+            if (milestones.containsKey(milestone)) {
+                return;
+            }
+            milestones.put(milestone, now);
+            complete = !reported && milestones.containsKey(FIRST_LIST_FRAME) && milestones.containsKey(SYNC_END);
+            if (complete) {
+                reported = true;
+            }
+        }
+        Logger.d(TAG, milestone + " at +" + (now - Process.getStartUptimeMillis()) + "ms");
+        if (complete) {
+            Logger.i(TAG, getReport());
+        }
+    }
+
+    public static boolean has(String milestone) {
+        synchronized (milestones) {
+            return milestones.containsKey(milestone);
+        }
+    }
+
+    /**
+     * Milliseconds from process start to the given milestone, or -1 if not reached
+     */
+    public static long sinceProcessStart(String milestone) {
+        synchronized (milestones) {
+            Long time = milestones.get(milestone);
+            return time != null ? time - Process.getStartUptimeMillis() : -1;
+        }
+    }
+
+    /**
+     * Startup report with each phase's offset from process start and its own duration
+     */
+    public static String getReport() {
+        StringBuilder report = new StringBuilder();
+        synchronized (milestones) {
+            if (milestones.isEmpty()) {
+                return "No startup milestones recorded\n";
+            }
+            long processStart = Process.getStartUptimeMillis();
+            long previous = processStart;
+            report.append(String.format(Locale.US, "%-20s %8s %8s%n", "milestone", "+start", "phase"));
+            for (Map.Entry<String, Long> entry : milestones.entrySet()) {
+                report.append(String.format(Locale.US, "%-20s %6dms %6dms%n",
+                    entry.getKey(), entry.getValue() - processStart, entry.getValue() - previous));
+                previous = entry.getValue();
+            }
+        }
+        report.append("Time to first frame: ").append(format(sinceProcessStart(FIRST_LIST_FRAME))).append('\n');
+        report.append("Time to first data: ").append(format(sinceProcessStart(FIRST_DATA))).append('\n');
+        report.append("Time to first sync: ").append(format(sinceProcessStart(SYNC_END))).append('\n');
+        return report.toString();
+    }
+
+    private static String format(long millis) {
+        return millis >= 0 ? millis + "ms" : "not reached";
+    }
+}
@@ -0,0 +1,143 @@
+package com.collab.productivity.utils;
+
+import android.util.LruCache;
+import android.widget.TextView;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TextPrecomputer - Measures row text off the main thread with PrecomputedTextCompat so
+ * binding a row with a long description or preview does not lay the text out mid-scroll.
+ *
+ * Each text style (a TextView in a row layout) registers its metrics when the first view
+ * holder is created. From then on the view models precompute that style's text while
+ * building their display models, and adapters bind whatever has been precomputed for the
+ * current version of an item, falling back to the plain string.
+ */
+public class TextPrecomputer {
+    private static final String TAG = "TextPrecomputer";
+
+    public static final String FILE_DESCRIPTION = "file_description";
+    public static final String NOTE_PREVIEW = "note_preview";
+
+    /** Rows of one list worth precomputing up front; the cache holds two lists' worth */
+    public static final int ROWS_PER_LIST = 256;
+    private static final int CACHE_SIZE = ROWS_PER_LIST * 2;
+    // Rows show at most a few lines, so the rest of a long text never needs measuring
+    private static final int MAX_CHARS = 400;
+    private static final String ELLIPSIS = "\u2026";
+
+    private static TextPrecomputer instance;
+
+    private final Map<String, Style> styles = new HashMap<>();
+
+    private TextPrecomputer() {
+    }
+
+    public static synchronized TextPrecomputer getInstance() {
+        if (instance == null) {
+            instance = new TextPrecomputer();
+        }
+        return instance;
+    }
+
+    /**
+     * Record the text metrics of a style's TextView. Call from the main thread when a view
+     * holder is created. Precomputed text of a style whose metrics change, e.g. after a
+     * font scale change, is discarded.
+     */
+    public void register(String style, TextView view) {
+        PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(view);
+        synchronized (styles) {
+            Style current = styles.get(style);
+            if (current == null || !current.params.equals(params)) {
+                if (current != null) {
+                    Logger.d(TAG, "Text metrics of " + style + " changed");
+                }
+                styles.put(style, new Style(params));
+            }
+        }
+    }
+
+    /**
+     * Measure the text of one item version unless it is already cached. Does nothing until
+     * the style is registered. Call from a background thread.
+     */
+    public void precompute(String style, long id, long version, String text) {
+        Style target = styleOf(style);
+        if (target == null || text == null || text.isEmpty()) {
+            return;
+        }
+        if (target.lookup(id, version, text) != null) {
+            return;
+        }
+        target.cache.put(id, new Entry(version, text, PrecomputedTextCompat.create(truncate(text), target.params)));
+    }
+
+    /**
+     * Cut a long text to MAX_CHARS, ending it with an ellipsis so a row whose lines are
+     * wide enough to show the whole cut does not end mid-word without one
+     */
+    static String truncate(String text) {
+        if (text.length() <= MAX_CHARS) {
+            return text;
+        }
+        int end = MAX_CHARS - ELLIPSIS.length();
+        if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end) + ELLIPSIS;
+    }
+
+    /**
+     * Set an item's text, precomputed if it is cached for this version
+     */
+    public void bind(TextView view, String style, long id, long version, String text) {
+        Style target = styleOf(style);
+        PrecomputedTextCompat precomputed = target != null ? target.lookup(id, version, text) : null;
+        if (precomputed != null) {
+            try {
+                TextViewCompat.setPrecomputedText(view, precomputed);
+                return;
+            } catch (IllegalArgumentException e) {
+                // The view's metrics differ from the registered ones; measure it normally
+            }
+        }
+        view.setText(text);
+    }
+
+    private Style styleOf(String style) {
+        synchronized (styles) {
+            return styles.get(style);
+        }
+    }
+
+    private static final class Style {
+        final PrecomputedTextCompat.Params params;
+        final LruCache<Long, Entry> cache = new LruCache<>(CACHE_SIZE);
+
+        Style(PrecomputedTextCompat.Params params) {
+            this.params = params;
+        }
+
+        PrecomputedTextCompat lookup(long id, long version, String text) {
+            Entry entry = cache.get(id);
+            return entry != null && entry.version == version && entry.text.equals(text)
+                ? entry.precomputed : null;
+        }
+    }
+
+    private static final class Entry {
+        final long version;
+        final String text;
+        final PrecomputedTextCompat precomputed;
+
+        Entry(long version, String text, PrecomputedTextCompat precomputed) {
+            this.version = version;
+            this.text = text;
+            this.precomputed = precomputed;
+        }
+    }
+}
@@ -6,14 +6,26 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import com.collab.productivity.NotionaryApp;
+import com.collab.productivity.R;
 import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FileRow;
+import com.collab.productivity.data.model.FileTreeIndex;
+import com.collab.productivity.data.model.FolderStats;
+import com.collab.productivity.data.model.FolderSummary;
 import com.collab.productivity.data.repository.FileRepository;
+import com.collab.productivity.data.repository.SubtreeDeleter;
+import com.collab.productivity.data.sync.FileSyncer;
+import com.collab.productivity.data.sync.SyncReconciler;
 import com.collab.productivity.utils.CloudinaryManager;
 import com.collab.productivity.utils.FirebaseManager;
 import com.collab.productivity.utils.Logger;
+import com.collab.productivity.utils.TextPrecomputer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class FileViewModel extends AndroidViewModel {
     private static final String TAG = "FileViewModel";
@@ -23,22 +35,21 @@ public class FileViewModel extends AndroidViewModel {
     private final MutableLiveData<String> statusMessage;
     private final MediatorLiveData<List<FileItem>> currentFiles;
     private final MutableLiveData<Integer> uploadProgress;
+    private final MutableLiveData<Integer> deleteProgress;
+    private final SubtreeDeleter subtreeDeleter;
     private final CloudinaryManager cloudinaryManager;
     private final FirebaseManager firebaseManager;
-    private final Stack<NavigationState> navigationStack;
+    private final FileTreeIndex fileTree;
+    private final ExecutorService rowExecutor = Executors.newSingleThreadExecutor();
+    private final MediatorLiveData<List<FileRow>> currentRows;
+    private final FolderPrefetcher prefetcher;
+    private final FolderHistory history;
+    // Folder the rows in currentRows belong to, once a folder has been listed
+    private Long listedFolderId;
+    private boolean listed;
     private LiveData<List<FileItem>> currentSource;
     private String currentGroupId; // Track current group context
 
-    private static class NavigationState {
-        Long folderId;
-        String path;
-
-        NavigationState(Long folderId, String path) {
-            this.folderId = folderId;
-            this.path = path;
-        }
-    }
-
     public FileViewModel(Application application) {
         super(application);
         repository = new FileRepository(application);
@@ -47,9 +58,17 @@ public class FileViewModel extends AndroidViewModel {
         statusMessage = new MutableLiveData<>();
         currentFiles = new MediatorLiveData<>();
         uploadProgress = new MutableLiveData<>(0);
+        deleteProgress = new MutableLiveData<>(0);
         cloudinaryManager = CloudinaryManager.getInstance();
         firebaseManager = FirebaseManager.getInstance();
-        navigationStack = new Stack<>();
+        subtreeDeleter = new SubtreeDeleter(repository, firebaseManager, cloudinaryManager,
+            application.getFilesDir());
+        fileTree = repository.getFileTree();
+        currentRows = rowsOf(currentFiles);
+        prefetcher = new FolderPrefetcher(fileTree, application.getString(R.string.folder),
+            application.getString(R.string.parent_folder));
+        history = new FolderHistory(
+            ((NotionaryApp) application).getDatabase().getInvalidationTracker());
 
         Logger.d(TAG, "FileViewModel initialized");
 
@@ -75,6 +94,28 @@ public class FileViewModel extends AndroidViewModel {
 
         Long folderId = currentFolderId.getValue();
 
+        if (listed && !Objects.equals(listedFolderId, folderId)) {
+            history.leave(listedFolderId, currentRows.getValue());
+        }
+        listed = true;
+        listedFolderId = folderId;
+
+        // Show the folder from the in-memory tree at once, with the rows it showed last
+        // time or prefetched ones if there are any; full rows and Room's listing follow
+        List<FileItem> indexed = fileTree.isSeeded() ? fileTree.getChildren(folderId) : null;
+        if (indexed != null) {
+            List<FileItem> listing = withParentEntry(indexed, folderId != null);
+            List<FileRow> cached = history.revisit(folderId, listing);
+            if (cached == null) {
+                cached = prefetcher.take(folderId, listing);
+            }
+            if (cached != null) {
+                currentRows.setValue(cached);
+            }
+            currentFiles.setValue(listing);
+        }
+        prefetcher.noteOpened(folderId);
+
         if (folderId == null) {
             // Load root items
             Logger.d(TAG, "Loading root items from database");
@@ -89,22 +130,26 @@ public class FileViewModel extends AndroidViewModel {
         currentFiles.addSource(currentSource, items -> {
             if (items != null) {
                 Logger.d(TAG, "Files loaded: " + items.size() + " items");
-
-                // Add ".." parent navigation item if we're not in root
-                List<FileItem> itemsWithParent = new ArrayList<>();
-                if (folderId != null) {
-                    // Create a special ".." item for parent navigation
-                    FileItem parentItem = new FileItem("..", "", "", null, true);
-                    parentItem.setId(-1); // Special ID to identify parent navigation item
-                    itemsWithParent.add(parentItem);
-                }
-                itemsWithParent.addAll(items);
-
-                currentFiles.setValue(itemsWithParent);
+                currentFiles.setValue(withParentEntry(items, folderId != null));
             }
         });
     }
 
+    /**
+     * Copy a folder listing, adding the ".." parent navigation item if we're not in root
+     */
+    public static List<FileItem> withParentEntry(List<FileItem> items, boolean inFolder) {
+        List<FileItem> itemsWithParent = new ArrayList<>();
+        if (inFolder) {
+            // Create a special ".." item for parent navigation
+            FileItem parentItem = new FileItem("..", "", "", null, true);
+            parentItem.setId(-1); // Special ID to identify parent navigation item
+            itemsWithParent.add(parentItem);
+        }
+        itemsWithParent.addAll(items);
+        return itemsWithParent;
+    }
+
     /**
      * Manually update file list (optional - MediatorLiveData handles this automatically)
      * Kept for backward compatibility
@@ -119,6 +164,47 @@ public class FileViewModel extends AndroidViewModel {
         return currentFiles;
     }
 
+    /**
+     * Current folder contents as display rows, formatted off the main thread
+     */
+    public LiveData<List<FileRow>> getCurrentFolderRows() {
+        return currentRows;
+    }
+
+    /**
+     * Map a listing to display rows on the row executor, measuring their descriptions
+     * as well. Each call gets its own factory, so rows are only reused within the same list.
+     */
+    private MediatorLiveData<List<FileRow>> rowsOf(LiveData<List<FileItem>> source) {
+        FileRow.Factory factory = new FileRow.Factory(
+            getApplication().getString(R.string.folder), getApplication().getString(R.string.parent_folder));
+        MediatorLiveData<List<FileRow>> rows = new MediatorLiveData<>();
+        rows.addSource(source, items -> {
+            if (items != null) {
+                rowExecutor.execute(() -> rows.postValue(buildRows(factory, items)));
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * The rows the list shows for a listing, as built on the row executor
+     */
+    public static List<FileRow> buildRows(FileRow.Factory factory, List<FileItem> items) {
+        return precomputeText(factory.build(items));
+    }
+
+    static List<FileRow> precomputeText(List<FileRow> rows) {
+        TextPrecomputer precomputer = TextPrecomputer.getInstance();
+        for (int i = 0; i < rows.size() && i < TextPrecomputer.ROWS_PER_LIST; i++) {
+            FileRow row = rows.get(i);
+            if (row.getDescription() != null) {
+                precomputer.precompute(TextPrecomputer.FILE_DESCRIPTION, row.getId(), row.getVersion(), row.getDescription());
+            }
+        }
+        return rows;
+    }
+
     public LiveData<List<FileItem>> getAllFiles() {
         Logger.d(TAG, "Getting all files from database for debugging");
         return repository.getAllFiles();
@@ -341,24 +427,46 @@ public class FileViewModel extends AndroidViewModel {
             });
     }
 
+    /**
+     * Build the first rows of the given subfolders, in the order given, ahead of the user
+     * opening one of them
+     */
+    public void prefetchFolders(List<Long> folderIds) {
+        prefetcher.prefetch(folderIds);
+    }
+
+    /**
+     * Remember how far a folder's list was scrolled, to restore when it is shown again
+     */
+    public void saveScrollPosition(Long folderId, int scrollY) {
+        history.saveScrollPosition(folderId, scrollY);
+    }
+
+    /**
+     * The scroll offset saved for a folder, or 0 to show it from the top
+     */
+    public int getScrollPosition(Long folderId) {
+        return history.getScrollPosition(folderId);
+    }
+
     public void navigateToFolder(Long folderId, String folderPath) {
         Logger.d(TAG, "Navigating to folder: " + folderPath);
-        // Save current state to navigation stack
-        navigationStack.push(new NavigationState(currentFolderId.getValue(), currentPath.getValue()));
-
+        // Prefer the tree's path, which follows renames and moves of parent folders
+        String indexedPath = folderId != null ? fileTree.getFullPath(folderId) : null;
         currentFolderId.setValue(folderId);
-        currentPath.setValue(folderPath);
+        currentPath.setValue(indexedPath != null ? indexedPath : folderPath);
     }
 
     public void navigateToParent() {
         Logger.d(TAG, "Navigating to parent folder");
-        if (!navigationStack.isEmpty()) {
-            NavigationState prevState = navigationStack.pop();
-            currentFolderId.setValue(prevState.folderId);
-            currentPath.setValue(prevState.path);
+        Long folderId = currentFolderId.getValue();
+        List<FileItem> breadcrumbs = folderId != null ? fileTree.getBreadcrumbs(folderId) : null;
+        if (breadcrumbs != null && breadcrumbs.size() > 1) {
+            FileItem parent = breadcrumbs.get(breadcrumbs.size() - 2);
+            currentFolderId.setValue(parent.getId());
+            currentPath.setValue(fileTree.getFullPath(parent.getId()));
         } else {
-            // If no navigation history, go to root
-            Logger.d(TAG, "No navigation history, going to root");
+            // Top-level folder, or one the tree does not know yet
             currentFolderId.setValue(null);
             currentPath.setValue("/");
         }
@@ -400,6 +508,10 @@ public class FileViewModel extends AndroidViewModel {
 
     public void deleteItem(FileItem item) {
         Logger.d(TAG, "Deleting item: " + item.getName());
+        if (item.isFolder()) {
+            deleteFolder(item);
+            return;
+        }
 
         // Delete from Cloudinary if it's a file with a cloudinary URL
         if (!item.isFolder() && item.getCloudinaryPublicId() != null) {
@@ -449,6 +561,108 @@ public class FileViewModel extends AndroidViewModel {
         });
     }
 
+    /**
+     * Folders an item can be moved into: those of the same owner or group outside its own
+     * subtree, other than its current parent
+     */
+    public List<FileItem> getMoveTargets(FileItem item) {
+        List<FileItem> targets = new ArrayList<>();
+        for (FileItem folder : fileTree.getFoldersOutside(item.getId())) {
+            if (Objects.equals(folder.getGroupId(), item.getGroupId())
+                && !Objects.equals(folder.getId(), item.getParentFolderId())) {
+                targets.add(folder);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Full path of an indexed item for display, falling back to its stored path
+     */
+    public String getDisplayPath(FileItem item) {
+        String path = fileTree.getFullPath(item.getId());
+        return path != null ? path : item.getPath();
+    }
+
+    /**
+     * Move an item into a folder, or to the root when target is null, along with
+     * everything below it, locally and in Firestore
+     */
+    public void moveItem(FileItem item, FileItem target) {
+        Long targetId = target != null ? target.getId() : null;
+        if (Objects.equals(targetId, item.getParentFolderId())) {
+            return;
+        }
+        repository.moveSubtree(item, target, new FileRepository.OnItemsChangedListener() {
+            @Override
+            public void onSuccess(List<FileItem> moved) {
+                statusMessage.setValue(moved.size() > 1
+                    ? "Moved " + item.getName() + " and " + (moved.size() - 1) + " items inside"
+                    : "Moved " + item.getName());
+                firebaseManager.updateMovedFilesInFirestore(moved, new FirebaseManager.BatchCallback() {
+                    @Override
+                    public void onBatchCommitted(int documents) {
+                        Logger.d(TAG, "Updated " + documents + " moved files in Firestore");
+                    }
+
+                    @Override
+                    public void onComplete(int committed, int failed) {
+                        if (failed > 0) {
+                            Logger.e(TAG, "Could not update " + failed + " moved files in Firestore", null);
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (e instanceof FileRepository.NameTakenException) {
+                    statusMessage.setValue((target != null ? target.getName() : "The root folder")
+                        + " already contains an item named " + item.getName());
+                    return;
+                }
+                Logger.e(TAG, "Error moving item", e);
+                statusMessage.setValue("Error moving " + item.getName());
+            }
+        });
+    }
+
+    /**
+     * Delete a folder with all of its contents, locally and remotely
+     */
+    private void deleteFolder(FileItem folder) {
+        deleteProgress.setValue(0);
+        subtreeDeleter.delete(folder, new SubtreeDeleter.Listener() {
+            @Override
+            public void onProgress(SubtreeDeleter.Progress progress) {
+                // Steps of ten so a large folder does not post a hundred updates
+                int percent = progress.getPercent() / 10 * 10;
+                Integer last = deleteProgress.getValue();
+                if (last == null || last != percent) {
+                    deleteProgress.setValue(percent);
+                }
+            }
+
+            @Override
+            public void onComplete(SubtreeDeleter.Progress progress) {
+                deleteProgress.setValue(0);
+                if (progress.getFailures() > 0) {
+                    statusMessage.setValue("Deleted " + progress.items + " items; " +
+                        progress.getFailures() + " could not be removed from the cloud");
+                } else {
+                    statusMessage.setValue("Deleted " + progress.items + " items");
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Logger.e(TAG, "Error deleting folder", e);
+                deleteProgress.setValue(0);
+                statusMessage.setValue("Error deleting folder");
+            }
+        });
+    }
+
     public LiveData<String> getCurrentPath() {
         return currentPath;
     }
@@ -465,6 +679,13 @@ public class FileViewModel extends AndroidViewModel {
         return uploadProgress;
     }
 
+    /**
+     * Percent of a folder deletion's cloud and disk cleanup done, 0 when none is running
+     */
+    public LiveData<Integer> getDeleteProgress() {
+        return deleteProgress;
+    }
+
     public LiveData<List<FileItem>> getRootItems() {
         return repository.getRootItems();
     }
@@ -473,6 +694,29 @@ public class FileViewModel extends AndroidViewModel {
         return repository.getItemsInFolder(folderId);
     }
 
+    public LiveData<FileItem> getItemById(long id) {
+        return repository.getItemById(id);
+    }
+
+    /**
+     * Direct children of a folder, or the root items when folderId is null
+     */
+    public LiveData<List<FileItem>> getFolderChildren(Long folderId) {
+        return folderId == null ? repository.getRootItems() : repository.getItemsInFolder(folderId);
+    }
+
+    public LiveData<FolderSummary> getFolderSummary(Long folderId) {
+        return repository.getFolderSummary(folderId);
+    }
+
+    public LiveData<FolderStats> getFolderStats(Long folderId) {
+        return repository.getFolderStats(folderId);
+    }
+
+    public LiveData<List<FolderStats>> getChildFolderStats(Long folderId) {
+        return repository.getChildFolderStats(folderId);
+    }
+
     public void updatePath(String newPath) {
         Logger.d(TAG, "Updating path to: " + newPath);
         currentPath.setValue(newPath);
@@ -491,50 +735,10 @@ public class FileViewModel extends AndroidViewModel {
             return;
         }
 
-        firebaseManager.getUserFiles(new FirebaseManager.FilesCallback() {
+        newFileSyncer().syncUserFiles(userId, new FileSyncer.Callback() {
             @Override
-            public void onSuccess(List<java.util.Map<String, Object>> files) {
-                Logger.d(TAG, "Received " + files.size() + " files from Firestore");
-
-                // Process each file and update local database
-                for (java.util.Map<String, Object> fileData : files) {
-                    try {
-                        FileItem fileItem = convertMapToFileItem(fileData);
-
-                        // If it's a folder, create the physical directory
-                        if (fileItem.isFolder() && fileItem.getPath() != null) {
-                            java.io.File physicalDir = new java.io.File(getApplication().getFilesDir(), fileItem.getPath());
-                            if (!physicalDir.exists()) {
-                                boolean created = physicalDir.mkdirs();
-                                Logger.d(TAG, "Creating synced folder directory: " + physicalDir.getAbsolutePath() + ", success: " + created);
-                            }
-                        }
-
-                        // Check if file already exists locally by firestoreId
-                        repository.getItemByFirestoreId(fileItem.getFirestoreId(), new FileRepository.OnItemRetrievedListener() {
-                            @Override
-                            public void onSuccess(FileItem existingItem) {
-                                if (existingItem != null) {
-                                    // Update existing item
-                                    fileItem.setId(existingItem.getId());
-                                    repository.update(fileItem, null);
-                                } else {
-                                    // Insert new item
-                                    repository.insert(fileItem, null);
-                                }
-                            }
-
-                            @Override
-                            public void onError(Exception e) {
-                                Logger.e(TAG, "Error checking existing item", e);
-                            }
-                        });
-                    } catch (Exception e) {
-                        Logger.e(TAG, "Error processing file from Firestore", e);
-                    }
-                }
-
-                statusMessage.setValue("Synced " + files.size() + " files from cloud");
+            public void onSuccess(int remoteCount, SyncReconciler.SyncPlan plan) {
+                statusMessage.setValue("Synced " + remoteCount + " files from cloud");
                 if (callback != null) callback.onSuccess();
             }
 
@@ -547,60 +751,8 @@ public class FileViewModel extends AndroidViewModel {
         });
     }
 
-    /**
-     * Convert Firestore map data to FileItem
-     * Handles Firestore Timestamp objects properly
-     */
-    private FileItem convertMapToFileItem(java.util.Map<String, Object> data) {
-        String name = (String) data.get("name");
-        String path = (String) data.get("path");
-        String description = (String) data.get("description");
-        Boolean isFolder = (Boolean) data.get("isFolder");
-
-        FileItem item = new FileItem(
-            name != null ? name : "",
-            path != null ? path : "",
-            description != null ? description : "",
-            null, // parentFolderId will be set if needed
-            isFolder != null ? isFolder : false
-        );
-
-        item.setFirestoreId((String) data.get("firestoreId"));
-        item.setUserId((String) data.get("userId"));
-        item.setParentPath((String) data.get("parentPath"));
-        item.setCloudinaryUrl((String) data.get("cloudinaryUrl"));
-        item.setCloudinaryPublicId((String) data.get("cloudinaryPublicId"));
-        item.setMimeType((String) data.get("mimeType"));
-
-        if (data.get("size") != null) {
-            item.setSize(((Number) data.get("size")).longValue());
-        }
-
-        // Handle Firestore Timestamp conversion for createdAt
-        if (data.get("createdAt") != null) {
-            Object createdAt = data.get("createdAt");
-            if (createdAt instanceof com.google.firebase.Timestamp) {
-                item.setCreatedAt(((com.google.firebase.Timestamp) createdAt).toDate());
-            } else if (createdAt instanceof java.util.Date) {
-                item.setCreatedAt((java.util.Date) createdAt);
-            } else {
-                Logger.w(TAG, "Unknown createdAt type: " + createdAt.getClass().getName());
-            }
-        }
-
-        // Handle Firestore Timestamp conversion for modifiedAt
-        if (data.get("modifiedAt") != null) {
-            Object modifiedAt = data.get("modifiedAt");
-            if (modifiedAt instanceof com.google.firebase.Timestamp) {
-                item.setModifiedAt(((com.google.firebase.Timestamp) modifiedAt).toDate());
-            } else if (modifiedAt instanceof java.util.Date) {
-                item.setModifiedAt((java.util.Date) modifiedAt);
-            } else {
-                Logger.w(TAG, "Unknown modifiedAt type: " + modifiedAt.getClass().getName());
-            }
-        }
-
-        return item;
+    private FileSyncer newFileSyncer() {
+        return new FileSyncer(firebaseManager.getFileSyncBackend(), repository, getApplication().getFilesDir());
     }
 
     /**
@@ -643,6 +795,13 @@ public class FileViewModel extends AndroidViewModel {
         return repository.getGroupFiles(groupId);
     }
 
+    /**
+     * Group files as display rows, formatted off the main thread
+     */
+    public LiveData<List<FileRow>> getGroupFileRows(String groupId) {
+        return rowsOf(getGroupFiles(groupId));
+    }
+
     /**
      * Create folder in a group
      */
@@ -817,48 +976,10 @@ public class FileViewModel extends AndroidViewModel {
             return;
         }
 
-        firebaseManager.getGroupFiles(groupId, new FirebaseManager.FilesCallback() {
+        newFileSyncer().syncGroupFiles(groupId, new FileSyncer.Callback() {
             @Override
-            public void onSuccess(List<java.util.Map<String, Object>> files) {
-                Logger.d(TAG, "Received " + files.size() + " group files from Firestore");
-
-                for (java.util.Map<String, Object> fileData : files) {
-                    try {
-                        FileItem fileItem = convertMapToFileItem(fileData);
-                        fileItem.setGroupId(groupId);
-
-                        // Create physical directory for folders
-                        if (fileItem.isFolder() && fileItem.getPath() != null) {
-                            java.io.File physicalDir = new java.io.File(getApplication().getFilesDir(),
-                                "groups/" + groupId + "/" + fileItem.getPath());
-                            if (!physicalDir.exists()) {
-                                physicalDir.mkdirs();
-                            }
-                        }
-
-                        repository.getItemByFirestoreId(fileItem.getFirestoreId(),
-                            new FileRepository.OnItemRetrievedListener() {
-                                @Override
-                                public void onSuccess(FileItem existingItem) {
-                                    if (existingItem != null) {
-                                        fileItem.setId(existingItem.getId());
-                                        repository.update(fileItem, null);
-                                    } else {
-                                        repository.insert(fileItem, null);
-                                    }
-                                }
-
-                                @Override
-                                public void onError(Exception e) {
-                                    Logger.e(TAG, "Error checking existing group file", e);
-                                }
-                            });
-                    } catch (Exception e) {
-                        Logger.e(TAG, "Error processing group file from Firestore", e);
-                    }
-                }
-
-                statusMessage.setValue("Synced " + files.size() + " group files from cloud");
+            public void onSuccess(int remoteCount, SyncReconciler.SyncPlan plan) {
+                statusMessage.setValue("Synced " + remoteCount + " group files from cloud");
                 if (callback != null) callback.onSuccess();
             }
 
@@ -871,6 +992,14 @@ public class FileViewModel extends AndroidViewModel {
         });
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        rowExecutor.shutdown();
+        prefetcher.shutdown();
+        history.release();
+    }
+
     /**
      * Callback interface for sync operations
      */
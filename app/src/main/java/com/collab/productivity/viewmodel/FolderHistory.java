@@ -0,0 +1,76 @@
+package com.collab.productivity.viewmodel;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FileRow;
+import com.collab.productivity.data.model.FolderRowCache;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FolderHistory - The rows and scroll position of recently viewed folders, so going back
+ * or forward to one shows it where the user left it without waiting for a new listing.
+ *
+ * Rows are dropped whenever Room reports a write to the files table. Until the
+ * notification arrives they are still checked against the folder's current listing
+ * before use. Scroll positions are kept regardless, since restoring one onto a changed
+ * list is harmless.
+ */
+public class FolderHistory {
+    private static final int MAX_BYTES = 512 * 1024;
+    private static final int MAX_SCROLL_POSITIONS = 64;
+
+    private final FolderRowCache rows = new FolderRowCache(MAX_BYTES);
+    // Vertical scroll offsets in pixels by folder id
+    private final Map<Long, Integer> scrollPositions =
+        new LinkedHashMap<Long, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > MAX_SCROLL_POSITIONS;
+            }
+        };
+    private final InvalidationTracker tracker;
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("files") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            rows.clear();
+        }
+    };
+
+    FolderHistory(InvalidationTracker tracker) {
+        this.tracker = tracker;
+        tracker.addObserver(observer);
+    }
+
+    /**
+     * Remember the rows a folder showed when the user left it
+     */
+    void leave(Long folderId, List<FileRow> shown) {
+        if (shown != null) {
+            rows.put(folderId, shown);
+        }
+    }
+
+    /**
+     * The rows a folder showed when last left, if they still start its listing
+     */
+    List<FileRow> revisit(Long folderId, List<FileItem> listing) {
+        return rows.getIfCurrent(folderId, listing);
+    }
+
+    synchronized void saveScrollPosition(Long folderId, int scrollY) {
+        scrollPositions.put(folderId, scrollY);
+    }
+
+    synchronized int getScrollPosition(Long folderId) {
+        Integer scrollY = scrollPositions.get(folderId);
+        return scrollY != null ? scrollY : 0;
+    }
+
+    void release() {
+        tracker.removeObserver(observer);
+    }
+}
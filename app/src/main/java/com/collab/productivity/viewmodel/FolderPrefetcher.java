@@ -0,0 +1,115 @@
+package com.collab.productivity.viewmodel;
+
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FileRow;
+import com.collab.productivity.data.model.FileTreeIndex;
+import com.collab.productivity.data.model.FolderRowCache;
+import com.collab.productivity.utils.Logger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FolderPrefetcher - Builds the first rows of folders the user is likely to open next,
+ * the subfolders on screen and the folders opened recently, so navigating into one can
+ * show its rows in the same frame instead of waiting for them to be formatted.
+ *
+ * Listings come from the in-memory folder tree, so nothing is prefetched until it is
+ * seeded. Each request replaces the previous one; folders it has not reached yet are
+ * dropped.
+ */
+class FolderPrefetcher {
+    private static final String TAG = "FolderPrefetcher";
+
+    /** Rows built per folder, a couple of screens' worth */
+    static final int PAGE_SIZE = 32;
+    private static final int MAX_BYTES = 256 * 1024;
+    private static final int RECENT_FOLDERS = 8;
+
+    private final FileTreeIndex fileTree;
+    private final String folderLabel;
+    private final String parentLabel;
+    private final FolderRowCache cache = new FolderRowCache(MAX_BYTES);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger generation = new AtomicInteger();
+    // Most recent last; only touched on the main thread
+    private final LinkedHashSet<Long> recent = new LinkedHashSet<>();
+
+    FolderPrefetcher(FileTreeIndex fileTree, String folderLabel, String parentLabel) {
+        this.fileTree = fileTree;
+        this.folderLabel = folderLabel;
+        this.parentLabel = parentLabel;
+    }
+
+    /**
+     * Remember a folder the user opened, so it is prefetched again after the visible ones
+     */
+    void noteOpened(Long folderId) {
+        recent.remove(folderId);
+        recent.add(folderId);
+        if (recent.size() > RECENT_FOLDERS) {
+            Iterator<Long> oldest = recent.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Prefetch the given folders in order, then the recently opened ones from the most
+     * recent, skipping any whose cached rows are still current
+     */
+    void prefetch(List<Long> visibleFolderIds) {
+        Set<Long> order = new LinkedHashSet<>(visibleFolderIds);
+        List<Long> recentFirst = new ArrayList<>(recent);
+        for (int i = recentFirst.size() - 1; i >= 0; i--) {
+            order.add(recentFirst.get(i));
+        }
+        int request = generation.incrementAndGet();
+        executor.execute(() -> {
+            int built = 0;
+            for (Long folderId : order) {
+                if (generation.get() != request) {
+                    return;
+                }
+                if (build(folderId)) {
+                    built++;
+                }
+            }
+            if (built > 0) {
+                Logger.d(TAG, "Prefetched " + built + " folders, cache " + cache.size() +
+                    " folders, " + cache.sizeInBytes() / 1024 + " KB");
+            }
+        });
+    }
+
+    /**
+     * The prefetched rows of a folder if they still start its listing, otherwise null
+     */
+    List<FileRow> take(Long folderId, List<FileItem> listing) {
+        return cache.getIfCurrent(folderId, listing);
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean build(Long folderId) {
+        List<FileItem> children = fileTree.isSeeded() ? fileTree.getChildren(folderId) : null;
+        if (children == null) {
+            return false;
+        }
+        List<FileItem> listing = FileViewModel.withParentEntry(
+            children.subList(0, Math.min(children.size(), PAGE_SIZE)), folderId != null);
+        if (cache.getIfCurrent(folderId, listing) != null) {
+            return false;
+        }
+        List<FileRow> rows = new FileRow.Factory(folderLabel, parentLabel).build(listing);
+        cache.put(folderId, FileViewModel.precomputeText(rows));
+        return true;
+    }
+}
@@ -4,42 +4,205 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import com.collab.productivity.data.model.ChunkedText;
 import com.collab.productivity.data.model.Note;
+import com.collab.productivity.data.model.NoteRow;
+import com.collab.productivity.data.repository.NoteAutosaver;
 import com.collab.productivity.data.repository.NoteRepository;
+import com.collab.productivity.data.sync.NoteSyncer;
+import com.collab.productivity.utils.FirebaseManager;
+import com.collab.productivity.utils.TextPrecomputer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class NoteViewModel extends AndroidViewModel {
     private NoteRepository repository;
     private LiveData<List<Note>> allNotes;
+    private final FirebaseManager firebaseManager = FirebaseManager.getInstance();
+    private final NoteSyncer syncer;
+    private final MediatorLiveData<List<NoteRow>> noteRows = new MediatorLiveData<>();
+    private final ExecutorService rowExecutor = Executors.newSingleThreadExecutor();
+    // Only touched on rowExecutor
+    private Map<Long, NoteRow> rowCache = new HashMap<>();
+    // The note open in the editor and its text, kept across configuration changes
+    private NoteAutosaver autosaver;
+    private ChunkedText editingText;
+    // Note loaded for the editor, held from pulls until editing ends
+    private long loadedNoteId = -1;
 
     public NoteViewModel(@NonNull Application application) {
         super(application);
         repository = new NoteRepository(application);
         allNotes = repository.getAllNotes();
+        syncer = repository.createSyncer(firebaseManager.getNoteSyncBackend());
+        syncNotes();
+        noteRows.addSource(allNotes, notes -> {
+            if (notes != null) {
+                rowExecutor.execute(() -> noteRows.postValue(buildRows(notes)));
+            }
+        });
+    }
+
+    /**
+     * Build the display rows off the main thread, reusing the rows of unchanged notes
+     * so the adapter's diff can match them by reference
+     */
+    private List<NoteRow> buildRows(List<Note> notes) {
+        List<NoteRow> rows = new ArrayList<>(notes.size());
+        Map<Long, NoteRow> cache = new HashMap<>(notes.size() * 2);
+        for (Note note : notes) {
+            NoteRow row = rowCache.get(note.getId());
+            if (row == null || !row.isCurrentFor(note)) {
+                row = NoteRow.from(note);
+            }
+            rows.add(row);
+            cache.put(note.getId(), row);
+        }
+        rowCache = cache;
+        precomputeText(rows);
+        return rows;
+    }
+
+    /**
+     * Measure the previews of the first rows so binding them only sets text
+     */
+    private static void precomputeText(List<NoteRow> rows) {
+        TextPrecomputer precomputer = TextPrecomputer.getInstance();
+        for (int i = 0; i < rows.size() && i < TextPrecomputer.ROWS_PER_LIST; i++) {
+            NoteRow row = rows.get(i);
+            precomputer.precompute(TextPrecomputer.NOTE_PREVIEW, row.getId(), row.getVersion(), row.getPreview());
+        }
     }
 
     public void insert(Note note) {
         repository.insert(note);
+        syncNotes();
     }
 
     public void update(Note note) {
         repository.update(note);
+        syncNotes();
     }
 
     public void delete(Note note) {
         repository.delete(note);
+        syncNotes();
     }
 
     public void deleteById(long noteId) {
         repository.deleteById(noteId);
+        syncNotes();
+    }
+
+    /**
+     * Push local note changes and pull remote ones in the background, if signed in
+     */
+    public void syncNotes() {
+        String userId = firebaseManager.getCurrentUserId();
+        if (userId != null) {
+            syncer.requestSync(userId);
+        }
+    }
+
+    /**
+     * Load a note and its text for editing, from its chunks if it is large
+     */
+    public void loadNote(long noteId, NoteRepository.OnNoteLoadedListener listener) {
+        loadedNoteId = noteId;
+        repository.loadForEditing(noteId, listener);
+    }
+
+    /**
+     * Start autosaving edits to a note and its text, or to a new note when null. Does
+     * nothing if an editor is already open, as after a configuration change.
+     */
+    public void startEditing(Note note, ChunkedText text) {
+        if (autosaver == null) {
+            autosaver = repository.createAutosaver(note);
+            editingText = text;
+        }
+    }
+
+    /**
+     * The text of the note in the editor, which the editor keeps in step with its edits
+     */
+    public ChunkedText getEditingText() {
+        return editingText;
+    }
+
+    public boolean isEditing() {
+        return autosaver != null;
+    }
+
+    /**
+     * Save the editor's title and text unless they match what was last saved. Only the
+     * latest of several drafts queued while a write is in progress gets written.
+     */
+    public void autosave(String title) {
+        autosaver.save(title, editingText);
+    }
+
+    /**
+     * Id of the note in the editor, or -1 if it is new and not yet saved
+     */
+    public long getEditingNoteId() {
+        return autosaver != null ? autosaver.getNoteId() : -1;
+    }
+
+    /**
+     * Delete the note in the editor, dropping any edits not yet saved
+     */
+    public void deleteEditingNote() {
+        autosaver.delete();
+        syncNotes();
+    }
+
+    /**
+     * A note's saved revisions, newest first
+     */
+    public void getRevisions(long noteId, NoteRepository.OnRevisionsLoadedListener listener) {
+        repository.getRevisions(noteId, listener);
+    }
+
+    /**
+     * The text of a note as it was at one of its revisions
+     */
+    public void loadRevision(long noteId, int revision, NoteRepository.OnRevisionLoadedListener listener) {
+        repository.loadRevision(noteId, revision, listener);
     }
 
     public LiveData<List<Note>> getAllNotes() {
         return allNotes;
     }
 
+    /**
+     * Notes as display rows, preview and date already formatted
+     */
+    public LiveData<List<NoteRow>> getNoteRows() {
+        return noteRows;
+    }
+
     public LiveData<Note> getNoteById(long noteId) {
         return repository.getNoteById(noteId);
     }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        rowExecutor.shutdown();
+        // Record the final text in the note's history and push it; queued after the last write
+        if (autosaver != null) {
+            autosaver.checkpoint();
+            autosaver.close();
+            syncNotes();
+        } else if (loadedNoteId != -1) {
+            repository.releaseNote(loadedNoteId);
+        }
+    }
 }
 
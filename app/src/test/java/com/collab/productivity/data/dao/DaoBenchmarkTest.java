@@ -0,0 +1,305 @@
+package com.collab.productivity.data.dao;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.app.Application;
+import android.content.Context;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.database.FileClosureSchema;
+import com.collab.productivity.data.database.FolderStatsSchema;
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.Note;
+import com.collab.productivity.utils.Logger;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Times FileDao and NoteDao queries against synthetic folder trees under Robolectric's
+ * native SQLite and writes the medians to build/benchmark/dao-benchmark-report.txt.
+ * A query fails the run when it is slower than its median in
+ * dao-benchmark-baseline.properties times the threshold or, with no median recorded,
+ * slower than its absolute ceiling there.
+ *
+ * Opt-in, since the 1M row run takes minutes:
+ *   ./gradlew :app:testDebugUnitTest --tests '*DaoBenchmarkTest' -Pbenchmark
+ * Optional -P properties: notionary.benchmark.sizes (10000,100000,1000000),
+ * notionary.benchmark.depth (6), notionary.benchmark.fanOut (20),
+ * notionary.benchmark.folderEvery (5), notionary.benchmark.inMemory (false),
+ * notionary.benchmark.threshold (1.5) and notionary.benchmark.record, which writes
+ * the measured medians back to the baseline file.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class DaoBenchmarkTest {
+    private static final String TAG = "DaoBenchmarkTest";
+    private static final String BASELINE_RESOURCE = "dao-benchmark-baseline.properties";
+    private static final String BASELINE_SOURCE = "src/test/resources/" + BASELINE_RESOURCE;
+    private static final String RESULTS_FILE = "build/benchmark/dao-benchmark-results.properties";
+    private static final String REPORT_FILE = "build/benchmark/dao-benchmark-report.txt";
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+    private static final int SEED_BATCH = 10_000;
+    private static final int INSERT_BATCH = 1_000;
+    // Differences below this are timer noise, whatever the ratio
+    private static final double MIN_REGRESSION_MS = 2.0;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final Map<String, Double> results = new TreeMap<>();
+    private Context context;
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Set -Pbenchmark to run DAO benchmarks", Boolean.getBoolean("notionary.benchmark"));
+        context = ApplicationProvider.getApplicationContext();
+    }
+
+    @After
+    public void tearDown() {
+        closeDatabase();
+    }
+
+    @Test
+    public void daoQueriesStayWithinBaseline() throws IOException {
+        FileTreeSeeder seeder = new FileTreeSeeder(
+            Integer.getInteger("notionary.benchmark.depth", 6),
+            Integer.getInteger("notionary.benchmark.fanOut", 20),
+            Integer.getInteger("notionary.benchmark.folderEvery", 5));
+
+        for (int rows : sizes()) {
+            openDatabase(rows);
+            benchmarkFileDao(seeder, rows);
+            benchmarkNoteDao(Math.max(1, rows / 10), rows);
+            closeDatabase();
+        }
+
+        Properties baseline = loadBaseline();
+        writeResults(baseline);
+        List<String> regressions = compareWithBaseline(baseline);
+        assertTrue("DAO benchmark regressions:\n" + String.join("\n", regressions), regressions.isEmpty());
+    }
+
+    private void benchmarkFileDao(FileTreeSeeder seeder, int rows) {
+        FileDao dao = database.fileDao();
+
+        long start = System.nanoTime();
+        seeder.seed(database, rows, SEED_BATCH);
+        record("seed", rows, (System.nanoTime() - start) / 1e6);
+
+        // Row 1 is always a top-level folder
+        long folderId = 1;
+        String middleFirestoreId = "fs-" + (rows / 2);
+
+        measure("getRootItemsSorted", rows, () -> assertNotNull(awaitValue(dao.getRootItemsSorted())));
+        measure("getItemsInFolderSorted", rows, () -> assertNotNull(awaitValue(dao.getItemsInFolderSorted(folderId))));
+        measure("getItemById", rows, () -> assertNotNull(awaitValue(dao.getItemById(folderId))));
+        measure("getFolderSummary", rows, () -> assertNotNull(awaitValue(dao.getFolderSummary(folderId))));
+        measure("getRootSummary", rows, () -> assertNotNull(awaitValue(dao.getRootSummary())));
+        measure("getGroupFiles", rows, () -> assertNotNull(awaitValue(dao.getGroupFiles("group-1"))));
+        measure("searchItems", rows, () -> assertNotNull(awaitValue(dao.searchItems("file_99"))));
+        measure("findByFirestoreId", rows, () -> assertNotNull(dao.findByFirestoreId(middleFirestoreId)));
+
+        long movedId = rows;
+        measure("moveItem", rows, () -> {
+            dao.moveItem(movedId, folderId);
+            dao.moveItem(movedId, null);
+        });
+
+        List<FileItem> extra = seeder.generate(INSERT_BATCH);
+        measure("insertAll", rows, () -> {
+            for (FileItem item : extra) {
+                item.setId(0);
+            }
+            database.runInTransaction(() -> dao.insertAll(extra));
+        });
+    }
+
+    private void benchmarkNoteDao(int notes, int rows) {
+        NoteDao dao = database.noteDao();
+        List<Note> batch = new ArrayList<>(SEED_BATCH);
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= notes; i++) {
+            Note note = new Note("Note " + i, "Synthetic note body " + i);
+            note.setUserId(FileTreeSeeder.USER_ID);
+            batch.add(note);
+            if (batch.size() == SEED_BATCH || i == notes) {
+                database.runInTransaction(() -> dao.insertAll(batch));
+                batch.clear();
+            }
+        }
+        record("notes.seed", rows, (System.nanoTime() - start) / 1e6);
+
+        measure("notes.getAllNotesSync", rows, () -> assertNotNull(dao.getAllNotesSync()));
+        measure("notes.getAllNotes", rows, () -> assertNotNull(awaitValue(dao.getAllNotes())));
+    }
+
+    private void measure(String name, int rows, Runnable operation) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            operation.run();
+        }
+        double[] timings = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            timings[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(timings);
+        record(name, rows, timings[MEASURED_RUNS / 2]);
+    }
+
+    private void record(String name, int rows, double millis) {
+        String key = name + "." + rows;
+        results.put(key, millis);
+    }
+
+    /**
+     * Observe a Room LiveData once. Queries run inline because the database uses
+     * direct executors and the InstantTaskExecutorRule delivers values immediately.
+     */
+    private static <T> T awaitValue(LiveData<T> liveData) {
+        List<T> values = new ArrayList<>(1);
+        Observer<T> observer = values::add;
+        liveData.observeForever(observer);
+        liveData.removeObserver(observer);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private void openDatabase(int rows) {
+        boolean inMemory = Boolean.getBoolean("notionary.benchmark.inMemory");
+        String name = "dao-benchmark-" + rows + ".db";
+        context.deleteDatabase(name);
+        database = (inMemory
+                ? Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                : Room.databaseBuilder(context, AppDatabase.class, name))
+            .allowMainThreadQueries()
+            .setQueryExecutor(Runnable::run)
+            .setTransactionExecutor(Runnable::run)
+            // The triggers production installs, so seeds, moves and inserts pay for them here too
+            .addCallback(FolderStatsSchema.CALLBACK)
+            .addCallback(FileClosureSchema.CALLBACK)
+            .build();
+    }
+
+    private void closeDatabase() {
+        if (database != null) {
+            database.close();
+            database = null;
+        }
+    }
+
+    private static List<Integer> sizes() {
+        List<Integer> sizes = new ArrayList<>();
+        for (String size : System.getProperty("notionary.benchmark.sizes", "10000,100000,1000000").split(",")) {
+            sizes.add(Integer.parseInt(size.trim()));
+        }
+        return sizes;
+    }
+
+    /**
+     * Write the medians as properties and as a readable report next to their baselines
+     */
+    private void writeResults(Properties baseline) throws IOException {
+        Properties properties = toProperties(results);
+        File resultsFile = new File(RESULTS_FILE);
+        resultsFile.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(resultsFile)) {
+            properties.store(out, "DAO benchmark medians in ms");
+        }
+        try (PrintWriter report = new PrintWriter(REPORT_FILE, "UTF-8")) {
+            report.println(String.format(Locale.US, "%-40s %10s %10s", "query.rows", "median ms", "baseline"));
+            for (Map.Entry<String, Double> entry : results.entrySet()) {
+                String expected = baseline.getProperty(entry.getKey());
+                String ceiling = baseline.getProperty(
+                    "ceiling." + entry.getKey().substring(0, entry.getKey().lastIndexOf('.')));
+                report.println(String.format(Locale.US, "%-40s %10.2f %10s", entry.getKey(), entry.getValue(),
+                    expected != null && !expected.trim().isEmpty() ? expected.trim()
+                        : ceiling != null ? "<= " + ceiling.trim() : "-"));
+            }
+        }
+        Logger.i(TAG, "DAO benchmark report written to " + new File(REPORT_FILE).getAbsolutePath());
+        if (System.getProperty("notionary.benchmark.record") != null) {
+            Properties recorded = new Properties();
+            recorded.putAll(baseline);
+            recorded.putAll(properties);
+            try (OutputStream out = new FileOutputStream(BASELINE_SOURCE)) {
+                recorded.store(out, "DAO benchmark baseline medians in ms, recorded with -Pnotionary.benchmark.record");
+            }
+        }
+    }
+
+    private List<String> compareWithBaseline(Properties baseline) {
+        double threshold = Double.parseDouble(System.getProperty("notionary.benchmark.threshold", "1.5"));
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : results.entrySet()) {
+            String expected = baseline.getProperty(entry.getKey());
+            double measuredMs = entry.getValue();
+            if (expected == null || expected.trim().isEmpty()) {
+                String query = entry.getKey().substring(0, entry.getKey().lastIndexOf('.'));
+                String ceiling = baseline.getProperty("ceiling." + query);
+                if (ceiling == null) {
+                    Logger.w(TAG, "No baseline or ceiling for " + entry.getKey() + "; it was reported but not checked");
+                } else if (measuredMs > Double.parseDouble(ceiling)) {
+                    regressions.add(String.format(Locale.US, "%s: %.2f ms, ceiling %s ms",
+                        entry.getKey(), measuredMs, ceiling.trim()));
+                }
+                continue;
+            }
+            double baselineMs = Double.parseDouble(expected);
+            if (measuredMs > baselineMs * threshold && measuredMs - baselineMs > MIN_REGRESSION_MS) {
+                regressions.add(String.format(Locale.US, "%s: %.2f ms, baseline %.2f ms (x%.2f)",
+                    entry.getKey(), measuredMs, baselineMs, measuredMs / baselineMs));
+            }
+        }
+        return regressions;
+    }
+
+    private static Properties loadBaseline() throws IOException {
+        Properties baseline = new Properties();
+        File source = new File(BASELINE_SOURCE);
+        try (InputStream in = source.exists()
+                ? new FileInputStream(source)
+                : DaoBenchmarkTest.class.getClassLoader().getResourceAsStream(BASELINE_RESOURCE)) {
+            if (in != null) {
+                baseline.load(in);
+            }
+        }
+        return baseline;
+    }
+
+    private static Properties toProperties(Map<String, Double> values) {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            properties.setProperty(entry.getKey(), String.format(Locale.US, "%.2f", entry.getValue()));
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,277 @@
+package com.collab.productivity.data.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.database.sqlite.SQLiteConstraintException;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.database.FileClosureSchema;
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FileTreeIndex;
+import com.collab.productivity.data.repository.FileRepository;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Checks the trigger-maintained file_closure rows against the parent links of the
+ * files table after inserts, moves and deletes
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class FileClosureTest {
+    private AppDatabase database;
+    private FileDao dao;
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase.class)
+            .allowMainThreadQueries()
+            .addCallback(FileClosureSchema.CALLBACK)
+            .build();
+        dao = database.fileDao();
+        new FileTreeSeeder(4, 5, 2).seed(database, 500, 100);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void closureFollowsMovesAndDeletes() {
+        assertClosureMatchesParents();
+
+        List<FileItem> folders = folders();
+        FileItem deepFolder = folders.get(folders.size() - 1);
+        dao.moveItem(deepFolder.getParentFolderId(), folders.get(1).getId());
+        assertClosureMatchesParents();
+
+        dao.moveItem(folders.get(1).getId(), null);
+        assertClosureMatchesParents();
+
+        dao.delete(deepFolder);
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    public void rejectsMovingAFolderIntoItself() {
+        List<FileItem> folders = folders();
+        FileItem deepFolder = folders.get(folders.size() - 1);
+        long top = dao.getAncestors(deepFolder.getId()).get(0).getId();
+        assertTrue(dao.isInside(deepFolder.getId(), top));
+
+        try {
+            dao.moveItem(top, deepFolder.getId());
+            fail("Moved folder " + top + " inside itself");
+        } catch (SQLiteConstraintException expected) {
+            // The trigger aborts before anything is written
+        }
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    public void moveSubtreeRewritesPathsBelowTheItem() {
+        List<FileItem> folders = folders();
+        FileItem deepFolder = folders.get(folders.size() - 1);
+        FileItem moved = dao.getItemByIdSync(deepFolder.getParentFolderId());
+        FileItem target = folders.get(1);
+
+        List<FileItem> changed = dao.moveSubtree(moved, target.getId(), target.getPath(), null, null);
+        assertEquals(moved.getId(), changed.get(0).getId());
+        assertEquals(target.getPath() + "/" + moved.getName(), changed.get(0).getPath());
+        assertEquals(dao.getSubtree(moved.getId()).size() + 1, changed.size());
+
+        Map<Long, FileItem> byId = new HashMap<>();
+        for (FileItem item : dao.getAllFilesSync()) {
+            byId.put(item.getId(), item);
+        }
+        for (FileItem item : byId.values()) {
+            FileItem parent = item.getParentFolderId() != null ? byId.get(item.getParentFolderId()) : null;
+            String parentPath = parent != null ? parent.getPath() : "/";
+            assertEquals("Parent path of " + item.getId(), parentPath, item.getParentPath());
+            assertEquals("Path of " + item.getId(),
+                (parent != null ? parentPath : "") + "/" + item.getName(), item.getPath());
+        }
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    public void movedFilesStayAtTheirStoredPaths() throws IOException {
+        File filesDir = new File(ApplicationProvider.getApplicationContext().getFilesDir(), "move-test");
+        FileRepository repository = new FileRepository(dao, new Handler(Looper.getMainLooper()),
+            new FileTreeIndex(), filesDir);
+        FileItem source = insertFolder(filesDir, null, "move-source");
+        FileItem inner = insertFolder(filesDir, source, "inner");
+        FileItem target = insertFolder(filesDir, null, "move-target");
+        FileItem note = insertFile(filesDir, source, "note.txt");
+        FileItem deep = insertFile(filesDir, inner, "deep.txt");
+
+        // A file moves on disk into the target folder's directory
+        move(repository, note, target);
+        note = dao.getItemByIdSync(note.getId());
+        assertEquals(new File(filesDir, "move-target/note.txt").getAbsolutePath(), note.getPath());
+        assertEquals("/move-target", note.getParentPath());
+        assertTrue(new File(note.getPath()).isFile());
+
+        // A folder's directory is renamed and the stored paths of the files below follow it
+        move(repository, source, target);
+        deep = dao.getItemByIdSync(deep.getId());
+        assertEquals(new File(filesDir, "move-target/move-source/inner/deep.txt").getAbsolutePath(), deep.getPath());
+        assertEquals("/move-target/move-source/inner", deep.getParentPath());
+        assertEquals("/move-target/move-source/inner", dao.getItemByIdSync(inner.getId()).getPath());
+        assertTrue(new File(deep.getPath()).isFile());
+
+        // A file moved to the root lands in the files directory itself
+        move(repository, note, null);
+        note = dao.getItemByIdSync(note.getId());
+        assertEquals(new File(filesDir, "note.txt").getAbsolutePath(), note.getPath());
+        assertEquals("/", note.getParentPath());
+        assertNull(note.getParentFolderId());
+        assertTrue(new File(note.getPath()).isFile());
+        assertClosureMatchesParents();
+    }
+
+    @Test
+    public void findSiblingMatchesNamesInTheDestinationOnly() {
+        List<FileItem> folders = folders();
+        FileItem moved = folders.get(folders.size() - 1);
+        FileItem target = folders.get(1);
+        assertNull(dao.findSibling(target.getId(), moved.getGroupId(), moved.getName(), moved.getId()));
+
+        FileItem clash = new FileItem(moved.getName(), target.getPath() + "/" + moved.getName(), "",
+            target.getId(), false);
+        clash.setParentPath(target.getPath());
+        long clashId = dao.insert(clash);
+        assertEquals(Long.valueOf(clashId),
+            dao.findSibling(target.getId(), moved.getGroupId(), moved.getName(), moved.getId()));
+        // The item itself is not its own sibling
+        assertNull(dao.findSibling(moved.getParentFolderId(), moved.getGroupId(), moved.getName(), moved.getId()));
+    }
+
+    private FileItem insertFolder(File filesDir, FileItem parent, String name) {
+        String parentPath = parent != null ? parent.getPath() : "/";
+        FileItem folder = new FileItem(name, (parent != null ? parentPath : "") + "/" + name, "",
+            parent != null ? parent.getId() : null, true);
+        folder.setParentPath(parentPath);
+        folder.setId(dao.insert(folder));
+        assertTrue(new File(filesDir, folder.getPath()).mkdirs());
+        return folder;
+    }
+
+    private FileItem insertFile(File filesDir, FileItem parent, String name) throws IOException {
+        File stored = new File(new File(filesDir, parent.getPath()), name);
+        try (FileOutputStream out = new FileOutputStream(stored)) {
+            out.write(name.getBytes("UTF-8"));
+        }
+        FileItem file = new FileItem(name, stored.getAbsolutePath(), "", parent.getId(), false);
+        file.setParentPath(parent.getPath());
+        file.setId(dao.insert(file));
+        return file;
+    }
+
+    /** Move through the repository, draining the paused main looper until it reports back */
+    private void move(FileRepository repository, FileItem item, FileItem newParent) {
+        Exception[] error = new Exception[1];
+        boolean[] done = new boolean[1];
+        repository.moveSubtree(dao.getItemByIdSync(item.getId()), newParent, new FileRepository.OnItemsChangedListener() {
+            @Override
+            public void onSuccess(List<FileItem> items) {
+                done[0] = true;
+            }
+
+            @Override
+            public void onError(Exception e) {
+                error[0] = e;
+                done[0] = true;
+            }
+        });
+        long start = System.nanoTime();
+        while (!done[0]) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if ((System.nanoTime() - start) / 1_000_000 > 10_000) {
+                throw new AssertionError("Moving " + item.getName() + " timed out");
+            }
+            Thread.yield();
+        }
+        assertNull(error[0]);
+    }
+
+    private void assertClosureMatchesParents() {
+        Map<Long, Long> parents = new HashMap<>();
+        for (FileItem item : dao.getAllFilesSync()) {
+            parents.put(item.getId(), item.getParentFolderId());
+        }
+        for (FileItem folder : folders()) {
+            Set<Long> expected = new HashSet<>();
+            for (Long id : parents.keySet()) {
+                if (isBelow(parents, id, folder.getId())) {
+                    expected.add(id);
+                }
+            }
+            assertEquals("Subtree of " + folder.getId(), expected, ids(dao.getSubtree(folder.getId())));
+        }
+        for (Long id : parents.keySet()) {
+            List<Long> expected = new ArrayList<>();
+            for (Long step = parents.get(id); step != null && parents.containsKey(step); step = parents.get(step)) {
+                expected.add(0, step);
+            }
+            List<Long> actual = new ArrayList<>();
+            for (FileItem ancestor : dao.getAncestors(id)) {
+                actual.add(ancestor.getId());
+            }
+            assertEquals("Ancestors of " + id, expected, actual);
+            assertEquals("Depth of " + id, expected.size(), dao.getDepth(id));
+            assertFalse(dao.isInside(id, id));
+        }
+    }
+
+    private static boolean isBelow(Map<Long, Long> parents, long id, long folderId) {
+        for (Long step = parents.get(id); step != null; step = parents.get(step)) {
+            if (step == folderId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<FileItem> folders() {
+        List<FileItem> folders = new ArrayList<>();
+        for (FileItem item : dao.getAllFilesSync()) {
+            if (item.isFolder()) {
+                folders.add(item);
+            }
+        }
+        folders.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        return folders;
+    }
+
+    private static Set<Long> ids(List<FileItem> items) {
+        Set<Long> ids = new HashSet<>();
+        for (FileItem item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,108 @@
+package com.collab.productivity.data.dao;
+
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.model.FileItem;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Generates a synthetic folder tree breadth first, with explicit ids so parents can be
+ * referenced without a round trip. Every folder gets {@code fanOut} children, one in
+ * {@code folderEvery} of which is a folder while the tree is shallower than {@code maxDepth}.
+ * Every tenth row belongs to one of {@link #GROUP_COUNT} groups.
+ */
+class FileTreeSeeder {
+    static final int GROUP_COUNT = 100;
+    static final String USER_ID = "benchmark-user";
+
+    private final int maxDepth;
+    private final int fanOut;
+    private final int folderEvery;
+
+    FileTreeSeeder(int maxDepth, int fanOut, int folderEvery) {
+        this.maxDepth = maxDepth;
+        this.fanOut = fanOut;
+        this.folderEvery = folderEvery;
+    }
+
+    /**
+     * Insert {@code rows} items in batches, one transaction per batch
+     */
+    void seed(AppDatabase database, int rows, int batchSize) {
+        FileDao dao = database.fileDao();
+        Generator generator = new Generator();
+        List<FileItem> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < rows; i++) {
+            batch.add(generator.next());
+            if (batch.size() == batchSize || i == rows - 1) {
+                database.runInTransaction(() -> dao.insertAll(batch));
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Generate items without inserting them
+     */
+    List<FileItem> generate(int rows) {
+        Generator generator = new Generator();
+        List<FileItem> items = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            items.add(generator.next());
+        }
+        return items;
+    }
+
+    private static final class Folder {
+        final long id;
+        final String path;
+        final int depth;
+
+        Folder(long id, String path, int depth) {
+            this.id = id;
+            this.path = path;
+            this.depth = depth;
+        }
+    }
+
+    private class Generator {
+        private final Deque<Folder> queue = new ArrayDeque<>();
+        private Folder current = new Folder(0, "", 0);
+        private int childIndex;
+        private long nextId = 1;
+
+        FileItem next() {
+            if (childIndex == fanOut) {
+                // Once the tree is saturated keep adding to the root
+                current = queue.isEmpty() ? new Folder(0, "", 0) : queue.poll();
+                childIndex = 0;
+            }
+            long id = nextId++;
+            boolean isFolder = current.depth < maxDepth && childIndex % folderEvery == 0;
+            String name = (isFolder ? "folder_" : "file_") + id + (isFolder ? "" : ".txt");
+            String path = current.path + "/" + name;
+            Long parentId = current.id == 0 ? null : current.id;
+            childIndex++;
+
+            FileItem item = new FileItem(name, path, "Synthetic item " + id, parentId, isFolder);
+            item.setId(id);
+            item.setParentPath(current.path.isEmpty() ? "/" : current.path);
+            item.setUserId(USER_ID);
+            item.setFirestoreId("fs-" + id);
+            item.setSize(isFolder ? 0 : id * 37 % 10_000_000);
+            item.setMimeType(isFolder ? null : "text/plain");
+            item.setCreatedAt(new Date(1_700_000_000_000L + id));
+            item.setModifiedAt(new Date(1_700_000_000_000L + id * 2));
+            if (id % 10 == 0) {
+                item.setGroupId("group-" + (id / 10 % GROUP_COUNT));
+            }
+            if (isFolder) {
+                queue.add(new Folder(id, path, current.depth + 1));
+            }
+            return item;
+        }
+    }
+}
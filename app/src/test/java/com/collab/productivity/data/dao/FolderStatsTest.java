@@ -0,0 +1,145 @@
+package com.collab.productivity.data.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.app.Application;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.database.FileClosureSchema;
+import com.collab.productivity.data.database.FolderStatsSchema;
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FolderStats;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Checks the trigger-maintained folder_stats rows against a WITH RECURSIVE walk of
+ * the same subtree after inserts, moves, resizes and deletes
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class FolderStatsTest {
+    private static final int ROWS = 500;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private FileDao dao;
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase.class)
+            .allowMainThreadQueries()
+            .setQueryExecutor(Runnable::run)
+            .setTransactionExecutor(Runnable::run)
+            .addCallback(FolderStatsSchema.CALLBACK)
+            .addCallback(FileClosureSchema.CALLBACK)
+            .build();
+        dao = database.fileDao();
+        new FileTreeSeeder(4, 5, 2).seed(database, ROWS, 100);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void seededTreeMatchesSubtreeWalk() {
+        assertAllFoldersConsistent();
+        FolderStats root = awaitValue(dao.getRootStats());
+        assertEquals(ROWS, root.descendantCount);
+    }
+
+    @Test
+    public void moveResizeAndDeleteKeepStatsConsistent() {
+        List<FileItem> folders = folders();
+        FileItem deepFolder = folders.get(folders.size() - 1);
+        FileItem topFolder = folders.get(0);
+
+        // Move a whole subtree under a different top-level folder
+        long movedId = deepFolder.getParentFolderId();
+        dao.moveItem(movedId, folders.get(1).getId());
+        assertAllFoldersConsistent();
+
+        // Room's @Update rewrites every column, including an unchanged parent
+        FileItem file = firstFileUnder(topFolder.getId());
+        file.setSize(file.getSize() + 12_345);
+        dao.update(file);
+        assertAllFoldersConsistent();
+
+        dao.delete(file);
+        assertAllFoldersConsistent();
+
+        dao.delete(deepFolder);
+        assertNull(awaitValue(dao.getFolderStats(deepFolder.getId())));
+        assertAllFoldersConsistent();
+    }
+
+    @Test
+    public void deleteSubtreeRemovesEveryDescendant() {
+        FileItem topFolder = folders().get(1);
+        int below = dao.getSubtree(topFolder.getId()).size();
+
+        List<FileItem> deleted = dao.deleteSubtree(topFolder);
+        assertEquals(below + 1, deleted.size());
+        assertEquals(topFolder.getId(), deleted.get(0).getId());
+        for (FileItem item : deleted) {
+            assertNull(awaitValue(dao.getItemById(item.getId())));
+        }
+        assertEquals(ROWS - deleted.size(), awaitValue(dao.getRootStats()).descendantCount);
+        assertAllFoldersConsistent();
+    }
+
+    private void assertAllFoldersConsistent() {
+        for (FileItem folder : folders()) {
+            FolderStats maintained = awaitValue(dao.getFolderStats(folder.getId()));
+            FolderStats walked = dao.computeSubtreeStats(folder.getId());
+            assertNotNull("No stats for folder " + folder.getId(), maintained);
+            assertEquals("Count of folder " + folder.getId(), walked.descendantCount, maintained.descendantCount);
+            assertEquals("Bytes of folder " + folder.getId(), walked.totalBytes, maintained.totalBytes);
+        }
+    }
+
+    private List<FileItem> folders() {
+        List<FileItem> folders = new ArrayList<>();
+        for (FileItem item : awaitValue(dao.getAllFiles())) {
+            if (item.isFolder()) {
+                folders.add(item);
+            }
+        }
+        folders.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        return folders;
+    }
+
+    private FileItem firstFileUnder(long folderId) {
+        for (FileItem item : dao.getSubtree(folderId)) {
+            if (!item.isFolder()) {
+                return item;
+            }
+        }
+        throw new AssertionError("No file under folder " + folderId);
+    }
+
+    private static <T> T awaitValue(LiveData<T> liveData) {
+        List<T> values = new ArrayList<>(1);
+        Observer<T> observer = values::add;
+        liveData.observeForever(observer);
+        liveData.removeObserver(observer);
+        return values.isEmpty() ? null : values.get(0);
+    }
+}
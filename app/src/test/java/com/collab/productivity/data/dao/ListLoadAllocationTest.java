@@ -0,0 +1,106 @@
+package com.collab.productivity.data.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.R;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FileRow;
+import com.collab.productivity.data.repository.FileRepository;
+import com.collab.productivity.utils.AllocationTracker;
+import com.collab.productivity.viewmodel.FileViewModel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Allocation and retained heap of opening a 10k item folder, through the same calls
+ * FileViewModel makes: FileRepository's listing, the copy with the parent entry made on
+ * every emission and the display rows built for the adapter. Fails when a stage exceeds
+ * its budget in allocation-budgets.properties.
+ *
+ * Opt-in like the other benchmarks: ./gradlew :app:testDebugUnitTest -Pbenchmark
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class ListLoadAllocationTest {
+    private static final int FOLDER_ITEMS = 10_000;
+    // Ids are assigned breadth first, so the first root child is the folder under test
+    private static final long FOLDER_ID = 1;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Set -Pbenchmark to run allocation benchmarks", Boolean.getBoolean("notionary.benchmark"));
+        assumeTrue("JVM cannot count allocations per thread", AllocationTracker.isSupported());
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase.class)
+            .allowMainThreadQueries()
+            .setQueryExecutor(Runnable::run)
+            .setTransactionExecutor(Runnable::run)
+            .build();
+        // A root of FOLDER_ITEMS children, the first a folder that is then filled with FOLDER_ITEMS files
+        new FileTreeSeeder(1, FOLDER_ITEMS, FOLDER_ITEMS + 1).seed(database, 2 * FOLDER_ITEMS, FOLDER_ITEMS);
+    }
+
+    @After
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    public void loadLargeFolder() throws Exception {
+        FileRepository repository = new FileRepository(database.fileDao(), new Handler(Looper.getMainLooper()));
+        // Warm up Room's statement and converter paths so the measurement is steady state
+        awaitValue(repository.getItemsInFolder(FOLDER_ID));
+
+        AllocationTracker tracker = new AllocationTracker("listLoad", FOLDER_ITEMS);
+        long baselineHeap = AllocationTracker.usedHeapAfterGc();
+
+        List<FileItem> items = tracker.measure("FileRepository.getItemsInFolder",
+            () -> awaitValue(repository.getItemsInFolder(FOLDER_ID)));
+        assertEquals(FOLDER_ITEMS, items.size());
+        tracker.recordRetained("folderItems", baselineHeap, AllocationTracker.usedHeapAfterGc());
+
+        List<FileItem> emitted = tracker.measure("FileViewModel.withParentEntry",
+            () -> FileViewModel.withParentEntry(items, true));
+        Application application = ApplicationProvider.getApplicationContext();
+        FileRow.Factory factory = new FileRow.Factory(
+            application.getString(R.string.folder), application.getString(R.string.parent_folder));
+        List<FileRow> submitted = tracker.measure("FileViewModel.buildRows",
+            () -> FileViewModel.buildRows(factory, emitted));
+        tracker.recordRetained("displayedList", baselineHeap, AllocationTracker.usedHeapAfterGc());
+        assertEquals(FOLDER_ITEMS + 1, submitted.size());
+
+        tracker.publish();
+        tracker.assertWithinBudgets();
+    }
+
+    private static <T> T awaitValue(LiveData<T> liveData) {
+        List<T> values = new ArrayList<>(1);
+        Observer<T> observer = values::add;
+        liveData.observeForever(observer);
+        liveData.removeObserver(observer);
+        return values.isEmpty() ? null : values.get(0);
+    }
+}
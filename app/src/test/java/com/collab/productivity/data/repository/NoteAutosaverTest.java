@@ -0,0 +1,116 @@
+package com.collab.productivity.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.dao.NoteDao;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.model.ChunkedText;
+import com.collab.productivity.data.model.Note;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class NoteAutosaverTest {
+    private AppDatabase database;
+    // Writes run when the test drains this, standing in for the repository's executor
+    private final Queue<Runnable> writer = new ArrayDeque<>();
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase.class)
+            .allowMainThreadQueries()
+            .build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void writesOnlyTheLatestChangedDraft() {
+        NoteAutosaver autosaver = new NoteAutosaver(database.noteDao(), writer::add,
+            new NoteRevisionRecorder(database.noteDao()), new HashSet<>(), null);
+
+        ChunkedText content = ChunkedText.of("");
+        for (int i = 0; i < 300; i++) {
+            content.append("line " + i + "\n");
+            autosaver.save("", content);
+        }
+        assertEquals(1, writer.size());
+        drain();
+
+        List<Note> notes = database.noteDao().getAllNotesSync();
+        assertEquals(1, notes.size());
+        assertEquals(content.toString().trim(), notes.get(0).getContent());
+        assertEquals("line 0", notes.get(0).getTitle());
+        long id = autosaver.getNoteId();
+        assertEquals(notes.get(0).getId(), id);
+
+        // Trailing whitespace leaves the saved text unchanged, so nothing is written
+        long modified = notes.get(0).getModifiedAt().getTime();
+        content.append("   ");
+        autosaver.save("", content);
+        drain();
+        assertEquals(modified, database.noteDao().getAllNotesSync().get(0).getModifiedAt().getTime());
+
+        // The first save starts the history; a checkpoint of the same text adds nothing
+        autosaver.checkpoint();
+        drain();
+        assertEquals(1, database.noteDao().getRevisionList(id).size());
+
+        autosaver.save("Title", ChunkedText.of("edited"));
+        autosaver.delete();
+        drain();
+        assertTrue(database.noteDao().getAllNotesSync().isEmpty());
+    }
+
+    @Test
+    public void largeNotesSaveOnlyTheChunksThatChanged() {
+        NoteAutosaver autosaver = new NoteAutosaver(database.noteDao(), writer::add,
+            new NoteRevisionRecorder(database.noteDao()), new HashSet<>(), null);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 2 * NoteDao.INLINE_LIMIT) {
+            text.append("A fairly ordinary line of a long note\n");
+        }
+        ChunkedText content = ChunkedText.of(text.toString());
+        autosaver.save("Long", content);
+        drain();
+
+        long id = autosaver.getNoteId();
+        Note note = database.noteDao().getNoteByIdSync(id);
+        assertTrue(note.isChunked());
+        assertEquals(NoteDao.HEAD_LENGTH, note.getContent().length());
+        assertEquals(content.chunkCount(), database.noteDao().getChunks(id).size());
+
+        // Two edits queued before the writer runs are written together
+        content.append("dictated sentence");
+        autosaver.save("Long", content);
+        content.replace(10, 20, "");
+        autosaver.save("Long", content);
+        assertEquals(1, writer.size());
+        drain();
+
+        assertEquals(content.toString(), database.noteDao().getText(database.noteDao().getNoteByIdSync(id)));
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = writer.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.collab.productivity.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.dao.NoteDao;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.model.Note;
+import com.collab.productivity.data.model.NoteRevision;
+import com.collab.productivity.data.model.TextDelta;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class NoteRevisionRecorderTest {
+    private AppDatabase database;
+    private NoteDao noteDao;
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase.class)
+            .allowMainThreadQueries()
+            .build();
+        noteDao = database.noteDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void historyGrowsWithTheEditsAndEveryRevisionRebuilds() {
+        long noteId = noteDao.insert(new Note("Log", ""));
+        NoteRevisionRecorder recorder = new NoteRevisionRecorder(noteDao);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 200_000) {
+            text.append("Entry ").append(text.length()).append(", nothing to report\n");
+        }
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            text.insert((i * 7919) % text.length(), "edit " + i + "\n");
+            saved.add(text.toString());
+            recorder.record(noteId, text.toString());
+        }
+        recorder.record(noteId, text.toString());
+
+        List<NoteRevision.Info> revisions = noteDao.getRevisionList(noteId);
+        assertEquals(200, revisions.size());
+        assertEquals(200, revisions.get(0).revision);
+        int stored = 0;
+        int snapshots = 0;
+        for (NoteRevision.Info revision : revisions) {
+            stored += revision.size;
+            snapshots += revision.snapshot ? 1 : 0;
+        }
+        int snapshotSize = TextDelta.compressText(text.toString()).length;
+        assertTrue(snapshots <= 3);
+        assertTrue(stored < 3 * snapshotSize);
+
+        for (int revision : new int[]{1, 2, 57, 123, 200}) {
+            assertEquals(saved.get(revision - 1), noteDao.getRevisionText(noteId, revision));
+        }
+        assertNull(noteDao.getRevisionText(noteId, 201));
+
+        // A recorder starting fresh picks up where the history left off
+        new NoteRevisionRecorder(noteDao).record(noteId, text + "after a restart");
+        assertEquals(text + "after a restart", noteDao.getRevisionText(noteId, 201));
+
+        noteDao.deleteById(noteId);
+        assertTrue(noteDao.getRevisionList(noteId).isEmpty());
+    }
+
+    @Test
+    public void staleRecorderReloadsInsteadOfReusingARevisionNumber() {
+        long noteId = noteDao.insert(new Note("Shared", ""));
+        NoteRevisionRecorder first = new NoteRevisionRecorder(noteDao);
+        NoteRevisionRecorder second = new NoteRevisionRecorder(noteDao);
+
+        first.record(noteId, "one");
+        second.record(noteId, "one two");
+        // first still caches revision 1 and would otherwise insert a second revision 2
+        first.record(noteId, "one two three");
+
+        assertEquals(3, noteDao.getRevisionList(noteId).size());
+        assertEquals("one two", noteDao.getRevisionText(noteId, 2));
+        assertEquals("one two three", noteDao.getRevisionText(noteId, 3));
+    }
+}
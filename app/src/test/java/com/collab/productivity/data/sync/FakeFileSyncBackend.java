@@ -0,0 +1,90 @@
+package com.collab.productivity.data.sync;
+
+import android.os.Handler;
+import com.google.firebase.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process stand-in for Firestore that serves N synthetic file documents. Like the
+ * Firestore SDK it answers on a background thread after the configured latency and
+ * delivers the result through the main-thread handler.
+ */
+class FakeFileSyncBackend implements FileSyncBackend {
+    private static final int FAN_OUT = 10;
+
+    private final List<Map<String, Object>> documents;
+    private final long latencyMs;
+    private final Handler mainHandler;
+
+    FakeFileSyncBackend(int documentCount, long latencyMs, Handler mainHandler) {
+        this.documents = generate(documentCount);
+        this.latencyMs = latencyMs;
+        this.mainHandler = mainHandler;
+    }
+
+    @Override
+    public void fetchUserFiles(String userId, Callback callback) {
+        serve(callback);
+    }
+
+    @Override
+    public void fetchGroupFiles(String groupId, Callback callback) {
+        serve(callback);
+    }
+
+    private void serve(Callback callback) {
+        new Thread(() -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Each snapshot hands out fresh maps, as DocumentSnapshot.getData() does
+            List<Map<String, Object>> snapshot = new ArrayList<>(documents.size());
+            for (Map<String, Object> document : documents) {
+                snapshot.add(new HashMap<>(document));
+            }
+            mainHandler.post(() -> callback.onSuccess(snapshot));
+        }, "FakeFirestore").start();
+    }
+
+    /**
+     * The documents a fake backend of the given size serves
+     */
+    static List<Map<String, Object>> generate(int count) {
+        List<Map<String, Object>> documents = new ArrayList<>(count);
+        List<String> folders = new ArrayList<>();
+        folders.add("/");
+        long baseTime = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            String parentPath = folders.get(Math.min(folders.size() - 1, i / FAN_OUT));
+            boolean isFolder = i % FAN_OUT == 0;
+            String name = (isFolder ? "folder_" : "file_") + i + (isFolder ? "" : ".pdf");
+            String path = parentPath.equals("/") ? "/" + name : parentPath + "/" + name;
+            if (isFolder) {
+                folders.add(path);
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("firestoreId", "doc" + i);
+            data.put("name", name);
+            data.put("path", path);
+            data.put("parentPath", parentPath);
+            data.put("description", "Item " + i);
+            data.put("isFolder", isFolder);
+            data.put("userId", "benchmark-user");
+            data.put("mimeType", isFolder ? null : "application/pdf");
+            data.put("size", isFolder ? 0L : (long) (i * 7919 % 50_000_000));
+            data.put("cloudinaryUrl", isFolder ? null : "https://res.cloudinary.com/demo/raw/upload/" + i);
+            data.put("cloudinaryPublicId", isFolder ? null : "notionary/benchmark-user/" + i);
+            data.put("createdAt", new Timestamp(new Date(baseTime + i * 1000L)));
+            data.put("modifiedAt", new Timestamp(new Date(baseTime + i * 2000L)));
+            documents.add(data);
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,238 @@
+package com.collab.productivity.data.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import android.content.Context;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.dao.NoteDao;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.database.NoteSyncSchema;
+import com.collab.productivity.data.model.ChunkedText;
+import com.collab.productivity.data.model.Note;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class NoteSyncerTest {
+    private AppDatabase database;
+    private NoteDao dao;
+    private InMemoryNoteBackend backend;
+    private NoteSyncer syncer;
+    private final Set<Long> editing = new HashSet<>();
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .allowMainThreadQueries()
+            .addCallback(NoteSyncSchema.CALLBACK)
+            .build();
+        dao = database.noteDao();
+        backend = new InMemoryNoteBackend();
+        syncer = new NoteSyncer(backend, dao,
+            context.getSharedPreferences("note_sync_test", Context.MODE_PRIVATE), Runnable::run, editing);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void pushesDirtyNotesInBatchesAndPullsRemoteChanges() {
+        int count = NoteSyncBackend.MAX_PUSH + 20;
+        for (int i = 0; i < count; i++) {
+            Note note = new Note("Note " + i, "body");
+            note.setModifiedAt(new Date(1000 + i));
+            dao.insert(note);
+        }
+        backend.putRemote("remote-1", "From another device", new Date(5000));
+
+        syncer.requestSync("user");
+
+        assertEquals(2, backend.pushes);
+        assertTrue(dao.getDirtyNotes(10).isEmpty());
+        assertEquals(count + 1, backend.documents.size());
+        assertEquals(count + 1, dao.getAllNotesSync().size());
+        assertNotNull(dao.getNoteByFirestoreIdSync("remote-1"));
+
+        // An unchanged pull costs no local writes, and an edit is pushed alone
+        Note edited = dao.getAllNotesSync().get(0);
+        dao.updateText(edited.getId(), "Edited", "new body", new Date(9000));
+        syncer.requestSync("user");
+        assertEquals(3, backend.pushes);
+        assertEquals("Edited", backend.documents.get(edited.getFirestoreId()).get("title"));
+    }
+
+    @Test
+    public void deletionsTravelBothWays() {
+        Note note = new Note("Doomed", "body");
+        long id = dao.insert(note);
+        backend.putRemote("remote-1", "Deleted elsewhere", new Date(5000));
+        syncer.requestSync("user");
+        assertNotNull(dao.getNoteByFirestoreIdSync("doc-0"));
+
+        dao.deleteById(id);
+        backend.markRemoteDeleted("remote-1");
+        syncer.requestSync("user");
+
+        assertTrue(dao.getAllNotesSync().isEmpty());
+        assertTrue(dao.getTombstones(10).isEmpty());
+        for (Map<String, Object> document : backend.documents.values()) {
+            assertEquals(Boolean.TRUE, document.get("deleted"));
+        }
+        assertFalse(backend.documents.isEmpty());
+    }
+
+    @Test
+    public void leavesNotesOpenInTheEditorForALaterPull() {
+        backend.putRemote("remote-1", "First", new Date(5000));
+        syncer.requestSync("user");
+        long id = dao.getNoteByFirestoreIdSync("remote-1").getId();
+        editing.add(id);
+
+        backend.putRemote("remote-1", "Edited elsewhere", new Date(6000));
+        syncer.requestSync("user");
+        assertEquals("First", dao.getNoteByIdSync(id).getTitle());
+
+        // Closing the editor lets the next pull fetch the deferred change again
+        editing.remove(id);
+        syncer.requestSync("user");
+        assertEquals("Edited elsewhere", dao.getNoteByIdSync(id).getTitle());
+    }
+
+    @Test
+    public void storesLongPulledTextInChunks() {
+        String text = longText(3 * NoteDao.INLINE_LIMIT);
+        backend.putRemote("remote-1", "Long", text, new Date(5000));
+
+        syncer.requestSync("user");
+
+        Note note = dao.getNoteByFirestoreIdSync("remote-1");
+        assertTrue(note.isChunked());
+        assertEquals(NoteDao.HEAD_LENGTH, note.getContent().length());
+        assertEquals(text, dao.getText(note));
+        assertTrue(note.isSynced());
+    }
+
+    @Test
+    public void keepsNotesTooLargeForOneDocumentOutOfThePush() {
+        long small = dao.insert(new Note("Small", "body"));
+        long large = dao.insert(new Note("Large", ""));
+        ChunkedText text = ChunkedText.of(longText(NoteSyncBackend.MAX_TEXT_BYTES + 1));
+        dao.saveChunks(large, "Large", text.head(NoteDao.HEAD_LENGTH), text.takeChanges().written,
+            new ArrayList<>(), new Date());
+
+        syncer.requestSync("user");
+
+        assertNotNull(dao.getNoteByIdSync(small).getFirestoreId());
+        assertNull(dao.getNoteByIdSync(large).getFirestoreId());
+        assertEquals(1, backend.documents.size());
+        assertEquals(1, dao.getDirtyNoteIdsOver(NoteSyncBackend.MAX_TEXT_BYTES).size());
+    }
+
+    private static String longText(int length) {
+        StringBuilder text = new StringBuilder(length + 40);
+        while (text.length() < length) {
+            text.append("A fairly ordinary line of a long note\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Keeps documents in memory and answers synchronously, stamping writes with a
+     * server clock that only moves forward
+     */
+    private static class InMemoryNoteBackend implements NoteSyncBackend {
+        final Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        int pushes;
+        private long serverTime = 1;
+        private int nextId;
+
+        @Override
+        public String newDocumentId(String userId) {
+            return "doc-" + nextId++;
+        }
+
+        @Override
+        public void pushNotes(String userId, List<Note> notes, List<String> deletedIds, PushCallback callback) {
+            assertTrue(notes.size() + deletedIds.size() <= MAX_PUSH);
+            pushes++;
+            for (Note note : notes) {
+                Map<String, Object> document = new HashMap<>();
+                document.put("title", note.getTitle());
+                document.put("content", note.getContent());
+                document.put("createdAt", note.getCreatedAt());
+                document.put("modifiedAt", note.getModifiedAt());
+                document.put("deleted", false);
+                write(note.getFirestoreId(), document);
+            }
+            for (String firestoreId : deletedIds) {
+                Map<String, Object> document = new HashMap<>();
+                document.put("deleted", true);
+                write(firestoreId, document);
+            }
+            callback.onSuccess();
+        }
+
+        @Override
+        public void fetchNotesChangedSince(String userId, Date since, FetchCallback callback) {
+            List<Map<String, Object>> changed = new ArrayList<>();
+            for (Map.Entry<String, Map<String, Object>> entry : documents.entrySet()) {
+                if (((Date) entry.getValue().get(FirestoreNoteSyncBackend.FIELD_SYNCED_AT)).after(since)) {
+                    Map<String, Object> document = new HashMap<>(entry.getValue());
+                    document.put("firestoreId", entry.getKey());
+                    changed.add(document);
+                }
+            }
+            callback.onSuccess(changed);
+        }
+
+        void putRemote(String firestoreId, String title, Date modifiedAt) {
+            putRemote(firestoreId, title, "", modifiedAt);
+        }
+
+        void putRemote(String firestoreId, String title, String content, Date modifiedAt) {
+            Map<String, Object> document = new HashMap<>();
+            document.put("title", title);
+            document.put("content", content);
+            document.put("modifiedAt", modifiedAt);
+            write(firestoreId, document);
+        }
+
+        void markRemoteDeleted(String firestoreId) {
+            Map<String, Object> document = new HashMap<>();
+            document.put("deleted", true);
+            write(firestoreId, document);
+        }
+
+        private void write(String firestoreId, Map<String, Object> fields) {
+            Map<String, Object> document = documents.get(firestoreId);
+            if (document == null) {
+                document = new HashMap<>();
+                documents.put(firestoreId, document);
+            }
+            document.putAll(fields);
+            document.put(FirestoreNoteSyncBackend.FIELD_SYNCED_AT, new Date(serverTime++));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.collab.productivity.data.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.repository.FileRepository;
+import com.collab.productivity.utils.AllocationTracker;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Allocation and retained heap of a 10k document sync run by FileSyncer end to end,
+ * counting the repository executor as well: first into an empty database, then again
+ * with nothing changed. Fails when a figure exceeds its budget in
+ * allocation-budgets.properties.
+ *
+ * Opt-in like the other benchmarks: ./gradlew :app:testDebugUnitTest -Pbenchmark
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class SyncAllocationTest {
+    private static final int DOCUMENTS = 10_000;
+    private static final long TIMEOUT_MS = 60 * 1000;
+
+    private Context context;
+    private final List<AppDatabase> databases = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        assumeTrue("Set -Pbenchmark to run allocation benchmarks", Boolean.getBoolean("notionary.benchmark"));
+        assumeTrue("JVM cannot count allocations per thread", AllocationTracker.isSupported());
+        context = ApplicationProvider.getApplicationContext();
+    }
+
+    @After
+    public void tearDown() {
+        for (AppDatabase database : databases) {
+            database.close();
+        }
+    }
+
+    @Test
+    public void syncEndToEnd() throws Exception {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        FileRepository repository = new FileRepository(openDatabase().fileDao(), mainHandler);
+        FakeFileSyncBackend backend = new FakeFileSyncBackend(DOCUMENTS, 0, mainHandler);
+        FileSyncer syncer = new FileSyncer(backend, repository, new File(context.getFilesDir(), "sync-allocation"));
+
+        AllocationTracker tracker = new AllocationTracker("syncPipeline", DOCUMENTS);
+        long baselineHeap = AllocationTracker.usedHeapAfterGc();
+
+        int inserted = tracker.measureAllThreads("FileSyncer.firstSync",
+            () -> sync(syncer).getInserts().size());
+        assertEquals(DOCUMENTS, inserted);
+        // Nothing but the database and the fake's documents should outlive the sync
+        tracker.recordRetained("afterFirstSync", baselineHeap, AllocationTracker.usedHeapAfterGc());
+
+        int unchanged = tracker.measureAllThreads("FileSyncer.repeatSync",
+            () -> sync(syncer).getUnchangedCount());
+        assertEquals(DOCUMENTS, unchanged);
+        tracker.recordRetained("afterRepeatSync", baselineHeap, AllocationTracker.usedHeapAfterGc());
+
+        tracker.publish();
+        tracker.assertWithinBudgets();
+    }
+
+    private static SyncReconciler.SyncPlan sync(FileSyncer syncer) {
+        List<SyncReconciler.SyncPlan> plans = new ArrayList<>(1);
+        List<String> errors = new ArrayList<>(1);
+        syncer.syncUserFiles("benchmark-user", new FileSyncer.Callback() {
+            @Override
+            public void onSuccess(int remoteCount, SyncReconciler.SyncPlan plan) {
+                plans.add(plan);
+            }
+
+            @Override
+            public void onError(String error) {
+                errors.add(error);
+            }
+        });
+        // The main looper is paused under Robolectric, so drain it until the sync reports back
+        long start = System.nanoTime();
+        while (plans.isEmpty() && errors.isEmpty()) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if ((System.nanoTime() - start) / 1_000_000 > TIMEOUT_MS) {
+                throw new AssertionError("Sync timed out");
+            }
+            Thread.yield();
+        }
+        assertNull(errors.isEmpty() ? null : errors.get(0));
+        return plans.get(0);
+    }
+
+    private AppDatabase openDatabase() {
+        AppDatabase database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .allowMainThreadQueries()
+            .build();
+        databases.add(database);
+        return database;
+    }
+}
@@ -0,0 +1,193 @@
+package com.collab.productivity.data.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.database.FileClosureSchema;
+import com.collab.productivity.data.database.FolderStatsSchema;
+import com.collab.productivity.data.repository.FileRepository;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * End-to-end sync throughput: FileSyncer against a fake backend serving N documents,
+ * through FileRepository into an in-memory Room database. Reports wall time, database
+ * transactions, main-thread posts and peak heap (sum of per-pool peaks) for a first sync into an empty
+ * database and for a repeat sync where nothing changed.
+ *
+ * Opt-in: ./gradlew :app:testDebugUnitTest --tests '*SyncBenchmarkTest' -Pbenchmark
+ * Optional -P properties: notionary.benchmark.syncSizes (1000,10000,50000) and
+ * notionary.benchmark.latencyMs (200).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class SyncBenchmarkTest {
+    private static final String RESULTS_FILE = "build/benchmark/sync-benchmark-results.properties";
+    private static final long TIMEOUT_MS = 10 * 60 * 1000;
+
+    private Context context;
+    private final Properties results = new Properties();
+
+    @Before
+    public void setUp() {
+        assumeTrue("Set -Pbenchmark to run sync benchmarks", Boolean.getBoolean("notionary.benchmark"));
+        context = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void syncThroughput() throws IOException {
+        long latencyMs = Long.getLong("notionary.benchmark.latencyMs", 200);
+        System.out.println(String.format(Locale.US, "%-14s %8s %10s %8s %10s %12s",
+            "run", "docs", "wall ms", "txns", "main posts", "peak heap MB"));
+
+        for (int documents : sizes()) {
+            AtomicInteger transactions = new AtomicInteger();
+            AppDatabase database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .setQueryCallback((sql, args) -> {
+                    if (sql.startsWith("END TRANSACTION")) {
+                        transactions.incrementAndGet();
+                    }
+                }, Runnable::run)
+                .addCallback(FolderStatsSchema.CALLBACK)
+                .addCallback(FileClosureSchema.CALLBACK)
+                .build();
+            CountingHandler mainHandler = new CountingHandler();
+            FileRepository repository = new FileRepository(database.fileDao(), mainHandler);
+            FakeFileSyncBackend backend = new FakeFileSyncBackend(documents, latencyMs, mainHandler);
+            File filesDir = new File(context.getFilesDir(), "sync-benchmark-" + documents);
+            FileSyncer syncer = new FileSyncer(backend, repository, filesDir);
+
+            Run first = run(syncer, documents, transactions, mainHandler);
+            report("first." + documents, documents, first);
+            assertEquals(documents, first.plan.getInserts().size());
+
+            Run repeat = run(syncer, documents, transactions, mainHandler);
+            report("repeat." + documents, documents, repeat);
+            assertEquals(documents, repeat.plan.getUnchangedCount());
+
+            database.close();
+        }
+
+        File resultsFile = new File(RESULTS_FILE);
+        resultsFile.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(resultsFile)) {
+            results.store(out, "Sync benchmark, latency " + latencyMs + "ms");
+        }
+    }
+
+    private Run run(FileSyncer syncer, int documents, AtomicInteger transactions, CountingHandler mainHandler) {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        transactions.set(0);
+        mainHandler.posts.set(0);
+
+        Run run = new Run();
+        long start = System.nanoTime();
+        syncer.syncUserFiles("benchmark-user", new FileSyncer.Callback() {
+            @Override
+            public void onSuccess(int remoteCount, SyncReconciler.SyncPlan plan) {
+                run.plan = plan;
+                run.done = true;
+            }
+
+            @Override
+            public void onError(String error) {
+                run.error = error;
+                run.done = true;
+            }
+        });
+        // The main looper is paused under Robolectric, so drain it until the sync reports back
+        while (!run.done) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if ((System.nanoTime() - start) / 1_000_000 > TIMEOUT_MS) {
+                throw new AssertionError("Sync of " + documents + " documents timed out");
+            }
+            Thread.yield();
+        }
+        run.wallMs = (System.nanoTime() - start) / 1e6;
+        assertNull(run.error);
+
+        run.transactions = transactions.get();
+        run.mainPosts = mainHandler.posts.get();
+        for (MemoryPoolMXBean pool : heapPools) {
+            run.peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        return run;
+    }
+
+    private void report(String name, int documents, Run run) {
+        double peakMb = run.peakHeapBytes / (1024.0 * 1024.0);
+        System.out.println(String.format(Locale.US, "%-14s %8d %10.1f %8d %10d %12.1f",
+            name, documents, run.wallMs, run.transactions, run.mainPosts, peakMb));
+        results.setProperty(name + ".wallMs", String.format(Locale.US, "%.1f", run.wallMs));
+        results.setProperty(name + ".transactions", String.valueOf(run.transactions));
+        results.setProperty(name + ".mainPosts", String.valueOf(run.mainPosts));
+        results.setProperty(name + ".peakHeapMb", String.format(Locale.US, "%.1f", peakMb));
+    }
+
+    private static List<Integer> sizes() {
+        List<Integer> sizes = new ArrayList<>();
+        for (String size : System.getProperty("notionary.benchmark.syncSizes", "1000,10000,50000").split(",")) {
+            sizes.add(Integer.parseInt(size.trim()));
+        }
+        return sizes;
+    }
+
+    private static class Run {
+        volatile boolean done;
+        String error;
+        SyncReconciler.SyncPlan plan;
+        double wallMs;
+        int transactions;
+        int mainPosts;
+        long peakHeapBytes;
+    }
+
+    /**
+     * Main-thread handler that counts every message posted to it
+     */
+    private static class CountingHandler extends Handler {
+        final AtomicInteger posts = new AtomicInteger();
+
+        CountingHandler() {
+            super(Looper.getMainLooper());
+        }
+
+        @Override
+        public boolean sendMessageAtTime(Message msg, long uptimeMillis) {
+            posts.incrementAndGet();
+            return super.sendMessageAtTime(msg, uptimeMillis);
+        }
+    }
+}
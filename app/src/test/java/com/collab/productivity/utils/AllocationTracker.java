@@ -0,0 +1,288 @@
+package com.collab.productivity.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+/**
+ * Attributes allocated bytes to named sites using HotSpot's per-thread allocation
+ * counters, measures retained heap after a full GC, and checks both against the
+ * per-item budgets in allocation-budgets.properties.
+ *
+ * A site is whatever code runs inside {@link #measure}. {@link #measureAllThreads}
+ * also counts threads that are alive at the end of the call, such as a repository
+ * executor; threads that start and die within the call are not counted.
+ *
+ * The committed budgets are generous ceilings until they are recorded on the reference
+ * machine with -Pnotionary.benchmark.record, which writes each measured figure plus
+ * {@link #RECORD_HEADROOM_PERCENT} back to the budget file.
+ */
+public class AllocationTracker {
+    private static final String TAG = "AllocationTracker";
+    private static final String BUDGET_RESOURCE = "allocation-budgets.properties";
+    private static final String BUDGET_SOURCE = "src/test/resources/" + BUDGET_RESOURCE;
+    private static final String RESULTS_FILE = "build/benchmark/allocation-results.properties";
+    private static final String REPORT_FILE = "build/benchmark/allocation-report.txt";
+    // Recorded budgets leave this much room over the measured figure for run to run noise
+    static final int RECORD_HEADROOM_PERCENT = 25;
+    private static final int MAX_GC_ROUNDS = 10;
+
+    // com.sun.management.ThreadMXBean is not on the Android compile classpath
+    private static final Method THREAD_ALLOCATED_BYTES = lookupAllocatedBytes();
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final Map<String, Long> sites = new LinkedHashMap<>();
+    private final Map<String, Long> retained = new LinkedHashMap<>();
+    private final Properties budgets = loadBudgets();
+    private final List<String> violations = new ArrayList<>();
+    private final String scenario;
+    private final int items;
+
+    /**
+     * @param scenario prefix of this scenario's budget keys
+     * @param items number of items the scenario handles, for per-item figures
+     */
+    public AllocationTracker(String scenario, int items) {
+        this.scenario = scenario;
+        this.items = items;
+    }
+
+    /**
+     * True if the JVM can count allocated bytes per thread
+     */
+    public static boolean isSupported() {
+        return THREAD_ALLOCATED_BYTES != null;
+    }
+
+    /**
+     * Run a task and charge everything the calling thread allocates to the site
+     */
+    public <T> T measure(String site, Callable<T> task) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long before = allocatedBytes(new long[] { threadId })[0];
+        T result = task.call();
+        long after = allocatedBytes(new long[] { threadId })[0];
+        record(site, after - before);
+        return result;
+    }
+
+    /**
+     * Run a task and charge what every thread alive at the end allocated to the site
+     */
+    public <T> T measureAllThreads(String site, Callable<T> task) throws Exception {
+        Map<Long, Long> before = snapshot();
+        T result = task.call();
+        Map<Long, Long> after = snapshot();
+        long bytes = 0;
+        for (Map.Entry<Long, Long> entry : after.entrySet()) {
+            Long start = before.get(entry.getKey());
+            bytes += entry.getValue() - (start != null ? start : 0);
+        }
+        record(site, bytes);
+        return result;
+    }
+
+    /**
+     * Heap in use after collecting until the figure stops shrinking
+     */
+    public static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_GC_ROUNDS; i++) {
+            System.gc();
+            System.runFinalization();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    /**
+     * Record heap retained by the scenario, as the difference of two {@link #usedHeapAfterGc} readings
+     */
+    public void recordRetained(String name, long baselineHeap, long currentHeap) {
+        long bytes = Math.max(0, currentHeap - baselineHeap);
+        retained.put(name, bytes);
+        check(name + ".retained", bytes);
+    }
+
+    public long getBytes(String site) {
+        Long bytes = sites.get(site);
+        return bytes != null ? bytes : 0;
+    }
+
+    /**
+     * Throws if any site or retained figure went over its per-item budget
+     */
+    public void assertWithinBudgets() {
+        if (!violations.isEmpty()) {
+            throw new AssertionError("Allocation budget exceeded: " + violations + "\n" + getReport());
+        }
+    }
+
+    /**
+     * Sites ranked by allocated bytes, followed by retained heap
+     */
+    public String getReport() {
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(sites.entrySet());
+        Collections.sort(ranked, (a, b) -> Long.compare(b.getValue(), a.getValue()));
+        long total = 0;
+        for (Map.Entry<String, Long> entry : ranked) {
+            total += entry.getValue();
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.US, "Top allocation sites, %s, %d items%n", scenario, items));
+        report.append(String.format(Locale.US, "  %-36s %10s %8s %6s%n", "site", "KB", "B/item", "share"));
+        for (Map.Entry<String, Long> entry : ranked) {
+            report.append(String.format(Locale.US, "  %-36s %10.1f %8d %5.1f%%%n",
+                entry.getKey(), entry.getValue() / 1024.0, entry.getValue() / items,
+                total > 0 ? entry.getValue() * 100.0 / total : 0));
+        }
+        for (Map.Entry<String, Long> entry : retained.entrySet()) {
+            report.append(String.format(Locale.US, "  retained %-27s %10.1f %8d%n",
+                entry.getKey(), entry.getValue() / 1024.0, entry.getValue() / items));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Append the report to build/benchmark/allocation-report.txt, merge the per-item figures
+     * into build/benchmark/allocation-results.properties and, with notionary.benchmark.record,
+     * into the budget file
+     */
+    public void publish() throws IOException {
+        File reportFile = new File(REPORT_FILE);
+        reportFile.getParentFile().mkdirs();
+        try (PrintWriter report = new PrintWriter(new FileOutputStream(reportFile, true))) {
+            report.print(getReport());
+        }
+        Logger.i(TAG, "Allocation report for " + scenario + " written to " + reportFile.getAbsolutePath());
+
+        Properties measured = new Properties();
+        for (Map.Entry<String, Long> entry : sites.entrySet()) {
+            measured.setProperty(scenario + "." + entry.getKey(), String.valueOf(entry.getValue() / items));
+        }
+        for (Map.Entry<String, Long> entry : retained.entrySet()) {
+            measured.setProperty(scenario + "." + entry.getKey() + ".retained", String.valueOf(entry.getValue() / items));
+        }
+        merge(new File(RESULTS_FILE), measured, "Allocated and retained bytes per item");
+
+        if (System.getProperty("notionary.benchmark.record") != null) {
+            Properties recorded = new Properties();
+            for (String key : measured.stringPropertyNames()) {
+                long perItem = Long.parseLong(measured.getProperty(key));
+                recorded.setProperty(key, String.valueOf(perItem + perItem * RECORD_HEADROOM_PERCENT / 100));
+            }
+            merge(new File(BUDGET_SOURCE), recorded,
+                "Allocation budgets in bytes per item, recorded with -Pnotionary.benchmark.record");
+        } else {
+            for (String key : measured.stringPropertyNames()) {
+                if (budgets.getProperty(key) == null) {
+                    Logger.w(TAG, "No allocation budget for " + key + "; it was reported but not checked");
+                }
+            }
+        }
+    }
+
+    private static void merge(File file, Properties values, String comment) throws IOException {
+        Properties merged = new Properties();
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                merged.load(in);
+            }
+        }
+        merged.putAll(values);
+        try (OutputStream out = new FileOutputStream(file)) {
+            merged.store(out, comment);
+        }
+    }
+
+    private void record(String site, long bytes) {
+        Long previous = sites.get(site);
+        sites.put(site, (previous != null ? previous : 0) + bytes);
+        check(site, getBytes(site));
+    }
+
+    private void check(String key, long bytes) {
+        String budget = budgets.getProperty(scenario + "." + key);
+        if (budget == null) {
+            return;
+        }
+        long perItem = bytes / items;
+        long limit = Long.parseLong(budget.trim());
+        if (perItem > limit) {
+            violations.add(String.format(Locale.US, "%s.%s %d B/item > %d", scenario, key, perItem, limit));
+        }
+    }
+
+    private Map<Long, Long> snapshot() {
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = allocatedBytes(ids);
+        Map<Long, Long> snapshot = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            // -1 marks a thread that died between the two calls
+            if (bytes[i] >= 0) {
+                snapshot.put(ids[i], bytes[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    private long[] allocatedBytes(long[] ids) {
+        try {
+            return (long[]) THREAD_ALLOCATED_BYTES.invoke(threads, (Object) ids);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot read thread allocation counters", e);
+        }
+    }
+
+    private static Properties loadBudgets() {
+        Properties budgets = new Properties();
+        try (InputStream in = AllocationTracker.class.getClassLoader().getResourceAsStream(BUDGET_RESOURCE)) {
+            if (in != null) {
+                budgets.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + BUDGET_RESOURCE, e);
+        }
+        return budgets;
+    }
+
+    private static Method lookupAllocatedBytes() {
+        try {
+            Class<?> hotspot = Class.forName("com.sun.management.ThreadMXBean");
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!hotspot.isInstance(bean)) {
+                return null;
+            }
+            Method supported = hotspot.getMethod("isThreadAllocatedMemorySupported");
+            if (!(Boolean) supported.invoke(bean)) {
+                return null;
+            }
+            hotspot.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(bean, true);
+            return hotspot.getMethod("getThreadAllocatedBytes", long[].class);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
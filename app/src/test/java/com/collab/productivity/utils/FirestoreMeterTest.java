@@ -0,0 +1,60 @@
+package com.collab.productivity.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local tests for FirestoreMeter counting and budget enforcement.
+ */
+public class FirestoreMeterTest {
+    private FirestoreMeter meter;
+
+    @Before
+    public void setUp() {
+        meter = new FirestoreMeter();
+    }
+
+    @Test
+    public void countsPerOperationAndScreen() {
+        meter.setCurrentScreen("HomeFragment");
+        FirestoreMeter.Call call = meter.start("saveFileToFirestore");
+        call.read(1);
+        call.write();
+
+        meter.setCurrentScreen("GroupDetailsActivity");
+        meter.start("getGroupFiles").read(25);
+
+        assertEquals(1, meter.getOperationTotals("saveFileToFirestore").reads);
+        assertEquals(1, meter.getOperationTotals("saveFileToFirestore").writes);
+        assertEquals(25, meter.getOperationTotals("getGroupFiles").reads);
+        assertEquals(2, meter.getScreenTotals("HomeFragment").reads + meter.getScreenTotals("HomeFragment").writes);
+        assertEquals(25, meter.getScreenTotals("GroupDetailsActivity").reads);
+    }
+
+    @Test
+    public void emptyQueryIsBilledAsOneRead() {
+        meter.start("joinGroup").read(0);
+        assertEquals(1, meter.getOperationTotals("joinGroup").reads);
+    }
+
+    @Test
+    public void callWithinBudgetPasses() {
+        meter.setBudget("joinGroup", 1, 1, 0);
+        FirestoreMeter.Call call = meter.start("joinGroup");
+        call.read(1);
+        call.write();
+        meter.assertWithinBudgets();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void callOverBudgetFails() {
+        meter.setBudget("saveFileToFirestore", 1, 1, 0);
+        FirestoreMeter.Call call = meter.start("saveFileToFirestore");
+        call.read(1);
+        call.write();
+        call.write();
+        meter.assertWithinBudgets();
+    }
+}
@@ -0,0 +1,185 @@
+package com.collab.productivity.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.json.JSONObject;
+
+/**
+ * HttpFileUploader - Signed multipart upload to a Cloudinary-compatible upload
+ * endpoint over HttpURLConnection. The endpoint prefix, number of concurrent uploads
+ * and streaming chunk size are configurable, so it can be pointed at a local stand-in
+ * to measure the upload pipeline. Test only: signing needs an API secret, which must
+ * not ship in the app, so production uploads stay on MediaManagerUploader.
+ */
+public class HttpFileUploader implements FileUploader {
+    private static final String TAG = "HttpFileUploader";
+    private static final String BOUNDARY = "NotionaryUploadBoundary";
+    private static final String LINE_END = "\r\n";
+
+    private final Context context;
+    private final String uploadUrl;
+    private final String apiKey;
+    private final String apiSecret;
+    private final int chunkSize;
+    private final ExecutorService executor;
+    private final Handler mainHandler;
+
+    /**
+     * @param uploadUrl full upload endpoint, e.g. {upload_prefix}/v1_1/{cloud_name}/auto/upload
+     * @param concurrency number of uploads in flight at once
+     * @param chunkSize bytes per streamed chunk and per read from the source
+     */
+    public HttpFileUploader(Context context, String uploadUrl, String apiKey, String apiSecret,
+                            int concurrency, int chunkSize) {
+        this.context = context.getApplicationContext();
+        this.uploadUrl = uploadUrl;
+        this.apiKey = apiKey;
+        this.apiSecret = apiSecret;
+        this.chunkSize = chunkSize;
+        this.executor = Executors.newFixedThreadPool(concurrency);
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    @Override
+    public void upload(Uri uri, String folder, CloudinaryManager.CloudinaryUploadCallback callback) {
+        executor.execute(() -> {
+            try {
+                JSONObject result = post(uri, folder, callback);
+                String secureUrl = result.optString("secure_url", null);
+                String publicId = result.optString("public_id", null);
+                mainHandler.post(() -> callback.onSuccess(secureUrl, publicId));
+            } catch (Exception e) {
+                Logger.e(TAG, "Upload failed: " + uri, e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private JSONObject post(Uri uri, String folder, CloudinaryManager.CloudinaryUploadCallback callback) throws Exception {
+        Map<String, String> params = new TreeMap<>();
+        params.put("folder", folder);
+        params.put("timestamp", String.valueOf(System.currentTimeMillis() / 1000));
+        String signature = sign(params);
+        params.put("api_key", apiKey);
+        params.put("signature", signature);
+
+        long totalBytes = sourceLength(uri);
+        HttpURLConnection connection = (HttpURLConnection) new URL(uploadUrl).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setChunkedStreamingMode(chunkSize);
+            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+
+            try (OutputStream out = connection.getOutputStream();
+                 InputStream in = openSource(uri)) {
+                for (Map.Entry<String, String> param : params.entrySet()) {
+                    writeAscii(out, "--" + BOUNDARY + LINE_END
+                        + "Content-Disposition: form-data; name=\"" + param.getKey() + "\"" + LINE_END + LINE_END
+                        + param.getValue() + LINE_END);
+                }
+                writeAscii(out, "--" + BOUNDARY + LINE_END
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"" + uri.getLastPathSegment() + "\"" + LINE_END
+                    + "Content-Type: application/octet-stream" + LINE_END + LINE_END);
+
+                mainHandler.post(() -> callback.onProgress(0));
+                byte[] buffer = new byte[chunkSize];
+                long sent = 0;
+                int lastProgress = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    sent += read;
+                    int progress = totalBytes > 0 ? (int) (sent * 100 / totalBytes) : 0;
+                    // Report whole percent steps only, to keep main-thread posts bounded
+                    if (progress > lastProgress) {
+                        lastProgress = progress;
+                        final int reported = progress;
+                        mainHandler.post(() -> callback.onProgress(reported));
+                    }
+                }
+                writeAscii(out, LINE_END + "--" + BOUNDARY + "--" + LINE_END);
+            }
+
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            String response = body != null ? readFully(body) : "";
+            if (status >= 400) {
+                throw new IOException("Upload failed with HTTP " + status + ": " + response);
+            }
+            return new JSONObject(response);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private InputStream openSource(Uri uri) throws IOException {
+        if ("file".equals(uri.getScheme())) {
+            return new FileInputStream(uri.getPath());
+        }
+        InputStream in = context.getContentResolver().openInputStream(uri);
+        if (in == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        return in;
+    }
+
+    private static long sourceLength(Uri uri) {
+        return "file".equals(uri.getScheme()) ? new File(uri.getPath()).length() : -1;
+    }
+
+    /**
+     * Cloudinary signature: SHA-1 of the sorted params joined as a query string plus the secret
+     */
+    private String sign(Map<String, String> sortedParams) throws NoSuchAlgorithmException {
+        StringBuilder toSign = new StringBuilder();
+        for (Map.Entry<String, String> param : sortedParams.entrySet()) {
+            if (toSign.length() > 0) toSign.append('&');
+            toSign.append(param.getKey()).append('=').append(param.getValue());
+        }
+        toSign.append(apiSecret);
+        byte[] digest = MessageDigest.getInstance("SHA-1").digest(toSign.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void writeAscii(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
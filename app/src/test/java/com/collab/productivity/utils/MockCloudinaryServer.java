@@ -0,0 +1,107 @@
+package com.collab.productivity.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Cloudinary upload API. Every request waits for the configured
+ * latency, then its body is read through a link of the configured bandwidth that is
+ * shared by all concurrent uploads, like a phone's uplink.
+ */
+class MockCloudinaryServer {
+    private static final int READ_CHUNK = 16 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long latencyMs;
+    private final long bytesPerSecond;
+    private final AtomicInteger uploads = new AtomicInteger();
+    private long linkFreeAtNanos;
+
+    MockCloudinaryServer(long latencyMs, long bytesPerSecond) throws IOException {
+        this.latencyMs = latencyMs;
+        this.bytesPerSecond = bytesPerSecond;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1_1/", this::handleUpload);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Value for the uploader's upload_prefix
+     */
+    String uploadPrefix() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleUpload(HttpExchange exchange) throws IOException {
+        try {
+            sleepMillis(latencyMs);
+            long received = 0;
+            byte[] buffer = new byte[READ_CHUNK];
+            try (InputStream body = exchange.getRequestBody()) {
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    received += read;
+                    throttle(read);
+                }
+            }
+
+            int id = uploads.incrementAndGet();
+            String response = "{\"public_id\":\"notionary/mock/" + id + "\","
+                + "\"secure_url\":\"https://res.cloudinary.com/mock/raw/upload/" + id + "\","
+                + "\"bytes\":" + received + "}";
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Reserve transfer time for the bytes on the shared link and wait for it
+     */
+    private void throttle(int bytes) {
+        if (bytesPerSecond <= 0) return;
+        long waitUntil;
+        synchronized (this) {
+            long now = System.nanoTime();
+            linkFreeAtNanos = Math.max(linkFreeAtNanos, now) + bytes * 1_000_000_000L / bytesPerSecond;
+            waitUntil = linkFreeAtNanos;
+        }
+        long remaining = waitUntil - System.nanoTime();
+        if (remaining > 0) {
+            sleepMillis(remaining / 1_000_000, (int) (remaining % 1_000_000));
+        }
+    }
+
+    private static void sleepMillis(long millis) {
+        sleepMillis(millis, 0);
+    }
+
+    private static void sleepMillis(long millis, int nanos) {
+        try {
+            Thread.sleep(millis, nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.collab.productivity.utils;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.collab.productivity.data.database.AppDatabase;
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.repository.FileRepository;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Drives batches of files through the upload chain used by HomeFragment and
+ * FileViewModel.uploadFile: copy into app storage, CloudinaryManager.uploadFile over
+ * HTTP to a local stand-in, the Firestore metadata write, then repository.insert and
+ * repository.update. Records per-stage latency and end-to-end throughput for each
+ * combination of upload concurrency and chunk size.
+ *
+ * The Firestore write is simulated with a fixed latency since the SDK cannot run on
+ * the JVM; the other stages run the app's code.
+ *
+ * Opt-in: ./gradlew :app:testDebugUnitTest --tests '*UploadPipelineBenchmarkTest' -Pbenchmark
+ * Optional -P properties: notionary.benchmark.uploadSizesKb (64,512,4096,16384),
+ * notionary.benchmark.uploadBatch (8), notionary.benchmark.uploadLatencyMs (150),
+ * notionary.benchmark.uploadBandwidthKbps (2048, in KiB/s, 0 for unlimited),
+ * notionary.benchmark.firestoreLatencyMs (80), notionary.benchmark.concurrency (1,2,4)
+ * and notionary.benchmark.chunkSizes (4096,65536).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class)
+public class UploadPipelineBenchmarkTest {
+    private static final String RESULTS_FILE = "build/benchmark/upload-benchmark-results.properties";
+    private static final long TIMEOUT_MS = 10 * 60 * 1000;
+    // The mock server accepts any signature, so no real account is needed
+    private static final String MOCK_CLOUD_NAME = "benchmark";
+    private static final String MOCK_API_KEY = "benchmark-key";
+    private static final String MOCK_API_SECRET = "benchmark-secret";
+
+    private enum Stage { COPY, UPLOAD, FIRESTORE, INSERT, UPDATE, END_TO_END }
+
+    private Context context;
+    private MockCloudinaryServer server;
+    private AppDatabase database;
+    private FileRepository repository;
+    private Handler mainHandler;
+    private File sourceDir;
+    private final Properties results = new Properties();
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue("Set -Pbenchmark to run upload benchmarks", Boolean.getBoolean("notionary.benchmark"));
+        context = ApplicationProvider.getApplicationContext();
+        server = new MockCloudinaryServer(
+            Long.getLong("notionary.benchmark.uploadLatencyMs", 150),
+            Long.getLong("notionary.benchmark.uploadBandwidthKbps", 2048) * 1024);
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        mainHandler = new Handler(Looper.getMainLooper());
+        repository = new FileRepository(database.fileDao(), mainHandler);
+        sourceDir = new File(context.getCacheDir(), "upload-benchmark-source");
+        sourceDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) server.stop();
+        if (database != null) database.close();
+        CloudinaryManager.getInstance().setUploader(null);
+    }
+
+    @Test
+    public void uploadPipelineThroughput() throws IOException {
+        List<File> sources = createSources();
+        long totalBytes = 0;
+        for (File source : sources) {
+            totalBytes += source.length();
+        }
+
+        System.out.println(String.format(Locale.US, "%-16s %9s %9s %9s %9s %9s %9s %8s %8s",
+            "run", "copy", "upload", "firestore", "insert", "update", "e2e p95", "MB/s", "files/s"));
+        for (int concurrency : intList("notionary.benchmark.concurrency", "1,2,4")) {
+            for (int chunkSize : intList("notionary.benchmark.chunkSizes", "4096,65536")) {
+                runBatch(sources, totalBytes, concurrency, chunkSize);
+            }
+        }
+
+        File resultsFile = new File(RESULTS_FILE);
+        resultsFile.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(resultsFile)) {
+            results.store(out, "Upload pipeline benchmark, stage latencies in ms (mean and p95)");
+        }
+    }
+
+    private void runBatch(List<File> sources, long totalBytes, int concurrency, int chunkSize) throws IOException {
+        HttpFileUploader uploader = new HttpFileUploader(context,
+            server.uploadPrefix() + "/v1_1/" + MOCK_CLOUD_NAME + "/auto/upload",
+            MOCK_API_KEY, MOCK_API_SECRET, concurrency, chunkSize);
+        CloudinaryManager.getInstance().setUploader(uploader);
+        long firestoreLatencyMs = Long.getLong("notionary.benchmark.firestoreLatencyMs", 80);
+        File targetDir = new File(context.getFilesDir(), "upload-benchmark-" + concurrency + "-" + chunkSize);
+        targetDir.mkdirs();
+
+        Map<Stage, List<Double>> timings = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            timings.put(stage, new ArrayList<>());
+        }
+        int[] completed = new int[1];
+        String[] error = new String[1];
+
+        long batchStart = System.nanoTime();
+        for (File source : sources) {
+            // handleFileSelection copies on the main thread before the upload starts
+            long start = System.nanoTime();
+            File destination = new File(targetDir, source.getName());
+            FileCopier.copy(new FileInputStream(source), destination, chunkSize);
+            record(timings, Stage.COPY, start);
+
+            FileItem file = new FileItem(source.getName(), destination.getAbsolutePath(), "", null, false);
+            file.setSize(destination.length());
+            file.setParentPath("/");
+            long uploadStart = System.nanoTime();
+            CloudinaryManager.getInstance().uploadFile(Uri.fromFile(destination), "benchmark-user", "/",
+                new CloudinaryManager.CloudinaryUploadCallback() {
+                    @Override
+                    public void onProgress(int progress) {
+                    }
+
+                    @Override
+                    public void onSuccess(String secureUrl, String publicId) {
+                        record(timings, Stage.UPLOAD, uploadStart);
+                        file.setCloudinaryUrl(secureUrl);
+                        file.setCloudinaryPublicId(publicId);
+                        saveMetadata(file, firestoreLatencyMs, timings, () -> {
+                            long insertStart = System.nanoTime();
+                            repository.insert(file, new FileRepository.OnOperationCompleteListener() {
+                                @Override
+                                public void onSuccess(long id) {
+                                    record(timings, Stage.INSERT, insertStart);
+                                    file.setId(id);
+                                    long updateStart = System.nanoTime();
+                                    repository.update(file, new FileRepository.OnOperationCompleteListener() {
+                                        @Override
+                                        public void onSuccess(long updatedId) {
+                                            record(timings, Stage.UPDATE, updateStart);
+                                            record(timings, Stage.END_TO_END, start);
+                                            completed[0]++;
+                                        }
+
+                                        @Override
+                                        public void onError(Exception e) {
+                                            error[0] = e.getMessage();
+                                        }
+                                    });
+                                }
+
+                                @Override
+                                public void onError(Exception e) {
+                                    error[0] = e.getMessage();
+                                }
+                            });
+                        });
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        error[0] = message;
+                    }
+                });
+        }
+
+        // The main looper is paused under Robolectric, so drain it until every file is stored
+        while (completed[0] < sources.size() && error[0] == null) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if ((System.nanoTime() - batchStart) / 1_000_000 > TIMEOUT_MS) {
+                throw new AssertionError("Upload batch timed out after " + completed[0] + " files");
+            }
+            Thread.yield();
+        }
+        double batchSeconds = (System.nanoTime() - batchStart) / 1e9;
+        uploader.shutdown();
+        assertNull(error[0]);
+
+        String run = "c" + concurrency + ".chunk" + chunkSize;
+        double megabytesPerSecond = totalBytes / (1024.0 * 1024.0) / batchSeconds;
+        double filesPerSecond = sources.size() / batchSeconds;
+        System.out.println(String.format(Locale.US, "%-16s %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %8.2f %8.2f",
+            run, mean(timings.get(Stage.COPY)), mean(timings.get(Stage.UPLOAD)),
+            mean(timings.get(Stage.FIRESTORE)), mean(timings.get(Stage.INSERT)),
+            mean(timings.get(Stage.UPDATE)), p95(timings.get(Stage.END_TO_END)),
+            megabytesPerSecond, filesPerSecond));
+        for (Stage stage : Stage.values()) {
+            String key = run + "." + stage.name().toLowerCase(Locale.US);
+            results.setProperty(key + ".mean", String.format(Locale.US, "%.1f", mean(timings.get(stage))));
+            results.setProperty(key + ".p95", String.format(Locale.US, "%.1f", p95(timings.get(stage))));
+        }
+        results.setProperty(run + ".mbPerSecond", String.format(Locale.US, "%.2f", megabytesPerSecond));
+        results.setProperty(run + ".filesPerSecond", String.format(Locale.US, "%.2f", filesPerSecond));
+    }
+
+    /**
+     * Stand-in for FirebaseManager.saveFileToFirestore: answers on the main thread after
+     * the configured latency, as the Firestore SDK does
+     */
+    private void saveMetadata(FileItem file, long latencyMs, Map<Stage, List<Double>> timings, Runnable onSaved) {
+        long start = System.nanoTime();
+        new Thread(() -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mainHandler.post(() -> {
+                file.setFirestoreId("mock-" + file.getCloudinaryPublicId());
+                record(timings, Stage.FIRESTORE, start);
+                onSaved.run();
+            });
+        }, "FakeFirestoreWrite").start();
+    }
+
+    private static void record(Map<Stage, List<Double>> timings, Stage stage, long startNanos) {
+        timings.get(stage).add((System.nanoTime() - startNanos) / 1e6);
+    }
+
+    private List<File> createSources() throws IOException {
+        List<Integer> sizesKb = intList("notionary.benchmark.uploadSizesKb", "64,512,4096,16384");
+        int batch = Integer.getInteger("notionary.benchmark.uploadBatch", 8);
+        Random random = new Random(42);
+        byte[] block = new byte[64 * 1024];
+        List<File> sources = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            int sizeKb = sizesKb.get(i % sizesKb.size());
+            File source = new File(sourceDir, "upload_" + i + "_" + sizeKb + "kb.bin");
+            try (OutputStream out = new FileOutputStream(source)) {
+                long remaining = sizeKb * 1024L;
+                while (remaining > 0) {
+                    random.nextBytes(block);
+                    int length = (int) Math.min(block.length, remaining);
+                    out.write(block, 0, length);
+                    remaining -= length;
+                }
+            }
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    private static List<Integer> intList(String property, String defaults) {
+        List<Integer> values = new ArrayList<>();
+        for (String value : System.getProperty(property, defaults).split(",")) {
+            values.add(Integer.parseInt(value.trim()));
+        }
+        return values;
+    }
+
+    private static double mean(List<Double> values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.isEmpty() ? 0 : sum / values.size();
+    }
+
+    private static double p95(List<Double> values) {
+        if (values.isEmpty()) return 0;
+        Double[] sorted = values.toArray(new Double[0]);
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.95) - 1)];
+    }
+}
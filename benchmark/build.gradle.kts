@@ -0,0 +1,101 @@
+import groovy.json.JsonSlurper
+import java.util.Properties
+
+plugins {
+    id("com.android.test")
+    id("androidx.baselineprofile")
+}
+
+android {
+    namespace = "com.collab.productivity.benchmark"
+    compileSdk = libs.versions.compileSdk.get().toInt()
+
+    defaultConfig {
+        // Macrobenchmark and baseline profile generation need API 28+
+        minSdk = 28
+        targetSdk = libs.versions.targetSdk.get().toInt()
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        // A signed-in test account lets the journeys reach HomeFragment:
+        // -Pandroid.testInstrumentationRunnerArguments.testEmail=... and testPassword=...
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_1_8
+        targetCompatibility = JavaVersion.VERSION_1_8
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+baselineProfile {
+    // Run on a connected device; set useConnectedDevices = false and add a managed device for CI
+    useConnectedDevices = true
+}
+
+dependencies {
+    implementation("androidx.test.ext:junit:1.1.5")
+    implementation("androidx.test.uiautomator:uiautomator:2.2.0")
+    implementation("androidx.benchmark:benchmark-macro-junit4:1.2.2")
+}
+
+// Compares startup medians from the last connected run against startup-baseline.properties,
+// or against the ceiling for their startup mode when no median is recorded:
+// ./gradlew :benchmark:connectedBenchmarkReleaseAndroidTest :benchmark:checkStartupRegression
+tasks.register("checkStartupRegression") {
+    group = "verification"
+    description = "Fails when a startup median regresses beyond the threshold"
+    doLast {
+        val threshold = (project.findProperty("startupRegressionThreshold") as String?)?.toDouble() ?: 1.1
+        val baselineFile = file("startup-baseline.properties")
+        val baseline = Properties()
+        if (baselineFile.exists()) baselineFile.inputStream().use { baseline.load(it) }
+
+        val results = fileTree(layout.buildDirectory.dir("outputs/connected_android_test_additional_output")) {
+            include("**/*benchmarkData.json")
+        }.files
+        if (results.isEmpty()) throw GradleException("No benchmark results found, run the benchmarks first")
+
+        val measured = sortedMapOf<String, Double>()
+        results.forEach { resultFile ->
+            @Suppress("UNCHECKED_CAST")
+            val json = JsonSlurper().parse(resultFile) as Map<String, Any>
+            @Suppress("UNCHECKED_CAST")
+            (json["benchmarks"] as List<Map<String, Any>>).forEach { benchmark ->
+                @Suppress("UNCHECKED_CAST")
+                val metrics = benchmark["metrics"] as Map<String, Map<String, Any>>
+                val startup = metrics["timeToInitialDisplayMs"] ?: return@forEach
+                val key = "${(benchmark["className"] as String).substringAfterLast('.')}.${benchmark["name"]}"
+                measured[key] = (startup["median"] as Number).toDouble()
+            }
+        }
+
+        val regressions = mutableListOf<String>()
+        measured.forEach { (key, median) ->
+            val expected = baseline.getProperty(key)?.toDoubleOrNull()
+            // Test names start with their startup mode: coldNoCompilation -> ceiling.cold
+            val ceiling = baseline.getProperty("ceiling." + key.substringAfter('.').takeWhile { it.isLowerCase() })
+                ?.toDoubleOrNull()
+            val status = when {
+                expected != null && median > expected * threshold -> "REGRESSION (baseline %.1f ms)".format(expected).also {
+                    regressions += "$key: %.1f ms vs baseline %.1f ms".format(median, expected)
+                }
+                expected != null -> "ok (baseline %.1f ms)".format(expected)
+                ceiling == null -> "no baseline"
+                median > ceiling -> "OVER CEILING (%.0f ms)".format(ceiling).also {
+                    regressions += "$key: %.1f ms vs ceiling %.0f ms".format(median, ceiling)
+                }
+                else -> "ok (ceiling %.0f ms)".format(ceiling)
+            }
+            logger.lifecycle("%-60s %8.1f ms  %s".format(key, median, status))
+        }
+        if (project.hasProperty("recordStartupBaseline")) {
+            measured.forEach { (key, median) -> baseline.setProperty(key, "%.1f".format(median)) }
+            baselineFile.outputStream().use { baseline.store(it, "Startup timeToInitialDisplayMs medians") }
+            logger.lifecycle("Recorded ${measured.size} startup baselines to ${baselineFile.name}")
+        } else if (regressions.isNotEmpty()) {
+            throw GradleException("Startup regressions:\n" + regressions.joinToString("\n"))
+        }
+    }
+}
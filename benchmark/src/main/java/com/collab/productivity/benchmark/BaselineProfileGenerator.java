@@ -0,0 +1,42 @@
+package com.collab.productivity.benchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Generates the baseline profile for startup and the home list journeys.
+ *
+ * Run: ./gradlew :app:generateBaselineProfile on a device or emulator
+ * The profile is written to app/src/release/generated/baselineProfiles and is checked in.
+ * There is no hand-written profile to fall back on: until one is generated, release
+ * builds ship without a baseline profile.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(
+            Journeys.PACKAGE_NAME,
+            15,
+            3,
+            null,
+            true,
+            false,
+            className -> true,
+            scope -> {
+                scope.pressHome();
+                Journeys.ensureSignedIn(scope);
+                Journeys.waitForFileList(scope);
+                Journeys.scrollFileList(scope);
+                return Unit.INSTANCE;
+            });
+    }
+}
@@ -0,0 +1,77 @@
+package com.collab.productivity.benchmark;
+
+import android.os.Bundle;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+/**
+ * Journeys - Critical user journeys shared by the benchmarks and the baseline profile
+ * generator: launch to the home file list, and scroll it
+ */
+final class Journeys {
+    static final String PACKAGE_NAME = "com.collab.productivity";
+    private static final long TIMEOUT_MS = 10_000;
+
+    private Journeys() {
+    }
+
+    /**
+     * Launch and sign in with the instrumentation test account if the login screen shows.
+     * Firebase keeps the session, so later launches go straight to MainActivity.
+     */
+    static void ensureSignedIn(MacrobenchmarkScope scope) {
+        scope.startActivityAndWait();
+        UiDevice device = scope.getDevice();
+        UiObject2 email = device.wait(Until.findObject(By.res(PACKAGE_NAME, "email_input")), 2_000);
+        if (email == null) {
+            return;
+        }
+
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        String testEmail = arguments.getString("testEmail");
+        String testPassword = arguments.getString("testPassword");
+        if (testEmail == null || testPassword == null) {
+            throw new IllegalStateException("Signed out: pass testEmail and testPassword instrumentation arguments");
+        }
+        email.setText(testEmail);
+        device.findObject(By.res(PACKAGE_NAME, "password_input")).setText(testPassword);
+        device.findObject(By.res(PACKAGE_NAME, "login_button")).click();
+        waitForFileList(scope);
+    }
+
+    /**
+     * Wait until HomeFragment has laid out the file list
+     */
+    static void waitForFileList(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        if (!device.wait(Until.hasObject(By.res(PACKAGE_NAME, "recycler_view_files")), TIMEOUT_MS)) {
+            throw new IllegalStateException("File list did not appear");
+        }
+    }
+
+    /**
+     * Fling the home screen down and back up; the lists scroll inside its NestedScrollView
+     */
+    static void scrollFileList(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 scroll = device.findObject(By.res(PACKAGE_NAME, "home_scroll"));
+        if (scroll == null) {
+            throw new IllegalStateException("Home scroll view not found");
+        }
+        // Keep gestures clear of the system navigation areas
+        scroll.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 3; i++) {
+            scroll.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+        for (int i = 0; i < 3; i++) {
+            scroll.fling(Direction.UP);
+            device.waitForIdle();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.collab.productivity.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.Collections;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Frame timing while scrolling the home notes and file lists
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scrollNoCompilation() {
+        scroll(new CompilationMode.None());
+    }
+
+    @Test
+    public void scrollBaselineProfile() {
+        scroll(new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable));
+    }
+
+    private void scroll(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+            Journeys.PACKAGE_NAME,
+            Collections.singletonList(new FrameTimingMetric()),
+            compilationMode,
+            StartupMode.WARM,
+            ITERATIONS,
+            scope -> {
+                Journeys.ensureSignedIn(scope);
+                Journeys.waitForFileList(scope);
+                return Unit.INSTANCE;
+            },
+            scope -> {
+                Journeys.scrollFileList(scope);
+                return Unit.INSTANCE;
+            });
+    }
+}
@@ -0,0 +1,78 @@
+package com.collab.productivity.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.Collections;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Cold, warm and hot startup to the first frame of the home file list, without
+ * ahead-of-time compilation and with the baseline profile, so the profile's gain
+ * is visible in the same run. Until a profile is generated with
+ * BaselineProfileGenerator, the profile runs measure a partial compilation without one.
+ *
+ * Run: ./gradlew :benchmark:connectedBenchmarkReleaseAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldNoCompilation() {
+        startup(StartupMode.COLD, new CompilationMode.None());
+    }
+
+    @Test
+    public void coldBaselineProfile() {
+        startup(StartupMode.COLD, new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable));
+    }
+
+    @Test
+    public void warmNoCompilation() {
+        startup(StartupMode.WARM, new CompilationMode.None());
+    }
+
+    @Test
+    public void warmBaselineProfile() {
+        startup(StartupMode.WARM, new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable));
+    }
+
+    @Test
+    public void hotNoCompilation() {
+        startup(StartupMode.HOT, new CompilationMode.None());
+    }
+
+    @Test
+    public void hotBaselineProfile() {
+        startup(StartupMode.HOT, new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable));
+    }
+
+    private void startup(StartupMode startupMode, CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+            Journeys.PACKAGE_NAME,
+            Collections.singletonList(new StartupTimingMetric()),
+            compilationMode,
+            startupMode,
+            ITERATIONS,
+            scope -> {
+                Journeys.ensureSignedIn(scope);
+                scope.pressHome();
+                return Unit.INSTANCE;
+            },
+            scope -> {
+                scope.startActivityAndWait();
+                Journeys.waitForFileList(scope);
+                return Unit.INSTANCE;
+            });
+    }
+}
@@ -14,6 +14,7 @@ buildscript {
 
 plugins {
     id("com.google.gms.google-services") version "4.4.4" apply false
+    id("androidx.baselineprofile") version "1.2.2" apply false
 }
 
 tasks.register("clean", Delete::class) {
@@ -0,0 +1,36 @@
+plugins {
+    id("java-library")
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    // Room reads FileItem's constructor parameter names from the compiled class
+    options.compilerArgs.add("-parameters")
+    // Sources contain non-ASCII text, so don't depend on the platform default charset
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    // Room annotations only; the runtime stays in :app
+    api("androidx.room:room-common:2.6.0")
+
+    testImplementation("junit:junit:4.13.2")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    benchmarkMode.set(listOf("thrpt"))
+    timeUnit.set("s")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // Allocation rate per operation (gc.alloc.rate.norm) alongside ops/s
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
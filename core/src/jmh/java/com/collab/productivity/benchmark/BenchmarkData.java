@@ -0,0 +1,70 @@
+package com.collab.productivity.benchmark;
+
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.sync.SyncReconciler;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic Firestore-shaped data sets for the benchmarks: a folder tree with
+ * a fan-out of ten, where roughly one item in ten is a folder
+ */
+final class BenchmarkData {
+    static final int FAN_OUT = 10;
+
+    private BenchmarkData() {
+    }
+
+    static List<Map<String, Object>> firestoreDocuments(int count) {
+        Random random = new Random(42);
+        List<Map<String, Object>> documents = new ArrayList<>(count);
+        List<String> folders = new ArrayList<>();
+        folders.add("/");
+        long baseTime = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            String parentPath = folders.get(Math.min(folders.size() - 1, i / FAN_OUT));
+            boolean isFolder = i % FAN_OUT == 0;
+            String name = (isFolder ? "folder_" : "file_") + i + (isFolder ? "" : ".pdf");
+            String path = parentPath.equals("/") ? "/" + name : parentPath + "/" + name;
+            if (isFolder) {
+                folders.add(path);
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("firestoreId", "doc" + i);
+            data.put("name", name);
+            data.put("path", path);
+            data.put("parentPath", parentPath);
+            data.put("description", "Item " + i);
+            data.put("isFolder", isFolder);
+            data.put("userId", "user");
+            data.put("mimeType", isFolder ? null : "application/pdf");
+            data.put("size", isFolder ? 0L : (long) random.nextInt(50 * 1024 * 1024));
+            data.put("cloudinaryUrl", isFolder ? null : "https://res.cloudinary.com/demo/raw/upload/" + i);
+            data.put("cloudinaryPublicId", isFolder ? null : "notionary/user/" + i);
+            data.put("createdAt", new Date(baseTime + i * 1000L));
+            data.put("modifiedAt", new Date(baseTime + i * 2000L));
+            documents.add(data);
+        }
+        return documents;
+    }
+
+    /**
+     * Local rows for the given items: every other item already exists, and half of
+     * those are unchanged
+     */
+    static List<SyncReconciler.LocalRow> localRows(List<FileItem> items) {
+        List<SyncReconciler.LocalRow> rows = new ArrayList<>(items.size() / 2);
+        for (int i = 0; i < items.size(); i += 2) {
+            FileItem item = items.get(i);
+            Date modifiedAt = i % 4 == 0 ? item.getModifiedAt() : new Date(0);
+            rows.add(new SyncReconciler.LocalRow(i + 1, item.getFirestoreId(), null, item.getPath(),
+                item.getParentPath(), item.isFolder(), modifiedAt, null));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,61 @@
+package com.collab.productivity.benchmark;
+
+import com.collab.productivity.data.model.ChunkedText;
+import com.collab.productivity.data.model.NoteChunk;
+import java.nio.charset.StandardCharsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Appending a dictated sentence to a large note and preparing the save, as one string
+ * (the old editor path: rebuild the text, then encode all of it for the content
+ * column) against chunked text (edit one chunk, then encode the chunks that changed)
+ */
+@State(Scope.Benchmark)
+public class ChunkedTextBenchmark {
+    private static final String SENTENCE = " and this is what was said into the microphone.";
+
+    @Param({"100000", "1000000", "4000000"})
+    public int size;
+
+    private String initial;
+    private String content;
+    private ChunkedText chunked;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder text = new StringBuilder(size);
+        while (text.length() < size) {
+            text.append("Meeting notes, item ").append(text.length()).append(": nothing decided yet.\n");
+        }
+        initial = text.substring(0, size);
+    }
+
+    // Both variants start each iteration from the same text, so the note doesn't keep growing
+    @Setup(Level.Iteration)
+    public void reset() {
+        content = initial;
+        chunked = ChunkedText.of(initial);
+        chunked.takeChanges();
+    }
+
+    @Benchmark
+    public int appendAndSaveString() {
+        content = content.substring(0, size) + SENTENCE;
+        return content.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public int appendAndSaveChunked() {
+        chunked.replace(size, chunked.length(), SENTENCE);
+        int bytes = 0;
+        for (NoteChunk chunk : chunked.takeChanges().written) {
+            bytes += chunk.text.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return bytes;
+    }
+}
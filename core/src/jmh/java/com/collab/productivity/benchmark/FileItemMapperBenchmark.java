@@ -0,0 +1,36 @@
+package com.collab.productivity.benchmark;
+
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.sync.FileItemMapper;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mapping a whole Firestore snapshot into FileItems
+ */
+@State(Scope.Benchmark)
+public class FileItemMapperBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<Map<String, Object>> documents;
+
+    @Setup
+    public void setUp() {
+        documents = BenchmarkData.firestoreDocuments(size);
+    }
+
+    @Benchmark
+    public void fromMap(Blackhole blackhole) {
+        for (Map<String, Object> data : documents) {
+            FileItem item = FileItemMapper.fromMap(data, FileItemMapper.PLAIN_DATES);
+            blackhole.consume(item);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.collab.productivity.benchmark;
+
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.model.FileTreeIndex;
+import com.collab.productivity.data.model.FileTreeNode;
+import com.collab.productivity.data.sync.FileItemMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Building a FileTreeNode tree from flat items, then flattening and resolving full paths,
+ * and the same through a seeded FileTreeIndex
+ */
+@State(Scope.Benchmark)
+public class FileTreeNodeBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<FileItem> items;
+    private FileTreeNode root;
+    private List<FileTreeNode> leaves;
+    private FileTreeIndex index;
+
+    @Setup
+    public void setUp() {
+        items = new ArrayList<>(size);
+        for (Map<String, Object> data : BenchmarkData.firestoreDocuments(size)) {
+            items.add(FileItemMapper.fromMap(data, FileItemMapper.PLAIN_DATES));
+        }
+        leaves = new ArrayList<>();
+        root = buildTree(items, leaves);
+
+        // The index links rows by id, as Room loads them
+        Map<String, Long> folderIds = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            FileItem item = items.get(i);
+            item.setId(i + 1);
+            item.setParentFolderId(folderIds.get(item.getParentPath()));
+            if (item.isFolder()) {
+                folderIds.put(item.getPath(), item.getId());
+            }
+        }
+        index = new FileTreeIndex();
+        index.seed(items);
+    }
+
+    @Benchmark
+    public FileTreeNode buildTree() {
+        return buildTree(items, null);
+    }
+
+    @Benchmark
+    public void flattenAll(Blackhole blackhole) {
+        flatten(root, blackhole);
+    }
+
+    @Benchmark
+    public void fullPaths(Blackhole blackhole) {
+        for (FileTreeNode leaf : leaves) {
+            blackhole.consume(leaf.getFullPath());
+        }
+    }
+
+    @Benchmark
+    public FileTreeIndex seedIndex() {
+        FileTreeIndex fresh = new FileTreeIndex();
+        fresh.seed(items);
+        return fresh;
+    }
+
+    @Benchmark
+    public void indexFullPaths(Blackhole blackhole) {
+        for (FileTreeNode leaf : leaves) {
+            blackhole.consume(index.getFullPath(leaf.getItem().getId()));
+        }
+    }
+
+    @Benchmark
+    public void indexPathLookups(Blackhole blackhole) {
+        for (FileTreeNode leaf : leaves) {
+            blackhole.consume(index.findByPath(leaf.getItem().getPath()));
+        }
+    }
+
+    private static void flatten(FileTreeNode node, Blackhole blackhole) {
+        blackhole.consume(node.getFlattenedList());
+        for (FileTreeNode child : node.getChildren()) {
+            if (child.getItem().isFolder()) {
+                flatten(child, blackhole);
+            }
+        }
+    }
+
+    private static FileTreeNode buildTree(List<FileItem> items, List<FileTreeNode> leaves) {
+        FileTreeNode root = new FileTreeNode(null);
+        Map<String, FileTreeNode> folders = new HashMap<>();
+        folders.put("/", root);
+        for (FileItem item : items) {
+            FileTreeNode node = new FileTreeNode(item);
+            FileTreeNode parent = folders.get(item.getParentPath());
+            (parent != null ? parent : root).addChild(node);
+            if (item.isFolder()) {
+                folders.put(item.getPath(), node);
+            } else if (leaves != null) {
+                leaves.add(node);
+            }
+        }
+        return root;
+    }
+}
@@ -0,0 +1,61 @@
+package com.collab.productivity.benchmark;
+
+import com.collab.productivity.utils.Converters;
+import com.collab.productivity.utils.FileFormatters;
+import java.util.Date;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-row formatting done while binding the file lists, and Room's date conversion
+ */
+@State(Scope.Benchmark)
+public class FormattersBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private long[] sizes;
+    private Date[] dates;
+    private Long[] timestamps;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        sizes = new long[size];
+        dates = new Date[size];
+        timestamps = new Long[size];
+        for (int i = 0; i < size; i++) {
+            // Spread sizes over B to GB so every unit branch is exercised
+            sizes[i] = (long) Math.pow(2, random.nextInt(32)) + random.nextInt(1024);
+            dates[i] = new Date(1_700_000_000_000L + i * 60_000L);
+            timestamps[i] = dates[i].getTime();
+        }
+    }
+
+    @Benchmark
+    public void formatFileSize(Blackhole blackhole) {
+        for (long value : sizes) {
+            blackhole.consume(FileFormatters.formatFileSize(value));
+        }
+    }
+
+    @Benchmark
+    public void formatDate(Blackhole blackhole) {
+        for (Date date : dates) {
+            blackhole.consume(FileFormatters.formatDate(date));
+        }
+    }
+
+    @Benchmark
+    public void convertDates(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(Converters.dateToTimestamp(dates[i]));
+            blackhole.consume(Converters.fromTimestamp(timestamps[i]));
+        }
+    }
+}
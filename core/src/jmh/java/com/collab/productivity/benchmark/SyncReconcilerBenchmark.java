@@ -0,0 +1,52 @@
+package com.collab.productivity.benchmark;
+
+import com.collab.productivity.data.model.FileItem;
+import com.collab.productivity.data.sync.FileItemMapper;
+import com.collab.productivity.data.sync.SyncReconciler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Planning a sync where half the remote items are new and a quarter changed
+ */
+@State(Scope.Benchmark)
+public class SyncReconcilerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<Map<String, Object>> documents;
+    private List<SyncReconciler.LocalRow> localRows;
+    private List<FileItem> remote;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        documents = BenchmarkData.firestoreDocuments(size);
+        localRows = BenchmarkData.localRows(mapAll());
+    }
+
+    // plan() mutates the items it updates, so each invocation gets a fresh copy
+    @Setup(Level.Invocation)
+    public void mapRemote() {
+        remote = mapAll();
+    }
+
+    @Benchmark
+    public SyncReconciler.SyncPlan plan() {
+        return SyncReconciler.plan(remote, localRows);
+    }
+
+    private List<FileItem> mapAll() {
+        List<FileItem> items = new ArrayList<>(documents.size());
+        for (Map<String, Object> data : documents) {
+            items.add(FileItemMapper.fromMap(data, FileItemMapper.PLAIN_DATES));
+        }
+        return items;
+    }
+}
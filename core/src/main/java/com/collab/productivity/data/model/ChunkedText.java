@@ -0,0 +1,304 @@
+package com.collab.productivity.data.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ChunkedText - The text of a note as a list of chunks of a few KB, each stored as
+ * one {@link NoteChunk} row. An edit rewrites only the chunks it falls in, and
+ * {@link #takeChanges()} hands over just those, so appending to or saving a
+ * multi-MB note costs the size of the edit rather than of the note.
+ *
+ * Chunks grow and shrink with edits. One that grows past twice the target length is
+ * split, and one that shrinks below a quarter of it is merged into a neighbour.
+ * Surrogate pairs are never split between chunks, since each chunk is stored as text
+ * on its own. Not thread-safe.
+ */
+public class ChunkedText {
+    public static final int TARGET_CHUNK_LENGTH = 8 * 1024;
+    static final int MAX_CHUNK_LENGTH = 2 * TARGET_CHUNK_LENGTH;
+    static final int MIN_CHUNK_LENGTH = TARGET_CHUNK_LENGTH / 4;
+    static final long POSITION_GAP = 1L << 20;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    // Stored chunks merged away or emptied since the last takeChanges()
+    private final List<Integer> removedIds = new ArrayList<>();
+    private int length;
+    private int nextChunkId;
+
+    private ChunkedText() {
+    }
+
+    /**
+     * Text that has not been stored as chunks yet, so every chunk counts as changed
+     */
+    public static ChunkedText of(String text) {
+        ChunkedText document = new ChunkedText();
+        document.chunks.add(document.newChunk(POSITION_GAP, ""));
+        document.replace(0, 0, text != null ? text : "");
+        return document;
+    }
+
+    /**
+     * Text as stored, chunks in position order
+     */
+    public static ChunkedText fromChunks(List<NoteChunk> stored) {
+        ChunkedText document = new ChunkedText();
+        for (NoteChunk row : stored) {
+            Chunk chunk = new Chunk(row.chunkId, row.position, row.text != null ? row.text : "");
+            chunk.stored = true;
+            document.chunks.add(chunk);
+            document.length += chunk.text.length();
+            document.nextChunkId = Math.max(document.nextChunkId, row.chunkId + 1);
+        }
+        if (document.chunks.isEmpty()) {
+            document.chunks.add(document.newChunk(POSITION_GAP, ""));
+        }
+        return document;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    public void append(CharSequence text) {
+        replace(length, length, text);
+    }
+
+    /**
+     * Replace the characters from start to end with the given text
+     */
+    public void replace(int start, int end, CharSequence text) {
+        if (start < 0 || end < start || end > length) {
+            throw new IndexOutOfBoundsException("replace " + start + ".." + end + " of " + length);
+        }
+        if (start == end && text.length() == 0) {
+            return;
+        }
+
+        // An edit at a boundary goes into the later chunk, except at the very end
+        int first = 0;
+        int chunkStart = 0;
+        while (first < chunks.size() - 1 && chunkStart + chunks.get(first).text.length() <= start) {
+            chunkStart += chunks.get(first).text.length();
+            first++;
+        }
+        int offset = start - chunkStart;
+
+        int last = first;
+        int from = offset;
+        for (int remaining = end - start; remaining > 0; last++, from = 0) {
+            Chunk chunk = chunks.get(last);
+            int count = Math.min(remaining, chunk.text.length() - from);
+            chunk.text.delete(from, from + count);
+            chunk.dirty = true;
+            remaining -= count;
+        }
+        last = Math.max(first, last - 1);
+
+        Chunk target = chunks.get(first);
+        target.text.insert(offset, text);
+        target.dirty = true;
+        length += text.length() - (end - start);
+        rebalance(first, last);
+    }
+
+    /**
+     * The chunks written and removed since the last call, which from then on count as stored
+     */
+    public Changes takeChanges() {
+        List<NoteChunk> written = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            if (chunk.dirty) {
+                written.add(new NoteChunk(chunk.id, chunk.position, chunk.text.toString()));
+                chunk.dirty = false;
+                chunk.stored = true;
+            }
+        }
+        Changes changes = new Changes(written, new ArrayList<>(removedIds));
+        removedIds.clear();
+        return changes;
+    }
+
+    /**
+     * Up to maxLength characters from the start, without splitting a surrogate pair
+     */
+    public String head(int maxLength) {
+        StringBuilder head = new StringBuilder(Math.min(maxLength, length));
+        for (Chunk chunk : chunks) {
+            if (head.length() >= maxLength) {
+                break;
+            }
+            head.append(chunk.text, 0, Math.min(chunk.text.length(), maxLength - head.length()));
+        }
+        head.setLength(safeCut(head, head.length(), length > head.length()));
+        return head.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(length);
+        for (Chunk chunk : chunks) {
+            text.append(chunk.text);
+        }
+        return text.toString();
+    }
+
+    private void rebalance(int first, int last) {
+        for (int i = first; i <= last; i++) {
+            Chunk chunk = chunks.get(i);
+            if (chunk.text.length() > MAX_CHUNK_LENGTH) {
+                int cut = safeCut(chunk.text, TARGET_CHUNK_LENGTH, true);
+                List<String> pieces = pieces(chunk.text.substring(cut));
+                chunk.text.setLength(cut);
+                insertAfter(i, pieces);
+                i += pieces.size();
+                last += pieces.size();
+            }
+        }
+
+        // Backwards, so removing a chunk never shifts one still to be visited
+        for (int i = Math.min(last + 1, chunks.size() - 1); i >= Math.max(first - 1, 0) && chunks.size() > 1; i--) {
+            Chunk chunk = chunks.get(i);
+            int size = chunk.text.length();
+            if (size == 0) {
+                remove(i);
+            } else if (size < MIN_CHUNK_LENGTH) {
+                if (i + 1 < chunks.size() && size + chunks.get(i + 1).text.length() <= MAX_CHUNK_LENGTH) {
+                    chunk.text.append(chunks.get(i + 1).text);
+                    chunk.dirty = true;
+                    remove(i + 1);
+                } else if (i > 0 && chunks.get(i - 1).text.length() + size <= MAX_CHUNK_LENGTH) {
+                    Chunk previous = chunks.get(i - 1);
+                    previous.text.append(chunk.text);
+                    previous.dirty = true;
+                    remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Text cut into pieces of the target length, the last one possibly shorter
+     */
+    private static List<String> pieces(String text) {
+        List<String> pieces = new ArrayList<>(text.length() / TARGET_CHUNK_LENGTH + 1);
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + TARGET_CHUNK_LENGTH);
+            end = safeCut(text, end, end < text.length());
+            pieces.add(text.substring(start, end));
+            start = end;
+        }
+        return pieces;
+    }
+
+    /**
+     * Move a cut back by one if it would separate a surrogate pair
+     */
+    private static int safeCut(CharSequence text, int cut, boolean moreFollows) {
+        if (cut > 0 && moreFollows && Character.isHighSurrogate(text.charAt(cut - 1))) {
+            return cut - 1;
+        }
+        return cut;
+    }
+
+    private void insertAfter(int index, List<String> pieces) {
+        long before = chunks.get(index).position;
+        long after = index + 1 < chunks.size() ? chunks.get(index + 1).position : before + POSITION_GAP * (pieces.size() + 1);
+        long step = (after - before) / (pieces.size() + 1);
+        if (step == 0) {
+            renumber();
+            insertAfter(index, pieces);
+            return;
+        }
+        for (int i = 0; i < pieces.size(); i++) {
+            chunks.add(index + 1 + i, newChunk(before + step * (i + 1), pieces.get(i)));
+        }
+    }
+
+    /**
+     * Space positions out again once splits have used up the gap somewhere
+     */
+    private void renumber() {
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            long position = POSITION_GAP * (i + 1);
+            if (chunk.position != position) {
+                chunk.position = position;
+                chunk.dirty = true;
+            }
+        }
+    }
+
+    private void remove(int index) {
+        Chunk chunk = chunks.remove(index);
+        if (chunk.stored) {
+            removedIds.add(chunk.id);
+        }
+    }
+
+    private Chunk newChunk(long position, String text) {
+        Chunk chunk = new Chunk(nextChunkId++, position, text);
+        chunk.dirty = true;
+        return chunk;
+    }
+
+    private static final class Chunk {
+        final int id;
+        long position;
+        final StringBuilder text;
+        boolean dirty;
+        boolean stored;
+
+        Chunk(int id, long position, String text) {
+            this.id = id;
+            this.position = position;
+            this.text = new StringBuilder(text);
+        }
+    }
+
+    /**
+     * Chunk rows to insert or replace and chunk ids to delete
+     */
+    public static final class Changes {
+        public final List<NoteChunk> written;
+        public final List<Integer> removedIds;
+
+        Changes(List<NoteChunk> written, List<Integer> removedIds) {
+            this.written = written;
+            this.removedIds = removedIds;
+        }
+
+        public boolean isEmpty() {
+            return written.isEmpty() && removedIds.isEmpty();
+        }
+
+        /**
+         * These changes applied on top of older ones not yet saved, as one set
+         */
+        public Changes after(Changes older) {
+            Map<Integer, NoteChunk> rows = new LinkedHashMap<>();
+            for (NoteChunk row : older.written) {
+                rows.put(row.chunkId, row);
+            }
+            Set<Integer> removed = new LinkedHashSet<>(older.removedIds);
+            for (Integer id : removedIds) {
+                rows.remove(id);
+                removed.add(id);
+            }
+            for (NoteChunk row : written) {
+                rows.put(row.chunkId, row);
+            }
+            return new Changes(new ArrayList<>(rows.values()), new ArrayList<>(removed));
+        }
+    }
+}
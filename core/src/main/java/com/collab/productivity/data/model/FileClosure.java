@@ -0,0 +1,25 @@
+package com.collab.productivity.data.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * FileClosure - One ancestor/descendant pair of the folder hierarchy, including each
+ * item paired with itself at depth 0. Kept current by SQLite triggers on the files
+ * table (see FileClosureSchema), so subtree and ancestor queries are single index lookups.
+ */
+@Entity(tableName = "file_closure",
+        primaryKeys = {"ancestor_id", "descendant_id"},
+        indices = {@Index("descendant_id"), @Index({"ancestor_id", "depth"})})
+public class FileClosure {
+    @ColumnInfo(name = "ancestor_id")
+    public long ancestorId;
+
+    @ColumnInfo(name = "descendant_id")
+    public long descendantId;
+
+    /** Levels between the two; 1 for a direct child */
+    @ColumnInfo(name = "depth")
+    public int depth;
+}
@@ -1,11 +1,13 @@
 package com.collab.productivity.data.model;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
 import java.util.Date;
 
-@Entity(tableName = "files")
+// Folder listings and details look children up by parent
+@Entity(tableName = "files", indices = {@Index("parent_folder_id")})
 public class FileItem {
     @PrimaryKey(autoGenerate = true)
     private long id;
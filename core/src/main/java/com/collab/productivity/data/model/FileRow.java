@@ -0,0 +1,126 @@
+package com.collab.productivity.data.model;
+
+import com.collab.productivity.utils.FileFormatters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * FileRow - What one row of a file list shows, with the size and date already
+ * formatted so binding a row only assigns fields. Built off the main thread by
+ * a {@link Factory} when a new listing arrives.
+ */
+public final class FileRow {
+    public static final String PARENT_NAME = "..";
+
+    private final FileItem item;
+    private final long id;
+    private final String name;
+    private final String details;
+    private final String description;
+    private final boolean folder;
+    private final boolean parentEntry;
+
+    private FileRow(FileItem item, String details) {
+        this.item = item;
+        this.id = item.getId();
+        this.name = item.getName();
+        this.details = details;
+        String description = item.getDescription();
+        this.description = description != null && !description.isEmpty() ? description : null;
+        this.folder = item.isFolder();
+        this.parentEntry = PARENT_NAME.equals(name);
+    }
+
+    /**
+     * The item this row was built from, for click handling
+     */
+    public FileItem getItem() { return item; }
+    public long getId() { return id; }
+    public String getName() { return name; }
+    public String getDetails() { return details; }
+    /** Null when the item has no description */
+    public String getDescription() { return description; }
+    public boolean isFolder() { return folder; }
+    public boolean isParentEntry() { return parentEntry; }
+
+    /**
+     * Modification time of the item, identifying which version of it the row shows
+     */
+    public long getVersion() {
+        return item.getModifiedAt() != null ? item.getModifiedAt().getTime() : 0;
+    }
+
+    /**
+     * True if the row still shows what the item holds
+     */
+    boolean isCurrentFor(FileItem other) {
+        return id == other.getId()
+            && folder == other.isFolder()
+            && item.getSize() == other.getSize()
+            && Objects.equals(item.getModifiedAt(), other.getModifiedAt())
+            && Objects.equals(name, other.getName())
+            && Objects.equals(item.getDescription(), other.getDescription());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FileRow)) return false;
+        FileRow other = (FileRow) o;
+        return id == other.id && folder == other.folder
+            && Objects.equals(name, other.name)
+            && Objects.equals(details, other.details)
+            && Objects.equals(description, other.description);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, details);
+    }
+
+    /**
+     * Builds rows for successive listings of one list, reusing the formatted strings of
+     * every item whose displayed fields have not changed since the previous listing.
+     * Rows always wrap the latest item, since fields that are not displayed, such as the
+     * parent or Firestore id, can change without touching modifiedAt. Not thread safe;
+     * use it from a single background thread.
+     */
+    public static final class Factory {
+        private final String folderLabel;
+        private final String parentLabel;
+        private Map<Long, FileRow> previous = new HashMap<>();
+
+        /**
+         * @param folderLabel details text shown in place of a size for folders
+         * @param parentLabel details text of the ".." parent navigation row
+         */
+        public Factory(String folderLabel, String parentLabel) {
+            this.folderLabel = folderLabel;
+            this.parentLabel = parentLabel;
+        }
+
+        public List<FileRow> build(List<FileItem> items) {
+            List<FileRow> rows = new ArrayList<>(items.size());
+            Map<Long, FileRow> current = new HashMap<>(items.size() * 2);
+            for (FileItem item : items) {
+                FileRow row = previous.get(item.getId());
+                row = row != null && row.isCurrentFor(item) ? new FileRow(item, row.details) : create(item);
+                rows.add(row);
+                current.put(row.id, row);
+            }
+            previous = current;
+            return rows;
+        }
+
+        private FileRow create(FileItem item) {
+            if (PARENT_NAME.equals(item.getName())) {
+                return new FileRow(item, parentLabel);
+            }
+            String size = item.isFolder() ? folderLabel : FileFormatters.formatFileSize(item.getSize());
+            return new FileRow(item, size + " \u2022 " + FileFormatters.formatDate(item.getModifiedAt()));
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.collab.productivity.data.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FileTreeIndex - In-memory copy of the folder tree, seeded once from the database and
+ * then kept current by applying each insert, update, move and delete as it is written.
+ * Looking up an item by id or path, listing a folder and resolving a folder's full path
+ * or breadcrumbs never touch the database.
+ *
+ * Children are kept in listing order (folders first, then by name) and full paths are
+ * cached on the nodes until a rename or move above them. Items whose parent folder is
+ * not in the index wait until it arrives; like orphaned rows in the database they are
+ * not reachable from the root meanwhile.
+ *
+ * All methods lock the index, so it can be read from the main thread while repository
+ * threads update it.
+ */
+public class FileTreeIndex {
+    private final FileTreeNode root = new FileTreeNode(null);
+    private final Map<Long, FileTreeNode> byId = new HashMap<>();
+    private final Map<String, FileTreeNode> byPath = new HashMap<>();
+    // Nodes whose parent folder is not in the index, keyed by that folder's id
+    private final Map<Long, List<FileTreeNode>> waiting = new HashMap<>();
+
+    private boolean seeded;
+    // While a seed query runs, the latest change per id (null for a delete) to replay over it
+    private Map<Long, FileItem> changedWhileSeeding;
+
+    public synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Claim the seeding of the index. Returns false if it is already seeded or being
+     * seeded; otherwise the caller must load every item and pass it to {@link #seed},
+     * or call {@link #abortSeed} if loading fails.
+     */
+    public synchronized boolean beginSeed() {
+        if (seeded || changedWhileSeeding != null) {
+            return false;
+        }
+        changedWhileSeeding = new LinkedHashMap<>();
+        return true;
+    }
+
+    public synchronized void abortSeed() {
+        changedWhileSeeding = null;
+    }
+
+    /**
+     * Replace the contents of the index with the given items, then reapply any change
+     * made since {@link #beginSeed}, which the items may or may not include
+     */
+    public synchronized void seed(List<FileItem> items) {
+        root.getChildren().clear();
+        byId.clear();
+        byPath.clear();
+        waiting.clear();
+
+        for (FileItem item : items) {
+            byId.put(item.getId(), new FileTreeNode(item));
+        }
+        for (FileTreeNode node : byId.values()) {
+            Long parentId = node.getParentId();
+            FileTreeNode parent = parentId == null ? root : byId.get(parentId);
+            if (parent == null || isInside(parent, node)) {
+                waitFor(parentId, node);
+            } else {
+                parent.addChild(node);
+            }
+        }
+        // Sort each folder once rather than inserting in order
+        for (FileTreeNode node : byId.values()) {
+            node.getChildren().sort(FileTreeNode.LISTING_ORDER);
+        }
+        root.getChildren().sort(FileTreeNode.LISTING_ORDER);
+        for (FileTreeNode node : root.getChildren()) {
+            addPaths(node);
+        }
+
+        Map<Long, FileItem> changes = changedWhileSeeding;
+        changedWhileSeeding = null;
+        seeded = true;
+        if (changes != null) {
+            for (Map.Entry<Long, FileItem> change : changes.entrySet()) {
+                if (change.getValue() != null) {
+                    upsert(change.getValue());
+                } else {
+                    remove(change.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Add an item, or apply its new name, parent and other fields if it is already indexed
+     */
+    public synchronized void upsert(FileItem item) {
+        if (!record(item.getId(), item)) {
+            return;
+        }
+        FileTreeNode node = byId.get(item.getId());
+        if (node == null) {
+            node = new FileTreeNode(item);
+            byId.put(item.getId(), node);
+            List<FileTreeNode> children = waiting.remove(item.getId());
+            if (children != null) {
+                for (FileTreeNode child : children) {
+                    node.addChildSorted(child);
+                }
+            }
+            attach(node);
+        } else if (node.isMovedBy(item) || node.isRenamedBy(item)) {
+            detach(node);
+            node.setItem(item);
+            attach(node);
+        } else {
+            node.setItem(item);
+        }
+    }
+
+    public synchronized void upsertAll(Collection<FileItem> items) {
+        for (FileItem item : items) {
+            upsert(item);
+        }
+    }
+
+    /**
+     * Move an indexed item under another folder, or to the root when newParentId is null
+     */
+    public synchronized void move(long id, Long newParentId) {
+        FileTreeNode node = byId.get(id);
+        if (node != null) {
+            node.getItem().setParentFolderId(newParentId);
+            upsert(node.getItem());
+        }
+    }
+
+    /**
+     * Remove an item and everything below it
+     */
+    public synchronized void remove(long id) {
+        if (!record(id, null)) {
+            return;
+        }
+        FileTreeNode node = byId.get(id);
+        if (node == null) {
+            return;
+        }
+        detach(node);
+        Deque<FileTreeNode> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            FileTreeNode next = pending.pop();
+            byId.remove(next.getItem().getId());
+            for (FileTreeNode child : next.getChildren()) {
+                pending.push(child);
+            }
+        }
+    }
+
+    public synchronized FileItem get(long id) {
+        FileTreeNode node = byId.get(id);
+        return node != null ? node.getItem() : null;
+    }
+
+    /**
+     * The item at a full path such as "/docs/report.pdf", or null
+     */
+    public synchronized FileItem findByPath(String path) {
+        FileTreeNode node = byPath.get(path);
+        if (node == null) {
+            node = walk(path);
+            if (node != null) {
+                byPath.put(path, node);
+            }
+        }
+        return node != null ? node.getItem() : null;
+    }
+
+    /**
+     * Full path of an item reachable from the root, or null
+     */
+    public synchronized String getFullPath(long id) {
+        FileTreeNode node = byId.get(id);
+        return node != null && isReachable(node) ? node.getFullPath() : null;
+    }
+
+    /**
+     * Items directly inside a folder, or the root when folderId is null, in listing
+     * order. Null if the folder is not indexed.
+     */
+    public synchronized List<FileItem> getChildren(Long folderId) {
+        FileTreeNode folder = folderId == null ? root : byId.get(folderId);
+        if (folder == null) {
+            return null;
+        }
+        List<FileItem> items = new ArrayList<>(folder.getChildren().size());
+        for (FileTreeNode child : folder.getChildren()) {
+            items.add(child.getItem());
+        }
+        return items;
+    }
+
+    /**
+     * The folders from the top level down to and including the given item, or null if
+     * the item is not reachable from the root
+     */
+    public synchronized List<FileItem> getBreadcrumbs(long id) {
+        FileTreeNode node = byId.get(id);
+        if (node == null || !isReachable(node)) {
+            return null;
+        }
+        List<FileItem> crumbs = new ArrayList<>();
+        for (FileTreeNode step = node; step != root; step = step.getParent()) {
+            crumbs.add(step.getItem());
+        }
+        Collections.reverse(crumbs);
+        return crumbs;
+    }
+
+    /**
+     * Folders reachable from the root, each followed by its subfolders in listing order,
+     * leaving out an item's own subtree so the result lists where it can be moved to
+     */
+    public synchronized List<FileItem> getFoldersOutside(long excludedId) {
+        List<FileItem> folders = new ArrayList<>();
+        Deque<FileTreeNode> pending = new ArrayDeque<>();
+        pushFolders(root, pending);
+        while (!pending.isEmpty()) {
+            FileTreeNode next = pending.pop();
+            if (next.getItem().getId() == excludedId) {
+                continue;
+            }
+            folders.add(next.getItem());
+            pushFolders(next, pending);
+        }
+        return folders;
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * Note a change for replay if a seed is running. Returns false if the change should
+     * be ignored because seeding has not begun, as the seed will read it from the database.
+     */
+    private boolean record(long id, FileItem item) {
+        if (changedWhileSeeding != null) {
+            // Re-insert so replay follows the order of the latest changes
+            changedWhileSeeding.remove(id);
+            changedWhileSeeding.put(id, item);
+            return true;
+        }
+        return seeded;
+    }
+
+    /**
+     * Place a detached node under its parent, or make it wait if the parent is missing
+     * or the move would put a folder inside itself
+     */
+    private void attach(FileTreeNode node) {
+        Long parentId = node.getParentId();
+        FileTreeNode parent = parentId == null ? root : byId.get(parentId);
+        if (parent == null || isInside(parent, node)) {
+            waitFor(parentId, node);
+            return;
+        }
+        parent.addChildSorted(node);
+        if (isReachable(parent)) {
+            addPaths(node);
+        }
+    }
+
+    private void detach(FileTreeNode node) {
+        FileTreeNode parent = node.getParent();
+        if (parent == null) {
+            List<FileTreeNode> siblings = waiting.get(node.getParentId());
+            if (siblings != null) {
+                siblings.remove(node);
+                if (siblings.isEmpty()) {
+                    waiting.remove(node.getParentId());
+                }
+            }
+            return;
+        }
+        if (isReachable(node)) {
+            removePaths(node);
+        }
+        parent.removeChild(node);
+    }
+
+    private static void pushFolders(FileTreeNode node, Deque<FileTreeNode> pending) {
+        List<FileTreeNode> children = node.getChildren();
+        // Folders sort first, so stop at the first file; push in reverse to pop in order
+        int folders = 0;
+        while (folders < children.size() && children.get(folders).getItem().isFolder()) {
+            folders++;
+        }
+        for (int i = folders - 1; i >= 0; i--) {
+            pending.push(children.get(i));
+        }
+    }
+
+    private void waitFor(Long parentId, FileTreeNode node) {
+        List<FileTreeNode> siblings = waiting.get(parentId);
+        if (siblings == null) {
+            siblings = new ArrayList<>();
+            waiting.put(parentId, siblings);
+        }
+        siblings.add(node);
+    }
+
+    /**
+     * True if the candidate is the folder itself or below it. Rows whose parents form a
+     * loop are left waiting, so the tree itself never contains one.
+     */
+    private static boolean isInside(FileTreeNode candidate, FileTreeNode folder) {
+        for (FileTreeNode step = candidate; step != null; step = step.getParent()) {
+            if (step == folder) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isReachable(FileTreeNode node) {
+        FileTreeNode step = node;
+        while (step.getParent() != null) {
+            step = step.getParent();
+        }
+        return step == root;
+    }
+
+    /**
+     * Resolve a path one name at a time. Only needed when items share a path and the
+     * one the map pointed at was removed.
+     */
+    private FileTreeNode walk(String path) {
+        if (path == null || !path.startsWith("/")) {
+            return null;
+        }
+        return walk(root, path.substring(1).split("/", -1), 0);
+    }
+
+    private static FileTreeNode walk(FileTreeNode node, String[] names, int depth) {
+        if (depth == names.length) {
+            return node;
+        }
+        // Siblings can share a name, so try each match
+        for (FileTreeNode child : node.getChildren()) {
+            if (names[depth].equals(child.getName())) {
+                FileTreeNode found = walk(child, names, depth + 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void addPaths(FileTreeNode node) {
+        byPath.put(node.getFullPath(), node);
+        for (FileTreeNode child : node.getChildren()) {
+            addPaths(child);
+        }
+    }
+
+    private void removePaths(FileTreeNode node) {
+        // Two items can share a path; only drop the entry if it is this node's
+        byPath.remove(node.getFullPath(), node);
+        for (FileTreeNode child : node.getChildren()) {
+            removePaths(child);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.collab.productivity.data.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+public class FileTreeNode {
+    /** Folders first, then by name ignoring case, matching the DAO's sorted listings */
+    static final Comparator<FileTreeNode> LISTING_ORDER = (a, b) -> {
+        if (a.folder != b.folder) {
+            return a.folder ? -1 : 1;
+        }
+        int byName = String.CASE_INSENSITIVE_ORDER.compare(a.name, b.name);
+        return byName != 0 ? byName : Long.compare(a.item.getId(), b.item.getId());
+    };
+
+    private FileItem item;
+    private List<FileTreeNode> children;
+    private FileTreeNode parent;
+    // Name, kind and parent as of the last setItem; items are mutable and shared with
+    // the UI, so ordering and paths must not change until the node is updated
+    private String name;
+    private boolean folder;
+    private Long parentId;
+    private String fullPath;
+
+    public FileTreeNode(FileItem item) {
+        this.children = new ArrayList<>();
+        setItem(item);
+    }
+
+    public void addChild(FileTreeNode child) {
+        children.add(child);
+        child.setParent(this);
+    }
+
+    public void removeChild(FileTreeNode child) {
+        children.remove(child);
+        child.setParent(null);
+    }
+
+    /**
+     * Insert a child at its {@link #LISTING_ORDER} position, keeping children sorted
+     */
+    void addChildSorted(FileTreeNode child) {
+        int index = Collections.binarySearch(children, child, LISTING_ORDER);
+        children.add(index < 0 ? -index - 1 : index, child);
+        child.setParent(this);
+    }
+
+    public List<FileTreeNode> getChildren() {
+        return children;
+    }
+
+    public FileItem getItem() {
+        return item;
+    }
+
+    void setItem(FileItem item) {
+        this.item = item;
+        this.name = item != null && item.getName() != null ? item.getName() : "";
+        this.folder = item != null && item.isFolder();
+        this.parentId = item != null ? item.getParentFolderId() : null;
+    }
+
+    /**
+     * Name the node is sorted and addressed by
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Parent folder id the node was placed under, which may not be in the tree yet
+     */
+    Long getParentId() {
+        return parentId;
+    }
+
+    /**
+     * True if the item's parent differs from the one the node was placed under
+     */
+    boolean isMovedBy(FileItem other) {
+        return !Objects.equals(parentId, other.getParentFolderId());
+    }
+
+    /**
+     * True if the item's name or kind differs from what the node was sorted by
+     */
+    boolean isRenamedBy(FileItem other) {
+        return folder != other.isFolder() || !name.equals(other.getName() != null ? other.getName() : "");
+    }
+
+    public FileTreeNode getParent() {
+        return parent;
+    }
+
+    public void setParent(FileTreeNode parent) {
+        this.parent = parent;
+        invalidatePath();
+    }
+
+    /**
+     * Full path from the root, cached until this node or an ancestor is moved or renamed
+     */
+    public String getFullPath() {
+        if (fullPath == null) {
+            if (parent == null || parent.getItem() == null) {
+                fullPath = "/" + name;
+            } else {
+                fullPath = parent.getFullPath() + "/" + name;
+            }
+        }
+        return fullPath;
+    }
+
+    /**
+     * Drop the cached path of this node and everything below it
+     */
+    void invalidatePath() {
+        // A cached path implies a cached parent path, except under the item-less root
+        if (fullPath == null && item != null) {
+            return;
+        }
+        fullPath = null;
+        for (FileTreeNode child : children) {
+            child.invalidatePath();
+        }
+    }
+
+    public List<FileItem> getFlattenedList() {
+        List<FileItem> result = new ArrayList<>();
+
+        // Add parent navigation if not root
+        if (parent != null && parent.getItem() != null) {
+            FileItem parentNav = new FileItem(
+                "..",
+                parent.getItem().getPath(),
+                "Parent Directory",
+                null,
+                true
+            );
+            result.add(parentNav);
+        }
+
+        // Add folders first
+        for (FileTreeNode child : children) {
+            if (child.getItem().isFolder()) {
+                result.add(child.getItem());
+            }
+        }
+
+        // Add files second
+        for (FileTreeNode child : children) {
+            if (!child.getItem().isFolder()) {
+                result.add(child.getItem());
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package com.collab.productivity.data.model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FolderRowCache - The first rows of recently prefetched folders, kept within a byte
+ * budget by evicting the least recently used folder first. The root is cached under a
+ * null folder id.
+ *
+ * Rows are only handed out while they still match the start of the folder's current
+ * listing, so an entry never has to be invalidated when a folder changes; it simply
+ * stops being returned and is replaced on the next prefetch.
+ */
+public class FolderRowCache {
+    // Object header, fields and references of a row and its strings, roughly
+    private static final int ROW_OVERHEAD_BYTES = 160;
+
+    private final int maxBytes;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int bytes;
+
+    public FolderRowCache(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Cache the first rows of a folder's listing, evicting older folders to stay within
+     * the budget. Rows larger than the whole budget are not cached.
+     */
+    public synchronized void put(Long folderId, List<FileRow> rows) {
+        int size = estimateBytes(rows);
+        Entry old = entries.remove(folderId);
+        if (old != null) {
+            bytes -= old.bytes;
+        }
+        if (size > maxBytes) {
+            return;
+        }
+        entries.put(folderId, new Entry(rows, size));
+        bytes += size;
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * The cached rows of a folder if they still show the start of its listing, otherwise
+     * null. A stale entry is dropped.
+     */
+    public synchronized List<FileRow> getIfCurrent(Long folderId, List<FileItem> listing) {
+        Entry entry = entries.get(folderId);
+        if (entry == null) {
+            return null;
+        }
+        if (!isPrefixOf(entry.rows, listing)) {
+            entries.remove(folderId);
+            bytes -= entry.bytes;
+            return null;
+        }
+        return entry.rows;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized int sizeInBytes() {
+        return bytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private static boolean isPrefixOf(List<FileRow> rows, List<FileItem> listing) {
+        if (listing == null || rows.size() > listing.size()) {
+            return false;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            FileRow row = rows.get(i);
+            FileItem item = listing.get(i);
+            // The ".." entry is created afresh for each listing, so only its position counts
+            if (row.isParentEntry() ? !FileRow.PARENT_NAME.equals(item.getName()) : !row.isCurrentFor(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int estimateBytes(List<FileRow> rows) {
+        int total = 0;
+        for (FileRow row : rows) {
+            total += ROW_OVERHEAD_BYTES + 2 * (length(row.getName()) + length(row.getDetails())
+                + length(row.getDescription()));
+        }
+        return total;
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+
+    private static final class Entry {
+        final List<FileRow> rows;
+        final int bytes;
+
+        Entry(List<FileRow> rows, int bytes) {
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+}
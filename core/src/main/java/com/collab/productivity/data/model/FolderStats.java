@@ -0,0 +1,24 @@
+package com.collab.productivity.data.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * FolderStats - Recursive item count and byte total of a folder's subtree, kept
+ * current by SQLite triggers on the files table (see FolderStatsSchema)
+ */
+@Entity(tableName = "folder_stats")
+public class FolderStats {
+    @PrimaryKey
+    @ColumnInfo(name = "folder_id")
+    public long folderId;
+
+    /** Files and folders anywhere below the folder */
+    @ColumnInfo(name = "descendant_count")
+    public int descendantCount;
+
+    /** Sum of the sizes of everything below the folder */
+    @ColumnInfo(name = "total_bytes")
+    public long totalBytes;
+}
@@ -0,0 +1,9 @@
+package com.collab.productivity.data.model;
+
+/**
+ * FolderSummary - Number of direct children of a folder and the total size of the files among them
+ */
+public class FolderSummary {
+    public int itemCount;
+    public long totalSize;
+}
@@ -0,0 +1,39 @@
+package com.collab.productivity.data.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+
+/**
+ * NoteChunk - One stored piece of a large note's text. A note's text is its chunks
+ * concatenated in position order; see {@link ChunkedText}.
+ */
+@Entity(tableName = "note_chunks",
+        primaryKeys = {"note_id", "chunk_id"},
+        indices = {@Index({"note_id", "position"})})
+public class NoteChunk {
+    @ColumnInfo(name = "note_id")
+    public long noteId;
+
+    /** Unique within the note and never reused, so a removed chunk can't be mistaken for a new one */
+    @ColumnInfo(name = "chunk_id")
+    public int chunkId;
+
+    /** Sort key, spaced out so a split chunk can be placed between its neighbours */
+    @ColumnInfo(name = "position")
+    public long position;
+
+    @ColumnInfo(name = "text")
+    public String text;
+
+    public NoteChunk() {
+    }
+
+    @Ignore
+    public NoteChunk(int chunkId, long position, String text) {
+        this.chunkId = chunkId;
+        this.position = position;
+        this.text = text;
+    }
+}
@@ -0,0 +1,90 @@
+package com.collab.productivity.data.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * NoteRevision - One saved version of a note's text. A snapshot holds the whole text
+ * compressed; any other revision holds the {@link TextDelta} from the revision before it.
+ * A revision is rebuilt from the latest snapshot at or before it plus the deltas after.
+ */
+@Entity(tableName = "note_revisions",
+        indices = {@Index(value = {"note_id", "revision"}, unique = true)})
+public class NoteRevision {
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @ColumnInfo(name = "note_id")
+    public long noteId;
+
+    /** Numbered from 1 within the note */
+    @ColumnInfo(name = "revision")
+    public int revision;
+
+    @ColumnInfo(name = "created_at")
+    public Date createdAt;
+
+    @ColumnInfo(name = "snapshot")
+    public boolean snapshot;
+
+    /** Length of the text at this revision */
+    @ColumnInfo(name = "length")
+    public int length;
+
+    @ColumnInfo(name = "data")
+    public byte[] data;
+
+    public NoteRevision() {
+    }
+
+    @Ignore
+    public NoteRevision(long noteId, int revision, boolean snapshot, int length, byte[] data) {
+        this.noteId = noteId;
+        this.revision = revision;
+        this.createdAt = new Date();
+        this.snapshot = snapshot;
+        this.length = length;
+        this.data = data;
+    }
+
+    /**
+     * The text at the last revision of a chain starting with a snapshot
+     */
+    public static String rebuild(List<NoteRevision> chain) {
+        if (chain.isEmpty() || !chain.get(0).snapshot) {
+            throw new IllegalArgumentException("A revision chain starts with a snapshot");
+        }
+        List<TextDelta> deltas = new ArrayList<>(chain.size() - 1);
+        for (int i = 1; i < chain.size(); i++) {
+            deltas.add(TextDelta.fromBytes(chain.get(i).data));
+        }
+        return TextDelta.rebuild(TextDelta.decompressText(chain.get(0).data), deltas);
+    }
+
+    /**
+     * What a list of revisions shows, without the stored text
+     */
+    public static class Info {
+        @ColumnInfo(name = "revision")
+        public int revision;
+
+        @ColumnInfo(name = "created_at")
+        public Date createdAt;
+
+        @ColumnInfo(name = "snapshot")
+        public boolean snapshot;
+
+        @ColumnInfo(name = "length")
+        public int length;
+
+        /** Bytes stored for this revision */
+        @ColumnInfo(name = "size")
+        public int size;
+    }
+}
@@ -0,0 +1,440 @@
+package com.collab.productivity.data.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * TextDelta - How to build one version of a text from the previous one, as a list of
+ * ranges copied from the previous version and text inserted between them. Stored
+ * deflated, so a revision costs roughly the size of the edit.
+ *
+ * The diff trims the common start and end, then runs Myers' diff over the lines in
+ * between, so edits at both ends of a large note stay two small inserts. If the lines
+ * differ too much for that to pay off, everything between the common start and end is
+ * stored as one insert.
+ */
+public final class TextDelta {
+    /** Line edits explored before giving up on a line diff */
+    static final int MAX_LINE_EDITS = 256;
+
+    private static final byte OP_COPY = 0;
+    private static final byte OP_INSERT = 1;
+
+    private final List<Op> ops;
+
+    private TextDelta(List<Op> ops) {
+        this.ops = ops;
+    }
+
+    /**
+     * The delta that turns base into target
+     */
+    public static TextDelta diff(String base, String target) {
+        int prefix = 0;
+        int maxPrefix = Math.min(base.length(), target.length());
+        while (prefix < maxPrefix && base.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix
+            && base.charAt(base.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+
+        Builder builder = new Builder();
+        builder.copy(0, prefix);
+        diffLines(base, prefix, base.length() - suffix, target, prefix, target.length() - suffix, builder);
+        builder.copy(base.length() - suffix, suffix);
+        return new TextDelta(builder.build());
+    }
+
+    /**
+     * The text this delta builds from base
+     */
+    public String applyTo(String base) {
+        return rebuild(base, Collections.singletonList(this));
+    }
+
+    /**
+     * Apply a chain of deltas to a snapshot. Intermediate versions are kept as lists of
+     * pieces of the snapshot and the inserts rather than as strings, so a long chain
+     * costs the number of edits in it, not the length of the text times the chain.
+     */
+    public static String rebuild(String snapshot, List<TextDelta> chain) {
+        List<Piece> pieces = new ArrayList<>();
+        if (!snapshot.isEmpty()) {
+            pieces.add(new Piece(snapshot, 0, snapshot.length()));
+        }
+        for (TextDelta delta : chain) {
+            pieces = delta.applyTo(pieces);
+        }
+        int length = 0;
+        for (Piece piece : pieces) {
+            length += piece.length;
+        }
+        StringBuilder text = new StringBuilder(length);
+        for (Piece piece : pieces) {
+            text.append(piece.source, piece.start, piece.start + piece.length);
+        }
+        return text.toString();
+    }
+
+    private List<Piece> applyTo(List<Piece> previous) {
+        int[] starts = new int[previous.size()];
+        int offset = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            starts[i] = offset;
+            offset += previous.get(i).length;
+        }
+
+        List<Piece> pieces = new ArrayList<>();
+        for (Op op : ops) {
+            if (op.text != null) {
+                add(pieces, new Piece(op.text, 0, op.text.length()));
+                continue;
+            }
+            int index = Arrays.binarySearch(starts, op.start);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            int from = op.start;
+            int remaining = op.length;
+            while (remaining > 0) {
+                Piece piece = previous.get(index);
+                int skip = from - starts[index];
+                int count = Math.min(remaining, piece.length - skip);
+                add(pieces, new Piece(piece.source, piece.start + skip, count));
+                from += count;
+                remaining -= count;
+                index++;
+            }
+        }
+        return pieces;
+    }
+
+    /**
+     * Append a piece, extending the last one instead when it continues it
+     */
+    private static void add(List<Piece> pieces, Piece piece) {
+        if (piece.length == 0) {
+            return;
+        }
+        if (!pieces.isEmpty()) {
+            Piece last = pieces.get(pieces.size() - 1);
+            if (last.source == piece.source && last.start + last.length == piece.start) {
+                pieces.set(pieces.size() - 1, new Piece(last.source, last.start, last.length + piece.length));
+                return;
+            }
+        }
+        pieces.add(piece);
+    }
+
+    /**
+     * Characters this delta inserts, a rough measure of the size of the edit
+     */
+    public int insertedLength() {
+        int length = 0;
+        for (Op op : ops) {
+            if (op.text != null) {
+                length += op.text.length();
+            }
+        }
+        return length;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(ops.size());
+            for (Op op : ops) {
+                if (op.text != null) {
+                    out.writeByte(OP_INSERT);
+                    writeText(out, op.text);
+                } else {
+                    out.writeByte(OP_COPY);
+                    out.writeInt(op.start);
+                    out.writeInt(op.length);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode delta", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static TextDelta fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            int count = in.readInt();
+            List<Op> ops = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.readByte() == OP_INSERT) {
+                    ops.add(new Op(0, 0, readText(in)));
+                } else {
+                    ops.add(new Op(in.readInt(), in.readInt(), null));
+                }
+            }
+            return new TextDelta(ops);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt delta", e);
+        }
+    }
+
+    /**
+     * A whole text deflated, for snapshots
+     */
+    public static byte[] compressText(String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            writeText(out, text);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot compress text", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static String decompressText(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            return readText(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt snapshot", e);
+        }
+    }
+
+    // UTF-16 code units as they are, so a surrogate pair cut by a diff survives the trip
+    // Copied through byte arrays; the (de)compressing streams are slow a byte at a time
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = new byte[text.length() * 2];
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            bytes[2 * i] = (byte) (c >>> 8);
+            bytes[2 * i + 1] = (byte) c;
+        }
+        out.writeInt(text.length());
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        char[] chars = new char[in.readInt()];
+        byte[] bytes = new byte[chars.length * 2];
+        in.readFully(bytes);
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ((bytes[2 * i] & 0xFF) << 8 | (bytes[2 * i + 1] & 0xFF));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Diff base[baseStart, baseEnd) against target[targetStart, targetEnd) line by line
+     */
+    private static void diffLines(String base, int baseStart, int baseEnd, String target, int targetStart,
+                                  int targetEnd, Builder builder) {
+        if (baseStart == baseEnd || targetStart == targetEnd) {
+            builder.insert(target.substring(targetStart, targetEnd));
+            return;
+        }
+        List<Line> a = lines(base, baseStart, baseEnd);
+        List<Line> b = lines(target, targetStart, targetEnd);
+        List<int[]> trace = new ArrayList<>();
+        int edits = shortestEdit(a, b, trace);
+        if (edits < 0) {
+            builder.insert(target.substring(targetStart, targetEnd));
+            return;
+        }
+
+        // Walk the trace back from the end, collecting matched line pairs
+        List<int[]> matches = new ArrayList<>();
+        int x = a.size();
+        int y = b.size();
+        int offset = MAX_LINE_EDITS + 1;
+        for (int d = edits; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            int previousK = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) ? k + 1 : k - 1;
+            int previousX = v[offset + previousK];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                matches.add(new int[]{--x, --y});
+            }
+            x = previousX;
+            y = previousY;
+        }
+        while (x > 0 && y > 0) {
+            matches.add(new int[]{--x, --y});
+        }
+        Collections.reverse(matches);
+
+        int nextTarget = 0;
+        for (int[] match : matches) {
+            for (; nextTarget < match[1]; nextTarget++) {
+                builder.insert(b.get(nextTarget).text());
+            }
+            Line line = a.get(match[0]);
+            builder.copy(line.start, line.end - line.start);
+            nextTarget = match[1] + 1;
+        }
+        for (; nextTarget < b.size(); nextTarget++) {
+            builder.insert(b.get(nextTarget).text());
+        }
+    }
+
+    /**
+     * Myers' greedy shortest edit script, recording the frontier before each step.
+     * Returns the number of edits, or -1 past {@link #MAX_LINE_EDITS}.
+     */
+    private static int shortestEdit(List<Line> a, List<Line> b, List<int[]> trace) {
+        int n = a.size();
+        int m = b.size();
+        int offset = MAX_LINE_EDITS + 1;
+        int[] v = new int[2 * MAX_LINE_EDITS + 3];
+        for (int d = 0; d <= MAX_LINE_EDITS && d <= n + m; d++) {
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                    ? v[offset + k + 1] : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a.get(x).equals(b.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return d;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static List<Line> lines(String text, int start, int end) {
+        List<Line> lines = new ArrayList<>();
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(new Line(text, lineStart, i + 1));
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            lines.add(new Line(text, lineStart, end));
+        }
+        return lines;
+    }
+
+    private static final class Op {
+        final int start;
+        final int length;
+        /** Inserted text, or null for a copy of [start, start + length) */
+        final String text;
+
+        Op(int start, int length, String text) {
+            this.start = start;
+            this.length = length;
+            this.text = text;
+        }
+    }
+
+    /**
+     * A range of the snapshot or of an insert, standing for that part of a version
+     */
+    private static final class Piece {
+        final String source;
+        final int start;
+        final int length;
+
+        Piece(String source, int start, int length) {
+            this.source = source;
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Collects ops, merging adjacent copies and adjacent inserts
+     */
+    private static final class Builder {
+        private final List<Op> ops = new ArrayList<>();
+        private StringBuilder pendingInsert;
+
+        void copy(int start, int length) {
+            if (length == 0) {
+                return;
+            }
+            flushInsert();
+            Op last = ops.isEmpty() ? null : ops.get(ops.size() - 1);
+            if (last != null && last.text == null && last.start + last.length == start) {
+                ops.set(ops.size() - 1, new Op(last.start, last.length + length, null));
+            } else {
+                ops.add(new Op(start, length, null));
+            }
+        }
+
+        void insert(String text) {
+            if (text.isEmpty()) {
+                return;
+            }
+            if (pendingInsert == null) {
+                pendingInsert = new StringBuilder();
+            }
+            pendingInsert.append(text);
+        }
+
+        List<Op> build() {
+            flushInsert();
+            return ops;
+        }
+
+        private void flushInsert() {
+            if (pendingInsert != null) {
+                ops.add(new Op(0, 0, pendingInsert.toString()));
+                pendingInsert = null;
+            }
+        }
+    }
+
+    private static final class Line {
+        final String source;
+        final int start;
+        final int end;
+        private final int hash;
+
+        Line(String source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + source.charAt(i);
+            }
+            this.hash = h;
+        }
+
+        String text() {
+            return source.substring(start, end);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Line)) {
+                return false;
+            }
+            Line line = (Line) other;
+            return hash == line.hash && end - start == line.end - line.start
+                && source.regionMatches(start, line.source, line.start, end - start);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.collab.productivity.data.sync;
+
+import com.collab.productivity.data.model.FileItem;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * FileItemMapper - Converts Firestore file documents into FileItem instances.
+ * Timestamp types are platform specific, so date fields go through a {@link DateAdapter}.
+ */
+public final class FileItemMapper {
+
+    /**
+     * Converts a Firestore date value into a Date
+     */
+    public interface DateAdapter {
+        /**
+         * @return the date, or null if the value type is not supported
+         */
+        Date toDate(Object value);
+    }
+
+    /**
+     * Adapter that only understands java.util.Date values
+     */
+    public static final DateAdapter PLAIN_DATES = value -> value instanceof Date ? (Date) value : null;
+
+    private FileItemMapper() {
+    }
+
+    /**
+     * Convert Firestore map data to FileItem. The parent folder id is left null;
+     * it is a local id and is resolved by {@link SyncReconciler}.
+     */
+    public static FileItem fromMap(Map<String, Object> data, DateAdapter dates) {
+        String name = (String) data.get("name");
+        String path = (String) data.get("path");
+        String description = (String) data.get("description");
+        Boolean isFolder = (Boolean) data.get("isFolder");
+
+        FileItem item = new FileItem(
+            name != null ? name : "",
+            path != null ? path : "",
+            description != null ? description : "",
+            null,
+            isFolder != null ? isFolder : false
+        );
+
+        item.setFirestoreId((String) data.get("firestoreId"));
+        item.setUserId((String) data.get("userId"));
+        item.setParentPath((String) data.get("parentPath"));
+        item.setCloudinaryUrl((String) data.get("cloudinaryUrl"));
+        item.setCloudinaryPublicId((String) data.get("cloudinaryPublicId"));
+        item.setMimeType((String) data.get("mimeType"));
+
+        Object size = data.get("size");
+        if (size != null) {
+            item.setSize(((Number) size).longValue());
+        }
+
+        Object createdAt = data.get("createdAt");
+        if (createdAt != null) {
+            Date date = dates.toDate(createdAt);
+            if (date != null) {
+                item.setCreatedAt(date);
+            }
+        }
+
+        Object modifiedAt = data.get("modifiedAt");
+        if (modifiedAt != null) {
+            Date date = dates.toDate(modifiedAt);
+            if (date != null) {
+                item.setModifiedAt(date);
+            }
+        }
+
+        return item;
+    }
+}
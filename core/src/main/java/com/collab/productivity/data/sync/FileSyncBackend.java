@@ -0,0 +1,20 @@
+package com.collab.productivity.data.sync;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FileSyncBackend - Source of remote file documents for sync. Each document is the
+ * Firestore field map plus its document id under "firestoreId".
+ */
+public interface FileSyncBackend {
+
+    void fetchUserFiles(String userId, Callback callback);
+
+    void fetchGroupFiles(String groupId, Callback callback);
+
+    interface Callback {
+        void onSuccess(List<Map<String, Object>> files);
+        void onError(String error);
+    }
+}
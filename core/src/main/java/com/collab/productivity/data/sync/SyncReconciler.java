@@ -0,0 +1,249 @@
+package com.collab.productivity.data.sync;
+
+import com.collab.productivity.data.model.FileItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SyncReconciler - Decides which Firestore files must be inserted into or updated
+ * in the local database, given the sync-relevant columns of the existing rows.
+ *
+ * This replaces the per-document firestoreId lookup: local rows are loaded once and
+ * matched in memory, unchanged rows are skipped, and the local parent folder id is
+ * kept on update instead of being overwritten with null, unless the remote parent path
+ * shows the file was moved.
+ */
+public final class SyncReconciler {
+
+    /**
+     * Sync-relevant columns of a local files row
+     */
+    public static class LocalRow {
+        public long id;
+        public String firestoreId;
+        public Long parentFolderId;
+        public String path;
+        public String parentPath;
+        public boolean isFolder;
+        public Date modifiedAt;
+        public String groupId;
+
+        public LocalRow() {
+        }
+
+        public LocalRow(long id, String firestoreId, Long parentFolderId, String path, String parentPath,
+                        boolean isFolder, Date modifiedAt, String groupId) {
+            this.id = id;
+            this.firestoreId = firestoreId;
+            this.parentFolderId = parentFolderId;
+            this.path = path;
+            this.parentPath = parentPath;
+            this.isFolder = isFolder;
+            this.modifiedAt = modifiedAt;
+            this.groupId = groupId;
+        }
+    }
+
+    // Parents before children, so inserted folders can be resolved by their children
+    private static final Comparator<FileItem> BY_DEPTH = (a, b) -> {
+        int diff = depth(a.getParentPath()) - depth(b.getParentPath());
+        if (diff != 0) return diff;
+        return Boolean.compare(b.isFolder(), a.isFolder());
+    };
+
+    private SyncReconciler() {
+    }
+
+    /**
+     * Plan the local changes for a list of remote files
+     * @param remote files mapped from Firestore, with groupId already set for group syncs
+     * @param local existing local rows that have a firestoreId, and all local folders
+     */
+    public static SyncPlan plan(List<FileItem> remote, List<LocalRow> local) {
+        Map<String, LocalRow> byFirestoreId = new HashMap<>(local.size() * 2);
+        Map<String, Long> folderIds = new HashMap<>();
+        Map<String, LocalRow> unsyncedFolders = new HashMap<>();
+        for (LocalRow row : local) {
+            if (row.firestoreId != null) {
+                byFirestoreId.put(row.firestoreId, row);
+            }
+            if (row.isFolder && row.path != null) {
+                folderIds.put(folderKey(row.groupId, row.path), row.id);
+                if (row.firestoreId == null) {
+                    unsyncedFolders.put(folderKey(row.groupId, row.path), row);
+                }
+            }
+        }
+
+        SyncPlan plan = new SyncPlan(folderIds);
+        for (FileItem item : remote) {
+            LocalRow existing = item.getFirestoreId() != null ? byFirestoreId.get(item.getFirestoreId()) : null;
+            if (existing == null && item.isFolder() && item.getPath() != null && item.getFirestoreId() != null) {
+                // A folder created here before it was uploaded: take over the local row
+                // rather than inserting a second folder at the same path
+                existing = unsyncedFolders.remove(folderKey(item.getGroupId(), item.getPath()));
+                if (existing != null) {
+                    byFirestoreId.put(item.getFirestoreId(), existing);
+                }
+            }
+            if (existing == null) {
+                plan.inserts.add(item);
+                continue;
+            }
+            if (isUnchanged(existing, item)) {
+                plan.unchanged++;
+                continue;
+            }
+            item.setId(existing.id);
+            if (item.isFolder() && item.getPath() != null) {
+                folderIds.put(folderKey(item.getGroupId(), item.getPath()), existing.id);
+            }
+            plan.updates.add(item);
+        }
+
+        Collections.sort(plan.inserts, BY_DEPTH);
+        for (FileItem item : plan.updates) {
+            LocalRow existing = byFirestoreId.get(item.getFirestoreId());
+            Long parentId;
+            if (isMoved(existing, item)) {
+                // Moved on another device, possibly to the root or into a folder this plan inserts
+                plan.moved.add(existing.id);
+                parentId = plan.resolveParent(item);
+            } else {
+                parentId = existing.parentFolderId != null ? existing.parentFolderId : plan.resolveParent(item);
+            }
+            setParentKeepingModified(item, parentId);
+        }
+        return plan;
+    }
+
+    /**
+     * setParentFolderId bumps modifiedAt, which must keep the remote value
+     */
+    static void setParentKeepingModified(FileItem item, Long parentId) {
+        Date modifiedAt = item.getModifiedAt();
+        item.setParentFolderId(parentId);
+        item.setModifiedAt(modifiedAt);
+    }
+
+    private static boolean isUnchanged(LocalRow row, FileItem item) {
+        return row.modifiedAt != null && row.modifiedAt.equals(item.getModifiedAt())
+            && (row.groupId == null ? item.getGroupId() == null : row.groupId.equals(item.getGroupId()))
+            && !isMoved(row, item);
+    }
+
+    /**
+     * Whether the remote file sits under a different parent path than the local row.
+     * Documents without a parent path say nothing about where the file is.
+     */
+    private static boolean isMoved(LocalRow row, FileItem item) {
+        return item.getParentPath() != null && !item.getParentPath().equals(row.parentPath);
+    }
+
+    /**
+     * Paths are only unique within personal files or within one group, so folders are
+     * looked up by both
+     */
+    static String folderKey(String groupId, String path) {
+        return (groupId != null ? groupId : "") + '\n' + path;
+    }
+
+    static int depth(String path) {
+        if (path == null || path.equals("/")) return 0;
+        int depth = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Result of {@link #plan}: rows to insert in order and rows to update
+     */
+    public static class SyncPlan {
+        final List<FileItem> inserts = new ArrayList<>();
+        final List<FileItem> updates = new ArrayList<>();
+        // Local ids of updates whose parent path changed remotely
+        final Set<Long> moved = new HashSet<>();
+        // Local folder ids by folderKey(groupId, path)
+        private final Map<String, Long> folderIds;
+        int unchanged;
+
+        SyncPlan(Map<String, Long> folderIds) {
+            this.folderIds = folderIds;
+        }
+
+        /**
+         * Files to insert, parents before children. Call {@link #prepareInsert} before
+         * inserting each one and {@link #onInserted} after.
+         */
+        public List<FileItem> getInserts() {
+            return inserts;
+        }
+
+        /**
+         * Files to update, with local id and parent folder id already set. Call
+         * {@link #prepareUpdate} before updating each one, after all inserts.
+         */
+        public List<FileItem> getUpdates() {
+            return updates;
+        }
+
+        public int getUnchangedCount() {
+            return unchanged;
+        }
+
+        public boolean isEmpty() {
+            return inserts.isEmpty() && updates.isEmpty();
+        }
+
+        /**
+         * Local id of the folder in the item's group whose path is the item's parent path,
+         * or null for root
+         */
+        public Long resolveParent(FileItem item) {
+            String parentPath = item.getParentPath();
+            if (parentPath == null || parentPath.equals("/")) return null;
+            return folderIds.get(folderKey(item.getGroupId(), parentPath));
+        }
+
+        /**
+         * Record the id of a newly inserted row so its children can resolve it
+         */
+        public void onInserted(FileItem item, long id) {
+            item.setId(id);
+            if (item.isFolder() && item.getPath() != null) {
+                folderIds.put(folderKey(item.getGroupId(), item.getPath()), id);
+            }
+        }
+
+        /**
+         * Set the parent folder of an insert just before it is written
+         */
+        public void prepareInsert(FileItem item) {
+            setParentKeepingModified(item, resolveParent(item));
+        }
+
+        /**
+         * Re-resolve the parent of an update that was moved remotely, now that the folders
+         * this plan inserts have ids
+         */
+        public void prepareUpdate(FileItem item) {
+            if (moved.contains(item.getId())) {
+                setParentKeepingModified(item, resolveParent(item));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return inserts.size() + " inserts, " + updates.size() + " updates, " + unchanged + " unchanged";
+        }
+    }
+}
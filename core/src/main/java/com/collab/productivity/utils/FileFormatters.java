@@ -0,0 +1,58 @@
+package com.collab.productivity.utils;
+
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * FileFormatters - Size and date formatting shared by the file lists
+ */
+public final class FileFormatters {
+    private static final String[] UNITS = { "B", "KB", "MB", "GB", "TB" };
+
+    // SimpleDateFormat is not thread safe and is expensive to create
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
+        }
+    };
+
+    private static volatile Locale separatorLocale;
+    private static volatile char decimalSeparator;
+
+    private FileFormatters() {
+    }
+
+    /**
+     * Format a byte count as e.g. "1.5 MB". The unit comes from the highest set bit
+     * and the single decimal is rounded in integer arithmetic, avoiding log10, pow and
+     * String.format on every list row.
+     */
+    public static String formatFileSize(long size) {
+        if (size <= 0) return "0 B";
+        int digitGroups = Math.min((63 - Long.numberOfLeadingZeros(size)) / 10, UNITS.length - 1);
+        long tenths = Math.round(size * 10.0 / (1L << (10 * digitGroups)));
+        return new StringBuilder(12)
+            .append(tenths / 10).append(decimalSeparator()).append(tenths % 10)
+            .append(' ').append(UNITS[digitGroups])
+            .toString();
+    }
+
+    /**
+     * Format a date as e.g. "Jan 05, 2024 14:30"
+     */
+    public static String formatDate(Date date) {
+        return date != null ? DATE_FORMAT.get().format(date) : "";
+    }
+
+    private static char decimalSeparator() {
+        Locale locale = Locale.getDefault();
+        if (!locale.equals(separatorLocale)) {
+            decimalSeparator = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator();
+            separatorLocale = locale;
+        }
+        return decimalSeparator;
+    }
+}
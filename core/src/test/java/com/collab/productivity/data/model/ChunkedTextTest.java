@@ -0,0 +1,124 @@
+package com.collab.productivity.data.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class ChunkedTextTest {
+
+    @Test
+    public void editsTouchOnlyTheChunksTheyFallIn() {
+        ChunkedText text = ChunkedText.of(sample(1_000_000, 1));
+        Map<Integer, NoteChunk> stored = new HashMap<>();
+        save(text.takeChanges(), stored);
+        assertTrue(text.chunkCount() > 100);
+
+        text.append(" appended by speech input");
+        ChunkedText.Changes changes = text.takeChanges();
+        assertEquals(1, changes.written.size());
+        assertTrue(changes.removedIds.isEmpty());
+        save(changes, stored);
+
+        text.replace(500_000, 500_010, "x");
+        changes = text.takeChanges();
+        assertEquals(1, changes.written.size());
+        save(changes, stored);
+
+        assertTrue(text.takeChanges().isEmpty());
+        assertEquals(text.toString(), ChunkedText.fromChunks(sorted(stored)).toString());
+    }
+
+    @Test
+    public void randomEditsMatchAStringAndSurviveAStoreRoundTrip() {
+        Random random = new Random(42);
+        StringBuilder expected = new StringBuilder(sample(50_000, 2));
+        ChunkedText text = ChunkedText.of(expected.toString());
+        Map<Integer, NoteChunk> stored = new HashMap<>();
+
+        for (int i = 0; i < 2000; i++) {
+            int start = random.nextInt(expected.length() + 1);
+            int end = Math.min(expected.length(), start + random.nextInt(i % 50 == 0 ? 40_000 : 20));
+            String insert = i % 70 == 0 ? sample(30_000, i) : sample(random.nextInt(8), i);
+            // Keep surrogate pairs whole, as an editor would
+            if (splitsPair(expected, start) || splitsPair(expected, end)) {
+                continue;
+            }
+            expected.replace(start, end, insert);
+            text.replace(start, end, insert);
+            if (i % 100 == 0) {
+                save(text.takeChanges(), stored);
+            }
+        }
+        save(text.takeChanges(), stored);
+
+        assertEquals(expected.length(), text.length());
+        assertEquals(expected.toString(), text.toString());
+        List<NoteChunk> rows = sorted(stored);
+        for (NoteChunk row : rows) {
+            assertFalse(row.text.isEmpty());
+            assertTrue(row.text.length() <= ChunkedText.MAX_CHUNK_LENGTH);
+            assertFalse(Character.isLowSurrogate(row.text.charAt(0)));
+        }
+        assertEquals(expected.toString(), ChunkedText.fromChunks(rows).toString());
+    }
+
+    @Test
+    public void laterChangesReplaceEarlierOnesWhenMerged() {
+        ChunkedText text = ChunkedText.of(sample(40_000, 3));
+        ChunkedText.Changes first = text.takeChanges();
+        text.replace(0, 10, "edited");
+        text.replace(0, 20_000, "");
+        ChunkedText.Changes second = text.takeChanges();
+
+        ChunkedText.Changes merged = second.after(first);
+        Map<Integer, NoteChunk> stored = new HashMap<>();
+        save(merged, stored);
+        assertEquals(text.toString(), ChunkedText.fromChunks(sorted(stored)).toString());
+    }
+
+    private static void save(ChunkedText.Changes changes, Map<Integer, NoteChunk> stored) {
+        for (Integer id : changes.removedIds) {
+            stored.remove(id);
+        }
+        for (NoteChunk row : changes.written) {
+            stored.put(row.chunkId, row);
+        }
+    }
+
+    private static List<NoteChunk> sorted(Map<Integer, NoteChunk> stored) {
+        List<NoteChunk> rows = new ArrayList<>(stored.values());
+        rows.sort(Comparator.comparingLong(row -> row.position));
+        return rows;
+    }
+
+    private static boolean splitsPair(CharSequence text, int index) {
+        return index > 0 && index < text.length() && Character.isLowSurrogate(text.charAt(index));
+    }
+
+    /**
+     * Lines of words with an emoji now and then, so cuts land next to surrogate pairs
+     */
+    private static String sample(int length, int seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(length + 2);
+        while (text.length() < length) {
+            int kind = random.nextInt(20);
+            if (kind == 0) {
+                text.append('\n');
+            } else if (kind == 1) {
+                text.append("😀");
+            } else {
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return text.toString();
+    }
+}
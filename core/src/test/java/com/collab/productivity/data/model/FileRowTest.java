@@ -0,0 +1,66 @@
+package com.collab.productivity.data.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.collab.productivity.utils.FileFormatters;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+
+public class FileRowTest {
+
+    @Test
+    public void formatsDetailsOnce() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+        try {
+            checkDetails();
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    private static void checkDetails() {
+        FileItem file = item(1, "report.pdf", false, 1536, 1000);
+        FileItem folder = item(2, "docs", true, 0, 2000);
+        FileItem parent = item(-1, FileRow.PARENT_NAME, true, 0, 3000);
+
+        List<FileRow> rows = new FileRow.Factory("Folder", "Parent folder")
+            .build(Arrays.asList(parent, folder, file));
+
+        assertTrue(rows.get(0).isParentEntry());
+        assertEquals("Parent folder", rows.get(0).getDetails());
+        assertEquals("Folder \u2022 " + FileFormatters.formatDate(new Date(2000)), rows.get(1).getDetails());
+        assertEquals("1.5 KB \u2022 " + FileFormatters.formatDate(new Date(1000)), rows.get(2).getDetails());
+        assertNull(rows.get(2).getDescription());
+    }
+
+    @Test
+    public void reusesFormattingOfUnchangedItems() {
+        FileRow.Factory factory = new FileRow.Factory("Folder", "Parent folder");
+        List<FileRow> first = factory.build(Arrays.asList(item(1, "a.txt", false, 10, 1000), item(2, "b.txt", false, 20, 1000)));
+
+        // Room hands out fresh objects on every emission
+        List<FileRow> second = factory.build(Arrays.asList(item(1, "a.txt", false, 10, 1000), item(2, "b.txt", false, 20, 5000)));
+
+        assertSame(first.get(0).getDetails(), second.get(0).getDetails());
+        assertEquals(first.get(0), second.get(0));
+        assertNotSame(first.get(0).getItem(), second.get(0).getItem());
+        assertNotSame(first.get(1).getDetails(), second.get(1).getDetails());
+        assertEquals(5000, second.get(1).getItem().getModifiedAt().getTime());
+    }
+
+    private static FileItem item(long id, String name, boolean isFolder, long size, long modified) {
+        FileItem item = new FileItem(name, "/" + name, "", null, isFolder);
+        item.setId(id);
+        item.setSize(size);
+        item.setModifiedAt(new Date(modified));
+        return item;
+    }
+}
@@ -0,0 +1,111 @@
+package com.collab.productivity.data.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class FileTreeIndexTest {
+
+    @Test
+    public void seedsSortedChildrenAndPaths() {
+        FileTreeIndex index = new FileTreeIndex();
+        index.seed(Arrays.asList(
+            item(3, "b.txt", false, 1L),
+            item(1, "docs", true, null),
+            item(4, "A.txt", false, 1L),
+            item(2, "zeta", true, 1L),
+            item(5, "notes.md", false, null)));
+
+        assertEquals(Arrays.asList("docs", "notes.md"), names(index.getChildren(null)));
+        assertEquals(Arrays.asList("zeta", "A.txt", "b.txt"), names(index.getChildren(1L)));
+        assertEquals("/docs/zeta", index.getFullPath(2));
+        assertSame(index.get(3), index.findByPath("/docs/b.txt"));
+        assertEquals(Arrays.asList("docs", "zeta"), names(index.getBreadcrumbs(2)));
+    }
+
+    @Test
+    public void appliesRenamesMovesAndDeletes() {
+        FileTreeIndex index = new FileTreeIndex();
+        index.seed(Arrays.asList(
+            item(1, "docs", true, null),
+            item(2, "inner", true, 1L),
+            item(3, "report.pdf", false, 2L),
+            item(4, "archive", true, null)));
+
+        index.upsert(item(1, "papers", true, null));
+        assertEquals("/papers/inner/report.pdf", index.getFullPath(3));
+        assertNull(index.findByPath("/docs/inner/report.pdf"));
+
+        index.move(2, 4L);
+        assertEquals("/archive/inner/report.pdf", index.getFullPath(3));
+        assertTrue(index.getChildren(1L).isEmpty());
+        assertEquals(Arrays.asList("archive", "inner", "report.pdf"), names(index.getBreadcrumbs(3)));
+
+        // A folder moved inside itself is left unreachable rather than forming a loop
+        index.move(4, 2L);
+        assertNull(index.getFullPath(3));
+
+        index.remove(4);
+        assertNull(index.get(2));
+        assertNull(index.get(3));
+        assertEquals(Arrays.asList("papers"), names(index.getChildren(null)));
+    }
+
+    @Test
+    public void listsFoldersOutsideAnItem() {
+        FileTreeIndex index = new FileTreeIndex();
+        index.seed(Arrays.asList(
+            item(1, "docs", true, null),
+            item(2, "inner", true, 1L),
+            item(3, "deeper", true, 2L),
+            item(4, "archive", true, null),
+            item(5, "report.pdf", false, 1L)));
+
+        assertEquals(Arrays.asList("archive", "docs", "inner", "deeper"), names(index.getFoldersOutside(5)));
+        assertEquals(Arrays.asList("archive", "docs"), names(index.getFoldersOutside(2)));
+    }
+
+    @Test
+    public void childrenWaitForTheirParent() {
+        FileTreeIndex index = new FileTreeIndex();
+        index.seed(new ArrayList<>());
+        index.upsert(item(2, "child.txt", false, 1L));
+        assertNull(index.getFullPath(2));
+
+        index.upsert(item(1, "docs", true, null));
+        assertEquals("/docs/child.txt", index.getFullPath(2));
+    }
+
+    @Test
+    public void replaysChangesMadeWhileSeeding() {
+        FileTreeIndex index = new FileTreeIndex();
+        assertTrue(index.beginSeed());
+        // Written after the seed query read the table
+        index.upsert(item(2, "new.txt", false, 1L));
+        index.remove(3);
+        index.seed(Arrays.asList(item(1, "docs", true, null), item(3, "gone.txt", false, 1L)));
+
+        assertTrue(index.isSeeded());
+        assertEquals(Arrays.asList("new.txt"), names(index.getChildren(1L)));
+    }
+
+    private static List<String> names(List<FileItem> items) {
+        List<String> names = new ArrayList<>();
+        for (FileItem item : items) {
+            names.add(item.getName());
+        }
+        return names;
+    }
+
+    private static FileItem item(long id, String name, boolean isFolder, Long parentId) {
+        FileItem item = new FileItem(name, "/" + name, "", parentId, isFolder);
+        item.setId(id);
+        return item;
+    }
+}
@@ -0,0 +1,60 @@
+package com.collab.productivity.data.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+
+public class FolderRowCacheTest {
+    private final FileRow.Factory factory = new FileRow.Factory("Folder", "Parent folder");
+
+    @Test
+    public void returnsRowsWhileTheyStartTheListing() {
+        FolderRowCache cache = new FolderRowCache(64 * 1024);
+        List<FileItem> listing = Arrays.asList(
+            item(-1, FileRow.PARENT_NAME, 0), item(2, "docs", 2000), item(3, "a.txt", 3000));
+        List<FileRow> rows = factory.build(listing.subList(0, 2));
+        cache.put(1L, rows);
+
+        // A fresh ".." entry and a longer listing still match
+        List<FileItem> relisted = Arrays.asList(
+            item(-1, FileRow.PARENT_NAME, 9000), item(2, "docs", 2000), item(3, "a.txt", 3000));
+        assertSame(rows, cache.getIfCurrent(1L, relisted));
+
+        // An edit to a cached item drops the entry
+        List<FileItem> edited = Arrays.asList(
+            item(-1, FileRow.PARENT_NAME, 0), item(2, "docs", 2500), item(3, "a.txt", 3000));
+        assertNull(cache.getIfCurrent(1L, edited));
+        assertNull(cache.getIfCurrent(1L, relisted));
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFolderOverBudget() {
+        List<FileItem> listing = Arrays.asList(item(2, "docs", 2000), item(3, "a.txt", 3000));
+        List<FileRow> rows = factory.build(listing);
+        int perFolder = FolderRowCache.estimateBytes(rows);
+        FolderRowCache cache = new FolderRowCache(perFolder * 2);
+
+        cache.put(null, rows);
+        cache.put(1L, factory.build(listing));
+        cache.getIfCurrent(null, listing);
+        cache.put(2L, factory.build(listing));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfCurrent(1L, listing));
+        assertSame(rows, cache.getIfCurrent(null, listing));
+        assertEquals(perFolder * 2, cache.sizeInBytes());
+    }
+
+    private static FileItem item(long id, String name, long modified) {
+        FileItem item = new FileItem(name, "/" + name, "", null, !name.contains("."));
+        item.setId(id);
+        item.setModifiedAt(new Date(modified));
+        return item;
+    }
+}
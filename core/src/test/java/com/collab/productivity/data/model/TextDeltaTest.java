@@ -0,0 +1,82 @@
+package com.collab.productivity.data.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TextDeltaTest {
+
+    @Test
+    public void editsAtBothEndsOfALargeTextStaySmall() {
+        String base = lines(20_000, 1);
+        String target = "Added at the top\n" + base.substring(0, 300_000) + "changed in the middle\n" +
+            base.substring(300_000) + "and at the end";
+
+        byte[] delta = TextDelta.diff(base, target).toBytes();
+        assertTrue(delta.length < 200);
+        assertEquals(target, TextDelta.fromBytes(delta).applyTo(base));
+        assertTrue(TextDelta.compressText(target).length > 100 * delta.length);
+    }
+
+    @Test
+    public void randomEditsRoundTripThroughAChain() {
+        Random random = new Random(7);
+        String snapshot = lines(500, 2);
+        String text = snapshot;
+        List<TextDelta> chain = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder edited = new StringBuilder(text);
+            for (int edits = random.nextInt(4); edits >= 0; edits--) {
+                int start = random.nextInt(edited.length() + 1);
+                int end = Math.min(edited.length(), start + random.nextInt(i % 40 == 0 ? 5_000 : 30));
+                edited.replace(start, end, i % 3 == 0 ? "😀\n" + lines(random.nextInt(3), i) : "x");
+            }
+            String next = edited.toString();
+            chain.add(TextDelta.fromBytes(TextDelta.diff(text, next).toBytes()));
+            text = next;
+        }
+        assertEquals(text, TextDelta.rebuild(snapshot, chain));
+        assertEquals(text, TextDelta.decompressText(TextDelta.compressText(text)));
+    }
+
+    @Test
+    public void unrelatedTextsFallBackToOneInsert() {
+        String base = lines(2_000, 3);
+        String target = lines(2_000, 4);
+        TextDelta delta = TextDelta.diff(base, target);
+        assertEquals(target, delta.applyTo(base));
+        assertEquals("", TextDelta.diff("", "").applyTo(""));
+        assertEquals("", TextDelta.diff(base, "").applyTo(base));
+        assertEquals(base, TextDelta.diff("", base).applyTo(""));
+    }
+
+    @Test
+    public void revisionsRebuildFromTheirSnapshot() {
+        String first = lines(100, 5);
+        String second = first + "more\n";
+        String third = "start\n" + second;
+        List<NoteRevision> chain = new ArrayList<>();
+        chain.add(new NoteRevision(1, 1, true, first.length(), TextDelta.compressText(first)));
+        chain.add(new NoteRevision(1, 2, false, second.length(), TextDelta.diff(first, second).toBytes()));
+        chain.add(new NoteRevision(1, 3, false, third.length(), TextDelta.diff(second, third).toBytes()));
+        assertEquals(third, NoteRevision.rebuild(chain));
+        assertEquals(second, NoteRevision.rebuild(chain.subList(0, 2)));
+    }
+
+    private static String lines(int count, int seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int words = 1 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                text.append(w == 0 ? "" : " ").append(Integer.toString(random.nextInt(1 << 20), 36));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.collab.productivity.data.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.collab.productivity.data.model.FileItem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class SyncReconcilerTest {
+
+    @Test
+    public void insertsParentsBeforeChildrenAndResolvesThem() {
+        FileItem child = remote("c", "/a/b/c.txt", "/a/b", false, 3);
+        FileItem folderB = remote("b", "/a/b", "/a", true, 2);
+        FileItem folderA = remote("a", "/a", "/", true, 1);
+
+        SyncReconciler.SyncPlan plan = SyncReconciler.plan(
+            Arrays.asList(child, folderB, folderA), Collections.<SyncReconciler.LocalRow>emptyList());
+
+        assertEquals(Arrays.asList(folderA, folderB, child), plan.getInserts());
+        long nextId = 10;
+        for (FileItem item : plan.getInserts()) {
+            plan.prepareInsert(item);
+            plan.onInserted(item, nextId++);
+        }
+        assertNull(folderA.getParentFolderId());
+        assertEquals(Long.valueOf(10), folderB.getParentFolderId());
+        assertEquals(Long.valueOf(11), child.getParentFolderId());
+        assertEquals(new Date(3000), child.getModifiedAt());
+    }
+
+    @Test
+    public void updateKeepsLocalIdAndParent() {
+        FileItem item = remote("x", "/f/x.txt", "/f", false, 5);
+        List<SyncReconciler.LocalRow> local = new ArrayList<>();
+        local.add(new SyncReconciler.LocalRow(7, "x", 3L, "/f/x.txt", "/f", false, new Date(1000), null));
+
+        SyncReconciler.SyncPlan plan = SyncReconciler.plan(Collections.singletonList(item), local);
+
+        assertEquals(1, plan.getUpdates().size());
+        assertEquals(7, item.getId());
+        assertEquals(Long.valueOf(3), item.getParentFolderId());
+        assertEquals(new Date(5000), item.getModifiedAt());
+    }
+
+    @Test
+    public void updateFollowsARemoteMove() {
+        List<SyncReconciler.LocalRow> local = new ArrayList<>();
+        local.add(new SyncReconciler.LocalRow(3, "f", null, "/f", "/", true, new Date(1000), null));
+        local.add(new SyncReconciler.LocalRow(7, "x", 3L, "/f/x.txt", "/f", false, new Date(1000), null));
+        local.add(new SyncReconciler.LocalRow(8, "y", 3L, "/f/y.txt", "/f", false, new Date(1000), null));
+        // x moved to the root, y into a folder that only exists remotely so far
+        FileItem toRoot = remote("x", "/x.txt", "/", false, 5);
+        FileItem toNewFolder = remote("y", "/g/y.txt", "/g", false, 5);
+        FileItem newFolder = remote("g", "/g", "/", true, 4);
+
+        SyncReconciler.SyncPlan plan = SyncReconciler.plan(Arrays.asList(toRoot, toNewFolder, newFolder), local);
+
+        assertNull(toRoot.getParentFolderId());
+        plan.prepareInsert(newFolder);
+        plan.onInserted(newFolder, 20);
+        plan.prepareUpdate(toNewFolder);
+        assertEquals(Long.valueOf(20), toNewFolder.getParentFolderId());
+        assertEquals(new Date(5000), toNewFolder.getModifiedAt());
+    }
+
+    @Test
+    public void moveAloneIsNotUnchanged() {
+        FileItem item = remote("x", "/g/x.txt", "/g", false, 5);
+        List<SyncReconciler.LocalRow> local = Arrays.asList(
+            new SyncReconciler.LocalRow(4, "g", null, "/g", "/", true, new Date(1000), null),
+            new SyncReconciler.LocalRow(7, "x", null, "/x.txt", "/", false, new Date(5000), null));
+
+        SyncReconciler.SyncPlan plan = SyncReconciler.plan(Collections.singletonList(item), local);
+
+        assertEquals(Collections.singletonList(item), plan.getUpdates());
+        assertEquals(Long.valueOf(4), item.getParentFolderId());
+    }
+
+    @Test
+    public void skipsUnchangedRows() {
+        FileItem item = remote("x", "/x.txt", "/", false, 5);
+        List<SyncReconciler.LocalRow> local = Collections.singletonList(
+            new SyncReconciler.LocalRow(7, "x", null, "/x.txt", "/", false, new Date(5000), null));
+
+        SyncReconciler.SyncPlan plan = SyncReconciler.plan(Collections.singletonList(item), local);
+
+        assertTrue(plan.isEmpty());
+        assertEquals(1, plan.getUnchangedCount());
+    }
+
+    @Test
+    public void resolvesParentsWithinTheirGroup() {
+        List<SyncReconciler.LocalRow> local = new ArrayList<>();
+        local.add(new SyncReconciler.LocalRow(1, "personal", null, "/Docs", "/", true, new Date(1000), null));
+        local.add(new SyncReconciler.LocalRow(2, "group", null, "/Docs", "/", true, new Date(1000), "g1"));
+        // Created offline, never uploaded
+        local.add(new SyncReconciler.LocalRow(3, null, null, "/Local", "/", true, new Date(1000), null));
+        FileItem personalChild = remote("p", "/Docs/p.txt", "/Docs", false, 2);
+        FileItem groupChild = remote("q", "/Docs/q.txt", "/Docs", false, 2);
+        groupChild.setGroupId("g1");
+        FileItem localChild = remote("r", "/Local/r.txt", "/Local", false, 2);
+
+        SyncReconciler.SyncPlan plan = SyncReconciler.plan(
+            Arrays.asList(personalChild, groupChild, localChild), local);
+
+        assertEquals(Long.valueOf(1), plan.resolveParent(personalChild));
+        assertEquals(Long.valueOf(2), plan.resolveParent(groupChild));
+        assertEquals(Long.valueOf(3), plan.resolveParent(localChild));
+    }
+
+    @Test
+    public void remoteFolderTakesOverTheUnsyncedLocalOne() {
+        List<SyncReconciler.LocalRow> local = Collections.singletonList(
+            new SyncReconciler.LocalRow(4, null, null, "/Local", "/", true, new Date(1000), null));
+        FileItem folder = remote("l", "/Local", "/", true, 2);
+
+        SyncReconciler.SyncPlan plan = SyncReconciler.plan(Collections.singletonList(folder), local);
+
+        assertTrue(plan.getInserts().isEmpty());
+        assertEquals(Collections.singletonList(folder), plan.getUpdates());
+        assertEquals(4, folder.getId());
+    }
+
+    @Test
+    public void mapperFillsDefaultsAndDates() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("firestoreId", "doc");
+        data.put("size", 42);
+        data.put("modifiedAt", new Date(1234));
+        data.put("createdAt", "not a date");
+
+        FileItem item = FileItemMapper.fromMap(data, FileItemMapper.PLAIN_DATES);
+
+        assertEquals("", item.getName());
+        assertEquals(42, item.getSize());
+        assertEquals(new Date(1234), item.getModifiedAt());
+        assertNull(item.getParentFolderId());
+    }
+
+    private static FileItem remote(String id, String path, String parentPath, boolean folder, long modifiedSeconds) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("firestoreId", id);
+        data.put("name", id);
+        data.put("path", path);
+        data.put("parentPath", parentPath);
+        data.put("isFolder", folder);
+        data.put("modifiedAt", new Date(modifiedSeconds * 1000));
+        return FileItemMapper.fromMap(data, FileItemMapper.PLAIN_DATES);
+    }
+}
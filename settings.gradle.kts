@@ -16,3 +16,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Notionary"
 include(":app")
+include(":core")
+include(":benchmark")